@@ -0,0 +1,103 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opencv.core.Mat;
+
+import com.shootoff.camera.shot.DisplayShot;
+import com.shootoff.targets.Target;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.paint.Color;
+
+/**
+ * A camera view that only counts shots. Unlike the mock canvas used by the
+ * tests it does not start the JavaFX toolkit, which would otherwise compete
+ * with the code being measured.
+ */
+public class BenchmarkCameraView implements CameraView {
+    private final AtomicInteger shotCount = new AtomicInteger();
+
+    public int getShotCount() {
+        return shotCount.get();
+    }
+
+    @Override
+    public boolean addChild(Node c) {
+        return false;
+    }
+
+    @Override
+    public void addShot(DisplayShot shot, boolean isMirroredShot) {
+        shotCount.incrementAndGet();
+    }
+
+    @Override
+    public Optional<Target> addTarget(File targetFile) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Target> restoreTarget(File targetFile, double x, double y, double w, double h) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Target addTarget(Target newTarget) {
+        return newTarget;
+    }
+
+    @Override
+    public Label addDiagnosticMessage(String message, Color backgroundColor) {
+        return null;
+    }
+
+    @Override
+    public void clearShots() {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public boolean removeChild(Node c) {
+        return false;
+    }
+
+    @Override
+    public void removeDiagnosticMessage(Label diagnosticLabel) {}
+
+    @Override
+    public void reset() {}
+
+    @Override
+    public void setCameraManager(CameraManager cameraManager) {}
+
+    @Override
+    public void updateBackground(BufferedImage frame, Optional<Bounds> projectionBounds) {}
+
+    @Override
+    public void updateBackground(Mat frame, Optional<Bounds> projectionBounds) {}
+}
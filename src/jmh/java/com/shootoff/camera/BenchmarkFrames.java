@@ -0,0 +1,130 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import com.shootoff.camera.cameratypes.Camera;
+import com.xuggle.mediatool.IMediaReader;
+import com.xuggle.mediatool.MediaListenerAdapter;
+import com.xuggle.mediatool.ToolFactory;
+import com.xuggle.mediatool.event.IVideoPictureEvent;
+
+/**
+ * Decodes the shot search test videos into frames for the benchmarks. Frames
+ * are decoded once during a benchmark's setup and scaled to the resolution
+ * under test so that decoding is never part of a measurement.
+ */
+public final class BenchmarkFrames {
+    public static final File VIDEO_DIRECTORY = new File("src/test/resources/shotsearcher");
+
+    static {
+        nu.pattern.OpenCV.loadShared();
+    }
+
+    private BenchmarkFrames() {}
+
+    /**
+     * @param resolution
+     *            a resolution in the form <tt>640x480</tt>
+     */
+    public static Dimension parseResolution(String resolution) {
+        final String[] parts = resolution.split("x");
+
+        if (parts.length != 2)
+            throw new IllegalArgumentException("Resolution must be of the form WIDTHxHEIGHT, got " + resolution);
+
+        return new Dimension(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    /**
+     * Decode the first <code>maximumFrames</code> frames of a video.
+     *
+     * @param videoName
+     *            the name of a video in {@link #VIDEO_DIRECTORY}
+     * @param resolution
+     *            the resolution to scale the frames to, in the form
+     *            <tt>640x480</tt>
+     * @return BGR frames with the video's timestamps in milliseconds
+     */
+    public static List<Frame> decode(String videoName, String resolution, int maximumFrames) {
+        final List<Frame> frames = new ArrayList<>(maximumFrames);
+
+        decode(videoName, resolution, (frame) -> {
+            if (frames.size() < maximumFrames)
+                frames.add(frame);
+        }, () -> frames.size() >= maximumFrames);
+
+        return frames;
+    }
+
+    /**
+     * Decode every frame of a video and hand each one to
+     * <code>consumer</code>, which owns the frame afterwards.
+     */
+    public static void decode(String videoName, String resolution, Consumer<Frame> consumer) {
+        decode(videoName, resolution, consumer, () -> false);
+    }
+
+    private static void decode(String videoName, String resolution, Consumer<Frame> consumer,
+            BooleanSupplier stopCondition) {
+        final File videoFile = new File(VIDEO_DIRECTORY, videoName);
+
+        if (!videoFile.isFile())
+            throw new IllegalArgumentException("Benchmark video does not exist: " + videoFile.getAbsolutePath());
+
+        final Dimension size = parseResolution(resolution);
+        final Size scaledSize = new Size(size.getWidth(), size.getHeight());
+
+        final IMediaReader reader = ToolFactory.makeReader(videoFile.getAbsolutePath());
+        reader.setBufferedImageTypeToGenerate(BufferedImage.TYPE_3BYTE_BGR);
+        reader.addListener(new MediaListenerAdapter() {
+            @Override
+            public void onVideoPicture(IVideoPictureEvent event) {
+                final Mat decoded = Camera.bufferedImageToMat(event.getImage());
+                final Mat scaled;
+
+                if (decoded.cols() == size.width && decoded.rows() == size.height) {
+                    scaled = decoded;
+                } else {
+                    scaled = new Mat();
+                    Imgproc.resize(decoded, scaled, scaledSize, 0, 0, Imgproc.INTER_AREA);
+                    decoded.release();
+                }
+
+                consumer.accept(new Frame(scaled, event.getTimeStamp() / 1000));
+            }
+        });
+
+        while (!stopCondition.getAsBoolean() && reader.readPacket() == null)
+            ;
+
+        reader.close();
+    }
+}
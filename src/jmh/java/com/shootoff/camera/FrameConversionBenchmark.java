@@ -0,0 +1,111 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.shootoff.camera.cameratypes.Camera;
+
+/**
+ * Measures converting camera frames between Mats and images, both allocating
+ * a new result per frame and drawing into a reused one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FrameConversionBenchmark {
+    private static final int FRAME_COUNT = 30;
+
+    @Param({ "logitech-indoor-red.mp4" })
+    public String video;
+
+    @Param({ "320x240", "640x480", "1280x720" })
+    public String resolution;
+
+    private final List<Mat> mats = new ArrayList<>();
+    private final List<BufferedImage> images = new ArrayList<>();
+    private int frameIndex = 0;
+
+    private BufferedImage targetImage;
+    private Mat targetMat;
+
+    @Setup
+    public void setUp() {
+        for (final Frame frame : BenchmarkFrames.decode(video, resolution, FRAME_COUNT)) {
+            mats.add(frame.getOriginalMat());
+            images.add(Camera.matToBufferedImage(frame.getOriginalMat()));
+        }
+
+        final Mat first = mats.get(0);
+        targetImage = new BufferedImage(first.cols(), first.rows(), BufferedImage.TYPE_3BYTE_BGR);
+        targetMat = new Mat(first.rows(), first.cols(), CvType.CV_8UC3);
+    }
+
+    private int nextIndex() {
+        final int index = frameIndex;
+        frameIndex = (frameIndex + 1) % mats.size();
+        return index;
+    }
+
+    @Benchmark
+    public BufferedImage matToBufferedImage() {
+        return Camera.matToBufferedImage(mats.get(nextIndex()));
+    }
+
+    @Benchmark
+    public BufferedImage matToReusedBufferedImage() {
+        return Camera.matToBufferedImage(mats.get(nextIndex()), targetImage);
+    }
+
+    @Benchmark
+    public int bufferedImageToMat() {
+        final Mat mat = Camera.bufferedImageToMat(images.get(nextIndex()));
+        final int rows = mat.rows();
+
+        // Free the native buffer now rather than whenever the Mat is finalized
+        mat.release();
+
+        return rows;
+    }
+
+    @Benchmark
+    public Mat bufferedImageToReusedMat() {
+        return Camera.bufferedImageToMat(images.get(nextIndex()), targetMat);
+    }
+}
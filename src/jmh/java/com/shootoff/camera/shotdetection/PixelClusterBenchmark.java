@@ -0,0 +1,199 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.shotdetection;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.shootoff.camera.BenchmarkFrames;
+
+/**
+ * Measures clustering and color classification on the bright, changing pixels
+ * of real footage. During setup every frame of the video is compared to the
+ * one before it, and the frames whose changed pixels look like laser spots
+ * rather than motion, and that contain at least one cluster, become the samples
+ * the benchmarks cycle through.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PixelClusterBenchmark {
+    private static final int MAXIMUM_SAMPLES = 30;
+
+    // A pixel is a candidate when it is bright and got much brighter since
+    // the previous frame, which is roughly what the detector's moving
+    // averages single out
+    private static final int MINIMUM_VALUE = 200;
+    private static final int MINIMUM_VALUE_INCREASE = 50;
+
+    // Frames with more changed pixels than this are treated as motion, like
+    // the detector does
+    private static final double MAXIMUM_PIXEL_RATIO = .01;
+
+    @Param({ "logitech-indoor-red.mp4", "lifecam-indoor-green.mp4" })
+    public String video;
+
+    @Param({ "320x240", "640x480", "1280x720" })
+    public String resolution;
+
+    private static class Sample {
+        private final ThresholdPixelBuffer[] sectorPixels;
+        private final Mat frameHSV;
+        private final int[] colorDistanceFromRed;
+        private final List<PixelCluster> clusters = new ArrayList<>();
+
+        private Sample(ThresholdPixelBuffer[] sectorPixels, Mat frameHSV, int[] colorDistanceFromRed) {
+            this.sectorPixels = sectorPixels;
+            this.frameHSV = frameHSV;
+            this.colorDistanceFromRed = colorDistanceFromRed;
+        }
+    }
+
+    private final List<Sample> samples = new ArrayList<>();
+    private PixelClusterManager pixelClusterManager;
+    private int width;
+    private int minimumShotDimension;
+    private int sampleIndex = 0;
+
+    @Setup
+    public void setUp() {
+        final Dimension size = BenchmarkFrames.parseResolution(resolution);
+        width = size.width;
+        minimumShotDimension = Math.max(1, (int) (size.width * size.height * .000025));
+        pixelClusterManager = new PixelClusterManager(size.width, size.height);
+
+        final byte[][] previousValues = new byte[1][];
+
+        BenchmarkFrames.decode(video, resolution, (frame) -> {
+            final Mat frameHSV = new Mat();
+            Imgproc.cvtColor(frame.getOriginalMat(), frameHSV, Imgproc.COLOR_BGR2HSV);
+            frame.getOriginalMat().release();
+
+            final byte[] hsv = new byte[(int) (frameHSV.total() * frameHSV.channels())];
+            frameHSV.get(0, 0, hsv);
+
+            final byte[] values = new byte[(int) frameHSV.total()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = hsv[i * 3 + 2];
+
+            Sample sample = null;
+
+            if (samples.size() < MAXIMUM_SAMPLES && previousValues[0] != null)
+                sample = createSample(frameHSV, hsv, values, previousValues[0]);
+
+            if (sample != null) {
+                sample.clusters.addAll(pixelClusterManager.clusterPixels(sample.sectorPixels, minimumShotDimension));
+
+                // Frames without a cluster would leave nothing to classify
+                if (sample.clusters.isEmpty())
+                    sample = null;
+            }
+
+            if (sample != null)
+                samples.add(sample);
+            else
+                frameHSV.release();
+
+            previousValues[0] = values;
+        });
+
+        if (samples.isEmpty())
+            throw new IllegalStateException("No laser-like pixel clusters found in " + video);
+    }
+
+    private Sample createSample(Mat frameHSV, byte[] hsv, byte[] values, byte[] previousValues) {
+        final int height = values.length / width;
+        final int sectorWidth = width / JavaShotDetector.SECTOR_COLUMNS;
+        final int sectorHeight = height / JavaShotDetector.SECTOR_ROWS;
+
+        final ThresholdPixelBuffer[] sectorPixels = new ThresholdPixelBuffer[JavaShotDetector.SECTOR_COLUMNS
+                * JavaShotDetector.SECTOR_ROWS];
+        for (int i = 0; i < sectorPixels.length; i++)
+            sectorPixels[i] = new ThresholdPixelBuffer();
+
+        final int[] colorDistanceFromRed = new int[values.length];
+        int pixelCount = 0;
+
+        for (int i = 0; i < values.length; i++) {
+            final int h = hsv[i * 3] & 0xFF;
+            final int s = hsv[i * 3 + 1] & 0xFF;
+            final int v = values[i] & 0xFF;
+
+            colorDistanceFromRed[i] = (Math.min(h, Math.abs(180 - h)) * s * v) - (Math.abs(60 - h) * s * v);
+
+            if (v < MINIMUM_VALUE || v - (previousValues[i] & 0xFF) < MINIMUM_VALUE_INCREASE)
+                continue;
+
+            final int x = i % width;
+            final int y = i / width;
+            final int sectorX = Math.min(x / sectorWidth, JavaShotDetector.SECTOR_COLUMNS - 1);
+            final int sectorY = Math.min(y / sectorHeight, JavaShotDetector.SECTOR_ROWS - 1);
+            final int previousLum = (255 - s) * (previousValues[i] & 0xFF);
+
+            sectorPixels[sectorY * JavaShotDetector.SECTOR_COLUMNS + sectorX].add(x, y, h, (255 - s) * v, previousLum,
+                    colorDistanceFromRed[i]);
+            pixelCount++;
+        }
+
+        if (pixelCount < minimumShotDimension || pixelCount > values.length * MAXIMUM_PIXEL_RATIO)
+            return null;
+
+        return new Sample(sectorPixels, frameHSV, colorDistanceFromRed);
+    }
+
+    private Sample nextSample() {
+        final Sample sample = samples.get(sampleIndex);
+        sampleIndex = (sampleIndex + 1) % samples.size();
+        return sample;
+    }
+
+    @Benchmark
+    public Set<PixelCluster> clusterPixels() {
+        return pixelClusterManager.clusterPixels(nextSample().sectorPixels, minimumShotDimension);
+    }
+
+    @Benchmark
+    public void getColorDifference(Blackhole blackhole) {
+        final Sample sample = nextSample();
+
+        for (final PixelCluster cluster : sample.clusters)
+            blackhole.consume(cluster.getColorDifference(sample.frameHSV, sample.colorDistanceFromRed, width));
+    }
+}
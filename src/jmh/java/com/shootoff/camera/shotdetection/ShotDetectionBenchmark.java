@@ -0,0 +1,132 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.shotdetection;
+
+import java.awt.Dimension;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.BenchmarkCameraView;
+import com.shootoff.camera.BenchmarkFrames;
+import com.shootoff.camera.CameraManager;
+import com.shootoff.camera.Frame;
+import com.shootoff.camera.MockCamera;
+import com.shootoff.config.Configuration;
+import com.shootoff.config.ConfigurationException;
+
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Measures {@link JavaShotDetector#processFrame(Frame, boolean)} on real
+ * footage. Each invocation detects on the next frame of the video, looping
+ * back to the start, so the detector's moving averages see the same sequence
+ * of frames a camera would deliver.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ShotDetectionBenchmark {
+    private static final int FRAME_COUNT = 60;
+
+    @Param({ "logitech-indoor-red.mp4", "lifecam-indoor-green.mp4" })
+    public String video;
+
+    @Param({ "320x240", "640x480", "1280x720" })
+    public String resolution;
+
+    private List<Frame> frames;
+    private BenchmarkCamera camera;
+    private JavaShotDetector shotDetector;
+    private Mat workingMat;
+    private int frameIndex = 0;
+
+    // The detector only starts looking for shots once enough frames went by,
+    // thus the frame count has to advance like a real camera's
+    private static class BenchmarkCamera extends MockCamera {
+        private int frameCount = 0;
+
+        @Override
+        public int getFrameCount() {
+            return frameCount;
+        }
+
+        @Override
+        public double getFPS() {
+            return DEFAULT_FPS;
+        }
+    }
+
+    @Setup
+    public void setUp() throws ConfigurationException {
+        System.setProperty("shootoff.home", System.getProperty("user.dir"));
+        Configuration.disableErrorReporting();
+        new Configuration(new String[0]).setDebugMode(false);
+
+        // Accepted shots are logged, which we do not want to measure
+        final Logger rootLogger = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        rootLogger.detachAndStopAllAppenders();
+
+        frames = BenchmarkFrames.decode(video, resolution, FRAME_COUNT);
+        workingMat = new Mat();
+
+        final Dimension size = BenchmarkFrames.parseResolution(resolution);
+        final BenchmarkCameraView cameraView = new BenchmarkCameraView();
+
+        camera = new BenchmarkCamera();
+        final CameraManager cameraManager = new CameraManager(camera, null, cameraView);
+        cameraManager.setFeedResolution(size.width, size.height);
+
+        final boolean[][] sectorStatuses = new boolean[JavaShotDetector.SECTOR_ROWS][JavaShotDetector.SECTOR_COLUMNS];
+        for (final boolean[] row : sectorStatuses)
+            Arrays.fill(row, true);
+        cameraManager.setSectorStatuses(sectorStatuses);
+
+        shotDetector = new JavaShotDetector(cameraManager, cameraView);
+    }
+
+    @Benchmark
+    public void processFrame() {
+        final Frame frame = frames.get(frameIndex);
+        frameIndex = (frameIndex + 1) % frames.size();
+        camera.frameCount++;
+
+        // processFrame paints bright and moving pixels into the frame, so work
+        // on a copy to keep the decoded frames untouched
+        frame.getOriginalMat().copyTo(workingMat);
+        shotDetector.processFrame(new Frame(workingMat, frame.getTimestamp()), true);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.gui;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.shootoff.camera.BenchmarkFrames;
+import com.shootoff.camera.Frame;
+import com.shootoff.camera.cameratypes.Camera;
+
+/**
+ * Measures scaling camera frames to the size of the canvas they are drawn on,
+ * as {@link CanvasManager} does for every frame it shows, both from an image
+ * and straight from the camera's Mat.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CanvasResizeBenchmark {
+    private static final int FRAME_COUNT = 30;
+
+    @Param({ "logitech-indoor-red.mp4" })
+    public String video;
+
+    @Param({ "320x240", "640x480", "1280x720" })
+    public String resolution;
+
+    @Param({ "800x600", "1920x1080" })
+    public String canvasSize;
+
+    private final List<BufferedImage> images = new ArrayList<>();
+    private final List<Mat> mats = new ArrayList<>();
+    private BufferedImage target;
+    private Dimension targetSize;
+    private Mat resizedFrame;
+    private Mat bgraFrame;
+    private byte[] pixels;
+    private int frameIndex = 0;
+
+    @Setup
+    public void setUp() {
+        for (final Frame frame : BenchmarkFrames.decode(video, resolution, FRAME_COUNT)) {
+            mats.add(frame.getOriginalMat());
+            images.add(Camera.matToBufferedImage(frame.getOriginalMat()));
+        }
+
+        targetSize = BenchmarkFrames.parseResolution(canvasSize);
+        target = new BufferedImage(targetSize.width, targetSize.height, BufferedImage.TYPE_INT_RGB);
+        resizedFrame = new Mat();
+        bgraFrame = new Mat();
+    }
+
+    @Benchmark
+    public BufferedImage resize() {
+        final BufferedImage source = images.get(frameIndex);
+        frameIndex = (frameIndex + 1) % images.size();
+
+        CanvasManager.resize(source, target);
+
+        return target;
+    }
+
+    @Benchmark
+    public byte[] resizeMat() {
+        final Mat source = mats.get(frameIndex);
+        frameIndex = (frameIndex + 1) % mats.size();
+
+        pixels = CanvasManager.copyBGRAPixels(source, resizedFrame, bgraFrame, pixels, targetSize.width,
+                targetSize.height);
+
+        return pixels;
+    }
+}
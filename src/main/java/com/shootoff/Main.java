@@ -42,11 +42,13 @@ import org.slf4j.LoggerFactory;
 import com.shootoff.camera.CameraFactory;
 import com.shootoff.camera.cameratypes.OptiTrackCamera;
 import com.shootoff.camera.cameratypes.PS3EyeCamera;
+import com.shootoff.camera.pipeline.PreviewRateGovernor;
 import com.shootoff.config.Configuration;
 import com.shootoff.config.ConfigurationException;
 import com.shootoff.config.DynamicGlobal;
 import com.shootoff.gui.controller.ShootOFFController;
 import com.shootoff.headless.HeadlessController;
+import com.shootoff.plugins.AudioEngine;
 import com.shootoff.plugins.TextToSpeech;
 import com.shootoff.util.HardwareData;
 import com.shootoff.util.SystemInfo;
@@ -568,6 +570,13 @@ public class Main extends Application {
         // This initializes the TTS engine
         TextToSpeech.say("");
 
+        // Decode shot and exercise sounds before they are needed so the first
+        // shot's sound isn't delayed
+        final Thread soundLoader = new Thread(() -> AudioEngine.getDefault()
+                .preload(new File(System.getProperty("shootoff.home") + File.separator + "sounds")), "SoundLoader");
+        soundLoader.setDaemon(true);
+        soundLoader.start();
+
         if (config.isFirstRun()) {
             if (shouldShowV4lWarning)
                 showV4lWarning();
@@ -675,6 +684,11 @@ public class Main extends Application {
                     logger.debug("Processor: {}, Processor Score: {}, installed RAM: {} MB", cpuName, cpuScore.get(),
                             installedRam);
 
+                // Give detection the CPU from the start on slow machines, the
+                // preview rate goes back up if detection keeps up
+                if (cpuScore.get() < MINIMUM_CPU_SCORE_PASSABLE)
+                    PreviewRateGovernor.getDefault().setFPS(PreviewRateGovernor.MINIMUM_FPS);
+
                 Platform.runLater(() -> setHardwareMessage(hardwareMessageLabel, cpuScore.get()));
             } else {
                 if (logger.isDebugEnabled())
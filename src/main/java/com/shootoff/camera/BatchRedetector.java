@@ -0,0 +1,248 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.config.Configuration;
+import com.shootoff.config.ConfigurationException;
+
+/**
+ * Re-detects the shots in every video under a folder, such as ShootOFF's
+ * sessions folder, replaying several videos at once. Each video gets its own
+ * camera manager and shot detector, thus the videos are independent of each
+ * other and the results are the same no matter how many are replayed at once.
+ *
+ * This is meant to be run without the GUI to measure how a change to the shot
+ * detection settings affects a large archive of recordings:
+ *
+ * <pre>
+ * java -cp ShootOFF.jar com.shootoff.camera.BatchRedetector -c test.properties -o results sessions
+ * </pre>
+ */
+public class BatchRedetector {
+    private static final Logger logger = LoggerFactory.getLogger(BatchRedetector.class);
+
+    private static final String SUMMARY_FILE_NAME = "summary.csv";
+
+    private final ReplayEngine replayEngine;
+    private final int threadCount;
+
+    public BatchRedetector(ReplayEngine replayEngine, int threadCount) {
+        if (threadCount < 1)
+            throw new IllegalArgumentException("threadCount must be at least 1");
+
+        this.replayEngine = replayEngine;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * @return every video under <tt>folder</tt>, including those in
+     *         subfolders, sorted by path
+     */
+    public static List<File> findVideos(File folder) throws IOException {
+        if (!folder.isDirectory())
+            throw new IOException("Video folder does not exist: " + folder.getAbsolutePath());
+
+        try (Stream<Path> paths = Files.walk(folder.toPath())) {
+            return paths.filter((path) -> Files.isRegularFile(path) && ReplayEngine.isVideo(path.toString())).sorted()
+                    .map(Path::toFile).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Replay videos in parallel. A video that fails to replay is logged and
+     * left out of the results so that one bad recording does not stop a long
+     * batch.
+     *
+     * @return the result of replaying each video, in the same order as
+     *         <tt>videoFiles</tt>
+     * @throws InterruptedException
+     *             if the calling thread was interrupted while waiting for the
+     *             videos to replay
+     */
+    public Map<File, ReplayResult> redetect(List<File> videoFiles) throws InterruptedException {
+        final AtomicInteger threadNumber = new AtomicInteger(0);
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+                (r) -> new Thread(r, "Redetect " + threadNumber.getAndIncrement()));
+
+        final Map<File, Future<ReplayResult>> futures = new LinkedHashMap<>();
+        final Map<File, ReplayResult> results = new LinkedHashMap<>();
+
+        try {
+            for (final File videoFile : videoFiles)
+                futures.put(videoFile, executor.submit(() -> replayEngine.replay(videoFile)));
+
+            for (final Map.Entry<File, Future<ReplayResult>> entry : futures.entrySet()) {
+                try {
+                    results.put(entry.getKey(), entry.getValue().get());
+                } catch (final ExecutionException e) {
+                    logger.error("Failed to re-detect shots in " + entry.getKey().getPath(), e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return results;
+    }
+
+    /**
+     * Write the shots found in one video as CSV.
+     */
+    public static void writeShots(ReplayResult result, File csvFile) throws IOException {
+        try (PrintWriter writer = new PrintWriter(csvFile, StandardCharsets.UTF_8.name())) {
+            writer.println("timestamp,frame,color,x,y");
+
+            for (final Shot shot : result.getShots()) {
+                writer.println(String.format(Locale.US, "%d,%d,%s,%.1f,%.1f", shot.getTimestamp(), shot.getFrame(),
+                        shot.getColor(), shot.getX(), shot.getY()));
+            }
+        }
+    }
+
+    /**
+     * Write one line of timing statistics and the shot count for each video as
+     * CSV.
+     */
+    public static void writeSummary(Collection<ReplayResult> results, PrintWriter writer) {
+        writer.println("video,frames,video_ms,replay_ms,speedup,shots");
+
+        for (final ReplayResult result : results) {
+            writer.println(String.format(Locale.US, "%s,%d,%d,%d,%.2f,%d", result.getVideoFile().getPath(),
+                    result.getFrameCount(), result.getVideoDuration(), result.getReplayDuration(),
+                    result.getSpeedup(), result.getShots().size()));
+        }
+
+        writer.flush();
+    }
+
+    // Names shot lists after the video's path under the root folder so that
+    // videos with the same name in different sessions do not collide
+    private static File getShotsFile(File outputFolder, File videoFolder, File videoFile) {
+        final String relativePath = videoFolder.toPath().relativize(videoFile.toPath()).toString();
+        return new File(outputFolder, relativePath.replace(File.separatorChar, '_') + ".csv");
+    }
+
+    public static void main(String[] args) {
+        final Options options = new Options();
+
+        options.addOption("c", "config", true, "the configuration file whose shot detection settings are used "
+                + "(shootoff.properties in ShootOFF's home by default)");
+        options.addOption("t", "threads", true, "how many videos to replay at once (one per processor by default)");
+        options.addOption("o", "output", true, "write each video's shots and a " + SUMMARY_FILE_NAME
+                + " to this folder instead of printing the summary");
+
+        final CommandLine cmd;
+        try {
+            final CommandLineParser parser = new DefaultParser();
+            cmd = parser.parse(options, args);
+
+            if (cmd.getArgs().length != 1)
+                throw new ParseException("Missing the folder of videos to re-detect");
+        } catch (final ParseException e) {
+            System.err.println(e.getMessage());
+            final HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp("com.shootoff.camera.BatchRedetector [options] video_folder", options);
+            System.exit(-1);
+            return;
+        }
+
+        if (System.getProperty("shootoff.home") == null)
+            System.setProperty("shootoff.home", System.getProperty("user.dir"));
+
+        nu.pattern.OpenCV.loadShared();
+
+        final File videoFolder = new File(cmd.getArgs()[0]);
+        final String configName = cmd.getOptionValue("c",
+                System.getProperty("shootoff.home") + File.separator + "shootoff.properties");
+        final int threadCount = cmd.hasOption("t") ? Integer.parseInt(cmd.getOptionValue("t"))
+                : Runtime.getRuntime().availableProcessors();
+
+        try {
+            new Configuration(configName, new String[0]);
+
+            final List<File> videoFiles = findVideos(videoFolder);
+            logger.info("Re-detecting shots in {} videos using {} threads", videoFiles.size(), threadCount);
+
+            final long startTime = System.currentTimeMillis();
+            final Map<File, ReplayResult> results = new BatchRedetector(new ReplayEngine(), threadCount)
+                    .redetect(videoFiles);
+            final long batchDuration = System.currentTimeMillis() - startTime;
+
+            if (cmd.hasOption("o")) {
+                final File outputFolder = new File(cmd.getOptionValue("o"));
+                if (!outputFolder.isDirectory() && !outputFolder.mkdirs())
+                    throw new IOException("Could not create output folder: " + outputFolder.getAbsolutePath());
+
+                for (final ReplayResult result : results.values())
+                    writeShots(result, getShotsFile(outputFolder, videoFolder, result.getVideoFile()));
+
+                try (PrintWriter writer = new PrintWriter(new File(outputFolder, SUMMARY_FILE_NAME),
+                        StandardCharsets.UTF_8.name())) {
+                    writeSummary(results.values(), writer);
+                }
+            } else {
+                writeSummary(results.values(), new PrintWriter(System.out));
+            }
+
+            final List<ReplayResult> replayed = new ArrayList<>(results.values());
+            final long videoDuration = replayed.stream().mapToLong(ReplayResult::getVideoDuration).sum();
+
+            logger.info("Re-detected {} of {} videos ({} s of video) in {} s, {}x real time", replayed.size(),
+                    videoFiles.size(), videoDuration / 1000, batchDuration / 1000,
+                    String.format("%.1f", batchDuration > 0 ? (double) videoDuration / batchDuration : 0));
+
+            System.exit(replayed.size() == videoFiles.size() ? 0 : 1);
+        } catch (IOException | ConfigurationException e) {
+            logger.error("Failed to re-detect shots", e);
+            System.exit(-1);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(-1);
+        }
+    }
+}
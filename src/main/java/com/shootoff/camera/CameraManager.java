@@ -23,16 +23,19 @@ import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
 
 import org.opencv.core.CvException;
 import org.opencv.core.Mat;
+import org.opencv.core.Rect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,15 +44,24 @@ import com.shootoff.camera.autocalibration.AutoCalibrationManager;
 import com.shootoff.camera.cameratypes.Camera;
 import com.shootoff.camera.cameratypes.Camera.CameraState;
 import com.shootoff.camera.cameratypes.CameraEventListener;
+import com.shootoff.camera.cameratypes.CaptureThreadStats;
 import com.shootoff.camera.cameratypes.PS3EyeCamera;
 import com.shootoff.camera.cameratypes.SarxosCaptureCamera;
+import com.shootoff.camera.pipeline.DetectionScheduler;
+import com.shootoff.camera.pipeline.FrameRingBuffer.DropPolicy;
+import com.shootoff.camera.pipeline.PipelineStage;
+import com.shootoff.camera.pipeline.PipelineStageStats;
+import com.shootoff.camera.pipeline.PreviewRateGovernor;
 import com.shootoff.camera.processors.DeduplicationProcessor;
 import com.shootoff.camera.recorders.RollingRecorder;
 import com.shootoff.camera.recorders.ShotRecorder;
+import com.shootoff.camera.recorders.VideoPictureConverter;
+import com.shootoff.camera.shot.DisplayShot;
 import com.shootoff.camera.shot.ShotColor;
 import com.shootoff.camera.shotdetection.CameraStateListener;
 import com.shootoff.camera.shotdetection.FrameProcessingShotDetector;
 import com.shootoff.camera.shotdetection.JavaShotDetector;
+import com.shootoff.camera.shotdetection.OpenCVShotDetector;
 import com.shootoff.camera.shotdetection.ShotDetector;
 import com.shootoff.camera.shotdetection.ShotYieldingShotDetector;
 import com.shootoff.config.Configuration;
@@ -57,10 +69,8 @@ import com.shootoff.util.TimerPool;
 import com.xuggle.mediatool.IMediaWriter;
 import com.xuggle.mediatool.ToolFactory;
 import com.xuggle.xuggler.ICodec;
-import com.xuggle.xuggler.IPixelFormat;
+import com.xuggle.xuggler.IPacket;
 import com.xuggle.xuggler.IVideoPicture;
-import com.xuggle.xuggler.video.ConverterFactory;
-import com.xuggle.xuggler.video.IConverter;
 
 import com.shootoff.util.SwingFXUtils;
 import javafx.geometry.Bounds;
@@ -73,6 +83,14 @@ import javafx.scene.paint.Color;
  * This class is responsible for fetching frames from its assigned camera and
  * preprocessing them for shot detection. It also ensures the view showing the
  * camera frames is aware of any new frames from the camera.
+ * 
+ * Frames move through four stages, each on its own thread. The camera's
+ * thread captures frames and queues them for the detection stage. The
+ * detection stage finds shots and queues each processed frame for the
+ * presentation stage, which shows it to the user, and the recording stage,
+ * which encodes it for every active recorder. Detection never drops frames, so
+ * the camera waits if detection falls behind. Presentation and recording drop
+ * their oldest queued frame instead of slowing detection.
  *
  * @author phrack and dmaul
  */
@@ -88,6 +106,33 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
 
     protected final static int DIAGNOSTIC_MESSAGE_DURATION = 1000; // ms
 
+    private static final int DETECTION_QUEUE_CAPACITY = 8;
+    private static final int PRESENTATION_QUEUE_CAPACITY = 2;
+    private static final int RECORDING_QUEUE_CAPACITY = 8;
+    // Detection waits when this many shots are waiting for slow exercises
+    private static final int SHOT_NOTIFICATION_QUEUE_CAPACITY = 16;
+
+    private final Object pipelineLock = new Object();
+    private volatile PipelineStage<CapturedFrame> detectionStage = null;
+    private volatile PipelineStage<Frame> presentationStage = null;
+    private volatile PipelineStage<RecordedFrame> recordingStage = null;
+    // Started with the manager rather than with the first frame because shots
+    // can also come from click-to-shoot
+    private final PipelineStage<ShotNotification> shotNotificationStage;
+    // Set once the pipeline is closed, after which it is never started again
+    private volatile boolean pipelineClosed = false;
+
+    // The camera's frame count when the frame currently being detected was
+    // captured. The camera's own count runs ahead while frames are queued.
+    private volatile int detectionFrameCount = -1;
+    // When the frame currently being detected arrived, used to let the
+    // detection scheduler serve the camera with the oldest frame first
+    private volatile long detectionFrameArrivalTime = 0;
+    private volatile DetectionScheduler detectionScheduler = DetectionScheduler.getDefault();
+
+    // Replayed frames are only detected, nobody is watching them
+    private volatile boolean replaying = false;
+
     protected Optional<CameraDebuggerListener> debuggerListener = Optional.empty();
 
     protected final ShotDetector shotDetector;
@@ -116,10 +161,15 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
     protected boolean isFirstStreamFrame = true;
     protected IMediaWriter videoWriterStream;
     protected long recordingStartTime;
+    // Only used on the recording stage's thread
+    private final VideoPictureConverter recordingConverter = new VideoPictureConverter();
 
     protected boolean recordingShots = false;
     protected RollingRecorder rollingRecorder;
+    // Shots fired in quick succession share a recorder
     protected Map<Shot, ShotRecorder> shotRecorders = new ConcurrentHashMap<>();
+    private ShotRecorder activeShotRecorder = null;
+    private final Object shotRecordersLock = new Object();
 
     protected boolean[][] sectorStatuses;
 
@@ -146,6 +196,7 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
         cameraErrorView = Optional.empty();
         cameraView = null;
         shotDetector = null;
+        shotNotificationStage = null;
     }
 
     public CameraManager(Camera cameraInterface, CameraErrorView cameraErrorView, CameraView view) {
@@ -157,15 +208,31 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
 
         cameraView.setCameraManager(this);
 
+        shotNotificationStage = new PipelineStage<>("shot notification", SHOT_NOTIFICATION_QUEUE_CAPACITY,
+                DropPolicy.BLOCK, (notification) -> notification.view.addShot(notification.shot, false));
+        shotNotificationStage.start(String.format("Camera %s Shot Notifier", camera.getName()));
+
         camera.setCameraEventListener(this);
 
-        shotDetector = camera.getPreferredShotDetector(this, view);
+        shotDetector = selectShotDetector(camera.getPreferredShotDetector(this, view));
 
         if (shotDetector == null)
             logger.error("No suitable shot detector found for camera {}", camera.getName());
 
     }
 
+    private ShotDetector selectShotDetector(final ShotDetector preferredShotDetector) {
+        // Only replace the general purpose detector, cameras that prefer a
+        // detector specific to their hardware keep it
+        if (preferredShotDetector instanceof JavaShotDetector && config != null
+                && config.useOpenCVDetection(camera.getName()) && OpenCVShotDetector.isSystemSupported()) {
+            logger.debug("Using OpenCV shot detection for camera {}", camera.getName());
+            return new OpenCVShotDetector(this, cameraView);
+        }
+
+        return preferredShotDetector;
+    }
+
     public String getName() {
         return camera.getName();
     }
@@ -258,7 +325,7 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
 
     // Used by click-to-shoot and tests to inject a shot via the shot detector
     public void injectShot(ShotColor color, double x, double y, boolean scaleShot) {
-        shotDetector.addShot(color, x, y, System.currentTimeMillis(), scaleShot);
+        shotDetector.injectShot(color, x, y, System.currentTimeMillis(), scaleShot);
     }
 
     public void clearShots() {
@@ -291,6 +358,9 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
 
         camera.setCameraEventListener(null);
 
+        closePipeline();
+        PreviewRateGovernor.getDefault().removeCamera(this);
+
         if (recordingStream)
             stopRecordingStream();
         TimerPool.cancelTimer(brightnessDiagnosticFuture);
@@ -406,7 +476,18 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
     }
 
     public void notifyShot(final Shot shot) {
-        shotRecorders.put(shot, rollingRecorder.fork());
+        synchronized (shotRecordersLock) {
+            final long timestamp = rollingRecorder.getLastTimestamp();
+
+            // Extend the video of the previous shot if it is still being
+            // recorded
+            if (activeShotRecorder == null || !activeShotRecorder.addShot(shot, timestamp)) {
+                activeShotRecorder = rollingRecorder.fork();
+                activeShotRecorder.addShot(shot, timestamp);
+            }
+
+            shotRecorders.put(shot, activeShotRecorder);
+        }
     }
 
     public ShotRecorder getRevelantRecorder(Shot shot) {
@@ -444,9 +525,12 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
 
     public void stopRecordingShots() {
         recordingShots = false;
-        for (final ShotRecorder r : shotRecorders.values())
-            r.close();
-        shotRecorders.clear();
+        synchronized (shotRecordersLock) {
+            for (final ShotRecorder r : new HashSet<>(shotRecorders.values()))
+                r.close();
+            shotRecorders.clear();
+            activeShotRecorder = null;
+        }
         if (rollingRecorder != null) {
             rollingRecorder.close();
             rollingRecorder = null;
@@ -492,6 +576,8 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
     private long recordingCalibratedAreaStartTime;
     private boolean isFirstCalibratedAreaFrame;
     private boolean recordingCalibratedArea;
+    private final VideoPictureConverter calibratedAreaConverter = new VideoPictureConverter();
+    private BufferedImage calibratedAreaImage = null;
 
     public void startRecordingCalibratedArea(File videoFile, int width, int height) {
         if (logger.isDebugEnabled())
@@ -516,13 +602,347 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
 
     @Override
     public void newFrame(Frame frame, boolean shouldDedistort) {
-        if (!handleFrame(frame, shouldDedistort))
+        if (!checkFrame(frame)) {
             logger.warn("Invalid frame yielded from {}", camera.getName());
+
+            if (frame != null)
+                frame.release();
+
+            return;
+        }
+
+        final PipelineStage<CapturedFrame> detection = startPipeline();
+
+        if (detection == null) {
+            frame.release();
+            logger.trace("Frame from {} arrived after the pipeline was closed", camera.getName());
+            return;
+        }
+
+        try {
+            detection.submit(new CapturedFrame(frame, shouldDedistort, camera.getFrameCount(), System.nanoTime()));
+        } catch (final InterruptedException e) {
+            frame.release();
+            Thread.currentThread().interrupt();
+        } catch (final IllegalStateException e) {
+            frame.release();
+            logger.trace("Frame from {} arrived after the pipeline was closed", camera.getName());
+        }
+    }
+
+    private static final class CapturedFrame {
+        private final Frame frame;
+        private final boolean shouldDedistort;
+        private final int frameCount;
+        private final long arrivalTime;
+
+        private CapturedFrame(Frame frame, boolean shouldDedistort, int frameCount, long arrivalTime) {
+            this.frame = frame;
+            this.shouldDedistort = shouldDedistort;
+            this.frameCount = frameCount;
+            this.arrivalTime = arrivalTime;
+        }
+    }
+
+    private static final class RecordedFrame {
+        private final Frame frame;
+        private final long time;
+        private final Optional<Bounds> cropBounds;
+
+        private RecordedFrame(Frame frame, long time, Optional<Bounds> cropBounds) {
+            this.frame = frame;
+            this.time = time;
+            this.cropBounds = cropBounds;
+        }
+    }
+
+    private static final class ShotNotification {
+        private final CameraView view;
+        private final DisplayShot shot;
+
+        private ShotNotification(CameraView view, DisplayShot shot) {
+            this.view = view;
+            this.shot = shot;
+        }
+    }
+
+    /**
+     * Start the pipeline's stages if they are not running yet. The stages'
+     * workers are not waited for when the pipeline closes, thus a closed
+     * pipeline is never started again, otherwise a frame or shot still on its
+     * way through could start threads nothing would ever close.
+     * 
+     * @return the detection stage, or <tt>null</tt> if the pipeline was closed
+     */
+    private PipelineStage<CapturedFrame> startPipeline() {
+        if (pipelineClosed)
+            return null;
+
+        final PipelineStage<CapturedFrame> detection = detectionStage;
+
+        if (detection != null)
+            return detection;
+
+        synchronized (pipelineLock) {
+            if (pipelineClosed)
+                return null;
+
+            if (detectionStage == null) {
+                presentationStage = new PipelineStage<>("presentation", PRESENTATION_QUEUE_CAPACITY,
+                        DropPolicy.DROP_OLDEST, this::presentFrame);
+                presentationStage.start(String.format("Camera %s Presentation", camera.getName()));
+
+                recordingStage = new PipelineStage<>("recording", RECORDING_QUEUE_CAPACITY, DropPolicy.DROP_OLDEST,
+                        this::recordFrame);
+                recordingStage.start(String.format("Camera %s Recording", camera.getName()));
+
+                detectionStage = new PipelineStage<>("detection", DETECTION_QUEUE_CAPACITY, DropPolicy.BLOCK,
+                        this::detectFrame);
+                detectionStage.start(String.format("Camera %s Detection", camera.getName()));
+            }
+
+            return detectionStage;
+        }
+    }
+
+    private void closePipeline() {
+        synchronized (pipelineLock) {
+            pipelineClosed = true;
+
+            if (detectionStage != null) {
+                for (final CapturedFrame capturedFrame : detectionStage.close())
+                    capturedFrame.frame.release();
+            }
+
+            if (presentationStage != null) {
+                for (final Frame frame : presentationStage.close())
+                    frame.release();
+            }
+
+            if (recordingStage != null) {
+                for (final RecordedFrame recordedFrame : recordingStage.close())
+                    recordedFrame.frame.release();
+            }
+
+            if (shotNotificationStage != null) {
+                final List<ShotNotification> undelivered = shotNotificationStage.close();
+
+                if (!undelivered.isEmpty())
+                    logger.warn("{} shots from {} were not delivered before the camera closed", undelivered.size(),
+                            camera.getName());
+            }
+        }
+    }
+
+    /**
+     * Deliver a detected shot to a view on this camera's shot notification
+     * thread. Most training exercises process shots on whatever thread
+     * delivers them, thus shots are not delivered on the detection thread.
+     * Shots are delivered one at a time in the order they were dispatched.
+     * Shots dispatched after the pipeline was closed are dropped.
+     * 
+     * @param view
+     *            the view to add the shot to
+     * @param shot
+     *            the detected shot
+     * @param waitForDelivery
+     *            <code>true</code> to wait for exercises to catch up instead
+     *            of queueing more shots when they have fallen too far behind,
+     *            <code>false</code> to drop the shot instead, e.g. because the
+     *            caller is the JavaFX application thread
+     */
+    public void dispatchShot(CameraView view, DisplayShot shot, boolean waitForDelivery) {
+        final PipelineStage<ShotNotification> shotNotification = shotNotificationStage;
+
+        if (shotNotification == null || shotNotification.isClosed()) {
+            logger.trace("Shot from {} was dispatched after the pipeline was closed", camera.getName());
+            return;
+        }
+
+        try {
+            if (waitForDelivery) {
+                shotNotification.submit(new ShotNotification(view, shot));
+            } else if (!shotNotification.offer(new ShotNotification(view, shot))) {
+                logger.warn("Dropped a shot on {} because too many shots are waiting to be delivered",
+                        camera.getName());
+            }
+        } catch (final InterruptedException e) {
+            logger.warn("Interrupted while dispatching a shot from {}, the shot is lost", camera.getName());
+            Thread.currentThread().interrupt();
+        } catch (final IllegalStateException e) {
+            logger.trace("Shot from {} was dispatched after the pipeline was closed", camera.getName());
+        }
+    }
+
+    /**
+     * Wait until every frame the camera has delivered so far has been through
+     * shot detection, presentation, and recording, or was dropped by the
+     * presentation or recording stage, and every shot that was detected has
+     * been delivered.
+     * 
+     * @throws InterruptedException
+     *             if the calling thread was interrupted while waiting
+     */
+    protected void awaitPipelineIdle() throws InterruptedException {
+        final PipelineStage<CapturedFrame> detection = detectionStage;
+        if (detection != null)
+            detection.awaitIdle();
+
+        final PipelineStage<ShotNotification> shotNotification = shotNotificationStage;
+        if (shotNotification != null)
+            shotNotification.awaitIdle();
+
+        final PipelineStage<Frame> presentation = presentationStage;
+        if (presentation != null)
+            presentation.awaitIdle();
+
+        final PipelineStage<RecordedFrame> recording = recordingStage;
+        if (recording != null)
+            recording.awaitIdle();
+    }
+
+    /**
+     * @return queue depth, drop, and latency counters for each stage of this
+     *         camera's frame pipeline, or an empty list if no frames have been
+     *         received yet
+     */
+    public List<PipelineStageStats> getPipelineStats() {
+        final List<PipelineStageStats> stats = new ArrayList<>();
+
+        final PipelineStage<CapturedFrame> detection = detectionStage;
+        if (detection != null)
+            stats.add(detection.getStats());
+
+        final PipelineStage<Frame> presentation = presentationStage;
+        if (presentation != null)
+            stats.add(presentation.getStats());
+
+        final PipelineStage<RecordedFrame> recording = recordingStage;
+        if (recording != null)
+            stats.add(recording.getStats());
+
+        // Its queue latency is how long shots wait to be delivered
+        final PipelineStage<ShotNotification> shotNotification = shotNotificationStage;
+        if (shotNotification != null)
+            stats.add(shotNotification.getStats());
+
+        return stats;
+    }
+
+    private void detectFrame(CapturedFrame capturedFrame) {
+        detectionFrameCount = capturedFrame.frameCount;
+        detectionFrameArrivalTime = capturedFrame.arrivalTime;
+
+        Frame processedFrame = null;
+
+        try {
+            processedFrame = processFrame(capturedFrame.frame, capturedFrame.shouldDedistort);
+        } finally {
+            // The presentation stage now owns the processed frame. If
+            // detection failed nothing owns the captured frame any more.
+            if (processedFrame != capturedFrame.frame)
+                capturedFrame.frame.release();
+        }
+
+        if (replaying) {
+            processedFrame.release();
+            return;
+        }
+
+        PreviewRateGovernor.getDefault().recordDetection(this, System.nanoTime() - capturedFrame.arrivalTime,
+                camera.getFPS());
+
+        if (isRecording())
+            submitRecording(processedFrame);
+
+        final PipelineStage<Frame> presentation = presentationStage;
+
+        try {
+            final Frame dropped = presentation.submit(processedFrame);
+
+            if (dropped != null)
+                dropped.release();
+        } catch (final InterruptedException e) {
+            processedFrame.release();
+            Thread.currentThread().interrupt();
+        } catch (final IllegalStateException e) {
+            processedFrame.release();
+            logger.trace("Frame from {} was detected after the pipeline was closed", camera.getName());
+        }
+    }
+
+    private boolean isRecording() {
+        return (recordingShots && rollingRecorder != null) || recordingStream;
+    }
+
+    private void submitRecording(Frame processedFrame) {
+        Optional<Bounds> cropBounds = Optional.empty();
+
+        if (cropFeedToProjection) {
+            synchronized (projectionBoundsLock) {
+                cropBounds = projectionBounds;
+            }
+        }
+
+        final RecordedFrame recordedFrame = new RecordedFrame(processedFrame.retain(), System.currentTimeMillis(),
+                cropBounds);
+
+        try {
+            final RecordedFrame dropped = recordingStage.submit(recordedFrame);
+
+            if (dropped != null) {
+                dropped.frame.release();
+                logger.trace("Recording from {} fell behind, dropped a frame", camera.getName());
+            }
+        } catch (final InterruptedException e) {
+            recordedFrame.frame.release();
+            Thread.currentThread().interrupt();
+        } catch (final IllegalStateException e) {
+            recordedFrame.frame.release();
+        }
+    }
+
+    /**
+     * Set the scheduler that runs the parallel parts of this camera's shot
+     * detection. Cameras that share a scheduler share its worker threads.
+     */
+    public void setDetectionScheduler(DetectionScheduler detectionScheduler) {
+        this.detectionScheduler = detectionScheduler;
+    }
+
+    public DetectionScheduler getDetectionScheduler() {
+        return detectionScheduler;
+    }
+
+    /**
+     * Run independent pieces of detection work for the current frame, such as
+     * one task per sector, on the detection scheduler and wait for all of them
+     * to finish.
+     */
+    public void runDetectionTasks(int taskCount, IntConsumer task) {
+        detectionScheduler.forIndex(taskCount, task, detectionFrameArrivalTime);
+    }
+
+    /**
+     * Put this manager in replay mode, where frames come from a recording
+     * instead of a live camera. Processed frames are not presented. Shots go
+     * through the shot notification stage like live shots, thus the camera
+     * view receives them on the shot notification thread in the order they
+     * were detected. {@link #awaitPipelineIdle()} waits for every frame to
+     * finish detection before it waits for the shots those frames yielded to
+     * be delivered, thus a replay that waits for it has every shot.
+     */
+    public void setReplaying(boolean replaying) {
+        this.replaying = replaying;
+    }
+
+    public boolean isReplaying() {
+        return replaying;
     }
 
     private int consecutiveCameraErrors = 0;
 
-    private boolean handleFrame(Frame currentFrame, boolean shouldDedistort) {
+    private boolean checkFrame(Frame currentFrame) {
         boolean cameraError = false;
 
         if (currentFrame == null && !camera.isOpen()) {
@@ -557,8 +977,10 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
             consecutiveCameraErrors = 0;
         }
 
-        BufferedImage currentImage = processFrame(currentFrame, shouldDedistort);
+        return true;
+    }
 
+    private void presentFrame(Frame currentFrame) {
         Bounds b;
 
         synchronized (projectionBoundsLock) {
@@ -569,56 +991,90 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
             }
         }
 
-        if (cropFeedToProjection && b != null) {
-            currentImage = currentImage.getSubimage((int) b.getMinX(), (int) b.getMinY(), (int) b.getWidth(),
-                    (int) b.getHeight());
-        }
+        final boolean crop = cropFeedToProjection && b != null;
 
-        if (recordingShots) {
-            rollingRecorder.recordFrame(currentImage);
+        // currentFrame is showing the colored pixels for brightness and motion,
+        // hence why we need to present the converted version
+        Mat frameMat = currentFrame.getOriginalMat();
+        if (crop) {
+            frameMat = frameMat.submat(
+                    new Rect((int) b.getMinX(), (int) b.getMinY(), (int) b.getWidth(), (int) b.getHeight()));
+        }
 
-            final List<Shot> removeKeys = new ArrayList<>();
-            for (final Entry<Shot, ShotRecorder> r : shotRecorders.entrySet()) {
-                if (r.getValue().isComplete()) {
-                    r.getValue().close();
-                    removeKeys.add(r.getKey());
+        try {
+            if (!config.isHeadless()) {
+                // The camera view copies the frame before returning
+                if (crop) {
+                    cameraView.updateBackground(frameMat, Optional.of(b));
                 } else {
-                    r.getValue().recordFrame(currentImage);
+                    cameraView.updateBackground(frameMat, Optional.empty());
                 }
             }
+        } finally {
+            if (crop)
+                frameMat.release();
 
-            for (final Shot s : removeKeys)
-                shotRecorders.remove(s);
+            currentFrame.release();
         }
+    }
 
-        if (recordingStream) {
-            final BufferedImage image = ConverterFactory.convertToType(currentImage, BufferedImage.TYPE_3BYTE_BGR);
-            final IConverter converter = ConverterFactory.createConverter(image, IPixelFormat.Type.YUV420P);
+    // Converts the frame to a picture once and hands the same picture to every
+    // active recorder
+    private void recordFrame(RecordedFrame recordedFrame) {
+        final BufferedImage frameImage = recordedFrame.frame.getPooledBufferedImage(FramePool.getDefault());
+        recordedFrame.frame.release();
 
-            final IVideoPicture frame = converter.toPicture(image,
-                    (System.currentTimeMillis() - recordingStartTime) * 1000);
-            frame.setKeyFrame(isFirstStreamFrame);
-            frame.setQuality(0);
-            isFirstStreamFrame = false;
+        try {
+            BufferedImage currentImage = frameImage;
 
-            videoWriterStream.encodeVideo(0, frame);
-        }
+            if (recordedFrame.cropBounds.isPresent()) {
+                final Bounds b = recordedFrame.cropBounds.get();
+                currentImage = frameImage.getSubimage((int) b.getMinX(), (int) b.getMinY(), (int) b.getWidth(),
+                        (int) b.getHeight());
+            }
 
-        if (!config.isHeadless()) {
-            if (cropFeedToProjection && projectionBounds.isPresent()) {
-                cameraView.updateBackground(currentImage, projectionBounds);
-            } else {
-                cameraView.updateBackground(currentImage, Optional.empty());
+            final IVideoPicture picture = recordingConverter.toPicture(currentImage, 0);
+            picture.setQuality(0);
+
+            if (recordingStream) {
+                picture.setTimeStamp((recordedFrame.time - recordingStartTime) * 1000);
+                picture.setKeyFrame(isFirstStreamFrame);
+                isFirstStreamFrame = false;
+
+                videoWriterStream.encodeVideo(0, picture);
             }
-        }
 
-        return true;
+            final RollingRecorder recorder = rollingRecorder;
+            if (recordingShots && recorder != null) {
+                final Optional<IPacket> packet;
+                final Set<ShotRecorder> recorders;
+
+                // A shot recorder forked while this frame is encoded either
+                // finds the frame's packet in the rolling buffer or gets it
+                // below, never both or neither
+                synchronized (shotRecordersLock) {
+                    packet = recorder.recordFrame(picture, recordedFrame.time);
+                    recorders = new HashSet<>(shotRecorders.values());
+                }
+
+                if (packet.isPresent()) {
+                    for (final ShotRecorder r : recorders) {
+                        r.recordPacket(packet.get());
+
+                        if (r.closeIfComplete())
+                            shotRecorders.values().removeIf((shotRecorder) -> shotRecorder == r);
+                    }
+                }
+            }
+        } finally {
+            FramePool.getDefault().recycleImage(frameImage);
+        }
     }
 
-    protected BufferedImage processFrame(Frame currentFrame, boolean shouldDedistort) {
+    protected Frame processFrame(Frame currentFrame, boolean shouldDedistort) {
         if (isAutoCalibrating.get()) {
             acm.processFrame(currentFrame);
-            return currentFrame.getOriginalBufferedImage();
+            return currentFrame;
         }
 
         Mat submatFrameBGR = null;
@@ -650,11 +1106,9 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
             }
 
             if (recordingCalibratedArea) {
-                final BufferedImage image = ConverterFactory.convertToType(Camera.matToBufferedImage(submatFrameBGR),
-                        BufferedImage.TYPE_3BYTE_BGR);
-                final IConverter converter = ConverterFactory.createConverter(image, IPixelFormat.Type.YUV420P);
+                calibratedAreaImage = Camera.matToBufferedImage(submatFrameBGR, calibratedAreaImage);
 
-                final IVideoPicture frame = converter.toPicture(image,
+                final IVideoPicture frame = calibratedAreaConverter.toPicture(calibratedAreaImage,
                         (System.currentTimeMillis() - recordingCalibratedAreaStartTime) * 1000);
                 frame.setKeyFrame(isFirstCalibratedAreaFrame);
                 frame.setQuality(0);
@@ -695,9 +1149,7 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
                 ((FrameProcessingShotDetector) shotDetector).processFrame(currentFrame, isDetecting.get());
         }
 
-        // currentFrame is showing the colored pixels for brightness and motion,
-        // hence why we need to return the converted version
-        return currentFrame.getOriginalBufferedImage();
+        return currentFrame;
     }
 
     private void checkIfMinimumFPS(double cameraFPS) {
@@ -807,8 +1259,14 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
         return camera.getFPS();
     }
 
+    /**
+     * @return the camera's frame count when the frame that is currently being
+     *         checked for shots was captured
+     */
     public int getFrameCount() {
-        return camera.getFrameCount();
+        final int frameCount = detectionFrameCount;
+
+        return frameCount == -1 ? camera.getFrameCount() : frameCount;
     }
 
     public long cameraTimeToShotTime(long timestamp) {
@@ -825,6 +1283,15 @@ public class CameraManager implements ObservableCloseable, CameraEventListener,
         if (debuggerListener.isPresent())
             debuggerListener.get().updateFeedData(cameraFPS);
 
+        if (logger.isDebugEnabled()) {
+            for (final PipelineStageStats stats : getPipelineStats())
+                logger.debug("[{}] {}", camera.getName(), stats);
+
+            final Optional<CaptureThreadStats> captureStats = camera.getCaptureThreadStats();
+            if (captureStats.isPresent())
+                logger.debug("[{}] capture: {}", camera.getName(), captureStats.get());
+        }
+
         checkIfMinimumFPS(cameraFPS);
     }
 
@@ -4,6 +4,8 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.Optional;
 
+import org.opencv.core.Mat;
+
 import com.shootoff.Closeable;
 import com.shootoff.camera.shot.DisplayShot;
 import com.shootoff.targets.Target;
@@ -53,4 +55,18 @@ public interface CameraView extends Closeable {
     public void setCameraManager(CameraManager cameraManager);
 
     public void updateBackground(BufferedImage frame, Optional<Bounds> projectionBounds);
+
+    /**
+     * Show a camera frame as the view's background. The frame is only valid
+     * until this method returns, thus views that show it later must copy it
+     * first.
+     * 
+     * @param frame
+     *            a BGR frame from the camera, or <tt>null</tt> to clear the
+     *            background
+     * @param projectionBounds
+     *            the bounds of the projector arena in the frame if the frame
+     *            was cropped to them
+     */
+    public void updateBackground(Mat frame, Optional<Bounds> projectionBounds);
 }
@@ -24,6 +24,7 @@ import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.shootoff.camera.cameratypes.Camera;
+import com.shootoff.camera.pipeline.DetectionScheduler;
 import com.shootoff.camera.processors.ShotProcessor;
 import com.shootoff.config.Configuration;
 
@@ -33,6 +34,10 @@ public class CamerasSupervisor {
 
     private final AtomicBoolean allDetecting = new AtomicBoolean(true);
 
+    // Shared by all cameras so that detection uses one worker per core no
+    // matter how many cameras are running
+    private final DetectionScheduler detectionScheduler = new DetectionScheduler();
+
     public CamerasSupervisor(Configuration config) {
         this.config = config;
     }
@@ -40,6 +45,7 @@ public class CamerasSupervisor {
     public Optional<CameraManager> addCameraManager(Camera cameraInterface, CameraErrorView cameraErrorView,
             CameraView cameraView) {
         final CameraManager manager = new CameraManager(cameraInterface, cameraErrorView, cameraView);
+        manager.setDetectionScheduler(detectionScheduler);
 
         if (manager.start()) {
             managers.add(manager);
@@ -107,6 +113,11 @@ public class CamerasSupervisor {
         }
 
         allDetecting.set(false);
+        detectionScheduler.shutdown();
+    }
+
+    public DetectionScheduler getDetectionScheduler() {
+        return detectionScheduler;
     }
 
     public List<CameraManager> getCameraManagers() {
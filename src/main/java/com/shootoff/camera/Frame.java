@@ -1,30 +1,98 @@
 package com.shootoff.camera;
 
 import java.awt.image.BufferedImage;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.opencv.core.Mat;
 import org.opencv.core.Size;
 
 import com.shootoff.camera.cameratypes.Camera;
 
+/**
+ * A camera image and the time it was captured. Frames created by a
+ * {@link FramePool} are reference counted and give their Mat back to the pool
+ * when the last reference is released. Releasing a frame that was not created
+ * by a pool has no effect beyond the bookkeeping.
+ */
 public class Frame {
     protected Mat mat;
     final protected long timestamp;
 
+    private final FramePool pool;
+    private final AtomicInteger references = new AtomicInteger(1);
+
     public Frame(Mat mat, long timestamp) {
+        this(mat, timestamp, null);
+    }
+
+    Frame(Mat mat, long timestamp, FramePool pool) {
         this.mat = mat;
         this.timestamp = timestamp;
+        this.pool = pool;
     }
 
     public Frame(BufferedImage bimg, long timestamp) {
         mat = Camera.bufferedImageToMat(bimg);
         this.timestamp = timestamp;
+        this.pool = null;
     }
 
+    /**
+     * Replace the frame's Mat. If the frame is pooled, the old Mat is given
+     * back to the pool unless it is the same Mat.
+     */
     public void setMat(Mat mat) {
+        if (pool != null && this.mat != mat)
+            pool.recycleMat(this.mat);
+
         this.mat = mat;
     }
 
+    /**
+     * Add a reference to this frame for a new holder, who must call
+     * {@link #release()} when it is done with the frame.
+     * 
+     * @return this frame
+     */
+    public Frame retain() {
+        if (references.getAndIncrement() <= 0) {
+            references.decrementAndGet();
+            throw new IllegalStateException("Cannot retain a frame that was already released");
+        }
+
+        return this;
+    }
+
+    /**
+     * Drop a reference to this frame. When the last reference is dropped the
+     * frame's Mat is given back to its pool, after which the frame must not be
+     * used.
+     */
+    public void release() {
+        final int remaining = references.decrementAndGet();
+
+        if (remaining < 0) {
+            references.incrementAndGet();
+            throw new IllegalStateException("Frame was released more times than it was retained");
+        }
+
+        if (remaining == 0 && pool != null)
+            pool.recycleMat(mat);
+    }
+
+    public boolean isReleased() {
+        return references.get() <= 0;
+    }
+
+    /**
+     * @return the pool this frame's Mat goes back to when the frame is
+     *         released, if any
+     */
+    public Optional<FramePool> getPool() {
+        return Optional.ofNullable(pool);
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
@@ -41,6 +109,16 @@ public class Frame {
         return Camera.matToBufferedImage(mat);
     }
 
+    /**
+     * Copy the frame into an image borrowed from <code>imagePool</code>. The
+     * caller gives the image back with {@link FramePool#recycleImage} once it
+     * is no longer needed.
+     */
+    public BufferedImage getPooledBufferedImage(FramePool imagePool) {
+        final BufferedImage image = imagePool.acquireImage(mat.width(), mat.height(), BufferedImage.TYPE_3BYTE_BGR);
+        return Camera.matToBufferedImage(mat, image);
+    }
+
     public Size size() {
         return mat.size();
     }
@@ -0,0 +1,208 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opencv.core.Mat;
+
+/**
+ * Recycles the Mats and images that back camera frames so that a camera
+ * running at full speed does not allocate a new pixel buffer for every frame.
+ * Buffers are kept in buckets keyed by their dimensions and type. A bucket only
+ * holds a limited number of idle buffers, anything returned beyond that is left
+ * for the garbage collector.
+ *
+ * Frames created by the pool are reference counted: whoever ends up holding
+ * the last reference to a frame calls {@link Frame#release()} to give its Mat
+ * back to the pool.
+ */
+public final class FramePool {
+    // Enough to cover every frame that can be in flight in a camera's pipeline
+    private static final int MAXIMUM_IDLE_BUFFERS_PER_BUCKET = 16;
+
+    private static final FramePool defaultPool = new FramePool();
+
+    private final List<Bucket<Mat>> matBuckets = new ArrayList<>();
+    private final List<Bucket<BufferedImage>> imageBuckets = new ArrayList<>();
+
+    private final AtomicLong allocatedCount = new AtomicLong();
+    private final AtomicLong reusedCount = new AtomicLong();
+
+    private static final class Bucket<T> {
+        private final int height;
+        private final int width;
+        private final int type;
+        private final ArrayDeque<T> idle = new ArrayDeque<>(MAXIMUM_IDLE_BUFFERS_PER_BUCKET);
+
+        private Bucket(int height, int width, int type) {
+            this.height = height;
+            this.width = width;
+            this.type = type;
+        }
+    }
+
+    /**
+     * @return the pool shared by all cameras
+     */
+    public static FramePool getDefault() {
+        return defaultPool;
+    }
+
+    // A camera only ever produces a handful of sizes, so a linear search is
+    // cheaper than hashing and does not box the key
+    private static <T> Bucket<T> findBucket(List<Bucket<T>> buckets, int height, int width, int type,
+            boolean create) {
+        for (int i = 0; i < buckets.size(); i++) {
+            final Bucket<T> bucket = buckets.get(i);
+
+            if (bucket.height == height && bucket.width == width && bucket.type == type)
+                return bucket;
+        }
+
+        if (!create)
+            return null;
+
+        final Bucket<T> bucket = new Bucket<>(height, width, type);
+        buckets.add(bucket);
+        return bucket;
+    }
+
+    /**
+     * Get a Mat with the requested dimensions and type. The contents of the Mat
+     * are undefined.
+     */
+    public Mat acquireMat(int rows, int cols, int type) {
+        synchronized (matBuckets) {
+            final Bucket<Mat> bucket = findBucket(matBuckets, rows, cols, type, false);
+
+            if (bucket != null && !bucket.idle.isEmpty()) {
+                reusedCount.incrementAndGet();
+                return bucket.idle.pop();
+            }
+
+            allocatedCount.incrementAndGet();
+        }
+
+        return new Mat(rows, cols, type);
+    }
+
+    /**
+     * Give a Mat back to the pool. The caller must not use the Mat afterwards.
+     * Empty Mats and submats are ignored because their memory is either
+     * missing or owned by another Mat.
+     */
+    public void recycleMat(Mat mat) {
+        if (mat == null || mat.empty() || mat.isSubmatrix())
+            return;
+
+        synchronized (matBuckets) {
+            final Bucket<Mat> bucket = findBucket(matBuckets, mat.rows(), mat.cols(), mat.type(), true);
+
+            if (bucket.idle.size() < MAXIMUM_IDLE_BUFFERS_PER_BUCKET)
+                bucket.idle.push(mat);
+        }
+    }
+
+    /**
+     * Get an image with the requested dimensions and
+     * {@link BufferedImage#getType() type}. The contents of the image are
+     * undefined.
+     */
+    public BufferedImage acquireImage(int width, int height, int imageType) {
+        synchronized (imageBuckets) {
+            final Bucket<BufferedImage> bucket = findBucket(imageBuckets, height, width, imageType, false);
+
+            if (bucket != null && !bucket.idle.isEmpty()) {
+                reusedCount.incrementAndGet();
+                return bucket.idle.pop();
+            }
+
+            allocatedCount.incrementAndGet();
+        }
+
+        return new BufferedImage(width, height, imageType);
+    }
+
+    /**
+     * Give an image back to the pool. The caller must not use the image or any
+     * of its subimages afterwards.
+     */
+    public void recycleImage(BufferedImage image) {
+        if (image == null || image.getType() == BufferedImage.TYPE_CUSTOM)
+            return;
+
+        synchronized (imageBuckets) {
+            final Bucket<BufferedImage> bucket = findBucket(imageBuckets, image.getHeight(), image.getWidth(),
+                    image.getType(), true);
+
+            if (bucket.idle.size() < MAXIMUM_IDLE_BUFFERS_PER_BUCKET)
+                bucket.idle.push(image);
+        }
+    }
+
+    /**
+     * Create a frame backed by a pooled Mat. The frame starts with one
+     * reference, which belongs to the caller.
+     */
+    public Frame acquireFrame(int rows, int cols, int type, long timestamp) {
+        return new Frame(acquireMat(rows, cols, type), timestamp, this);
+    }
+
+    /**
+     * Wrap a Mat in a frame that gives the Mat back to this pool when its last
+     * reference is released. The frame starts with one reference, which
+     * belongs to the caller.
+     */
+    public Frame createFrame(Mat mat, long timestamp) {
+        return new Frame(mat, timestamp, this);
+    }
+
+    /**
+     * Drop every idle buffer held by the pool.
+     */
+    public void clear() {
+        synchronized (matBuckets) {
+            matBuckets.clear();
+        }
+
+        synchronized (imageBuckets) {
+            imageBuckets.clear();
+        }
+    }
+
+    /**
+     * @return the number of Mats and images the pool had to allocate because
+     *         no idle buffer of the right size was available
+     */
+    public long getAllocatedCount() {
+        return allocatedCount.get();
+    }
+
+    /**
+     * @return the number of Mats and images handed out from the idle buffers
+     */
+    public long getReusedCount() {
+        return reusedCount.get();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.opencv.core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.cameratypes.ReplayCamera;
+import com.shootoff.camera.shot.DisplayShot;
+import com.shootoff.config.Configuration;
+import com.shootoff.targets.Target;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.paint.Color;
+
+/**
+ * Runs recorded video through the same camera manager and shot detector used
+ * for live cameras, as fast as the machine can decode and detect, and reports
+ * the shots that were found. This makes it possible to re-score archived
+ * footage after tuning detection settings without waiting for the footage to
+ * play in real time.
+ *
+ * Shot detection reads its settings from the current {@link Configuration},
+ * thus one must be loaded before replaying.
+ */
+public class ReplayEngine {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayEngine.class);
+
+    private static final String VIDEO_EXTENSION = ".mp4";
+
+    private Optional<boolean[][]> sectorStatuses = Optional.empty();
+
+    /**
+     * Only detect shots in the enabled sectors, the same as a live camera with
+     * those sectors turned off. All sectors are enabled by default.
+     */
+    public void setSectorStatuses(boolean[][] sectorStatuses) {
+        this.sectorStatuses = Optional.ofNullable(sectorStatuses);
+    }
+
+    /**
+     * Detect the shots in a recorded video.
+     *
+     * @param videoFile
+     *            the video to replay
+     * @return the shots that were found and how long it took to find them
+     * @throws IOException
+     *             if the video could not be opened
+     * @throws InterruptedException
+     *             if the calling thread was interrupted while the video was
+     *             replaying
+     */
+    public ReplayResult replay(File videoFile) throws IOException, InterruptedException {
+        if (Configuration.getConfig() == null)
+            throw new IllegalStateException("A configuration must be loaded before replaying video");
+
+        final long startTime = System.currentTimeMillis();
+
+        final ReplayCamera camera = new ReplayCamera(videoFile);
+        final ReplayCameraView cameraView = new ReplayCameraView();
+        final CameraManager cameraManager = new CameraManager(camera, null, cameraView);
+        cameraManager.setReplaying(true);
+
+        if (!cameraManager.start())
+            throw new IOException("Failed to open video to replay: " + videoFile.getAbsolutePath());
+
+        try {
+            if (sectorStatuses.isPresent())
+                cameraManager.setSectorStatuses(sectorStatuses.get());
+
+            camera.play();
+            camera.awaitFinished();
+            cameraManager.awaitPipelineIdle();
+        } finally {
+            cameraManager.close();
+        }
+
+        final ReplayResult result = new ReplayResult(videoFile, cameraView.getShots(), camera.getFrameCount(),
+                camera.getCurrentFrameTimestamp(), System.currentTimeMillis() - startTime);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Replayed {} frames of {} in {} ms, found {} shots", result.getFrameCount(),
+                    videoFile.getName(), result.getReplayDuration(), result.getShots().size());
+        }
+
+        return result;
+    }
+
+    /**
+     * Detect the shots in every video recorded for a session. Each video is
+     * replayed on its own, thus shot timestamps are relative to the first shot
+     * in the same video.
+     *
+     * @param sessionVideoFolder
+     *            the folder the session's videos were recorded to
+     * @return the result of replaying each video, in video name order
+     */
+    public Map<File, ReplayResult> replaySession(File sessionVideoFolder) throws IOException, InterruptedException {
+        final File[] videoFiles = sessionVideoFolder.listFiles((dir, name) -> isVideo(name));
+
+        if (videoFiles == null)
+            throw new IOException("Session video folder does not exist: " + sessionVideoFolder.getAbsolutePath());
+
+        Arrays.sort(videoFiles);
+
+        final Map<File, ReplayResult> results = new LinkedHashMap<>();
+
+        for (final File videoFile : videoFiles)
+            results.put(videoFile, replay(videoFile));
+
+        return results;
+    }
+
+    static boolean isVideo(String fileName) {
+        return fileName.toLowerCase().endsWith(VIDEO_EXTENSION);
+    }
+
+    // Collects shots instead of drawing anything
+    private static class ReplayCameraView implements CameraView {
+        private final List<Shot> shots = Collections.synchronizedList(new ArrayList<>());
+
+        public List<Shot> getShots() {
+            synchronized (shots) {
+                return new ArrayList<>(shots);
+            }
+        }
+
+        @Override
+        public boolean addChild(Node c) {
+            return false;
+        }
+
+        @Override
+        public void addShot(DisplayShot shot, boolean isMirroredShot) {
+            shots.add(shot);
+        }
+
+        @Override
+        public Optional<Target> addTarget(File targetFile) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<Target> restoreTarget(File targetFile, double x, double y, double w, double h) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Target addTarget(Target newTarget) {
+            return newTarget;
+        }
+
+        @Override
+        public Label addDiagnosticMessage(String message, Color backgroundColor) {
+            return null;
+        }
+
+        @Override
+        public void clearShots() {
+            shots.clear();
+        }
+
+        @Override
+        public void close() {}
+
+        @Override
+        public boolean removeChild(Node c) {
+            return false;
+        }
+
+        @Override
+        public void removeDiagnosticMessage(Label diagnosticLabel) {}
+
+        @Override
+        public void reset() {}
+
+        @Override
+        public void setCameraManager(CameraManager cameraManager) {}
+
+        @Override
+        public void updateBackground(BufferedImage frame, Optional<Bounds> projectionBounds) {}
+
+        @Override
+        public void updateBackground(Mat frame, Optional<Bounds> projectionBounds) {}
+    }
+}
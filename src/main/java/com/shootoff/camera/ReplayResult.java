@@ -0,0 +1,82 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The shots found by replaying one video and how long it took to find them.
+ */
+public class ReplayResult {
+    private final File videoFile;
+    private final List<Shot> shots;
+    private final int frameCount;
+    private final long videoDuration;
+    private final long replayDuration;
+
+    public ReplayResult(File videoFile, List<Shot> shots, int frameCount, long videoDuration, long replayDuration) {
+        this.videoFile = videoFile;
+        this.shots = Collections.unmodifiableList(shots);
+        this.frameCount = frameCount;
+        this.videoDuration = videoDuration;
+        this.replayDuration = replayDuration;
+    }
+
+    public File getVideoFile() {
+        return videoFile;
+    }
+
+    /**
+     * @return the shots in the order they were detected, with timestamps
+     *         relative to the first shot
+     */
+    public List<Shot> getShots() {
+        return shots;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return the timestamp of the last frame in the video in milliseconds
+     */
+    public long getVideoDuration() {
+        return videoDuration;
+    }
+
+    /**
+     * @return how long the replay took in milliseconds
+     */
+    public long getReplayDuration() {
+        return replayDuration;
+    }
+
+    /**
+     * @return how many times faster than real time the video was replayed
+     */
+    public double getSpeedup() {
+        if (replayDuration <= 0)
+            return 0;
+
+        return (double) videoDuration / (double) replayDuration;
+    }
+}
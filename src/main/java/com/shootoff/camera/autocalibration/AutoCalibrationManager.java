@@ -44,6 +44,7 @@ import org.slf4j.LoggerFactory;
 
 import com.shootoff.camera.CameraCalibrationListener;
 import com.shootoff.camera.Frame;
+import com.shootoff.camera.FramePool;
 import com.shootoff.camera.cameratypes.Camera;
 import com.shootoff.config.Configuration;
 
@@ -814,7 +815,12 @@ public class AutoCalibrationManager {
 
     public Frame undistortFrame(Frame frame) {
         if (isCalibrated) {
-            frame.setMat(warpPerspective(frame.getOriginalMat()));
+            final Mat original = frame.getOriginalMat();
+            final Optional<FramePool> pool = frame.getPool();
+            final Mat undistorted = pool.isPresent()
+                    ? pool.get().acquireMat(original.rows(), original.cols(), original.type()) : new Mat();
+
+            frame.setMat(warpPerspective(original, undistorted));
         } else {
             logger.warn("undistortFrame called when isCalibrated is false");
         }
@@ -1102,8 +1108,11 @@ public class AutoCalibrationManager {
 
     // initializeWarpPerspective MUST BE CALLED first
     private Mat warpPerspective(final Mat frame) {
+        return warpPerspective(frame, new Mat());
+    }
+
+    private Mat warpPerspective(final Mat frame, final Mat mat) {
         if (warpInitialized) {
-            final Mat mat = new Mat();
             Imgproc.warpPerspective(frame, mat, perspMat, frame.size(), Imgproc.INTER_LINEAR);
 
             return mat;
@@ -21,6 +21,7 @@ package com.shootoff.camera.cameratypes;
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
+import java.util.Optional;
 
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
@@ -75,7 +76,26 @@ public interface Camera extends Runnable, Closeable {
     void resetExposure();
 
     static BufferedImage matToBufferedImage(Mat matBGR) {
-        final BufferedImage image = new BufferedImage(matBGR.width(), matBGR.height(), BufferedImage.TYPE_3BYTE_BGR);
+        return matToBufferedImage(matBGR, null);
+    }
+
+    /**
+     * Copy a BGR Mat into <code>target</code> if it is a
+     * {@link BufferedImage#TYPE_3BYTE_BGR} image of the same size, otherwise
+     * into a new image.
+     * 
+     * @return the image holding the Mat's pixels
+     */
+    static BufferedImage matToBufferedImage(Mat matBGR, BufferedImage target) {
+        final BufferedImage image;
+
+        if (target != null && target.getType() == BufferedImage.TYPE_3BYTE_BGR
+                && target.getWidth() == matBGR.width() && target.getHeight() == matBGR.height()) {
+            image = target;
+        } else {
+            image = new BufferedImage(matBGR.width(), matBGR.height(), BufferedImage.TYPE_3BYTE_BGR);
+        }
+
         final byte[] targetPixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
         matBGR.get(0, 0, targetPixels);
 
@@ -83,16 +103,33 @@ public interface Camera extends Runnable, Closeable {
     }
 
     static Mat bufferedImageToMat(BufferedImage frame) {
+        return bufferedImageToMat(frame, new Mat(frame.getHeight(), frame.getWidth(), CvType.CV_8UC3));
+    }
+
+    /**
+     * Copy an image into <code>target</code>, which must be a
+     * {@link CvType#CV_8UC3} Mat the same size as the image.
+     * 
+     * @return <code>target</code>
+     */
+    static Mat bufferedImageToMat(BufferedImage frame, Mat target) {
         final BufferedImage transformedFrame = ConverterFactory.convertToType(frame, BufferedImage.TYPE_3BYTE_BGR);
         final byte[] pixels = ((DataBufferByte) transformedFrame.getRaster().getDataBuffer()).getData();
-        final Mat mat = new Mat(frame.getHeight(), frame.getWidth(), CvType.CV_8UC3);
-        mat.put(0, 0, pixels);
+        target.put(0, 0, pixels);
 
-        return mat;
+        return target;
     }
 
     double getFPS();
 
+    /**
+     * @return how the camera's capture thread has split its time between
+     *         waiting for frames and handling them, if the camera tracks it
+     */
+    default Optional<CaptureThreadStats> getCaptureThreadStats() {
+        return Optional.empty();
+    }
+
     /**
      * @return True if the camera limits the number of frames that are delivered
      *         to CameraManager
@@ -0,0 +1,72 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.cameratypes;
+
+/**
+ * A snapshot of how a camera's capture thread has spent its time. Times are in
+ * nanoseconds.
+ */
+public final class CaptureThreadStats {
+    private final long idleTime;
+    private final long busyTime;
+    private final long emptyWaitCount;
+
+    public CaptureThreadStats(long idleTime, long busyTime, long emptyWaitCount) {
+        this.idleTime = idleTime;
+        this.busyTime = busyTime;
+        this.emptyWaitCount = emptyWaitCount;
+    }
+
+    /**
+     * @return the total time the thread spent waiting for frames
+     */
+    public long getIdleTime() {
+        return idleTime;
+    }
+
+    /**
+     * @return the total time the thread spent between waits, i.e. fetching,
+     *         converting, and handing off frames
+     */
+    public long getBusyTime() {
+        return busyTime;
+    }
+
+    /**
+     * @return the fraction of its time the thread spent waiting, or 0 if it
+     *         has not waited yet
+     */
+    public double getIdleRatio() {
+        final long total = idleTime + busyTime;
+        return total == 0 ? 0 : (double) idleTime / (double) total;
+    }
+
+    /**
+     * @return the number of waits that ended without a frame arriving
+     */
+    public long getEmptyWaitCount() {
+        return emptyWaitCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("idle %.2f ms, busy %.2f ms (%.1f%% idle), %d empty waits", idleTime / 1e6,
+                busyTime / 1e6, getIdleRatio() * 100, emptyWaitCount);
+    }
+}
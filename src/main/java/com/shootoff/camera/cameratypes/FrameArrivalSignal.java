@@ -0,0 +1,138 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.cameratypes;
+
+import com.shootoff.config.Configuration;
+
+/**
+ * Lets a camera's capture thread sleep until a frame arrives instead of
+ * spinning on the driver. The capture thread calls
+ * {@link #awaitFrame()} and whoever receives frames from the driver calls
+ * {@link #frameArrived()}. A wait never lasts longer than the maximum latency,
+ * which bounds how late a frame is noticed by a camera that can only be polled
+ * and how long it takes the thread to notice the camera closed.
+ *
+ * The signal also keeps track of how much time the capture thread spent
+ * waiting (idle) versus working on frames (busy).
+ */
+public final class FrameArrivalSignal {
+    public static final int DEFAULT_MAXIMUM_LATENCY = 10; // ms
+
+    private final Object lock = new Object();
+    private final long maximumLatency;
+
+    private boolean frameAvailable = false;
+
+    private long idleTime = 0;
+    private long busyTime = 0;
+    private long emptyWaitCount = 0;
+    // When the capture thread last stopped waiting
+    private long lastWakeTime = -1;
+
+    /**
+     * Create a signal that uses the configured maximum frame latency.
+     */
+    public FrameArrivalSignal() {
+        this(getConfiguredMaximumLatency());
+    }
+
+    /**
+     * @param maximumLatency
+     *            the longest time, in milliseconds, that a single wait lasts
+     */
+    public FrameArrivalSignal(long maximumLatency) {
+        if (maximumLatency < 1)
+            throw new IllegalArgumentException("maximumLatency must be at least 1 ms, got " + maximumLatency);
+
+        this.maximumLatency = maximumLatency;
+    }
+
+    private static long getConfiguredMaximumLatency() {
+        final Configuration config = Configuration.getConfig();
+
+        if (config == null)
+            return DEFAULT_MAXIMUM_LATENCY;
+
+        return config.getMaximumFrameLatency();
+    }
+
+    public long getMaximumLatency() {
+        return maximumLatency;
+    }
+
+    /**
+     * Tell the capture thread that a new frame is ready.
+     */
+    public void frameArrived() {
+        synchronized (lock) {
+            frameAvailable = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Wake the capture thread without reporting a frame, e.g. because the
+     * camera is closing.
+     */
+    public void wakeUp() {
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Wait until a frame arrives, the maximum latency passes, or
+     * {@link #wakeUp()} is called. Returns immediately if a frame arrived
+     * since the last call.
+     *
+     * @return <code>true</code> if a frame arrived since the last call
+     * @throws InterruptedException
+     *             if the capture thread was interrupted while waiting
+     */
+    public boolean awaitFrame() throws InterruptedException {
+        synchronized (lock) {
+            final long waitStart = System.nanoTime();
+
+            if (lastWakeTime > -1)
+                busyTime += waitStart - lastWakeTime;
+
+            try {
+                if (!frameAvailable)
+                    lock.wait(maximumLatency);
+            } finally {
+                lastWakeTime = System.nanoTime();
+                idleTime += lastWakeTime - waitStart;
+            }
+
+            final boolean arrived = frameAvailable;
+            frameAvailable = false;
+
+            if (!arrived)
+                emptyWaitCount++;
+
+            return arrived;
+        }
+    }
+
+    public CaptureThreadStats getStats() {
+        synchronized (lock) {
+            return new CaptureThreadStats(idleTime, busyTime, emptyWaitCount);
+        }
+    }
+}
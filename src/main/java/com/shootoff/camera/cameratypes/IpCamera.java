@@ -28,6 +28,8 @@ import java.util.Optional;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +43,7 @@ import com.shootoff.camera.CameraFactory;
 import com.shootoff.camera.CameraManager;
 import com.shootoff.camera.CameraView;
 import com.shootoff.camera.Frame;
+import com.shootoff.camera.FramePool;
 import com.shootoff.camera.shotdetection.JavaShotDetector;
 import com.shootoff.camera.shotdetection.ShotDetector;
 
@@ -49,6 +52,7 @@ public class IpCamera extends CalculatedFPSCamera {
     private final Webcam ipcam;
 
     private final AtomicBoolean closing = new AtomicBoolean(false);
+    private final FrameArrivalSignal frameArrival = new FrameArrivalSignal();
 
     public IpCamera(final Webcam ipcam) {
         this.ipcam = ipcam;
@@ -115,7 +119,14 @@ public class IpCamera extends CalculatedFPSCamera {
 
     @Override
     public Frame getFrame() {
-        return new Frame(getBufferedImage(), currentFrameTimestamp);
+        return toFrame(getBufferedImage());
+    }
+
+    private Frame toFrame(BufferedImage image) {
+        final FramePool pool = FramePool.getDefault();
+        final Mat mat = pool.acquireMat(image.getHeight(), image.getWidth(), CvType.CV_8UC3);
+
+        return pool.createFrame(Camera.bufferedImageToMat(image, mat), currentFrameTimestamp);
     }
 
     @Override
@@ -154,6 +165,7 @@ public class IpCamera extends CalculatedFPSCamera {
             cameraEventListener.get().cameraClosed();
 
         closing.set(true);
+        frameArrival.wakeUp();
 
         if (CameraFactory.isMac()) {
             new Thread(() -> {
@@ -176,10 +188,6 @@ public class IpCamera extends CalculatedFPSCamera {
         return ipcam.getLock().isLocked();
     }
 
-    private boolean isImageNew() {
-        return ipcam.isImageNew();
-    }
-
     @Override
     public void setViewSize(Dimension size) {
         try {
@@ -204,14 +212,39 @@ public class IpCamera extends CalculatedFPSCamera {
             return null;
     }
 
+    @Override
+    public Optional<CaptureThreadStats> getCaptureThreadStats() {
+        return Optional.of(frameArrival.getStats());
+    }
+
     @Override
     public void run() {
+        BufferedImage lastImage = null;
+
         while (isOpen() && !closing.get()) {
-            if (!isImageNew())
+            // The ipcam driver decodes the stream on its own thread and
+            // keeps returning the last decoded image until the next one is
+            // ready. It offers no way to be told when that happens, so
+            // wait up to the maximum frame latency between checks instead
+            // of spinning.
+            final BufferedImage image = ipcam.getImage();
+
+            if (image == null || image == lastImage) {
+                try {
+                    frameArrival.awaitFrame();
+                } catch (final InterruptedException e) {
+                    break;
+                }
+
                 continue;
+            }
+
+            lastImage = image;
+            currentFrameTimestamp = System.currentTimeMillis();
+            frameCount++;
 
             if (cameraEventListener.isPresent())
-                cameraEventListener.get().newFrame(getFrame());
+                cameraEventListener.get().newFrame(toFrame(image));
 
             if (((int) (getFrameCount() % Math.min(getFPS(), 5)) == 0) && cameraState != CameraState.CALIBRATING) {
                 estimateCameraFPS();
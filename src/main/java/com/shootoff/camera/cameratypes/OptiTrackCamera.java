@@ -22,7 +22,6 @@ import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.opencv.core.CvType;
@@ -35,6 +34,7 @@ import com.shootoff.camera.CameraFactory;
 import com.shootoff.camera.CameraManager;
 import com.shootoff.camera.CameraView;
 import com.shootoff.camera.Frame;
+import com.shootoff.camera.FramePool;
 import com.shootoff.camera.shotdetection.JavaShotDetector;
 import com.shootoff.camera.shotdetection.NativeShotDetector;
 import com.shootoff.camera.shotdetection.OptiTrackShotDetector;
@@ -178,11 +178,13 @@ public class OptiTrackCamera implements Camera {
         if (viewWidth == 0)
             viewWidth = getViewWidth();
 
-        final Mat mat = new Mat(viewHeight, viewWidth, CvType.CV_8UC1);
-        final Mat dst = new Mat(viewHeight, viewWidth, CvType.CV_8UC3);
+        final FramePool pool = FramePool.getDefault();
+        final Mat mat = pool.acquireMat(viewHeight, viewWidth, CvType.CV_8UC1);
+        final Mat dst = pool.acquireMat(viewHeight, viewWidth, CvType.CV_8UC3);
 
         mat.put(0, 0, imageBuffer);
         Imgproc.cvtColor(mat, dst, Imgproc.COLOR_GRAY2BGR);
+        pool.recycleMat(mat);
         return dst;
     }
 
@@ -191,12 +193,15 @@ public class OptiTrackCamera implements Camera {
         final byte[] frame = getImageNative();
         final Mat mat = translateCameraArrayToMat(frame);
         final long currentFrameTimestamp = System.currentTimeMillis();
-        return new Frame(mat, currentFrameTimestamp);
+        return FramePool.getDefault().createFrame(mat, currentFrameTimestamp);
     }
 
     @Override
     public BufferedImage getBufferedImage() {
-        return getFrame().getOriginalBufferedImage();
+        final Frame frame = getFrame();
+        final BufferedImage image = frame.getOriginalBufferedImage();
+        frame.release();
+        return image;
     }
 
     @Override
@@ -216,26 +221,27 @@ public class OptiTrackCamera implements Camera {
     }
 
     private final ReentrantLock frameLock = new ReentrantLock(true);
-    private AtomicBoolean frameAvailable = new AtomicBoolean(false);
+    private final FrameArrivalSignal frameArrival = new FrameArrivalSignal();
     private byte[] frameBytes;
     private long frameTS;
 
+    @Override
+    public Optional<CaptureThreadStats> getCaptureThreadStats() {
+        return Optional.of(frameArrival.getStats());
+    }
+
     @Override
     public void run() {
         while (isOpen()) {
             Frame frame = null;
 
-            synchronized (frameLock) {
-                try {
-                    if (frameAvailable.get() == false) {
-                        frameLock.wait();
+            try {
+                if (frameArrival.awaitFrame()) {
+                    synchronized (frameLock) {
+                        frame = FramePool.getDefault().createFrame(translateCameraArrayToMat(frameBytes), frameTS);
                     }
-                } catch (InterruptedException e) {
-                }
-
-                if (frameAvailable.compareAndSet(true, false)) {
-                    frame = new Frame(translateCameraArrayToMat(frameBytes), frameTS);
                 }
+            } catch (InterruptedException e) {
             }
 
             if (frame != null) {
@@ -254,10 +260,10 @@ public class OptiTrackCamera implements Camera {
         synchronized (frameLock) {
             this.frameBytes = frameBytes;
             this.frameTS = frameTS;
-            frameLock.notifyAll();
-            frameAvailable.set(true);
         }
 
+        frameArrival.frameArrived();
+
     }
 
     private void cameraClosed() {
@@ -269,9 +275,7 @@ public class OptiTrackCamera implements Camera {
         if (isOpen())
             close();
 
-        synchronized (frameLock) {
-            frameLock.notifyAll();
-        }
+        frameArrival.wakeUp();
     }
 
     @Override
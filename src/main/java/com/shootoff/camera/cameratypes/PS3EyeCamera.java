@@ -54,6 +54,7 @@ import com.shootoff.camera.CameraFactory;
 import com.shootoff.camera.CameraManager;
 import com.shootoff.camera.CameraView;
 import com.shootoff.camera.Frame;
+import com.shootoff.camera.FramePool;
 import com.shootoff.camera.shotdetection.JavaShotDetector;
 import com.shootoff.camera.shotdetection.NativeShotDetector;
 import com.shootoff.camera.shotdetection.ShotDetector;
@@ -385,7 +386,7 @@ public class PS3EyeCamera extends CalculatedFPSCamera {
     }
 
     public Mat translateCameraArrayToMat(byte[] imageBuffer) {
-        final Mat mat = new Mat(getViewHeight(), getViewWidth(), CvType.CV_8UC3);
+        final Mat mat = FramePool.getDefault().acquireMat(getViewHeight(), getViewWidth(), CvType.CV_8UC3);
 
         mat.put(0, 0, imageBuffer);
         return mat;
@@ -405,12 +406,15 @@ public class PS3EyeCamera extends CalculatedFPSCamera {
         final long currentFrameTimestamp = System.currentTimeMillis();
         final Mat mat = translateCameraArrayToMat(frame);
         frameCount++;
-        return new Frame(mat, currentFrameTimestamp);
+        return FramePool.getDefault().createFrame(mat, currentFrameTimestamp);
     }
 
     @Override
     public BufferedImage getBufferedImage() {
-        return getFrame().getOriginalBufferedImage();
+        final Frame frame = getFrame();
+        final BufferedImage image = frame.getOriginalBufferedImage();
+        frame.release();
+        return image;
     }
 
     @Override
@@ -0,0 +1,275 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.cameratypes;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.concurrent.CountDownLatch;
+
+import org.opencv.core.CvType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.CameraManager;
+import com.shootoff.camera.CameraView;
+import com.shootoff.camera.Frame;
+import com.shootoff.camera.FramePool;
+import com.shootoff.camera.shotdetection.JavaShotDetector;
+import com.shootoff.camera.shotdetection.ShotDetector;
+import com.xuggle.mediatool.IMediaReader;
+import com.xuggle.mediatool.MediaListenerAdapter;
+import com.xuggle.mediatool.ToolFactory;
+import com.xuggle.mediatool.event.IVideoPictureEvent;
+
+/**
+ * A camera that plays back a recorded video as fast as it can be decoded.
+ * Frames are stamped with their position in the video rather than the wall
+ * clock, thus shot detection sees the same timing it would have seen live no
+ * matter how fast the video is replayed.
+ *
+ * Decoding only starts once {@link #play()} is called so that the camera
+ * manager can be configured after it opened the camera.
+ */
+public class ReplayCamera extends CalculatedFPSCamera {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayCamera.class);
+
+    private final File videoFile;
+    private IMediaReader reader = null;
+    private Dimension viewSize = new Dimension(-1, -1);
+
+    // Frames decoded by the reader that were not delivered yet
+    private final ArrayDeque<Frame> decodedFrames = new ArrayDeque<>();
+
+    private final CountDownLatch playing = new CountDownLatch(1);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean closed = false;
+    private boolean running = false;
+
+    private long lastFPSTimestamp = -1;
+    private int lastFPSFrameCount = 0;
+
+    public ReplayCamera(File videoFile) {
+        this.videoFile = videoFile;
+        cameraState = CameraState.CLOSED;
+    }
+
+    public File getVideoFile() {
+        return videoFile;
+    }
+
+    @Override
+    public String getName() {
+        return "Replay " + videoFile.getName();
+    }
+
+    // Decodes the first frame to learn the video's dimensions
+    @Override
+    public synchronized boolean open() {
+        if (reader != null)
+            return true;
+
+        if (!videoFile.isFile()) {
+            logger.error("Video to replay does not exist: {}", videoFile.getAbsolutePath());
+            return false;
+        }
+
+        reader = ToolFactory.makeReader(videoFile.getAbsolutePath());
+        reader.setBufferedImageTypeToGenerate(BufferedImage.TYPE_3BYTE_BGR);
+        reader.addListener(new MediaListenerAdapter() {
+            @Override
+            public void onVideoPicture(IVideoPictureEvent event) {
+                decodedFrames.add(toFrame(event.getImage(), event.getTimeStamp()));
+            }
+        });
+
+        while (decodedFrames.isEmpty() && reader.readPacket() == null)
+            ;
+
+        if (decodedFrames.isEmpty()) {
+            logger.error("Video to replay has no frames: {}", videoFile.getAbsolutePath());
+            reader.close();
+            reader = null;
+            return false;
+        }
+
+        final Frame first = decodedFrames.peek();
+        viewSize = new Dimension(first.getOriginalMat().cols(), first.getOriginalMat().rows());
+        cameraState = CameraState.NORMAL;
+
+        return true;
+    }
+
+    private Frame toFrame(BufferedImage image, long timestamp) {
+        final Frame frame = FramePool.getDefault().acquireFrame(image.getHeight(), image.getWidth(), CvType.CV_8UC3,
+                timestamp / 1000);
+        Camera.bufferedImageToMat(image, frame.getOriginalMat());
+        return frame;
+    }
+
+    /**
+     * Start delivering frames to the camera event listener.
+     */
+    public void play() {
+        playing.countDown();
+    }
+
+    /**
+     * Wait until every frame of the video was delivered or the camera was
+     * closed.
+     */
+    public void awaitFinished() throws InterruptedException {
+        finished.await();
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            running = true;
+        }
+
+        try {
+            playing.await();
+
+            while (!closed) {
+                if (decodedFrames.isEmpty() && reader.readPacket() != null)
+                    break;
+
+                while (!closed && !decodedFrames.isEmpty())
+                    deliverFrame(decodedFrames.poll());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (final Frame frame : decodedFrames)
+                frame.release();
+            decodedFrames.clear();
+
+            synchronized (this) {
+                if (reader != null) {
+                    reader.close();
+                    reader = null;
+                }
+
+                running = false;
+            }
+
+            logger.debug("Finished replaying {} frames from {}", frameCount, videoFile.getName());
+
+            finished.countDown();
+        }
+    }
+
+    private void deliverFrame(Frame frame) {
+        frameCount++;
+        currentFrameTimestamp = frame.getTimestamp();
+
+        // Estimate the frame rate from the video's timestamps because the wall
+        // clock says nothing about how fast the video was recorded
+        if (lastFPSTimestamp == -1) {
+            lastFPSTimestamp = currentFrameTimestamp;
+        } else if (frameCount - lastFPSFrameCount >= DEFAULT_FPS && currentFrameTimestamp > lastFPSTimestamp) {
+            setFPS((frameCount - lastFPSFrameCount) * 1000.0 / (currentFrameTimestamp - lastFPSTimestamp));
+
+            lastFPSTimestamp = currentFrameTimestamp;
+            lastFPSFrameCount = frameCount;
+
+            if (cameraEventListener.isPresent())
+                cameraEventListener.get().newFPS(getFPS());
+        }
+
+        if (cameraEventListener.isPresent())
+            cameraEventListener.get().newFrame(frame);
+        else
+            frame.release();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        playing.countDown();
+
+        // The replay thread closes the reader when it finishes
+        if (reader != null && !running) {
+            for (final Frame frame : decodedFrames)
+                frame.release();
+            decodedFrames.clear();
+
+            reader.close();
+            reader = null;
+            finished.countDown();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return reader != null && !closed;
+    }
+
+    @Override
+    public Frame getFrame() {
+        return null;
+    }
+
+    @Override
+    public BufferedImage getBufferedImage() {
+        return null;
+    }
+
+    @Override
+    public ShotDetector getPreferredShotDetector(final CameraManager cameraManager, final CameraView cameraView) {
+        // Recordings are replayed on any machine, thus hardware specific
+        // detectors do not apply
+        return new JavaShotDetector(cameraManager, cameraView);
+    }
+
+    @Override
+    public boolean isLocked() {
+        return false;
+    }
+
+    @Override
+    public void setViewSize(Dimension size) {
+        // The video's dimensions are fixed
+    }
+
+    @Override
+    public Dimension getViewSize() {
+        return viewSize;
+    }
+
+    @Override
+    public boolean supportsExposureAdjustment() {
+        return false;
+    }
+
+    @Override
+    public boolean decreaseExposure() {
+        return false;
+    }
+
+    @Override
+    public void resetExposure() {}
+
+    @Override
+    public boolean limitsFrames() {
+        return false;
+    }
+}
@@ -35,6 +35,7 @@ import com.shootoff.camera.CameraFactory;
 import com.shootoff.camera.CameraManager;
 import com.shootoff.camera.CameraView;
 import com.shootoff.camera.Frame;
+import com.shootoff.camera.FramePool;
 import com.shootoff.camera.shotdetection.JavaShotDetector;
 import com.shootoff.camera.shotdetection.NativeShotDetector;
 import com.shootoff.camera.shotdetection.ShotDetector;
@@ -82,21 +83,36 @@ public class SarxosCaptureCamera extends CalculatedFPSCamera {
 
     }
 
+    private int lastFrameRows = 0;
+    private int lastFrameCols = 0;
+    private int lastFrameType = 0;
+
     @Override
     public Frame getFrame() {
-        final Mat frame = new Mat();
+        final FramePool pool = FramePool.getDefault();
+        // read() reuses the Mat's memory when the Mat already has the size
+        // and type of the camera's frames, so borrow one shaped like the
+        // last frame
+        final Mat frame = lastFrameRows > 0
+                ? pool.acquireMat(lastFrameRows, lastFrameCols, lastFrameType) : new Mat();
         try {
-            if (!isOpen() || !camera.read(frame) || frame.size().height == 0 || frame.size().width == 0)
+            if (!isOpen() || !camera.read(frame) || frame.size().height == 0 || frame.size().width == 0) {
+                pool.recycleMat(frame);
                 return null;
+            }
         } catch (final Exception e) {
             // Sometimes there is a race condition on closing the camera vs.
             // read()
             return null;
         }
 
+        lastFrameRows = frame.rows();
+        lastFrameCols = frame.cols();
+        lastFrameType = frame.type();
+
         final long currentFrameTimestamp = System.currentTimeMillis();
         frameCount++;
-        return new Frame(frame, currentFrameTimestamp);
+        return pool.createFrame(frame, currentFrameTimestamp);
     }
 
     @Override
@@ -106,7 +122,9 @@ public class SarxosCaptureCamera extends CalculatedFPSCamera {
         if (frame == null) {
             return null;
         } else {
-            return frame.getOriginalBufferedImage();
+            final BufferedImage image = frame.getOriginalBufferedImage();
+            frame.release();
+            return image;
         }
     }
 
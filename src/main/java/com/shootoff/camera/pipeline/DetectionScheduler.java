@@ -0,0 +1,283 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.pipeline;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the parallel parts of shot detection for every camera on one fixed set
+ * of worker threads. A camera's detection stage hands the scheduler a batch of
+ * independent tasks (e.g. one per frame sector) and waits for them to finish.
+ * Workers always take the next task from the batch whose frame arrived
+ * earliest, so a camera that falls behind is served before cameras with
+ * fresher frames and tasks from different cameras interleave instead of
+ * contending for the CPU.
+ */
+public final class DetectionScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(DetectionScheduler.class);
+
+    private static final DetectionScheduler defaultScheduler = new DetectionScheduler();
+
+    private final int workerCount;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition batchFinished = lock.newCondition();
+
+    // Batches with tasks that have not been claimed by a worker yet, oldest
+    // frame first
+    private final PriorityQueue<Batch> batches = new PriorityQueue<>();
+    private long nextSequence = 0;
+    private boolean shutdown = false;
+
+    private Thread[] workers = null;
+
+    private static final class Batch implements Comparable<Batch> {
+        private final IntConsumer task;
+        private final int taskCount;
+        private final long frameArrivalTime;
+        private final long sequence;
+
+        private int nextTask = 0;
+        private int unfinishedTasks;
+        private RuntimeException failure = null;
+
+        private Batch(IntConsumer task, int taskCount, long frameArrivalTime, long sequence) {
+            this.task = task;
+            this.taskCount = taskCount;
+            this.frameArrivalTime = frameArrivalTime;
+            this.sequence = sequence;
+            this.unfinishedTasks = taskCount;
+        }
+
+        @Override
+        public int compareTo(Batch other) {
+            // Arrival times come from System.nanoTime(), which may wrap
+            final long age = frameArrivalTime - other.frameArrivalTime;
+            if (age != 0)
+                return age < 0 ? -1 : 1;
+
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * @return a scheduler for camera managers that are not owned by a
+     *         {@link com.shootoff.camera.CamerasSupervisor}
+     */
+    public static DetectionScheduler getDefault() {
+        return defaultScheduler;
+    }
+
+    /**
+     * Create a scheduler with one worker per available processor.
+     */
+    public DetectionScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public DetectionScheduler(int workerCount) {
+        if (workerCount < 1)
+            throw new IllegalArgumentException("workerCount must be at least 1, got " + workerCount);
+
+        this.workerCount = workerCount;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    // Workers are started on first use so that a scheduler that never sees a
+    // frame costs nothing
+    private void startWorkers() {
+        if (workers != null)
+            return;
+
+        workers = new Thread[workerCount];
+
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::work, "Detection Worker " + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Run <code>task</code> once for every index from 0 to
+     * <code>taskCount - 1</code> on the worker threads and wait until every
+     * index is done. Tasks in the same batch may run concurrently and in any
+     * order. If the scheduler was shut down, the tasks run on the calling
+     * thread instead.
+     *
+     * @param taskCount
+     *            the number of indexes to run the task for
+     * @param task
+     *            the work to do for each index
+     * @param frameArrivalTime
+     *            the {@link System#nanoTime()} at which the frame the tasks
+     *            belong to arrived, used to serve the oldest frame first
+     * @throws RuntimeException
+     *             the first exception thrown by a task, after all other tasks
+     *             in the batch are done
+     */
+    public void forIndex(int taskCount, IntConsumer task, long frameArrivalTime) {
+        if (taskCount < 1)
+            return;
+
+        final Batch batch;
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                batch = null;
+            } else {
+                startWorkers();
+
+                batch = new Batch(task, taskCount, frameArrivalTime, nextSequence++);
+                batches.add(batch);
+                workAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (batch == null) {
+            for (int i = 0; i < taskCount; i++)
+                task.accept(i);
+
+            return;
+        }
+
+        boolean interrupted = false;
+
+        lock.lock();
+        try {
+            // The tasks use the caller's state, thus we must not return
+            // before they are all done, even if we are interrupted
+            while (batch.unfinishedTasks > 0) {
+                try {
+                    batchFinished.await();
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        if (batch.failure != null)
+            throw batch.failure;
+    }
+
+    private void work() {
+        while (true) {
+            final Batch batch;
+            final int taskIndex;
+
+            lock.lock();
+            try {
+                while (batches.isEmpty() && !shutdown)
+                    workAvailable.awaitUninterruptibly();
+
+                if (batches.isEmpty())
+                    return;
+
+                batch = batches.peek();
+                taskIndex = batch.nextTask++;
+
+                if (batch.nextTask == batch.taskCount)
+                    batches.poll();
+            } finally {
+                lock.unlock();
+            }
+
+            RuntimeException failure = null;
+
+            try {
+                batch.task.accept(taskIndex);
+            } catch (final RuntimeException e) {
+                failure = e;
+            } finally {
+                taskFinished(batch, failure);
+            }
+        }
+    }
+
+    private void taskFinished(Batch batch, RuntimeException failure) {
+        lock.lock();
+        try {
+            if (failure != null && batch.failure == null)
+                batch.failure = failure;
+
+            batch.unfinishedTasks--;
+
+            if (batch.unfinishedTasks == 0)
+                batchFinished.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of batches that still have tasks waiting for a
+     *         worker
+     */
+    public int getQueuedBatchCount() {
+        lock.lock();
+        try {
+            return batches.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop the workers once the batches already submitted are done. Batches
+     * submitted afterwards run on the submitting thread.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        logger.trace("Detection scheduler shut down");
+    }
+
+    public boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
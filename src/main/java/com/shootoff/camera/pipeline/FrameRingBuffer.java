@@ -0,0 +1,283 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded FIFO of items passed between two pipeline stages. What happens when
+ * a producer offers an item to a full buffer is decided by the buffer's
+ * {@link DropPolicy}. The time each item spends waiting in the buffer is
+ * tracked so that stages that fall behind are easy to spot.
+ *
+ * @param <T>
+ *            the type of item held by the buffer
+ */
+public final class FrameRingBuffer<T> {
+    public enum DropPolicy {
+        /**
+         * The producer waits until there is room, thus no item is ever dropped
+         */
+        BLOCK,
+        /**
+         * The oldest queued item is discarded to make room for the new one
+         */
+        DROP_OLDEST
+    }
+
+    private final Object[] items;
+    private final long[] enqueueTimes;
+    private final DropPolicy dropPolicy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private int head = 0;
+    private int count = 0;
+    private boolean closed = false;
+
+    private long droppedCount = 0;
+    private long takenCount = 0;
+    private long lastQueueLatency = 0;
+    private long totalQueueLatency = 0;
+
+    public FrameRingBuffer(int capacity, DropPolicy dropPolicy) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be at least 1, got " + capacity);
+
+        items = new Object[capacity];
+        enqueueTimes = new long[capacity];
+        this.dropPolicy = dropPolicy;
+    }
+
+    /**
+     * Add an item to the tail of the buffer, applying the drop policy if the
+     * buffer is full.
+     *
+     * @param item
+     *            the item to add
+     * @return the item that was dropped to make room, if any
+     * @throws InterruptedException
+     *             if the producer was interrupted while waiting for room
+     * @throws IllegalStateException
+     *             if the buffer is closed
+     */
+    @SuppressWarnings("unchecked")
+    public T put(T item) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            T dropped = null;
+
+            if (dropPolicy == DropPolicy.BLOCK) {
+                while (count == items.length && !closed)
+                    notFull.await();
+            } else if (count == items.length) {
+                dropped = (T) items[head];
+                items[head] = null;
+                head = (head + 1) % items.length;
+                count--;
+                droppedCount++;
+            }
+
+            if (closed)
+                throw new IllegalStateException("Cannot add items to a closed buffer");
+
+            append(item);
+
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add an item to the tail of the buffer only if there is room for it,
+     * neither waiting nor dropping an item regardless of the drop policy.
+     *
+     * @param item
+     *            the item to add
+     * @return <code>true</code> if the item was added
+     * @throws IllegalStateException
+     *             if the buffer is closed
+     */
+    public boolean offer(T item) {
+        lock.lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("Cannot add items to a closed buffer");
+
+            if (count == items.length)
+                return false;
+
+            append(item);
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(T item) {
+        final int tail = (head + count) % items.length;
+        items[tail] = item;
+        enqueueTimes[tail] = System.nanoTime();
+        count++;
+
+        notEmpty.signal();
+    }
+
+    /**
+     * Remove the item at the head of the buffer, waiting for one to arrive if
+     * the buffer is empty.
+     *
+     * @return the oldest item in the buffer or <code>null</code> if the buffer
+     *         was closed
+     * @throws InterruptedException
+     *             if the consumer was interrupted while waiting
+     */
+    @SuppressWarnings("unchecked")
+    public T take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0 && !closed)
+                notEmpty.await();
+
+            if (closed)
+                return null;
+
+            final T item = (T) items[head];
+            lastQueueLatency = System.nanoTime() - enqueueTimes[head];
+            totalQueueLatency += lastQueueLatency;
+            takenCount++;
+
+            items[head] = null;
+            head = (head + 1) % items.length;
+            count--;
+
+            notFull.signal();
+
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wake up all waiting producers and consumers and refuse new items. Items
+     * still in the buffer are removed from it.
+     * 
+     * @return the items that were still in the buffer, oldest first, so that
+     *         the caller can clean them up
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> close() {
+        lock.lock();
+        try {
+            closed = true;
+
+            final List<T> discarded = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+                discarded.add((T) items[(head + i) % items.length]);
+
+            for (int i = 0; i < items.length; i++)
+                items[i] = null;
+            count = 0;
+
+            notEmpty.signalAll();
+            notFull.signalAll();
+
+            return discarded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public DropPolicy getDropPolicy() {
+        return dropPolicy;
+    }
+
+    public int getCapacity() {
+        return items.length;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return droppedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getTakenCount() {
+        lock.lock();
+        try {
+            return takenCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how long, in nanoseconds, the most recently taken item waited in
+     *         the buffer
+     */
+    public long getLastQueueLatency() {
+        lock.lock();
+        try {
+            return lastQueueLatency;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the mean time, in nanoseconds, taken items waited in the buffer
+     */
+    public long getAverageQueueLatency() {
+        lock.lock();
+        try {
+            return takenCount == 0 ? 0 : totalQueueLatency / takenCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
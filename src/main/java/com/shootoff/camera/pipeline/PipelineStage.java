@@ -0,0 +1,211 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.pipeline;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.pipeline.FrameRingBuffer.DropPolicy;
+
+/**
+ * One step of a camera's frame pipeline. Items submitted to the stage are
+ * queued in a {@link FrameRingBuffer} and handed, in order, to a handler
+ * running on the stage's own thread.
+ *
+ * @param <T>
+ *            the type of item processed by the stage
+ */
+public final class PipelineStage<T> {
+    private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+
+    private final String name;
+    private final FrameRingBuffer<T> buffer;
+    private final Consumer<T> handler;
+
+    private final Object idleLock = new Object();
+    // Items that were submitted but have not been handled or dropped yet
+    private int pendingItems = 0;
+
+    private volatile long lastProcessingTime = 0;
+    private volatile long totalProcessingTime = 0;
+    private volatile long processedCount = 0;
+
+    private Thread thread = null;
+
+    public PipelineStage(String name, int capacity, DropPolicy dropPolicy, Consumer<T> handler) {
+        this.name = name;
+        this.buffer = new FrameRingBuffer<>(capacity, dropPolicy);
+        this.handler = handler;
+    }
+
+    public synchronized void start(String threadName) {
+        if (thread != null)
+            return;
+
+        thread = new Thread(this::run, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized boolean isStarted() {
+        return thread != null;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                final T item = buffer.take();
+
+                if (item == null)
+                    break;
+
+                final long startTime = System.nanoTime();
+
+                try {
+                    handler.accept(item);
+                } catch (final Exception e) {
+                    logger.error("Unexpected exception in pipeline stage " + name, e);
+                }
+
+                lastProcessingTime = System.nanoTime() - startTime;
+                totalProcessingTime += lastProcessingTime;
+                processedCount++;
+
+                itemsFinished(1);
+            }
+        } catch (final InterruptedException e) {
+            logger.trace("Pipeline stage {} interrupted", name);
+        }
+    }
+
+    /**
+     * Queue an item for this stage, waiting or dropping the oldest queued item
+     * as dictated by the stage's drop policy.
+     *
+     * @param item
+     *            the item to queue
+     * @return the item that was dropped to make room, if any
+     * @throws InterruptedException
+     *             if the caller was interrupted while waiting for room
+     */
+    public T submit(T item) throws InterruptedException {
+        synchronized (idleLock) {
+            pendingItems++;
+        }
+
+        final T dropped;
+
+        try {
+            dropped = buffer.put(item);
+        } catch (final InterruptedException | IllegalStateException e) {
+            itemsFinished(1);
+            throw e;
+        }
+
+        if (dropped != null)
+            itemsFinished(1);
+
+        return dropped;
+    }
+
+    /**
+     * Queue an item for this stage only if there is room for it right away,
+     * e.g. because the caller is a thread that must never wait.
+     *
+     * @param item
+     *            the item to queue
+     * @return <code>true</code> if the item was queued
+     */
+    public boolean offer(T item) {
+        synchronized (idleLock) {
+            pendingItems++;
+        }
+
+        final boolean queued;
+
+        try {
+            queued = buffer.offer(item);
+        } catch (final IllegalStateException e) {
+            itemsFinished(1);
+            throw e;
+        }
+
+        if (!queued)
+            itemsFinished(1);
+
+        return queued;
+    }
+
+    private void itemsFinished(int count) {
+        synchronized (idleLock) {
+            pendingItems -= count;
+            if (pendingItems <= 0)
+                idleLock.notifyAll();
+        }
+    }
+
+    /**
+     * Wait until every item submitted to this stage so far has been handled or
+     * dropped.
+     *
+     * @throws InterruptedException
+     *             if the caller was interrupted while waiting
+     */
+    public void awaitIdle() throws InterruptedException {
+        synchronized (idleLock) {
+            while (pendingItems > 0 && !buffer.isClosed())
+                idleLock.wait();
+        }
+    }
+
+    /**
+     * Stop the stage. Items that are still queued are not handled.
+     * 
+     * @return the items that were still queued, oldest first
+     */
+    public List<T> close() {
+        final List<T> discarded = buffer.close();
+
+        synchronized (idleLock) {
+            pendingItems = 0;
+            idleLock.notifyAll();
+        }
+
+        return discarded;
+    }
+
+    public boolean isClosed() {
+        return buffer.isClosed();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public PipelineStageStats getStats() {
+        final long processed = processedCount;
+
+        return new PipelineStageStats(name, buffer.size(), buffer.getCapacity(), buffer.getDropPolicy(),
+                buffer.getDroppedCount(), processed, buffer.getLastQueueLatency(), buffer.getAverageQueueLatency(),
+                lastProcessingTime, processed == 0 ? 0 : totalProcessingTime / processed);
+    }
+}
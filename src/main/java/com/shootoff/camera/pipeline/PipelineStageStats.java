@@ -0,0 +1,101 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.pipeline;
+
+import com.shootoff.camera.pipeline.FrameRingBuffer.DropPolicy;
+
+/**
+ * A snapshot of a {@link PipelineStage}'s queue and timing counters. Latencies
+ * are in nanoseconds.
+ */
+public final class PipelineStageStats {
+    private final String stageName;
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final DropPolicy dropPolicy;
+    private final long droppedCount;
+    private final long processedCount;
+    private final long lastQueueLatency;
+    private final long averageQueueLatency;
+    private final long lastProcessingTime;
+    private final long averageProcessingTime;
+
+    public PipelineStageStats(String stageName, int queueDepth, int queueCapacity, DropPolicy dropPolicy,
+            long droppedCount, long processedCount, long lastQueueLatency, long averageQueueLatency,
+            long lastProcessingTime, long averageProcessingTime) {
+        this.stageName = stageName;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.dropPolicy = dropPolicy;
+        this.droppedCount = droppedCount;
+        this.processedCount = processedCount;
+        this.lastQueueLatency = lastQueueLatency;
+        this.averageQueueLatency = averageQueueLatency;
+        this.lastProcessingTime = lastProcessingTime;
+        this.averageProcessingTime = averageProcessingTime;
+    }
+
+    public String getStageName() {
+        return stageName;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public DropPolicy getDropPolicy() {
+        return dropPolicy;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    public long getLastQueueLatency() {
+        return lastQueueLatency;
+    }
+
+    public long getAverageQueueLatency() {
+        return averageQueueLatency;
+    }
+
+    public long getLastProcessingTime() {
+        return lastProcessingTime;
+    }
+
+    public long getAverageProcessingTime() {
+        return averageProcessingTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: depth %d/%d, dropped %d, processed %d, queue latency %.2f ms (avg %.2f ms), "
+                + "processing %.2f ms (avg %.2f ms)", stageName, queueDepth, queueCapacity, droppedCount,
+                processedCount, lastQueueLatency / 1e6, averageQueueLatency / 1e6, lastProcessingTime / 1e6,
+                averageProcessingTime / 1e6);
+    }
+}
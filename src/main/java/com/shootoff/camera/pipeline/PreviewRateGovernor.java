@@ -0,0 +1,148 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.pipeline;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chooses how many frames per second every camera view shows based on how
+ * well shot detection keeps up with the cameras. Showing a frame costs CPU
+ * time that detection could use, thus the preview rate drops when any camera's
+ * detection falls behind and slowly climbs back when every camera has time to
+ * spare.
+ *
+ * A camera's load is how long its frames take from arriving to finishing
+ * detection, measured in camera frame intervals. A load above one means frames
+ * are queueing up faster than detection finishes them.
+ */
+public final class PreviewRateGovernor {
+    private static final Logger logger = LoggerFactory.getLogger(PreviewRateGovernor.class);
+
+    private static final PreviewRateGovernor defaultGovernor = new PreviewRateGovernor();
+
+    public static final int MAXIMUM_FPS = 15;
+    public static final int MINIMUM_FPS = 5;
+
+    private static final long ADJUSTMENT_INTERVAL = 1_000_000_000L; // ns
+    private static final double OVERLOADED_LOAD = 1.0;
+    private static final double IDLE_LOAD = .5;
+
+    // Weight of the newest frame in each camera's load average
+    private static final double LOAD_SMOOTHING = .1;
+
+    private final Map<Object, Double> cameraLoads = new HashMap<>();
+    private volatile int fps = MAXIMUM_FPS;
+    private long lastAdjustmentTime = 0;
+    private boolean adjusted = false;
+
+    /**
+     * @return the governor shared by every camera view
+     */
+    public static PreviewRateGovernor getDefault() {
+        return defaultGovernor;
+    }
+
+    /**
+     * Record how long one frame took from arriving to finishing detection.
+     *
+     * @param camera
+     *            identifies the camera the frame came from
+     * @param latency
+     *            nanoseconds from the frame's arrival to the end of its
+     *            detection
+     * @param cameraFPS
+     *            the camera's current frame rate
+     */
+    public void recordDetection(Object camera, long latency, double cameraFPS) {
+        recordDetection(camera, latency, cameraFPS, System.nanoTime());
+    }
+
+    synchronized void recordDetection(Object camera, long latency, double cameraFPS, long now) {
+        if (cameraFPS <= 0)
+            return;
+
+        final double load = latency * cameraFPS / 1e9;
+        final Double averageLoad = cameraLoads.get(camera);
+
+        if (averageLoad == null) {
+            cameraLoads.put(camera, load);
+        } else {
+            cameraLoads.put(camera, averageLoad + (load - averageLoad) * LOAD_SMOOTHING);
+        }
+
+        if (!adjusted) {
+            adjusted = true;
+            lastAdjustmentTime = now;
+        } else if (now - lastAdjustmentTime >= ADJUSTMENT_INTERVAL) {
+            lastAdjustmentTime = now;
+            adjust();
+        }
+    }
+
+    // Back off quickly when detection is behind but recover a frame at a time
+    // so the rate does not oscillate
+    private void adjust() {
+        double maximumLoad = 0;
+        for (final double load : cameraLoads.values())
+            maximumLoad = Math.max(maximumLoad, load);
+
+        final int oldFPS = fps;
+
+        if (maximumLoad > OVERLOADED_LOAD) {
+            fps = Math.max(MINIMUM_FPS, fps * 3 / 4);
+        } else if (maximumLoad < IDLE_LOAD) {
+            fps = Math.min(MAXIMUM_FPS, fps + 1);
+        }
+
+        if (fps != oldFPS && logger.isDebugEnabled())
+            logger.debug("Preview rate changed from {} to {} FPS, detection load {}", oldFPS, fps,
+                    String.format("%.2f", maximumLoad));
+    }
+
+    /**
+     * Stop accounting for a camera, e.g. because it was closed.
+     */
+    public synchronized void removeCamera(Object camera) {
+        cameraLoads.remove(camera);
+    }
+
+    public int getFPS() {
+        return fps;
+    }
+
+    /**
+     * Start from a different preview rate, such as the minimum on a machine
+     * known to be slow. The governor still adjusts the rate from there.
+     */
+    public void setFPS(int fps) {
+        this.fps = Math.max(MINIMUM_FPS, Math.min(MAXIMUM_FPS, fps));
+    }
+
+    /**
+     * @return the minimum number of milliseconds between two frames shown by
+     *         the same camera view
+     */
+    public long getMinimumFrameDelta() {
+        return 1000 / fps;
+    }
+}
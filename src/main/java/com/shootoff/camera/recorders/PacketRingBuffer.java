@@ -0,0 +1,200 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.recorders;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the most recent encoded packets of a video in memory. Packets are
+ * dropped a whole group of pictures at a time, thus the buffer always starts
+ * at a key frame and can be written to a new file as is.
+ *
+ * The buffer holds at least <tt>minimumDuration</tt> milliseconds of video
+ * when that much has been added, but never more than <tt>maximumSize</tt>
+ * bytes unless a single group of pictures is larger than that.
+ *
+ * Instances are thread safe.
+ *
+ * @param <P>
+ *            the type of packet that is buffered
+ */
+public final class PacketRingBuffer<P> {
+    private final long minimumDuration;
+    private final long maximumSize;
+    private final Consumer<P> evictionListener;
+
+    private final Deque<BufferedPacket<P>> packets = new ArrayDeque<>();
+    private long size = 0;
+
+    /**
+     * @param minimumDuration
+     *            how many milliseconds of video to keep
+     * @param maximumSize
+     *            how many bytes of packets to keep at most
+     * @param evictionListener
+     *            receives every packet that is dropped, e.g. to free it
+     */
+    public PacketRingBuffer(long minimumDuration, long maximumSize, Consumer<P> evictionListener) {
+        this.minimumDuration = minimumDuration;
+        this.maximumSize = maximumSize;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Add the newest packet. A packet that is not a key frame is dropped
+     * straight away if the buffer is empty because it could not be decoded.
+     *
+     * @param packet
+     *            the encoded packet
+     * @param timestamp
+     *            the packet's timestamp in milliseconds, no smaller than the
+     *            timestamp of any packet added before
+     * @param keyFrame
+     *            whether the packet starts a new group of pictures
+     * @param packetSize
+     *            the packet's size in bytes
+     */
+    public synchronized void add(P packet, long timestamp, boolean keyFrame, int packetSize) {
+        if (packets.isEmpty() && !keyFrame) {
+            evictionListener.accept(packet);
+            return;
+        }
+
+        packets.addLast(new BufferedPacket<>(packet, timestamp, keyFrame, packetSize));
+        size += packetSize;
+
+        trim();
+    }
+
+    // Drop the oldest group of pictures while the rest still covers the
+    // minimum duration or while the buffer is too big
+    private void trim() {
+        while (true) {
+            final long nextGroupSize = getOldestGroupSize();
+
+            if (nextGroupSize == size)
+                return;
+
+            final long nextGroupStart = getSecondGroupTimestamp();
+            final boolean longEnough = packets.getLast().timestamp - nextGroupStart >= minimumDuration;
+
+            if (!longEnough && size <= maximumSize)
+                return;
+
+            for (long dropped = 0; dropped < nextGroupSize;) {
+                final BufferedPacket<P> oldest = packets.removeFirst();
+                dropped += oldest.size;
+                size -= oldest.size;
+                evictionListener.accept(oldest.packet);
+            }
+        }
+    }
+
+    private long getOldestGroupSize() {
+        long groupSize = 0;
+        boolean first = true;
+
+        for (final BufferedPacket<P> p : packets) {
+            if (!first && p.keyFrame)
+                break;
+
+            first = false;
+            groupSize += p.size;
+        }
+
+        return groupSize;
+    }
+
+    private long getSecondGroupTimestamp() {
+        boolean first = true;
+
+        for (final BufferedPacket<P> p : packets) {
+            if (!first && p.keyFrame)
+                return p.timestamp;
+
+            first = false;
+        }
+
+        return packets.getLast().timestamp;
+    }
+
+    /**
+     * @return the buffered packets, oldest first, starting with a key frame
+     */
+    public synchronized List<P> getPackets() {
+        final List<P> bufferedPackets = new ArrayList<>(packets.size());
+
+        for (final BufferedPacket<P> p : packets)
+            bufferedPackets.add(p.packet);
+
+        return bufferedPackets;
+    }
+
+    /**
+     * @return the timestamp of the oldest buffered packet in milliseconds, or
+     *         -1 if the buffer is empty
+     */
+    public synchronized long getStartTimestamp() {
+        return packets.isEmpty() ? -1 : packets.getFirst().timestamp;
+    }
+
+    /**
+     * @return the timestamp of the newest buffered packet in milliseconds, or
+     *         -1 if the buffer is empty
+     */
+    public synchronized long getEndTimestamp() {
+        return packets.isEmpty() ? -1 : packets.getLast().timestamp;
+    }
+
+    /**
+     * @return the total size of the buffered packets in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Drop every packet.
+     */
+    public synchronized void clear() {
+        for (final BufferedPacket<P> p : packets)
+            evictionListener.accept(p.packet);
+
+        packets.clear();
+        size = 0;
+    }
+
+    private static class BufferedPacket<P> {
+        private final P packet;
+        private final long timestamp;
+        private final boolean keyFrame;
+        private final int size;
+
+        public BufferedPacket(P packet, long timestamp, boolean keyFrame, int size) {
+            this.packet = packet;
+            this.timestamp = timestamp;
+            this.keyFrame = keyFrame;
+            this.size = size;
+        }
+    }
+}
@@ -18,52 +18,63 @@
 
 package com.shootoff.camera.recorders;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.shootoff.Closeable;
 import com.shootoff.camera.CameraManager;
-import com.xuggle.mediatool.IMediaReader;
-import com.xuggle.mediatool.IMediaWriter;
-import com.xuggle.mediatool.MediaListenerAdapter;
-import com.xuggle.mediatool.ToolFactory;
-import com.xuggle.mediatool.event.IVideoPictureEvent;
 import com.xuggle.xuggler.ICodec;
+import com.xuggle.xuggler.IPacket;
 import com.xuggle.xuggler.IPixelFormat;
+import com.xuggle.xuggler.IRational;
+import com.xuggle.xuggler.IStreamCoder;
 import com.xuggle.xuggler.IVideoPicture;
-import com.xuggle.xuggler.video.ConverterFactory;
-import com.xuggle.xuggler.video.IConverter;
 
+/**
+ * Encodes every recorded frame once and keeps the last
+ * {@link ShotRecorder#RECORD_LENGTH} milliseconds of encoded packets in memory.
+ * When a shot is fired the buffered packets are handed to a new
+ * {@link ShotRecorder} that writes them to the shot's video as they are, thus
+ * nothing is decoded or encoded again and nothing is written to disk until
+ * there is a shot.
+ */
 public class RollingRecorder implements Closeable {
     private final Logger logger = LoggerFactory.getLogger(RollingRecorder.class);
 
+    // Packet timestamps are in milliseconds
+    static final int TIME_BASE = 1000;
+
+    // A shot video starts at a key frame, thus it can start up to this long
+    // before RECORD_LENGTH
+    private static final long KEY_FRAME_INTERVAL = 1000; // ms
+    private static final int MAXIMUM_GROUP_OF_PICTURES = 60;
+
+    // Far more than RECORD_LENGTH takes at the usual camera resolutions, but
+    // stops a misbehaving encoder from using up the heap
+    private static final long MAXIMUM_BUFFER_SIZE = 64 * 1024 * 1024; // bytes
+
     private final ICodec.ID codec;
     private final String extension;
     private final String sessionName;
     private final String cameraName;
 
-    private long startTime;
-    private long timestamp;
-    private long timeOffset = 0;
-    private File relativeVideoFile;
-    private File videoFile;
-    private IMediaWriter videoWriter;
-    private final Object videoWriterLock = new Object();
-    private boolean isFirstShotFrame = true;
-    private boolean forking = false;
-    private boolean recording = true;
-
-    private final List<IVideoPicture> bufferedFrames = new ArrayList<>();
-
     private final int recordWidth;
     private final int recordHeight;
 
+    private final IStreamCoder encoder;
+    private final PacketRingBuffer<IPacket> packetBuffer = new PacketRingBuffer<>(ShotRecorder.RECORD_LENGTH,
+            MAXIMUM_BUFFER_SIZE, IPacket::delete);
+
+    private long startTime = -1;
+    private long lastTimestamp = -1;
+    private long lastKeyFrameTimestamp = -1;
+    private boolean recording;
+
     public RollingRecorder(ICodec.ID codec, String extension, String sessionName, String cameraName,
             CameraManager cameraManager) {
         this.codec = codec;
@@ -74,233 +85,128 @@ public class RollingRecorder implements Closeable {
         recordWidth = cameraManager.getFeedWidth();
         recordHeight = cameraManager.getFeedHeight();
 
-        startTime = System.currentTimeMillis();
-        relativeVideoFile = new File(
-                sessionName + File.separator + "rolling" + String.valueOf(System.nanoTime()) + extension);
-        videoFile = new File(System.getProperty("shootoff.sessions") + File.separator + relativeVideoFile.getPath());
-
-        videoWriter = ToolFactory.makeWriter(videoFile.getPath());
-        videoWriter.addVideoStream(0, 0, codec, recordWidth, recordHeight);
-
-        logger.debug("Started recording new rolling video: {}", videoFile.getName());
-    }
-
-    public void recordFrame(BufferedImage frame) {
-        final BufferedImage image = ConverterFactory.convertToType(frame, BufferedImage.TYPE_3BYTE_BGR);
-        final IConverter converter = ConverterFactory.createConverter(image, IPixelFormat.Type.YUV420P);
-
-        timestamp = (System.currentTimeMillis() - startTime) + timeOffset;
-
-        final IVideoPicture f = converter.toPicture(image, timestamp * 1000);
-        f.setKeyFrame(isFirstShotFrame);
-        f.setQuality(0);
+        encoder = IStreamCoder.make(IStreamCoder.Direction.ENCODING, codec);
+        configureCoder(encoder, recordWidth, recordHeight);
+        recording = encoder.open(null, null) >= 0;
 
-        if (forking) {
-            synchronized (bufferedFrames) {
-                bufferedFrames.add(f);
-            }
+        if (recording) {
+            logger.debug("Started buffering video for camera {}", cameraName);
         } else {
-            isFirstShotFrame = false;
-
-            synchronized (videoWriterLock) {
-                if (recording)
-                    videoWriter.encodeVideo(0, f);
-            }
-
-            if (timestamp >= ShotRecorder.RECORD_LENGTH * 3) {
-                logger.debug("Rolling video file {}, timestamp = {} ms", relativeVideoFile.getPath(), timestamp);
-                fork(false);
-            }
+            logger.error("Failed to open {} encoder for camera {}, shots will not be recorded", codec, cameraName);
         }
     }
 
-    private ForkContext fork(boolean keepOld) {
-        forking = true;
+    /**
+     * Set up a coder to encode, or to write packets encoded by, a rolling
+     * recorder. Shot videos use the same settings as the encoder so that the
+     * buffered packets can be copied into them.
+     */
+    static void configureCoder(IStreamCoder coder, int width, int height) {
+        coder.setWidth(width);
+        coder.setHeight(height);
+        coder.setPixelType(IPixelFormat.Type.YUV420P);
+        coder.setTimeBase(IRational.make(1, TIME_BASE));
+        coder.setNumPicturesInGroupOfPictures(MAXIMUM_GROUP_OF_PICTURES);
+        coder.setFlag(IStreamCoder.Flags.FLAG_QSCALE, true);
+    }
 
-        synchronized (videoWriterLock) {
-            if (videoWriter.isOpen())
-                videoWriter.close();
-        }
+    /**
+     * Encode a frame and buffer the resulting packet. The picture may be
+     * shared with other recorders, thus its timestamp and key frame flag are
+     * overwritten.
+     * 
+     * @param picture
+     *            the frame to encode
+     * @param frameTime
+     *            when the frame was captured, in milliseconds since the epoch
+     * @return the encoded packet, which every active shot recorder should
+     *         write, or empty if the encoder did not produce a packet. The
+     *         packet is owned by this recorder.
+     */
+    public synchronized Optional<IPacket> recordFrame(IVideoPicture picture, long frameTime) {
+        if (!recording)
+            return Optional.empty();
 
-        File relativeVideoFile;
-        if (!keepOld) {
-            relativeVideoFile = new File(
-                    sessionName + File.separator + "rolling" + String.valueOf(System.nanoTime()) + extension);
-        } else {
-            relativeVideoFile = new File(sessionName + File.separator + String.valueOf(System.nanoTime()) + extension);
-        }
+        if (startTime < 0)
+            startTime = frameTime;
 
-        final File videoFile = new File(
-                System.getProperty("shootoff.sessions") + File.separator + relativeVideoFile.getPath());
+        // Frames are not always captured at even intervals, but the muxer
+        // needs strictly increasing timestamps
+        final long timestamp = Math.max(frameTime - startTime, lastTimestamp + 1);
 
-        final IMediaReader reader = ToolFactory.makeReader(this.videoFile.getPath());
-        reader.open();
-        final long startCutTimestamp = (reader.getContainer().getDuration() / 1000) - ShotRecorder.RECORD_LENGTH;
-        final Cutter cutter = new Cutter(videoFile, codec, startCutTimestamp, recordWidth, recordHeight);
-        reader.addListener(cutter);
-
-        logger.debug("Forking video file {} to {}, keepOld = {}, start cutting at = {} ms",
-                this.relativeVideoFile.getPath(), relativeVideoFile.getPath(), keepOld, startCutTimestamp);
-
-        while (reader.readPacket() == null)
-            ;
-
-        final ForkContext context = new ForkContext(relativeVideoFile, videoFile, cutter.getLastTimestamp(),
-                cutter.getMediaWriter());
-
-        if (keepOld) {
-            // We aren't rolling this file because it got too big,
-            // the video is being forked (probably because there was
-            // a shot)
-            final File rollingRelativeVideoFile = new File(
-                    sessionName + File.separator + "rolling" + String.valueOf(System.nanoTime()) + extension);
-            final File rollingVideoFile = new File(
-                    System.getProperty("shootoff.sessions") + File.separator + rollingRelativeVideoFile.getPath());
-
-            final IMediaReader r = ToolFactory.makeReader(this.videoFile.getPath());
-            r.open();
-            final Cutter copy = new Cutter(rollingVideoFile, codec, 0, recordWidth, recordHeight);
-            r.addListener(copy);
-            while (r.readPacket() == null)
-                ;
-
-            timeOffset = copy.getLastTimestamp();
-
-            if (!this.videoFile.delete()) {
-                logger.warn("Failed to delete expired rolling video file: {}, keepOld = {}", this.videoFile.getPath(),
-                        keepOld);
-            }
-
-            synchronized (videoWriterLock) {
-                videoWriter = copy.getMediaWriter();
-            }
-            this.relativeVideoFile = rollingRelativeVideoFile;
-            this.videoFile = rollingVideoFile;
-        } else {
-            // Start adding new frames to the new video as it's the new
-            // canonical video file to peel end frames off of.
-            if (!this.videoFile.delete()) {
-                logger.warn("Failed to delete expired rolling video file: {}, keepOld = {}", this.videoFile.getPath(),
-                        keepOld);
-            }
-            this.relativeVideoFile = relativeVideoFile;
-            this.videoFile = videoFile;
-            synchronized (videoWriterLock) {
-                videoWriter = cutter.getMediaWriter();
-            }
-            timeOffset = cutter.getLastTimestamp();
-        }
+        picture.setTimeStamp(timestamp * 1000);
+        picture.setKeyFrame(lastKeyFrameTimestamp < 0 || timestamp - lastKeyFrameTimestamp >= KEY_FRAME_INTERVAL);
 
-        synchronized (bufferedFrames) {
-            final Iterator<IVideoPicture> it = bufferedFrames.iterator();
+        final IPacket packet = IPacket.make();
 
-            while (it.hasNext()) {
-                synchronized (videoWriterLock) {
-                    videoWriter.encodeVideo(0, it.next());
-                }
-                it.remove();
-            }
+        if (encoder.encodeVideo(packet, picture, 0) < 0) {
+            logger.warn("Failed to encode frame for camera {} at {} ms", cameraName, timestamp);
+            packet.delete();
+            return Optional.empty();
         }
 
-        startTime = System.currentTimeMillis();
-
-        forking = false;
-
-        return context;
-    }
-
-    public ShotRecorder fork() {
-        final ForkContext context = fork(true);
-        return new ShotRecorder(context.getRelativeVideoFile(), context.getVideoFile(), context.getLastTimestamp(),
-                context.getVideoWriter(), cameraName);
-    }
-
-    private static class ForkContext {
-        private final File relativeVideoFile;
-        private final File videoFile;
-        private final long lastTimestamp;
-        private final IMediaWriter videoWriter;
-
-        public ForkContext(File relativeVideoFile, File videoFile, long lastTimestamp, IMediaWriter videoWriter) {
-            this.relativeVideoFile = relativeVideoFile;
-            this.videoFile = videoFile;
-            this.lastTimestamp = lastTimestamp;
-            this.videoWriter = videoWriter;
+        if (!packet.isComplete()) {
+            packet.delete();
+            return Optional.empty();
         }
 
-        public File getRelativeVideoFile() {
-            return relativeVideoFile;
-        }
+        packet.setTimeBase(IRational.make(1, TIME_BASE));
+        packet.setPts(timestamp);
+        packet.setDts(timestamp);
 
-        public File getVideoFile() {
-            return videoFile;
-        }
+        lastTimestamp = timestamp;
+        if (packet.isKeyPacket())
+            lastKeyFrameTimestamp = timestamp;
 
-        public long getLastTimestamp() {
-            return lastTimestamp;
-        }
+        packetBuffer.add(packet, timestamp, packet.isKeyPacket(), packet.getSize());
 
-        public IMediaWriter getVideoWriter() {
-            return videoWriter;
-        }
+        return Optional.of(packet);
     }
 
     /**
-     * Cut the end of a video off into its own file starting at
-     * startingTimestamp. For example, if you have a 15 second video and the
-     * startingTimestamp is at 10 seconds, this will create a new video that has
-     * the last 5 seconds of the original video.
-     * 
-     * @author phrack
+     * Start recording a shot video that begins with the buffered packets. The
+     * caller adds the shot to the video.
+     * Only the packets' references are copied, thus this is cheap enough to
+     * call as soon as a shot is detected.
      */
-    private static class Cutter extends MediaListenerAdapter {
-        private final IMediaWriter writer;
-        private final long startingTimestamp;
-        private long startTimestamp = -1;
-        private long lastTimestamp;
-
-        public Cutter(File newVideoFile, ICodec.ID codec, long startingTimestamp /* ms */, int recordWidth,
-                int recordHeight) {
-            this.startingTimestamp = startingTimestamp * 1000;
-            writer = ToolFactory.makeWriter(newVideoFile.getPath());
-            writer.addVideoStream(0, 0, codec, recordWidth, recordHeight);
-        }
-
-        @Override
-        public void onVideoPicture(IVideoPictureEvent event) {
-            // < 0 means the file we are rolling off of has < RECORD_LENGTH
-            // seconds of footage
-            if (event.getTimeStamp() >= startingTimestamp || startingTimestamp < 0) {
-                final IVideoPicture picture = event.getPicture();
-
-                if (startTimestamp == -1) {
-                    startTimestamp = picture.getTimeStamp();
-                }
+    public synchronized ShotRecorder fork() {
+        final File relativeVideoFile = new File(
+                sessionName + File.separator + String.valueOf(System.nanoTime()) + extension);
+        final File videoFile = new File(
+                System.getProperty("shootoff.sessions") + File.separator + relativeVideoFile.getPath());
 
-                lastTimestamp = picture.getTimeStamp() - startTimestamp;
-                picture.setTimeStamp(lastTimestamp);
+        // The buffer frees packets as they expire, the shot recorder frees
+        // its copies once they are written
+        final List<IPacket> bufferedPackets = packetBuffer.getPackets();
+        final List<IPacket> shotPackets = new ArrayList<>(bufferedPackets.size());
+        for (final IPacket packet : bufferedPackets)
+            shotPackets.add(IPacket.make(packet, false));
 
-                writer.encodeVideo(0, picture);
-            }
-        }
+        logger.debug("Forking {} ms of buffered video ({} bytes) to {}",
+                packetBuffer.getEndTimestamp() - packetBuffer.getStartTimestamp(), packetBuffer.getSize(),
+                relativeVideoFile.getPath());
 
-        public IMediaWriter getMediaWriter() {
-            return writer;
-        }
+        return new ShotRecorder(relativeVideoFile, videoFile, shotPackets, codec, recordWidth, recordHeight,
+                cameraName);
+    }
 
-        public long getLastTimestamp() {
-            return lastTimestamp / 1000;
-        }
+    /**
+     * @return the timestamp of the last encoded packet in milliseconds, or -1
+     *         if nothing was encoded yet
+     */
+    public synchronized long getLastTimestamp() {
+        return lastTimestamp;
     }
 
     @Override
-    public void close() {
+    public synchronized void close() {
+        if (!recording)
+            return;
+
         recording = false;
-        synchronized (videoWriterLock) {
-            videoWriter.close();
-        }
-        if (!videoFile.delete()) {
-            logger.warn("Failed to delete expired rolling video file on close: {}", videoFile.getPath());
-        }
+        packetBuffer.clear();
+        encoder.close();
+
+        logger.debug("Stopped buffering video for camera {}", cameraName);
     }
 }
@@ -18,58 +18,189 @@
 
 package com.shootoff.camera.recorders;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.shootoff.Closeable;
-import com.xuggle.mediatool.IMediaWriter;
-import com.xuggle.xuggler.IPixelFormat;
-import com.xuggle.xuggler.IVideoPicture;
-import com.xuggle.xuggler.video.ConverterFactory;
-import com.xuggle.xuggler.video.IConverter;
+import com.shootoff.camera.Shot;
+import com.xuggle.xuggler.ICodec;
+import com.xuggle.xuggler.IContainer;
+import com.xuggle.xuggler.IPacket;
+import com.xuggle.xuggler.IStreamCoder;
 
+/**
+ * Writes the video of a string of shots from packets that were already encoded
+ * by a {@link RollingRecorder}: the packets buffered before the first shot
+ * followed by the packets encoded until {@link #RECORD_LENGTH} milliseconds
+ * after the last shot. A shot fired before the video is complete is added to
+ * the same video instead of starting another one, thus every shot has an
+ * offset into its video.
+ * 
+ * The video file is not opened until the first packet after the shot is
+ * written, thus forking a shot recorder does no disk I/O on the thread that
+ * detected the shot.
+ */
 public class ShotRecorder implements Closeable {
     // The number of milliseconds before and after a shot to record
     public static final long RECORD_LENGTH = 5000; // ms
 
     private static final Logger logger = LoggerFactory.getLogger(ShotRecorder.class);
 
-    private final long startTime;
-    private final long timeOffset;
     private final File relativeVideoFile;
     private final File videoFile;
     private final String cameraName;
-    private final IMediaWriter videoWriter;
-    private boolean isFirstShotFrame = true;
+    private final ICodec.ID codec;
+    private final int recordWidth;
+    private final int recordHeight;
+
+    private List<IPacket> bufferedPackets;
+    private final Map<Shot, Long> shotTimestamps = new HashMap<>();
+    private long lastShotTimestamp = -1;
+    private long startTimestamp = -1;
+    private long lastTimestamp = -1;
 
-    public ShotRecorder(File relativeVideoFile, File videoFile, long cutDuration, IMediaWriter videoWriter,
-            String cameraName) {
+    private IContainer container;
+    private IStreamCoder coder;
+    private boolean failed = false;
+    private boolean closed = false;
+
+    /**
+     * @param bufferedPackets
+     *            the packets before the shot, oldest first and starting with
+     *            a key frame. The recorder frees them once they are written.
+     */
+    public ShotRecorder(File relativeVideoFile, File videoFile, List<IPacket> bufferedPackets, ICodec.ID codec,
+            int recordWidth, int recordHeight, String cameraName) {
         this.relativeVideoFile = relativeVideoFile;
         this.videoFile = videoFile;
-        this.videoWriter = videoWriter;
+        this.bufferedPackets = bufferedPackets;
+        this.codec = codec;
+        this.recordWidth = recordWidth;
+        this.recordHeight = recordHeight;
         this.cameraName = cameraName;
 
-        startTime = System.currentTimeMillis();
-        timeOffset = cutDuration;
+        if (!bufferedPackets.isEmpty())
+            startTimestamp = bufferedPackets.get(0).getPts();
+
+        logger.debug("Started recording shot video: {}, {} buffered packets", videoFile.getName(),
+                bufferedPackets.size());
+    }
+
+    /**
+     * Add a shot to this video, extending it until {@link #RECORD_LENGTH}
+     * milliseconds after the shot.
+     * 
+     * @param shot
+     *            the shot to add
+     * @param timestamp
+     *            the timestamp of the last packet encoded before the shot in
+     *            milliseconds, or -1 if nothing was encoded yet
+     * @return <tt>false</tt> if the video was already closed and the shot
+     *         needs a new one
+     */
+    public synchronized boolean addShot(Shot shot, long timestamp) {
+        if (closed)
+            return false;
+
+        shotTimestamps.put(shot, timestamp);
+        lastShotTimestamp = Math.max(lastShotTimestamp, timestamp);
+
+        return true;
+    }
+
+    /**
+     * @return how many milliseconds into this video the shot was fired, or
+     *         empty if the shot is not in this video
+     */
+    public synchronized Optional<Long> getShotOffset(Shot shot) {
+        final Long timestamp = shotTimestamps.get(shot);
+
+        if (timestamp == null)
+            return Optional.empty();
+
+        // A shot fired before anything was encoded is at the start
+        if (timestamp < 0 || startTimestamp < 0)
+            return Optional.of(0L);
+
+        return Optional.of(Math.max(timestamp - startTimestamp, 0));
+    }
+
+    /**
+     * Write a packet encoded after the shot. The packet is not modified, thus
+     * the same packet can be written by every shot recorder.
+     */
+    public synchronized void recordPacket(IPacket packet) {
+        if (closed)
+            return;
+
+        // Without anything buffered the video can only start at a key frame
+        if (startTimestamp < 0) {
+            if (!packet.isKeyPacket())
+                return;
+
+            startTimestamp = packet.getPts();
+        }
 
-        logger.debug("Started recording shot video: {}, cut duration = {} ms", videoFile.getName(), cutDuration);
+        if (!open())
+            return;
+
+        writePacket(packet);
+    }
+
+    // Opens the video and writes the packets buffered before the shot
+    private boolean open() {
+        if (container != null || failed)
+            return !failed;
+
+        container = IContainer.make();
+
+        if (container.open(videoFile.getPath(), IContainer.Type.WRITE, null) < 0) {
+            logger.error("Failed to open shot video for writing: {}", videoFile.getPath());
+            failed = true;
+        } else {
+            coder = container.addNewStream(codec).getStreamCoder();
+            RollingRecorder.configureCoder(coder, recordWidth, recordHeight);
+
+            if (coder.open(null, null) < 0 || container.writeHeader() < 0) {
+                logger.error("Failed to start shot video: {}", videoFile.getPath());
+                failed = true;
+            }
+        }
+
+        if (!failed) {
+            for (final IPacket packet : bufferedPackets)
+                writePacket(packet);
+        }
+
+        for (final IPacket packet : bufferedPackets)
+            packet.delete();
+        bufferedPackets = null;
+
+        return !failed;
     }
 
-    public void recordFrame(BufferedImage frame) {
-        final BufferedImage image = ConverterFactory.convertToType(frame, BufferedImage.TYPE_3BYTE_BGR);
-        final IConverter converter = ConverterFactory.createConverter(image, IPixelFormat.Type.YUV420P);
+    private void writePacket(IPacket packet) {
+        final long timestamp = packet.getPts() - startTimestamp;
 
-        final long timestamp = (System.currentTimeMillis() - startTime) + timeOffset;
+        // Shares the packet's data, only the timestamps differ
+        final IPacket shotPacket = IPacket.make(packet, false);
+        shotPacket.setTimeBase(packet.getTimeBase());
+        shotPacket.setPts(timestamp);
+        shotPacket.setDts(timestamp);
+        shotPacket.setStreamIndex(0);
 
-        final IVideoPicture f = converter.toPicture(image, timestamp * 1000);
-        f.setKeyFrame(isFirstShotFrame);
-        f.setQuality(0);
-        isFirstShotFrame = false;
+        if (container.writePacket(shotPacket) < 0)
+            logger.warn("Failed to write packet at {} ms to shot video: {}", timestamp, videoFile.getPath());
 
-        videoWriter.encodeVideo(0, f);
+        shotPacket.delete();
+
+        lastTimestamp = packet.getPts();
     }
 
     public File getRelativeVideoFile() {
@@ -84,14 +215,57 @@ public class ShotRecorder implements Closeable {
         return cameraName;
     }
 
-    public boolean isComplete() {
-        return System.currentTimeMillis() - startTime > RECORD_LENGTH;
+    /**
+     * @return <tt>true</tt> once packets up to {@link #RECORD_LENGTH}
+     *         milliseconds after the last shot have been written
+     */
+    public synchronized boolean isComplete() {
+        final long shotTimestamp = lastShotTimestamp >= 0 ? lastShotTimestamp : startTimestamp;
+        return shotTimestamp >= 0 && lastTimestamp - shotTimestamp > RECORD_LENGTH;
+    }
+
+    /**
+     * Close the video if it is complete. Unlike calling {@link #isComplete()}
+     * and {@link #close()} separately, no shot can be added in between.
+     * 
+     * @return <tt>true</tt> if the video was closed
+     */
+    public synchronized boolean closeIfComplete() {
+        if (!isComplete())
+            return false;
+
+        close();
+        return true;
     }
 
     @Override
-    public void close() {
-        videoWriter.close();
+    public synchronized void close() {
+        if (closed)
+            return;
+
+        closed = true;
+
+        // Still write what was buffered if nothing was recorded after the
+        // shot
+        if (startTimestamp >= 0)
+            open();
+
+        if (bufferedPackets != null) {
+            for (final IPacket packet : bufferedPackets)
+                packet.delete();
+            bufferedPackets = null;
+        }
+
+        if (container != null && container.isOpened()) {
+            if (!failed)
+                container.writeTrailer();
+
+            if (coder != null)
+                coder.close();
+            container.close();
+        }
 
-        logger.debug("Stopped recording shot video: {}, timeOffset = {}", relativeVideoFile.getPath(), timeOffset);
+        logger.debug("Stopped recording shot video: {}, {} shots, length = {} ms", relativeVideoFile.getPath(),
+                shotTimestamps.size(), Math.max(lastTimestamp - startTimestamp, 0));
     }
-}
\ No newline at end of file
+}
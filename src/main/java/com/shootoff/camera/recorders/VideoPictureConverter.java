@@ -0,0 +1,64 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.recorders;
+
+import java.awt.image.BufferedImage;
+
+import com.xuggle.xuggler.IPixelFormat;
+import com.xuggle.xuggler.IVideoPicture;
+import com.xuggle.xuggler.video.ConverterFactory;
+import com.xuggle.xuggler.video.IConverter;
+
+/**
+ * Turns camera images into YUV420P pictures for a video writer. The Xuggler
+ * converter, and the resampler it owns, is created once and reused for every
+ * frame with the same size instead of being rebuilt per frame.
+ *
+ * Instances are not thread safe, each recorder should have its own.
+ */
+public final class VideoPictureConverter {
+    private IConverter converter = null;
+    private int converterWidth = 0;
+    private int converterHeight = 0;
+
+    /**
+     * Convert an image to a picture. The image is copied, thus it may be reused
+     * as soon as this method returns.
+     *
+     * @param frame
+     *            the image to convert
+     * @param timestamp
+     *            the picture's timestamp in microseconds
+     * @return a new picture holding the image's pixels
+     */
+    public IVideoPicture toPicture(BufferedImage frame, long timestamp) {
+        final BufferedImage image = ConverterFactory.convertToType(frame, BufferedImage.TYPE_3BYTE_BGR);
+
+        if (converter == null || converterWidth != image.getWidth() || converterHeight != image.getHeight()) {
+            if (converter != null)
+                converter.delete();
+
+            converter = ConverterFactory.createConverter(image, IPixelFormat.Type.YUV420P);
+            converterWidth = image.getWidth();
+            converterHeight = image.getHeight();
+        }
+
+        return converter.toPicture(image, timestamp);
+    }
+}
@@ -19,17 +19,14 @@
 package com.shootoff.camera.shotdetection;
 
 import java.io.File;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.IntConsumer;
 
 import org.opencv.core.Mat;
 import org.opencv.highgui.Highgui;
 import org.opencv.imgproc.Imgproc;
-import org.openimaj.util.function.Operation;
-import org.openimaj.util.parallel.GlobalExecutorPool;
-import org.openimaj.util.parallel.Parallel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +41,7 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
 
     public static final int SECTOR_COLUMNS = 3;
     public static final int SECTOR_ROWS = 3;
+    private static final int SECTOR_COUNT = SECTOR_ROWS * SECTOR_COLUMNS;
 
     // These assume BGR format
     private static final byte[] BLUE_MAT_PIXEL = { (byte) 255, (byte) 0, (byte) 0 };
@@ -53,8 +51,11 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
 
     private boolean filtersInitialized = false;
 
-    private int[][] lumsMovingAverage;
-    private int[][] colorDistanceFromRed;
+    // Per-pixel filter state stored row-major (index = y * filterWidth + x) so
+    // the sieve walks memory linearly
+    private int filterWidth;
+    private int[] lumsMovingAverage;
+    private int[] colorDistanceFromRed;
 
     private int avgThresholdPixels = -1;
 
@@ -81,15 +82,42 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
 
     private int MINIMUM_SHOT_DIMENSION;
 
-    // This is updated for every bright pixel
-    private final Set<Pixel> brightPixels = Collections.synchronizedSet(new HashSet<Pixel>());
+    // Candidate and bright pixels are recorded into one primitive buffer per
+    // sector so the sieve neither allocates nor contends on a shared lock
+    private final ThresholdPixelBuffer[] sectorThresholdPixels = new ThresholdPixelBuffer[SECTOR_COUNT];
+    private final ThresholdPixelBuffer[] sectorBrightPixels = new ThresholdPixelBuffer[SECTOR_COUNT];
+
+    // Hue, saturation, value copy of the current frame. OpenCV only
+    // reallocates it if the frame size changes.
+    private final Mat frameHSV = new Mat();
+
+    // Sector statuses are copied once per frame so that conversion and
+    // sieving agree on which sectors are active
+    private final boolean[] activeSectors = new boolean[SECTOR_COUNT];
+
+    // State for the current frame that is read by sieveOperation. Each sector
+    // row is copied out of the HSV frame into its own band, and bands whose
+    // sectors are all off are not copied at all.
+    private final byte[][] sieveBandPrimitives = new byte[SECTOR_ROWS][];
+    private int sieveSubWidth;
+    private int sieveSubHeight;
+    private int sieveCols;
+    private int sieveChannels;
+    private boolean sieveDetectShots;
+
+    // In this operation we accomplish both MovingAverage updates AND threshold
+    // pixel detection for one sector
+    private final IntConsumer sieveOperation = this::sieveSector;
 
     // The average is then calculated here
     private int avgBrightPixels = -1;
 
     // We keep track of how many pixels we filtered due to a dynamic threshold
     // so that we keep them in the average of thresholded pixels.
+    // The count is kept per sector while sieving to avoid sharing a counter
+    // between threads.
     private int dynamicallyThresholded = -1;
+    private final int[] sectorDynamicallyThresholded = new int[SECTOR_COUNT];
 
     // This is a short circuit for our pixel-color-changer to set the bad pixels
     // red without having complicated math every pixel
@@ -104,14 +132,13 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
     public JavaShotDetector(final CameraManager cameraManager, final CameraView cameraView) {
         super(cameraManager, cameraView);
 
-        GlobalExecutorPool.getPool().setRejectedExecutionHandler((r, p) -> {
-            if (!p.isShutdown()) {
-                logger.error("Shot detection thread was rejected but GlobalExecutorPool was not shutdown");
-            }
-        });
-
         this.cameraManager = cameraManager;
 
+        for (int i = 0; i < sectorThresholdPixels.length; i++) {
+            sectorThresholdPixels[i] = new ThresholdPixelBuffer();
+            sectorBrightPixels[i] = new ThresholdPixelBuffer();
+        }
+
         setFrameSize(cameraManager.getFeedWidth(), cameraManager.getFeedHeight());
 
         pixelClusterManager = new PixelClusterManager(cameraManager.getFeedWidth(), cameraManager.getFeedHeight());
@@ -122,14 +149,11 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
         if (pixelClusterManager != null)
             pixelClusterManager.updateFrameSize(width, height);
 
-        lumsMovingAverage = new int[width][height];
-        colorDistanceFromRed = new int[width][height];
+        filterWidth = width;
+        lumsMovingAverage = new int[width * height];
+        colorDistanceFromRed = new int[width * height];
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                lumsMovingAverage[x][y] = -1;
-            }
-        }
+        Arrays.fill(lumsMovingAverage, -1);
 
         final double frameSize = width * height;
 
@@ -149,43 +173,43 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
         return cameraManager;
     }
 
-    private Pixel updateFilter(int currentH, int currentS, int currentV, int x, int y, boolean detectShots) {
-        Pixel result = null;
-
+    private void updateFilter(int currentH, int currentS, int currentV, int x, int y, int filterIndex,
+            boolean detectShots, int sector) {
         final int currentLum = (255 - currentS) * currentV;
+        final int lumAverage = lumsMovingAverage[filterIndex];
 
-        if (lumsMovingAverage[x][y] == -1) {
-            lumsMovingAverage[x][y] = currentLum;
-            colorDistanceFromRed[x][y] = (Math.min(currentH, Math.abs(180 - currentH)) * currentS * currentV)
+        if (lumAverage == -1) {
+            lumsMovingAverage[filterIndex] = currentLum;
+            colorDistanceFromRed[filterIndex] = (Math.min(currentH, Math.abs(180 - currentH)) * currentS * currentV)
                     - (Math.abs(60 - currentH) * currentS * currentV);
 
-            return result;
+            return;
         }
 
-        if (detectShots && pixelAboveExcessiveBrightnessThreshold(lumsMovingAverage[x][y])) {
-            brightPixels.add(new Pixel(x, y));
-        } else if (detectShots && pixelAboveThreshold(currentLum, lumsMovingAverage[x][y])) {
-            result = new Pixel(x, y, currentH, currentLum, lumsMovingAverage[x][y], colorDistanceFromRed[x][y]);
+        final int colorAverage = colorDistanceFromRed[filterIndex];
+
+        if (detectShots && pixelAboveExcessiveBrightnessThreshold(lumAverage)) {
+            sectorBrightPixels[sector].add(x, y);
+        } else if (detectShots && pixelAboveThreshold(currentLum, lumAverage, sector)) {
+            sectorThresholdPixels[sector].add(x, y, currentH, currentLum, lumAverage, colorAverage);
         }
 
         final int tempColorDistanceFromRed = (Math.min(currentH, Math.abs(180 - currentH)) * currentS * currentV)
                 - (Math.abs(60 - currentH) * currentS * currentV);
 
         // Update the average brightness
-        lumsMovingAverage[x][y] = ((lumsMovingAverage[x][y] * (movingAveragePeriod - 1)) + currentLum)
+        lumsMovingAverage[filterIndex] = ((lumAverage * (movingAveragePeriod - 1)) + currentLum)
                 / movingAveragePeriod;
 
-        colorDistanceFromRed[x][y] = ((colorDistanceFromRed[x][y] * (movingAveragePeriod - 1))
-                + tempColorDistanceFromRed) / movingAveragePeriod;
-
-        return result;
+        colorDistanceFromRed[filterIndex] = ((colorAverage * (movingAveragePeriod - 1)) + tempColorDistanceFromRed)
+                / movingAveragePeriod;
     }
 
     private boolean pixelAboveExcessiveBrightnessThreshold(int lumsMovingAverage) {
         return lumsMovingAverage > EXCESSIVE_BRIGHTNESS_THRESHOLD;
     }
 
-    private boolean pixelAboveThreshold(int currentLum, int lumsMovingAverage) {
+    private boolean pixelAboveThreshold(int currentLum, int lumsMovingAverage, int sector) {
         final int increase = (currentLum - lumsMovingAverage);
 
         if (increase < MINIMUM_BRIGHTNESS_INCREASE)
@@ -201,7 +225,7 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
 
         if (increase < dynamic_threshold) {
             if (increase > threshold)
-                dynamicallyThresholded++;
+                sectorDynamicallyThresholded[sector]++;
             return false;
         }
 
@@ -221,30 +245,35 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
     public void processFrame(final Frame frame, final boolean detectShots) {
         updateMovingAveragePeriod();
 
-        // Must reset before every updateFilter loop
-        brightPixels.clear();
+        // Read once so the filters are never updated from a frame that was
+        // not converted because detection started in between
+        final boolean detecting = cameraManager.isDetecting();
 
         // Create a hue, saturation, value copy of the current frame used to
         // detect
         // the shots. The BGR version is just used by this implementation to
         // show
         // the user where bright/high motion pixels are
-        final Mat frameHSV = new Mat();
-        Imgproc.cvtColor(frame.getOriginalMat(), frameHSV, Imgproc.COLOR_BGR2HSV);
+        if (detecting)
+            convertActiveSectorsToHSV(frame.getOriginalMat());
 
-        final Set<Pixel> thresholdPixels = findThresholdPixelsAndUpdateFilter(frameHSV,
-                (detectShots && filtersInitialized));
+        findThresholdPixelsAndUpdateFilter(frameHSV, detecting, (detectShots && filtersInitialized));
 
-        final int thresholdPixelsSize = thresholdPixels.size();
+        final int thresholdPixelsSize = ThresholdPixelBuffer.totalSize(sectorThresholdPixels);
 
         if (logger.isTraceEnabled() && checkIfInitialized()) {
             if (thresholdPixelsSize >= 1)
                 logger.trace("thresholdPixels {} getMinimumShotDimension {}", thresholdPixelsSize,
                         getMinimumShotDimension());
 
-            for (final Pixel pixel : thresholdPixels) {
-                logger.trace("thresholdPixel {} {} - from array {} from pixel cur {} avg {}", pixel.x, pixel.y,
-                        lumsMovingAverage[pixel.x][pixel.y], pixel.getCurrentLum(), pixel.getLumAverage());
+            for (final ThresholdPixelBuffer thresholdPixels : sectorThresholdPixels) {
+                for (int i = 0; i < thresholdPixels.size(); i++) {
+                    final int x = thresholdPixels.getX(i);
+                    final int y = thresholdPixels.getY(i);
+                    logger.trace("thresholdPixel {} {} - from array {} from pixel cur {} avg {}", x, y,
+                            lumsMovingAverage[y * filterWidth + x], thresholdPixels.getCurrentLum(i),
+                            thresholdPixels.getLumAverage(i));
+                }
             }
         }
 
@@ -254,14 +283,14 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
         if (detectShots && filtersInitialized) {
             updateAvgThresholdPixels(thresholdPixelsSize);
 
-            updateAvgBrightPixels(brightPixels.size());
+            updateAvgBrightPixels(ThresholdPixelBuffer.totalSize(sectorBrightPixels));
 
             if (shouldShowBrightnessWarning()) {
                 cameraManager.showBrightnessWarning();
             }
 
             if (thresholdPixelsSize >= getMinimumShotDimension() && !isExcessiveMotion(thresholdPixelsSize)) {
-                final Set<PixelCluster> clusters = pixelClusterManager.clusterPixels(thresholdPixels,
+                final Set<PixelCluster> clusters = pixelClusterManager.clusterPixels(sectorThresholdPixels,
                         getMinimumShotDimension());
 
                 if (logger.isTraceEnabled()) {
@@ -278,23 +307,99 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
                 if (shouldShowMotionWarning(thresholdPixelsSize))
                     cameraManager.showMotionWarning();
 
-                for (final Pixel pixel : thresholdPixels) {
-                    frame.getOriginalMat().put(pixel.y, pixel.x, BLUE_MAT_PIXEL);
-                }
+                colorPixels(frame.getOriginalMat(), sectorThresholdPixels, BLUE_MAT_PIXEL);
             }
 
-            if (shouldShowBrightnessWarningBool && !brightPixels.isEmpty()) {
+            if (shouldShowBrightnessWarningBool) {
                 // Make the feed pixels red so the user can easily see what the
                 // problem pixels are
-                synchronized (brightPixels) {
-                    for (final Pixel pixel : brightPixels) {
-                        frame.getOriginalMat().put(pixel.y, pixel.x, RED_MAT_PIXEL);
-                    }
+                colorPixels(frame.getOriginalMat(), sectorBrightPixels, RED_MAT_PIXEL);
+            }
+        }
+    }
+
+    private void colorPixels(final Mat frame, final ThresholdPixelBuffer[] sectorPixels, final byte[] color) {
+        for (final ThresholdPixelBuffer pixels : sectorPixels) {
+            for (int i = 0; i < pixels.size(); i++) {
+                frame.put(pixels.getY(i), pixels.getX(i), color);
+            }
+        }
+    }
+
+    private void updateActiveSectors() {
+        for (int sector = 0; sector < SECTOR_COUNT; sector++) {
+            activeSectors[sector] = cameraManager.isSectorOn(sector % SECTOR_COLUMNS, sector / SECTOR_COLUMNS);
+        }
+    }
+
+    private boolean isSectorRowActive(final int sectorY) {
+        for (int sectorX = 0; sectorX < SECTOR_COLUMNS; sectorX++) {
+            if (activeSectors[sectorY * SECTOR_COLUMNS + sectorX])
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Convert only the parts of <code>frameBGR</code> covered by active
+     * sectors into <code>frameHSV</code>. Adjacent active sectors in the same
+     * row are converted together and each region is padded by a pixel so that
+     * color checks looking around a shot on a sector edge read converted
+     * pixels.
+     */
+    private void convertActiveSectorsToHSV(final Mat frameBGR) {
+        updateActiveSectors();
+
+        frameHSV.create(frameBGR.rows(), frameBGR.cols(), frameBGR.type());
+
+        boolean allActive = true;
+        for (final boolean active : activeSectors)
+            allActive &= active;
+
+        if (allActive) {
+            Imgproc.cvtColor(frameBGR, frameHSV, Imgproc.COLOR_BGR2HSV);
+            return;
+        }
+
+        final int subWidth = frameBGR.cols() / SECTOR_COLUMNS;
+        final int subHeight = frameBGR.rows() / SECTOR_ROWS;
+
+        for (int sectorY = 0; sectorY < SECTOR_ROWS; sectorY++) {
+            int runStart = -1;
+
+            for (int sectorX = 0; sectorX <= SECTOR_COLUMNS; sectorX++) {
+                final boolean active = sectorX < SECTOR_COLUMNS && activeSectors[sectorY * SECTOR_COLUMNS + sectorX];
+
+                if (active && runStart == -1) {
+                    runStart = sectorX;
+                } else if (!active && runStart != -1) {
+                    convertRegionToHSV(frameBGR, (runStart * subWidth) - 1, (sectorY * subHeight) - 1,
+                            (sectorX * subWidth) + 1, ((sectorY + 1) * subHeight) + 1);
+                    runStart = -1;
                 }
             }
         }
     }
 
+    private void convertRegionToHSV(final Mat frameBGR, final int startX, final int startY, final int endX,
+            final int endY) {
+        final int rowStart = Math.max(startY, 0);
+        final int rowEnd = Math.min(endY, frameBGR.rows());
+        final int colStart = Math.max(startX, 0);
+        final int colEnd = Math.min(endX, frameBGR.cols());
+
+        final Mat regionBGR = frameBGR.submat(rowStart, rowEnd, colStart, colEnd);
+        final Mat regionHSV = frameHSV.submat(rowStart, rowEnd, colStart, colEnd);
+
+        // regionHSV already has the right size and type, thus cvtColor writes
+        // straight into frameHSV
+        Imgproc.cvtColor(regionBGR, regionHSV, Imgproc.COLOR_BGR2HSV);
+
+        regionBGR.release();
+        regionHSV.release();
+    }
+
     private void updateMovingAveragePeriod() {
         if (cameraManager.getFrameCount() % 5 == 0)
             movingAveragePeriod = Math.max((int) (cameraManager.getFPS() / 5.0), INIT_FRAME_COUNT);
@@ -346,65 +451,74 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
         return cameraManager.getFrameCount() - initialFrameCount > INIT_FRAME_COUNT;
     }
 
-    private Set<Pixel> findThresholdPixelsAndUpdateFilter(final Mat workingFrame, final boolean detectShots) {
+    private void findThresholdPixelsAndUpdateFilter(final Mat workingFrame, final boolean detecting,
+            final boolean detectShots) {
+        // Must reset before every updateFilter loop
+        for (int i = 0; i < sectorThresholdPixels.length; i++) {
+            sectorThresholdPixels[i].clear();
+            sectorBrightPixels[i].clear();
+            sectorDynamicallyThresholded[i] = 0;
+        }
+
         dynamicallyThresholded = 0;
 
-        final Set<Pixel> thresholdPixels = Collections.synchronizedSet(new HashSet<Pixel>());
-
-        if (!cameraManager.isDetecting())
-            return thresholdPixels;
-
-        final int subWidth = workingFrame.cols() / SECTOR_COLUMNS;
-        final int subHeight = workingFrame.rows() / SECTOR_ROWS;
-
-        final int cols = workingFrame.cols();
-        final int channels = workingFrame.channels();
-
-        final int size = (int) (workingFrame.total() * channels);
-        final byte[] workingFramePrimitive = new byte[size];
-        workingFrame.get(0, 0, workingFramePrimitive);
-
-        // In this loop we accomplish both MovingAverage updates AND threshold
-        // pixel detection
-        Parallel.forIndex(0, (SECTOR_ROWS * SECTOR_COLUMNS), 1, new Operation<Integer>() {
-            @Override
-            public void perform(Integer sector) {
-                final int sectorX = sector.intValue() % SECTOR_COLUMNS;
-                final int sectorY = sector.intValue() / SECTOR_ROWS;
-
-                if (!cameraManager.isSectorOn(sectorX, sectorY))
-                    return;
-
-                final int startX = subWidth * sectorX;
-                final int startY = subHeight * sectorY;
-
-                for (int y = startY; y < startY + subHeight; y++) {
-                    final int yOffset = y * cols;
-                    for (int x = startX; x < startX + subWidth; x++) {
-                        // If the thread is interrupted it's likely because the
-                        // thread pool
-                        // is being shutdown with shutdownNow. Thus cancel
-                        // searching
-                        // for a shot in the current frame.
-                        if (Thread.currentThread().isInterrupted()) {
-                            logger.trace("Shot detection sieve interrupted");
-                            return;
-                        }
-
-                        final int currentH = workingFramePrimitive[(yOffset + x) * channels] & 0xFF;
-                        final int currentS = workingFramePrimitive[(yOffset + x) * channels + 1] & 0xFF;
-                        final int currentV = workingFramePrimitive[(yOffset + x) * channels + 2] & 0xFF;
-
-                        final Pixel pixel = updateFilter(currentH, currentS, currentV, x, y, detectShots);
-
-                        if (pixel != null)
-                            thresholdPixels.add(pixel);
-                    }
-                }
-            }
-        });
+        if (!detecting)
+            return;
+
+        sieveSubWidth = workingFrame.cols() / SECTOR_COLUMNS;
+        sieveSubHeight = workingFrame.rows() / SECTOR_ROWS;
+
+        sieveCols = workingFrame.cols();
+        sieveChannels = workingFrame.channels();
 
-        return thresholdPixels;
+        final int bandSize = sieveSubHeight * sieveCols * sieveChannels;
+
+        for (int sectorY = 0; sectorY < SECTOR_ROWS; sectorY++) {
+            if (!isSectorRowActive(sectorY))
+                continue;
+
+            if (sieveBandPrimitives[sectorY] == null || sieveBandPrimitives[sectorY].length != bandSize)
+                sieveBandPrimitives[sectorY] = new byte[bandSize];
+
+            final Mat band = workingFrame.rowRange(sectorY * sieveSubHeight, (sectorY + 1) * sieveSubHeight);
+            band.get(0, 0, sieveBandPrimitives[sectorY]);
+            band.release();
+        }
+
+        sieveDetectShots = detectShots;
+
+        cameraManager.runDetectionTasks(SECTOR_COUNT, sieveOperation);
+
+        for (final int sectorCount : sectorDynamicallyThresholded)
+            dynamicallyThresholded += sectorCount;
+    }
+
+    private void sieveSector(final int sector) {
+        final int sectorX = sector % SECTOR_COLUMNS;
+        final int sectorY = sector / SECTOR_COLUMNS;
+
+        if (!activeSectors[sector])
+            return;
+
+        final byte[] workingFramePrimitive = sieveBandPrimitives[sectorY];
+        final int cols = sieveCols;
+        final int channels = sieveChannels;
+        final boolean detectShots = sieveDetectShots;
+
+        final int startX = sieveSubWidth * sectorX;
+        final int startY = sieveSubHeight * sectorY;
+
+        for (int y = startY; y < startY + sieveSubHeight; y++) {
+            final int yOffset = (y - startY) * cols;
+            final int filterOffset = y * filterWidth;
+            for (int x = startX; x < startX + sieveSubWidth; x++) {
+                final int currentH = workingFramePrimitive[(yOffset + x) * channels] & 0xFF;
+                final int currentS = workingFramePrimitive[(yOffset + x) * channels + 1] & 0xFF;
+                final int currentV = workingFramePrimitive[(yOffset + x) * channels + 2] & 0xFF;
+
+                updateFilter(currentH, currentS, currentV, x, y, filterOffset + x, detectShots, sector);
+            }
+        }
     }
 
     private void updateAvgThresholdPixels(final int thresholdPixels) {
@@ -431,7 +545,8 @@ public final class JavaShotDetector extends FrameProcessingShotDetector {
     }
 
     private void addShot(Frame workingFrame, PixelCluster pc) {
-        final Optional<ShotColor> color = pc.getColor(workingFrame.getOriginalMat(), colorDistanceFromRed);
+        final Optional<ShotColor> color = pc.getColor(workingFrame.getOriginalMat(), colorDistanceFromRed,
+                filterWidth);
 
         if (!color.isPresent()) {
             if (logger.isDebugEnabled())
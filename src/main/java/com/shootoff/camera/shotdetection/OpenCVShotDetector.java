@@ -0,0 +1,498 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.shotdetection;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.highgui.Highgui;
+import org.opencv.imgproc.Imgproc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.CameraManager;
+import com.shootoff.camera.CameraView;
+import com.shootoff.camera.Frame;
+import com.shootoff.camera.shot.ShotColor;
+import com.shootoff.config.Configuration;
+
+/**
+ * Implements the same algorithm as {@link JavaShotDetector} (running luminance
+ * average, dynamic threshold, pixel clustering, and red/green classification),
+ * but each per-pixel step is a whole-frame OpenCV operation. The sieve thus
+ * runs in OpenCV's native code instead of a Java loop per pixel. Only the
+ * coordinates of candidate pixels are copied back into Java, and only when
+ * there are enough of them to form a shot.
+ *
+ * The filters are kept in floating point, so averages can differ from the
+ * integer filters in {@link JavaShotDetector} by a rounding step.
+ */
+public final class OpenCVShotDetector extends FrameProcessingShotDetector {
+    private static final Logger logger = LoggerFactory.getLogger(OpenCVShotDetector.class);
+
+    private static final int SECTOR_COLUMNS = JavaShotDetector.SECTOR_COLUMNS;
+    private static final int SECTOR_ROWS = JavaShotDetector.SECTOR_ROWS;
+
+    // These assume BGR format
+    private static final Scalar BLUE_MAT_PIXEL = new Scalar(255, 0, 0);
+    private static final Scalar RED_MAT_PIXEL = new Scalar(0, 0, 255);
+
+    private final CameraManager cameraManager;
+
+    private boolean filtersInitialized = false;
+    private boolean filtersSeeded = false;
+
+    private int filterWidth;
+    private int filterHeight;
+
+    // Per-pixel filter state, both CV_32FC1
+    private final Mat lumsMovingAverage = new Mat();
+    private final Mat colorDistanceFromRed = new Mat();
+
+    // colorDistanceFromRed as ints for PixelCluster, only filled when a frame
+    // has clusters to classify
+    private final Mat colorDistanceFromRedInt = new Mat();
+    private int[] colorDistanceFromRedPrimitive;
+
+    private int avgThresholdPixels = -1;
+
+    private int initialFrameCount = -1;
+
+    private final static int INIT_FRAME_COUNT = 5;
+    private int movingAveragePeriod = INIT_FRAME_COUNT;
+
+    private final static int MOTION_WARNING_FRAMECOUNT = 30;
+    private int MOTION_WARNING_AVG_THRESHOLD;
+    private int MOTION_WARNING_THRESHOLD_PIXELS;
+    private int MAXIMUM_THRESHOLD_PIXELS_FOR_MOTION_AVG;
+
+    // Individual pixel threshold
+    private final static int MAXIMUM_LUM_VALUE = 65025;
+    private final static int EXCESSIVE_BRIGHTNESS_THRESHOLD = (int) (.96 * MAXIMUM_LUM_VALUE);
+    private final static int MINIMUM_BRIGHTNESS_INCREASE = (int) (.117 * MAXIMUM_LUM_VALUE);
+
+    // Aggregate # of pixel threshold
+    private int BRIGHTNESS_WARNING_AVG_THRESHOLD;
+    private final static int BRIGHTNESS_WARNING_FRAMECOUNT = 90;
+
+    private int MAXIMUM_THRESHOLD_PIXELS_FOR_AVG;
+
+    private int MINIMUM_SHOT_DIMENSION;
+
+    // Scratch images reused from frame to frame. OpenCV only reallocates them
+    // if the frame size changes.
+    private final Mat frameHSV = new Mat();
+    private final List<Mat> hsvPlanes = new ArrayList<>();
+    private final Mat hue = new Mat();
+    private final Mat saturation = new Mat();
+    private final Mat value = new Mat();
+    private final Mat currentLum = new Mat();
+    private final Mat currentColorDistance = new Mat();
+    private final Mat greenDistance = new Mat();
+    private final Mat increase = new Mat();
+    private final Mat threshold = new Mat();
+    private final Mat dynamicThreshold = new Mat();
+    private final Mat aboveMinimumIncrease = new Mat();
+    private final Mat aboveDynamicThreshold = new Mat();
+    private final Mat aboveThreshold = new Mat();
+    private final Mat brightPixels = new Mat();
+    private final Mat thresholdPixels = new Mat();
+    private final Mat thresholdPixelPoints = new Mat();
+
+    // 255 where the sector containing the pixel is on
+    private final Mat sectorMask = new Mat();
+    private final boolean[] activeSectors = new boolean[SECTOR_ROWS * SECTOR_COLUMNS];
+    private boolean sectorMaskValid = false;
+
+    // All threshold pixels are placed in a single buffer because the sieve
+    // isn't split into sectors
+    private final ThresholdPixelBuffer[] thresholdPixelBuffers = { new ThresholdPixelBuffer() };
+    private int[] thresholdPixelCoordinates = new int[0];
+
+    private int thresholdPixelCount = 0;
+    private int brightPixelCount = 0;
+    private int dynamicallyThresholded = 0;
+
+    private int avgBrightPixels = -1;
+
+    private boolean shouldShowBrightnessWarningBool = false;
+
+    final PixelClusterManager pixelClusterManager;
+
+    public static boolean isSystemSupported() {
+        return true;
+    }
+
+    public OpenCVShotDetector(final CameraManager cameraManager, final CameraView cameraView) {
+        super(cameraManager, cameraView);
+
+        this.cameraManager = cameraManager;
+
+        setFrameSize(cameraManager.getFeedWidth(), cameraManager.getFeedHeight());
+
+        pixelClusterManager = new PixelClusterManager(cameraManager.getFeedWidth(), cameraManager.getFeedHeight());
+    }
+
+    @Override
+    public void setFrameSize(final int width, final int height) {
+        if (pixelClusterManager != null)
+            pixelClusterManager.updateFrameSize(width, height);
+
+        resizeFilters(width, height);
+
+        final double frameSize = width * height;
+
+        MOTION_WARNING_AVG_THRESHOLD = (int) (frameSize * .000395);
+        MOTION_WARNING_THRESHOLD_PIXELS = (int) (frameSize * 0.00195);
+        MAXIMUM_THRESHOLD_PIXELS_FOR_MOTION_AVG = (int) (frameSize * 0.00195);
+
+        // Aggregate # of pixel threshold
+        BRIGHTNESS_WARNING_AVG_THRESHOLD = (int) (frameSize * .000325);
+
+        MAXIMUM_THRESHOLD_PIXELS_FOR_AVG = (int) (frameSize * .000976);
+
+        MINIMUM_SHOT_DIMENSION = (int) (frameSize * .000025);
+    }
+
+    // The frames detection works on are smaller than the feed when detection
+    // is limited or the feed is cropped to the projection, thus the filters
+    // follow the working frame's size rather than the feed's. Like
+    // JavaShotDetector, the thresholds stay based on the feed size.
+    private void resizeFilters(final int width, final int height) {
+        filterWidth = width;
+        filterHeight = height;
+
+        lumsMovingAverage.create(height, width, CvType.CV_32FC1);
+        colorDistanceFromRed.create(height, width, CvType.CV_32FC1);
+        colorDistanceFromRedPrimitive = new int[width * height];
+        filtersSeeded = false;
+        sectorMaskValid = false;
+    }
+
+    public CameraManager getCameraManager() {
+        return cameraManager;
+    }
+
+    /**
+     * Frame is modified to have red pixels for brightness and blue for motion
+     * at the conclusion of shot detection
+     *
+     * @param frame
+     *            a Frame object
+     * @param detectShots
+     *            whether or not to detect a shot
+     */
+    @Override
+    public void processFrame(final Frame frame, final boolean detectShots) {
+        updateMovingAveragePeriod();
+
+        findThresholdPixelsAndUpdateFilter(frame.getOriginalMat(), (detectShots && filtersInitialized));
+
+        if (!filtersInitialized)
+            filtersInitialized = checkIfInitialized();
+
+        if (detectShots && filtersInitialized) {
+            updateAvgThresholdPixels(thresholdPixelCount);
+
+            updateAvgBrightPixels(brightPixelCount);
+
+            if (shouldShowBrightnessWarning()) {
+                cameraManager.showBrightnessWarning();
+            }
+
+            if (thresholdPixelCount >= getMinimumShotDimension() && !isExcessiveMotion(thresholdPixelCount)) {
+                final Set<PixelCluster> clusters = pixelClusterManager.clusterPixels(loadThresholdPixels(),
+                        getMinimumShotDimension());
+
+                if (logger.isTraceEnabled()) {
+                    logger.trace("thresholdPixels {}", thresholdPixelCount);
+                    logger.trace("clusters {}", clusters.size());
+                }
+
+                if (!clusters.isEmpty()) {
+                    colorDistanceFromRed.convertTo(colorDistanceFromRedInt, CvType.CV_32S);
+                    colorDistanceFromRedInt.get(0, 0, colorDistanceFromRedPrimitive);
+
+                    for (final PixelCluster cluster : clusters) {
+                        addShot(new Frame(frameHSV, frame.getTimestamp()), cluster);
+                    }
+                }
+            }
+
+            // Moved to after detectShots because otherwise we'll have changed
+            // pixels in the frame that's being checked for shots
+            else if (isExcessiveMotion(thresholdPixelCount)) {
+                if (shouldShowMotionWarning(thresholdPixelCount))
+                    cameraManager.showMotionWarning();
+
+                frame.getOriginalMat().setTo(BLUE_MAT_PIXEL, thresholdPixels);
+            }
+
+            if (shouldShowBrightnessWarningBool) {
+                // Make the feed pixels red so the user can easily see what the
+                // problem pixels are
+                frame.getOriginalMat().setTo(RED_MAT_PIXEL, brightPixels);
+            }
+        }
+    }
+
+    private void findThresholdPixelsAndUpdateFilter(final Mat frameBGR, final boolean detectShots) {
+        thresholdPixelCount = 0;
+        brightPixelCount = 0;
+        dynamicallyThresholded = 0;
+
+        if (!cameraManager.isDetecting())
+            return;
+
+        if (frameBGR.cols() != filterWidth || frameBGR.rows() != filterHeight)
+            resizeFilters(frameBGR.cols(), frameBGR.rows());
+
+        updateSectorMask();
+
+        Imgproc.cvtColor(frameBGR, frameHSV, Imgproc.COLOR_BGR2HSV);
+
+        hsvPlanes.clear();
+        Core.split(frameHSV, hsvPlanes);
+
+        hsvPlanes.get(0).convertTo(hue, CvType.CV_32F);
+        hsvPlanes.get(1).convertTo(saturation, CvType.CV_32F);
+        hsvPlanes.get(2).convertTo(value, CvType.CV_32F);
+
+        // currentLum = (255 - s) * v
+        hsvPlanes.get(1).convertTo(currentLum, CvType.CV_32F, -1, 255);
+        Core.multiply(currentLum, value, currentLum);
+
+        for (final Mat plane : hsvPlanes)
+            plane.release();
+
+        // colorDistance = (min(h, |180 - h|) - |60 - h|) * s * v
+        Core.absdiff(hue, new Scalar(180), currentColorDistance);
+        Core.min(hue, currentColorDistance, currentColorDistance);
+        Core.absdiff(hue, new Scalar(60), greenDistance);
+        Core.subtract(currentColorDistance, greenDistance, currentColorDistance);
+        Core.multiply(currentColorDistance, saturation, currentColorDistance);
+        Core.multiply(currentColorDistance, value, currentColorDistance);
+
+        if (!filtersSeeded) {
+            currentLum.copyTo(lumsMovingAverage);
+            currentColorDistance.copyTo(colorDistanceFromRed);
+            filtersSeeded = true;
+            return;
+        }
+
+        if (detectShots)
+            sievePixels();
+
+        // Update the averages
+        final double weight = 1.0 / movingAveragePeriod;
+        Imgproc.accumulateWeighted(currentLum, lumsMovingAverage, weight, sectorMask);
+        Imgproc.accumulateWeighted(currentColorDistance, colorDistanceFromRed, weight, sectorMask);
+    }
+
+    /**
+     * Find the bright and threshold pixels in active sectors by comparing the
+     * current luminance against the averages from the previous frame.
+     */
+    private void sievePixels() {
+        Core.compare(lumsMovingAverage, new Scalar(EXCESSIVE_BRIGHTNESS_THRESHOLD), brightPixels, Core.CMP_GT);
+        Core.bitwise_and(brightPixels, sectorMask, brightPixels);
+
+        Core.subtract(currentLum, lumsMovingAverage, increase);
+
+        // threshold = (max - avg) / 4
+        lumsMovingAverage.convertTo(threshold, CvType.CV_32F, -0.25, MAXIMUM_LUM_VALUE * 0.25);
+
+        // dynamicThreshold = threshold + ((max - threshold) * ratio)
+        final double ratio = (double) avgThresholdPixels / (double) MAXIMUM_THRESHOLD_PIXELS_FOR_AVG;
+        threshold.convertTo(dynamicThreshold, CvType.CV_32F, 1 - ratio, MAXIMUM_LUM_VALUE * ratio);
+
+        Core.compare(increase, new Scalar(MINIMUM_BRIGHTNESS_INCREASE), aboveMinimumIncrease, Core.CMP_GE);
+        Core.subtract(aboveMinimumIncrease, brightPixels, aboveMinimumIncrease);
+        Core.bitwise_and(aboveMinimumIncrease, sectorMask, aboveMinimumIncrease);
+
+        Core.compare(increase, dynamicThreshold, aboveDynamicThreshold, Core.CMP_GE);
+        Core.bitwise_and(aboveMinimumIncrease, aboveDynamicThreshold, thresholdPixels);
+
+        // Pixels that would have passed without the dynamic increase are
+        // still counted in the average number of threshold pixels
+        Core.compare(increase, threshold, aboveThreshold, Core.CMP_GT);
+        Core.bitwise_and(aboveThreshold, aboveMinimumIncrease, aboveThreshold);
+        Core.subtract(aboveThreshold, aboveDynamicThreshold, aboveThreshold);
+
+        thresholdPixelCount = Core.countNonZero(thresholdPixels);
+        brightPixelCount = Core.countNonZero(brightPixels);
+        dynamicallyThresholded = Core.countNonZero(aboveThreshold);
+    }
+
+    private ThresholdPixelBuffer[] loadThresholdPixels() {
+        final ThresholdPixelBuffer buffer = thresholdPixelBuffers[0];
+        buffer.clear();
+
+        Core.findNonZero(thresholdPixels, thresholdPixelPoints);
+
+        final int size = (int) (thresholdPixelPoints.total() * thresholdPixelPoints.channels());
+        if (thresholdPixelCoordinates.length < size)
+            thresholdPixelCoordinates = new int[size];
+
+        if (size > 0)
+            thresholdPixelPoints.get(0, 0, thresholdPixelCoordinates);
+
+        for (int i = 0; i < size; i += 2)
+            buffer.add(thresholdPixelCoordinates[i], thresholdPixelCoordinates[i + 1]);
+
+        return thresholdPixelBuffers;
+    }
+
+    private void updateSectorMask() {
+        boolean changed = !sectorMaskValid;
+
+        for (int sector = 0; sector < activeSectors.length; sector++) {
+            final boolean active = cameraManager.isSectorOn(sector % SECTOR_COLUMNS, sector / SECTOR_COLUMNS);
+
+            if (activeSectors[sector] != active) {
+                activeSectors[sector] = active;
+                changed = true;
+            }
+        }
+
+        if (!changed)
+            return;
+
+        sectorMask.create(filterHeight, filterWidth, CvType.CV_8UC1);
+        sectorMask.setTo(Scalar.all(0));
+
+        // Like JavaShotDetector, pixels past the last full sector are never
+        // sieved
+        final int subWidth = filterWidth / SECTOR_COLUMNS;
+        final int subHeight = filterHeight / SECTOR_ROWS;
+
+        for (int sector = 0; sector < activeSectors.length; sector++) {
+            if (!activeSectors[sector])
+                continue;
+
+            final int startX = subWidth * (sector % SECTOR_COLUMNS);
+            final int startY = subHeight * (sector / SECTOR_COLUMNS);
+
+            final Mat sectorRegion = sectorMask.submat(startY, startY + subHeight, startX, startX + subWidth);
+            sectorRegion.setTo(Scalar.all(255));
+            sectorRegion.release();
+        }
+
+        sectorMaskValid = true;
+    }
+
+    private void updateMovingAveragePeriod() {
+        if (cameraManager.getFrameCount() % 5 == 0)
+            movingAveragePeriod = Math.max((int) (cameraManager.getFPS() / 5.0), INIT_FRAME_COUNT);
+    }
+
+    private boolean isExcessiveMotion(final int thresholdPixels) {
+        return thresholdPixels > MOTION_WARNING_THRESHOLD_PIXELS || avgThresholdPixels > MOTION_WARNING_AVG_THRESHOLD;
+    }
+
+    private boolean shouldShowMotionWarning(final int thresholdPixels) {
+        final boolean showWarning = avgThresholdPixels > MOTION_WARNING_AVG_THRESHOLD
+                && cameraManager.getFrameCount() - initialFrameCount > MOTION_WARNING_FRAMECOUNT;
+
+        if (showWarning && logger.isTraceEnabled())
+            logger.trace("HIGH MOTION - avgThresholdPixels {} thresholdPixels {} frameCount {}", avgThresholdPixels,
+                    thresholdPixels, cameraManager.getFrameCount());
+
+        return showWarning;
+    }
+
+    private boolean shouldShowBrightnessWarning() {
+        if (avgBrightPixels >= BRIGHTNESS_WARNING_AVG_THRESHOLD
+                && cameraManager.getFrameCount() - initialFrameCount > BRIGHTNESS_WARNING_FRAMECOUNT) {
+            if (logger.isTraceEnabled())
+                logger.trace("HIGH BRIGHTNESS - avgBrightPixels {}", avgBrightPixels);
+
+            shouldShowBrightnessWarningBool = true;
+
+            return true;
+        }
+
+        shouldShowBrightnessWarningBool = false;
+        return false;
+    }
+
+    private boolean checkIfInitialized() {
+        if (initialFrameCount == -1)
+            initialFrameCount = cameraManager.getFrameCount();
+
+        return cameraManager.getFrameCount() - initialFrameCount > INIT_FRAME_COUNT;
+    }
+
+    private void updateAvgThresholdPixels(final int thresholdPixels) {
+        if (avgThresholdPixels == -1)
+            avgThresholdPixels = Math.min(thresholdPixels + dynamicallyThresholded, MAXIMUM_THRESHOLD_PIXELS_FOR_AVG);
+        else {
+            avgThresholdPixels = (((movingAveragePeriod - 1) * avgThresholdPixels)
+                    + Math.min(thresholdPixels + dynamicallyThresholded, MAXIMUM_THRESHOLD_PIXELS_FOR_MOTION_AVG))
+                    / movingAveragePeriod;
+        }
+    }
+
+    private void updateAvgBrightPixels(final int brightPixels) {
+        if (avgBrightPixels == -1)
+            avgBrightPixels = Math.min(brightPixels, MAXIMUM_THRESHOLD_PIXELS_FOR_AVG);
+        else
+            avgBrightPixels = (((movingAveragePeriod - 1) * avgBrightPixels)
+                    + Math.min(brightPixels, MAXIMUM_THRESHOLD_PIXELS_FOR_AVG)) / movingAveragePeriod;
+    }
+
+    public int getMinimumShotDimension() {
+        return cameraManager.getMinimumShotDimension().isPresent() ? cameraManager.getMinimumShotDimension().get()
+                : MINIMUM_SHOT_DIMENSION;
+    }
+
+    private void addShot(Frame workingFrame, PixelCluster pc) {
+        final Optional<ShotColor> color = pc.getColor(workingFrame.getOriginalMat(), colorDistanceFromRedPrimitive,
+                filterWidth);
+
+        if (!color.isPresent()) {
+            if (logger.isDebugEnabled())
+                logger.debug("Processing Shot: Shot Rejected By Lack Of Color Density");
+            return;
+        }
+
+        if (super.addShot(color.get(), pc.centerPixelX, pc.centerPixelY, workingFrame.getTimestamp(), true)
+                && Configuration.getConfig().isDebugShotsRecordToFiles()) {
+            final Mat debugFrame = new Mat();
+            Imgproc.cvtColor(workingFrame.getOriginalMat(), debugFrame, Imgproc.COLOR_HSV2BGR);
+
+            final File file = new File(String.format("shot-%d-%d-%d_orig.png",
+                    cameraManager.cameraTimeToShotTime(workingFrame.getTimestamp()), (int) pc.centerPixelX,
+                    (int) pc.centerPixelY));
+            Highgui.imwrite(file.toString(), debugFrame);
+        }
+    }
+
+    @Override
+    protected boolean handlesBounds() {
+        return true;
+    }
+}
@@ -51,8 +51,10 @@ public class PixelCluster extends HashSet<Pixel> {
     // We collect all the pixels AROUND the detected shot
     // Usually the pixels in the shot are max brightness which are biased green
     // So we look around the shot instead
+    //
+    // colorDistanceFromRed is row-major with filterWidth values per row
     @SuppressWarnings("unused")
-    public int getColorDifference(final Mat workingFrame, final int[][] colorDistanceFromRed) {
+    public int getColorDifference(final Mat workingFrame, final int[] colorDistanceFromRed, final int filterWidth) {
 
         Mat traceMat = null;
         if (logger.isTraceEnabled() && debugColorsToFile) {
@@ -138,10 +140,11 @@ public class PixelCluster extends HashSet<Pixel> {
 
                 // logger.trace("red {} green {} diff {} CDFR {}", thisDFromRed,
                 // thisDFromGreen, currentCol,
-                // colorDistanceFromRed[pixel.x][pixel.y]);
+                // colorDistanceFromRed[pixel.y * filterWidth + pixel.x]);
 
-                colorDistance += currentCol
-                        - (int) (CURRENT_COLOR_BIAS_MULTIPLIER * colorDistanceFromRed[pixel.x][pixel.y]);
+                final int colorAverage = colorDistanceFromRed[pixel.y * filterWidth + pixel.x];
+
+                colorDistance += currentCol - (int) (CURRENT_COLOR_BIAS_MULTIPLIER * colorAverage);
 
                 if (logger.isTraceEnabled() && debugColorsToFile) {
                     traceMat.put(pixelEntry.getKey().y, pixelEntry.getKey().x,
@@ -149,10 +152,10 @@ public class PixelCluster extends HashSet<Pixel> {
 
                     // logger.trace("pixel cD {} cC {} cD {}", colorDistance,
                     // currentCol, CURRENT_COLOR_BIAS_MULTIPLIER *
-                    // colorDistanceFromRed[pixel.x][pixel.y]);
+                    // colorDistanceFromRed[pixel.y * filterWidth + pixel.x]);
 
                     tempColorDistance += currentCol;
-                    avgColorDistance += colorDistanceFromRed[pixel.x][pixel.y];
+                    avgColorDistance += colorAverage;
                 }
             }
         }
@@ -176,8 +179,9 @@ public class PixelCluster extends HashSet<Pixel> {
         return colorDistance / pixelCount;
     }
 
-    public Optional<ShotColor> getColor(final Mat workingFrame, final int[][] colorDistanceFromRed) {
-        final int colorDist = getColorDifference(workingFrame, colorDistanceFromRed);
+    public Optional<ShotColor> getColor(final Mat workingFrame, final int[] colorDistanceFromRed,
+            final int filterWidth) {
+        final int colorDist = getColorDifference(workingFrame, colorDistanceFromRed, filterWidth);
 
         // Sometimes it's better to guess than to return nothing
         if (colorDist < 1000)
@@ -1,33 +1,43 @@
 /*
  * ShootOFF - Software for Laser Dry Fire Training
- * Copyright (C) 2015 phrack
- * 
+ * Copyright (C) 2016 phrack
+ *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
  * the Free Software Foundation, either version 3 of the License, or
  * (at your option) any later version.
- * 
+ *
  * This program is distributed in the hope that it will be useful,
  * but WITHOUT ANY WARRANTY; without even the implied warranty of
  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
  * GNU General Public License for more details.
- * 
+ *
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
 package com.shootoff.camera.shotdetection;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
-import java.util.Stack;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Groups threshold pixels into connected clusters and filters out clusters
+ * that do not look like shots.
+ * 
+ * Clustering uses a frame-sized bitmap that maps a pixel location to its index
+ * in the list of threshold pixels plus a union-find forest over those indices.
+ * The first pass marks every pixel in the bitmap and unions it with its marked
+ * 8-neighbors while counting its connectedness. The second pass resolves each
+ * pixel's root and accumulates the bounding box, connectedness-weighted
+ * centroid and size of every cluster at once. Only the bitmap entries that were
+ * set are cleared afterwards, thus the cost is proportional to the number of
+ * threshold pixels rather than the frame size.
+ */
 public class PixelClusterManager {
     private static final Logger logger = LoggerFactory.getLogger(PixelClusterManager.class);
 
@@ -52,118 +62,261 @@ public class PixelClusterManager {
     private final static int EXCESSIVE_PIXEL_CUTOFF = 300;
     private final static int EXCESSIVE_PIXEL_REGION_COUNT = 1;
 
+    private final static int DEFAULT_CAPACITY = 256;
+
+    // Frame-sized map from pixel location to (index in the pixel arrays + 1),
+    // 0 means the location is not a threshold pixel
+    private int[] pixelBitmap;
+
+    // Per threshold pixel state
+    private int[] pixelXs = new int[DEFAULT_CAPACITY];
+    private int[] pixelYs = new int[DEFAULT_CAPACITY];
+    private int[] pixelSectors = new int[DEFAULT_CAPACITY];
+    private int[] pixelSectorIndices = new int[DEFAULT_CAPACITY];
+    private int[] connectedness = new int[DEFAULT_CAPACITY];
+    private int[] parents = new int[DEFAULT_CAPACITY];
+    private int[] clusterIndices = new int[DEFAULT_CAPACITY];
+
+    // Per cluster state, indexed in the order clusters are discovered
+    private int[] clusterSizes = new int[DEFAULT_CAPACITY];
+    private int[] clusterMinX = new int[DEFAULT_CAPACITY];
+    private int[] clusterMinY = new int[DEFAULT_CAPACITY];
+    private int[] clusterMaxX = new int[DEFAULT_CAPACITY];
+    private int[] clusterMaxY = new int[DEFAULT_CAPACITY];
+    private int[] clusterConnectedness = new int[DEFAULT_CAPACITY];
+    private double[] clusterWeightedX = new double[DEFAULT_CAPACITY];
+    private double[] clusterWeightedY = new double[DEFAULT_CAPACITY];
+
     protected PixelClusterManager(int feedWidth, int feedHeight) {
-        this.feedWidth = feedWidth;
-        this.feedHeight = feedHeight;
+        updateFrameSize(feedWidth, feedHeight);
     }
 
     public void updateFrameSize(int feedWidth, int feedHeight) {
         this.feedWidth = feedWidth;
         this.feedHeight = feedHeight;
+
+        pixelBitmap = new int[feedWidth * feedHeight];
     }
 
-    private int preprocessClusterablePixels(Set<Pixel> clusterablePixels, Map<Pixel, Integer> pixelMapping) {
-        final Stack<Pixel> mustExamine = new Stack<>();
-        int numberOfRegions = -1;
+    private void ensureCapacity(int pixelCount) {
+        if (pixelCount <= pixelXs.length)
+            return;
+
+        final int capacity = Math.max(pixelCount, pixelXs.length * 2);
+
+        pixelXs = Arrays.copyOf(pixelXs, capacity);
+        pixelYs = Arrays.copyOf(pixelYs, capacity);
+        pixelSectors = Arrays.copyOf(pixelSectors, capacity);
+        pixelSectorIndices = Arrays.copyOf(pixelSectorIndices, capacity);
+        connectedness = Arrays.copyOf(connectedness, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        clusterIndices = Arrays.copyOf(clusterIndices, capacity);
+
+        clusterSizes = Arrays.copyOf(clusterSizes, capacity);
+        clusterMinX = Arrays.copyOf(clusterMinX, capacity);
+        clusterMinY = Arrays.copyOf(clusterMinY, capacity);
+        clusterMaxX = Arrays.copyOf(clusterMaxX, capacity);
+        clusterMaxY = Arrays.copyOf(clusterMaxY, capacity);
+        clusterConnectedness = Arrays.copyOf(clusterConnectedness, capacity);
+        clusterWeightedX = Arrays.copyOf(clusterWeightedX, capacity);
+        clusterWeightedY = Arrays.copyOf(clusterWeightedY, capacity);
+    }
+
+    private int find(int pixel) {
+        while (parents[pixel] != pixel) {
+            // Path halving
+            parents[pixel] = parents[parents[pixel]];
+            pixel = parents[pixel];
+        }
 
-        for (final Pixel pixel : clusterablePixels) {
-            if (!pixelMapping.containsKey(pixel)) {
-                numberOfRegions++;
-                mustExamine.add(pixel);
-                pixelMapping.put(pixel, numberOfRegions);
+        return pixel;
+    }
+
+    // The smaller index always becomes the root so that clusters are
+    // discovered in the same order as their first pixel
+    private void union(int a, int b) {
+        final int rootA = find(a);
+        final int rootB = find(b);
+
+        if (rootA < rootB)
+            parents[rootB] = rootA;
+        else if (rootB < rootA)
+            parents[rootA] = rootB;
+    }
+
+    private int loadPixels(ThresholdPixelBuffer[] sectorPixels) {
+        final int pixelCount = ThresholdPixelBuffer.totalSize(sectorPixels);
+
+        ensureCapacity(pixelCount);
+
+        int i = 0;
+        for (int sector = 0; sector < sectorPixels.length; sector++) {
+            final ThresholdPixelBuffer pixels = sectorPixels[sector];
+
+            for (int j = 0; j < pixels.size(); j++) {
+                pixelXs[i] = pixels.getX(j);
+                pixelYs[i] = pixels.getY(j);
+                pixelSectors[i] = sector;
+                pixelSectorIndices[i] = j;
+                parents[i] = i;
+
+                pixelBitmap[pixelYs[i] * feedWidth + pixelXs[i]] = i + 1;
+
+                i++;
             }
+        }
 
-            if (numberOfRegions > EXCESSIVE_PIXEL_REGION_COUNT && clusterablePixels.size() > EXCESSIVE_PIXEL_CUTOFF)
-                break;
+        return pixelCount;
+    }
+
+    private void labelPixels(int pixelCount) {
+        for (int i = 0; i < pixelCount; i++) {
+            final int x = pixelXs[i];
+            final int y = pixelYs[i];
+
+            int neighbors = 0;
 
-            while (!mustExamine.isEmpty()) {
-                final Pixel thisPoint = mustExamine.pop();
+            for (int h = -1; h <= 1; h++) {
+                final int ry = y + h;
 
-                int connectedness = 0;
+                if (ry < 0 || ry >= feedHeight)
+                    continue;
 
-                for (int h = -1; h <= 1; h++) {
-                    for (int w = -1; w <= 1; w++) {
-                        if (h == 0 && w == 0)
-                            continue;
+                for (int w = -1; w <= 1; w++) {
+                    if (h == 0 && w == 0)
+                        continue;
 
-                        final int rx = thisPoint.x + w;
-                        final int ry = thisPoint.y + h;
+                    final int rx = x + w;
 
-                        if (rx < 0 || ry < 0 || rx >= feedWidth || ry >= feedHeight)
-                            continue;
+                    if (rx < 0 || rx >= feedWidth)
+                        continue;
 
-                        final Pixel nearPoint = new Pixel(rx, ry);
-                        if (clusterablePixels.contains(nearPoint)) {
-                            if (!pixelMapping.containsKey(nearPoint)) {
-                                mustExamine.push(nearPoint);
-                                pixelMapping.put(nearPoint, numberOfRegions);
-                            }
+                    final int neighbor = pixelBitmap[ry * feedWidth + rx] - 1;
 
-                            connectedness++;
-                        }
+                    if (neighbor >= 0) {
+                        neighbors++;
+                        union(i, neighbor);
                     }
                 }
-
-                thisPoint.setConnectedness(connectedness);
             }
-        }
 
-        return numberOfRegions;
+            connectedness[i] = neighbors;
+        }
     }
 
-    public Set<PixelCluster> clusterPixels(Set<Pixel> clusterablePixels, int minimumShotDimension) {
-        final Map<Pixel, Integer> pixelMapping = new HashMap<>();
+    private int collectClusterStatistics(int pixelCount) {
+        int clusterCount = 0;
+
+        for (int i = 0; i < pixelCount; i++) {
+            final int root = find(i);
+
+            // Roots are always visited before the rest of their cluster
+            // because they have the smallest index
+            if (root == i) {
+                clusterIndices[i] = clusterCount;
+
+                clusterSizes[clusterCount] = 0;
+                clusterMinX[clusterCount] = feedWidth;
+                clusterMinY[clusterCount] = feedHeight;
+                clusterMaxX[clusterCount] = 0;
+                clusterMaxY[clusterCount] = 0;
+                clusterConnectedness[clusterCount] = 0;
+                clusterWeightedX[clusterCount] = 0;
+                clusterWeightedY[clusterCount] = 0;
+
+                clusterCount++;
+            } else {
+                clusterIndices[i] = clusterIndices[root];
+            }
 
-        final int numberOfRegions = preprocessClusterablePixels(clusterablePixels, pixelMapping);
+            final int cluster = clusterIndices[i];
+            final int x = pixelXs[i];
+            final int y = pixelYs[i];
 
-        final Set<PixelCluster> clusters = new HashSet<>();
+            clusterSizes[cluster]++;
 
-        for (int i = 0; i <= numberOfRegions; i++) {
-            final PixelCluster cluster = new PixelCluster();
+            if (x < clusterMinX[cluster])
+                clusterMinX[cluster] = x;
+            if (x > clusterMaxX[cluster])
+                clusterMaxX[cluster] = x;
+            if (y < clusterMinY[cluster])
+                clusterMinY[cluster] = y;
+            if (y > clusterMaxY[cluster])
+                clusterMaxY[cluster] = y;
 
-            double averageX = 0;
-            double averageY = 0;
+            clusterWeightedX[cluster] += x * connectedness[i];
+            clusterWeightedY[cluster] += y * connectedness[i];
+            clusterConnectedness[cluster] += connectedness[i];
+        }
 
-            int minX = feedWidth;
-            int minY = feedHeight;
-            int maxX = 0, maxY = 0;
+        return clusterCount;
+    }
 
-            double avgconnectedness = 0;
+    private void clearBitmap(int pixelCount) {
+        for (int i = 0; i < pixelCount; i++) {
+            pixelBitmap[pixelYs[i] * feedWidth + pixelXs[i]] = 0;
+        }
+    }
 
-            for (final Entry<Pixel, Integer> pixelEntry : pixelMapping.entrySet()) {
-                if (pixelEntry.getValue() == i) {
-                    final Pixel nextPixel = pixelEntry.getKey();
+    private PixelCluster buildCluster(ThresholdPixelBuffer[] sectorPixels, int pixelCount, int cluster) {
+        final PixelCluster pixelCluster = new PixelCluster();
 
-                    if (nextPixel.x < minX)
-                        minX = nextPixel.x;
-                    else if (nextPixel.x > maxX)
-                        maxX = nextPixel.x;
+        for (int i = 0; i < pixelCount; i++) {
+            if (clusterIndices[i] != cluster)
+                continue;
 
-                    if (nextPixel.y < minY)
-                        minY = nextPixel.y;
-                    else if (nextPixel.y > maxY)
-                        maxY = nextPixel.y;
+            final ThresholdPixelBuffer pixels = sectorPixels[pixelSectors[i]];
+            final int j = pixelSectorIndices[i];
 
-                    cluster.add(nextPixel);
+            final Pixel pixel = new Pixel(pixelXs[i], pixelYs[i], pixels.getColor(j), pixels.getCurrentLum(j),
+                    pixels.getLumAverage(j), pixels.getColorAverage(j));
+            pixel.setConnectedness(connectedness[i]);
 
-                    final int connectedness = nextPixel.getConnectedness();
+            pixelCluster.add(pixel);
+        }
 
-                    averageX += nextPixel.x * connectedness;
-                    averageY += nextPixel.y * connectedness;
+        return pixelCluster;
+    }
 
-                    avgconnectedness += connectedness;
-                }
-            }
+    /**
+     * Cluster all pixels recorded in <code>sectorPixels</code> and return the
+     * clusters that are shaped like a shot.
+     * 
+     * @param sectorPixels
+     *            the threshold pixels found in the current frame, one buffer
+     *            per sieve sector
+     * @param minimumShotDimension
+     *            the smallest number of pixels a cluster may have to be a shot
+     * @return the clusters that passed the connectedness, ratio, and density
+     *         filters
+     */
+    public Set<PixelCluster> clusterPixels(ThresholdPixelBuffer[] sectorPixels, int minimumShotDimension) {
+        final int pixelCount = loadPixels(sectorPixels);
+
+        final int numberOfRegions;
+        try {
+            labelPixels(pixelCount);
+            numberOfRegions = collectClusterStatistics(pixelCount);
+        } finally {
+            clearBitmap(pixelCount);
+        }
 
-            final int clustersize = cluster.size();
+        final Set<PixelCluster> clusters = new HashSet<>();
+
+        // With excessive pixels only the first regions are worth examining
+        final int examinedRegions = pixelCount > EXCESSIVE_PIXEL_CUTOFF
+                ? Math.min(numberOfRegions, EXCESSIVE_PIXEL_REGION_COUNT + 1) : numberOfRegions;
+
+        for (int i = 0; i < examinedRegions; i++) {
+            final int clustersize = clusterSizes[i];
 
             if (clustersize < minimumShotDimension)
                 continue;
 
-            averageX /= avgconnectedness;
-            averageY /= avgconnectedness;
+            final double averageX = clusterWeightedX[i] / clusterConnectedness[i];
+            final double averageY = clusterWeightedY[i] / clusterConnectedness[i];
 
-            avgconnectedness = avgconnectedness / clustersize;
+            final double avgconnectedness = (double) clusterConnectedness[i] / clustersize;
 
             // We scale up the minimum in a linear scale as the cluster size
             // increases. This is an approximate density
@@ -178,6 +331,11 @@ public class PixelClusterManager {
             if (avgconnectedness < scaled_minimum)
                 continue;
 
+            final int minX = clusterMinX[i];
+            final int minY = clusterMinY[i];
+            final int maxX = clusterMaxX[i];
+            final int maxY = clusterMaxY[i];
+
             final int shotWidth = (maxX - minX) + 1;
             final int shotHeight = (maxY - minY) + 1;
             final double shotRatio = (double) shotWidth / (double) shotHeight;
@@ -198,11 +356,14 @@ public class PixelClusterManager {
 
             if (logger.isTraceEnabled())
                 logger.trace("Cluster {}: density {} {} - {} {} - {}", i, shotWidth, shotHeight, circleArea,
-                        cluster.size(), density);
+                        clustersize, density);
 
             if (density < MINIMUM_DENSITY)
                 continue;
 
+            // Pixel objects are only created for clusters that look like shots
+            final PixelCluster cluster = buildCluster(sectorPixels, pixelCount, i);
+
             cluster.centerPixelX = averageX;
             cluster.centerPixelY = averageY;
 
@@ -210,7 +371,7 @@ public class PixelClusterManager {
         }
 
         if (logger.isTraceEnabled())
-            logger.trace("---- Detected {} shots from {} regions ------", clusters.size(), numberOfRegions + 1);
+            logger.trace("---- Detected {} shots from {} regions ------", clusters.size(), numberOfRegions);
 
         return clusters;
     }
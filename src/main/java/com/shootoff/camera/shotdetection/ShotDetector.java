@@ -73,6 +73,23 @@ public abstract class ShotDetector {
      *         preprocessing
      */
     public boolean addShot(ShotColor color, double x, double y, long timestamp, boolean scaleShot) {
+        return addShot(color, x, y, timestamp, scaleShot, true);
+    }
+
+    /**
+     * Add a shot that was not detected in the camera's feed, e.g. one from
+     * click-to-shoot. These shots are added on the JavaFX application thread,
+     * thus they are dropped instead of waiting when training exercises have
+     * fallen behind.
+     * 
+     * @see #addShot(ShotColor, double, double, long, boolean)
+     */
+    public boolean injectShot(ShotColor color, double x, double y, long timestamp, boolean scaleShot) {
+        return addShot(color, x, y, timestamp, scaleShot, false);
+    }
+
+    private boolean addShot(ShotColor color, double x, double y, long timestamp, boolean scaleShot,
+            boolean waitForDelivery) {
         if (!checkIgnoreColor(color))
             return false;
 
@@ -118,20 +135,22 @@ public abstract class ShotDetector {
         if (!checkDuplicate(dShot))
             return false;
 
-        submitShot(dShot);
+        submitShot(dShot, waitForDelivery);
 
         return true;
     }
 
-    protected void submitShot(final DisplayShot shot) {
+    protected void submitShot(final DisplayShot shot, final boolean waitForDelivery) {
         if (logger.isInfoEnabled())
             logger.info("Suspected shot accepted: Center ({}, {}), cl {} fr {}", shot.getX(), shot.getY(),
                     shot.getColor(), cameraManager.getFrameCount());
 
         // Notify of new shot on a non-shot detection thread because most
         // training exercises do shot processing on whatever thread submits
-        // the shot
-        new Thread(() -> cameraView.addShot(shot, false), "Shot Notifier").start();
+        // the shot. Shots are delivered in the order they were detected, which
+        // also lets a replay wait for its shots before it reports that it is
+        // done.
+        cameraManager.dispatchShot(cameraView, shot, waitForDelivery);
     }
 
     protected boolean checkDuplicate(final Shot shot) {
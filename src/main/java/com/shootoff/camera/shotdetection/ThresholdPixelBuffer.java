@@ -0,0 +1,150 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera.shotdetection;
+
+import java.util.Arrays;
+
+/**
+ * Records pixels found by the shot detection sieve in parallel primitive
+ * arrays instead of allocating a {@link Pixel} per candidate. Each sieve sector
+ * owns one buffer, so no locking is required while a frame is processed. The
+ * arrays only grow when a frame has more candidates than any frame before it,
+ * thus in steady state recording a pixel does not allocate.
+ *
+ * Coordinates are packed into a single int with x in the upper 16 bits and y
+ * in the lower 16 bits.
+ */
+final class ThresholdPixelBuffer {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] coordinates;
+    private int[] colors;
+    private int[] currentLums;
+    private int[] lumAverages;
+    private int[] colorAverages;
+
+    private int size = 0;
+
+    ThresholdPixelBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    ThresholdPixelBuffer(int initialCapacity) {
+        final int capacity = Math.max(initialCapacity, 1);
+
+        coordinates = new int[capacity];
+        colors = new int[capacity];
+        currentLums = new int[capacity];
+        lumAverages = new int[capacity];
+        colorAverages = new int[capacity];
+    }
+
+    static int pack(int x, int y) {
+        return (x << 16) | (y & 0xFFFF);
+    }
+
+    static int unpackX(int packed) {
+        return packed >>> 16;
+    }
+
+    static int unpackY(int packed) {
+        return packed & 0xFFFF;
+    }
+
+    void add(int x, int y) {
+        add(x, y, 0, 0, 0, 0);
+    }
+
+    void add(int x, int y, int color, int currentLum, int lumAverage, int colorAverage) {
+        if (size == coordinates.length)
+            grow();
+
+        coordinates[size] = pack(x, y);
+        colors[size] = color;
+        currentLums[size] = currentLum;
+        lumAverages[size] = lumAverage;
+        colorAverages[size] = colorAverage;
+
+        size++;
+    }
+
+    private void grow() {
+        final int capacity = coordinates.length * 2;
+
+        coordinates = Arrays.copyOf(coordinates, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        currentLums = Arrays.copyOf(currentLums, capacity);
+        lumAverages = Arrays.copyOf(lumAverages, capacity);
+        colorAverages = Arrays.copyOf(colorAverages, capacity);
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int getX(int index) {
+        return unpackX(coordinates[index]);
+    }
+
+    int getY(int index) {
+        return unpackY(coordinates[index]);
+    }
+
+    int getPackedCoordinates(int index) {
+        return coordinates[index];
+    }
+
+    int getColor(int index) {
+        return colors[index];
+    }
+
+    int getCurrentLum(int index) {
+        return currentLums[index];
+    }
+
+    int getLumAverage(int index) {
+        return lumAverages[index];
+    }
+
+    int getColorAverage(int index) {
+        return colorAverages[index];
+    }
+
+    /**
+     * @param buffers
+     *            per-sector buffers filled for the same frame
+     * @return the total number of pixels recorded across all of the buffers
+     */
+    static int totalSize(ThresholdPixelBuffer[] buffers) {
+        int total = 0;
+
+        for (final ThresholdPixelBuffer buffer : buffers)
+            total += buffer.size;
+
+        return total;
+    }
+}
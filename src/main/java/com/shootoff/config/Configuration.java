@@ -52,6 +52,7 @@ import com.shootoff.Main;
 import com.shootoff.camera.CameraFactory;
 import com.shootoff.camera.CameraManager;
 import com.shootoff.camera.cameratypes.Camera;
+import com.shootoff.camera.cameratypes.FrameArrivalSignal;
 import com.shootoff.camera.cameratypes.IpCamera;
 import com.shootoff.camera.processors.MalfunctionsProcessor;
 import com.shootoff.camera.processors.ShotProcessor;
@@ -87,6 +88,8 @@ public class Configuration {
     private static final String IPCAMS_PROP = "shootoff.ipcams";
     private static final String WEBCAMS_PROP = "shootoff.webcams";
     private static final String RECORDING_WEBCAMS_PROP = WEBCAMS_PROP + ".recording";
+    private static final String OPENCV_DETECTION_WEBCAMS_PROP = WEBCAMS_PROP + ".opencvdetection";
+    private static final String MAXIMUM_FRAME_LATENCY_PROP = WEBCAMS_PROP + ".maxframelatency";
     private static final String MARKER_RADIUS_PROP = "shootoff.markerradius";
     private static final String IGNORE_LASER_COLOR_PROP = "shootoff.ignorelasercolor";
     private static final String USE_RED_LASER_SOUND_PROP = "shootoff.redlasersound.use";
@@ -116,6 +119,8 @@ public class Configuration {
     protected static final String LASER_SOUND_MESSAGE = "LASER_SOUND has an invalid value: %s. Sound file must exist.";
     protected static final String VIRTUAL_MAGAZINE_MESSAGE = "VIRTUAL_MAGAZINE has an invalid value: %d. Acceptable values are "
             + "between 1 and 45.";
+    protected static final String MAXIMUM_FRAME_LATENCY_MESSAGE = "MAXIMUM_FRAME_LATENCY has an invalid value: %d. Acceptable values are "
+            + "between 1 and 1000.";
     protected static final String INJECT_MALFUNCTIONS_MESSAGE = "INJECT_MALFUNCTIONS has an invalid value: %f. Acceptable values are "
             + "between 0.1 and 99.9.";
 
@@ -146,6 +151,8 @@ public class Configuration {
     private boolean debugMode = false;
     private boolean headless = false;
     private Set<Camera> recordingCameras = new HashSet<>();
+    private Set<String> openCVDetectionCameras = new HashSet<>();
+    private int maximumFrameLatency = FrameArrivalSignal.DEFAULT_MAXIMUM_LATENCY;
     private final Set<CameraManager> recordingManagers = new HashSet<>();
     private final Set<VideoPlayerController> videoPlayers = new HashSet<>();
     private Optional<SessionRecorder> sessionRecorder = Optional.empty();
@@ -318,6 +325,19 @@ public class Configuration {
         }
         setRecordingCameras(recordingCameras);
 
+        final Set<String> openCVDetectionCameras = new HashSet<>();
+        if (prop.containsKey(OPENCV_DETECTION_WEBCAMS_PROP)) {
+            for (final String nameString : prop.getProperty(OPENCV_DETECTION_WEBCAMS_PROP).split(",")) {
+                if (!nameString.isEmpty())
+                    openCVDetectionCameras.add(nameString.replaceAll("//`", ","));
+            }
+        }
+        setOpenCVDetectionCameras(openCVDetectionCameras);
+
+        if (prop.containsKey(MAXIMUM_FRAME_LATENCY_PROP)) {
+            setMaximumFrameLatency(Integer.parseInt(prop.getProperty(MAXIMUM_FRAME_LATENCY_PROP)));
+        }
+
         if (prop.containsKey(MARKER_RADIUS_PROP)) {
             setMarkerRadius(Integer.parseInt(prop.getProperty(MARKER_RADIUS_PROP)));
         }
@@ -459,6 +479,13 @@ public class Configuration {
             recordingWebcamList.append(c.getName());
         }
 
+        final StringBuilder openCVDetectionWebcamList = new StringBuilder();
+        for (final String name : openCVDetectionCameras) {
+            if (openCVDetectionWebcamList.length() > 0)
+                openCVDetectionWebcamList.append(",");
+            openCVDetectionWebcamList.append(name.replaceAll(",", "//`"));
+        }
+
         final StringBuilder mutedChimeMessages = new StringBuilder();
         for (final String m : messagesChimeMuted) {
             if (mutedChimeMessages.length() > 0)
@@ -480,6 +507,8 @@ public class Configuration {
         prop.setProperty(IPCAMS_PROP, ipcamList.toString());
         prop.setProperty(WEBCAMS_PROP, webcamList.toString());
         prop.setProperty(RECORDING_WEBCAMS_PROP, recordingWebcamList.toString());
+        prop.setProperty(OPENCV_DETECTION_WEBCAMS_PROP, openCVDetectionWebcamList.toString());
+        prop.setProperty(MAXIMUM_FRAME_LATENCY_PROP, String.valueOf(maximumFrameLatency));
         prop.setProperty(MARKER_RADIUS_PROP, String.valueOf(markerRadius));
         prop.setProperty(IGNORE_LASER_COLOR_PROP, ignoreLaserColorName);
         prop.setProperty(USE_RED_LASER_SOUND_PROP, String.valueOf(useRedLaserSound));
@@ -599,6 +628,10 @@ public class Configuration {
             throw new ConfigurationException(String.format(LASER_COLOR_MESSAGE, ignoreLaserColorName));
         }
 
+        if (maximumFrameLatency < 1 || maximumFrameLatency > 1000) {
+            throw new ConfigurationException(String.format(MAXIMUM_FRAME_LATENCY_MESSAGE, maximumFrameLatency));
+        }
+
         if (virtualMagazineCapacity < 1 || virtualMagazineCapacity > 45) {
             throw new ConfigurationException(String.format(VIRTUAL_MAGAZINE_MESSAGE, virtualMagazineCapacity));
         }
@@ -840,6 +873,26 @@ public class Configuration {
         recordingCameras = recordingCameras2;
     }
 
+    /**
+     * @param cameraNames
+     *            the names of the cameras (as returned by
+     *            {@link Camera#getName()}) that should detect shots with
+     *            {@link com.shootoff.camera.shotdetection.OpenCVShotDetector}
+     *            instead of their preferred detector
+     */
+    public void setOpenCVDetectionCameras(Set<String> cameraNames) {
+        openCVDetectionCameras = cameraNames;
+    }
+
+    /**
+     * @param maximumFrameLatency
+     *            the longest time, in milliseconds, a camera that has to be
+     *            polled waits before checking for a new frame
+     */
+    public void setMaximumFrameLatency(int maximumFrameLatency) {
+        this.maximumFrameLatency = maximumFrameLatency;
+    }
+
     public void setShotTimerRowColor(Color c) {
         shotRowColor = Optional.ofNullable(c);
     }
@@ -868,6 +921,18 @@ public class Configuration {
         return recordingCameras;
     }
 
+    public Set<String> getOpenCVDetectionCameras() {
+        return openCVDetectionCameras;
+    }
+
+    public boolean useOpenCVDetection(String cameraName) {
+        return openCVDetectionCameras.contains(cameraName);
+    }
+
+    public int getMaximumFrameLatency() {
+        return maximumFrameLatency;
+    }
+
     public void registerRecordingCameraManager(CameraManager cm) {
         recordingManagers.add(cm);
     }
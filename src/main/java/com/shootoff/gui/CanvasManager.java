@@ -28,7 +28,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -36,13 +35,18 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.shootoff.camera.CameraManager;
 import com.shootoff.camera.CameraView;
 import com.shootoff.camera.Shot;
+import com.shootoff.camera.pipeline.PreviewRateGovernor;
 import com.shootoff.camera.processors.MalfunctionsProcessor;
 import com.shootoff.camera.processors.ShotProcessor;
 import com.shootoff.camera.processors.VirtualMagazineProcessor;
@@ -64,9 +68,11 @@ import com.shootoff.targets.Target;
 import com.shootoff.targets.TargetRegion;
 import com.shootoff.targets.io.TargetIO;
 import com.shootoff.targets.io.TargetIO.TargetComponents;
+import com.shootoff.util.SpatialGrid;
 import com.shootoff.util.SwingFXUtils;
 
 import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.ObservableList;
 import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
@@ -81,6 +87,8 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ProgressIndicator;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
@@ -108,6 +116,12 @@ public class CanvasManager implements CameraView {
     private final List<DisplayShot> shots = Collections.synchronizedList(new ArrayList<DisplayShot>());
     private final List<Target> targets = new ArrayList<>();
 
+    // Targets by their bounds on the canvas so that a shot is only tested
+    // against the targets near it
+    private static final double TARGET_INDEX_CELL_SIZE = 64;
+    private final SpatialGrid<Target> targetIndex = new SpatialGrid<>(TARGET_INDEX_CELL_SIZE);
+    private final Map<Target, ChangeListener<Bounds>> targetBoundsListeners = new HashMap<>();
+
     private ProgressIndicator progress;
     private Optional<ContextMenu> contextMenu = Optional.empty();
     private Optional<TargetView> selectedTarget = Optional.empty();
@@ -115,10 +129,18 @@ public class CanvasManager implements CameraView {
     private boolean hadMalfunction = false;
     private boolean hadReload = false;
 
-    private static final int MAX_FEED_FPS = 15;
-    private static final int MINIMUM_FRAME_DELTA = 1000 / MAX_FEED_FPS; // ms
+    private final PreviewRateGovernor previewRateGovernor = PreviewRateGovernor.getDefault();
     private long lastFrameTime = 0;
 
+    // Reused by updateBackground(Mat, Optional<Bounds>) for every frame. The
+    // frame is scaled and converted into backgroundPixels on the camera's
+    // thread, then copied into backgroundImage on the FX thread.
+    private Mat resizedFrame = null;
+    private Mat bgraFrame = null;
+    private byte[] backgroundPixels = null;
+    private WritableImage backgroundImage = null;
+    private final AtomicBoolean backgroundUpdatePending = new AtomicBoolean(false);
+
     protected Optional<ProjectorArenaPane> arenaPane = Optional.empty();
     private Optional<Bounds> projectionBounds = Optional.empty();
 
@@ -312,8 +334,9 @@ public class CanvasManager implements CameraView {
         // Prevent the webcam feed from being refreshed faster than some maximum
         // FPS otherwise we waste CPU cycles converting a frames to show the
         // user and these are cycles we could spend detecting shots. A lower
-        // FPS (e.g. ~15) looks perfect fine to a person
-        if (System.currentTimeMillis() - lastFrameTime < MINIMUM_FRAME_DELTA)
+        // FPS (e.g. ~15) looks perfect fine to a person. The governor lowers
+        // the maximum further while shot detection is falling behind.
+        if (System.currentTimeMillis() - lastFrameTime < previewRateGovernor.getMinimumFrameDelta())
             return;
         else
             lastFrameTime = System.currentTimeMillis();
@@ -336,6 +359,104 @@ public class CanvasManager implements CameraView {
         Platform.runLater(() -> background.setImage(img));
     }
 
+    @Override
+    public void updateBackground(Mat frame, Optional<Bounds> projectionBounds) {
+        updateCanvasGroup();
+
+        if (frame == null) {
+            background.setX(0);
+            background.setY(0);
+            background.setImage(null);
+            return;
+        }
+
+        // See updateBackground(BufferedImage, Optional<Bounds>)
+        if (System.currentTimeMillis() - lastFrameTime < previewRateGovernor.getMinimumFrameDelta())
+            return;
+
+        // Skip frames while the FX thread has not yet shown the previous one,
+        // otherwise we would overwrite the pixels it is copying
+        if (!backgroundUpdatePending.compareAndSet(false, true))
+            return;
+
+        lastFrameTime = System.currentTimeMillis();
+
+        final int width;
+        final int height;
+        if (projectionBounds.isPresent()) {
+            final Bounds translatedBounds = translateCameraToCanvas(projectionBounds.get());
+            background.setX(translatedBounds.getMinX());
+            background.setY(translatedBounds.getMinY());
+
+            width = (int) translatedBounds.getWidth();
+            height = (int) translatedBounds.getHeight();
+        } else {
+            background.setX(0);
+            background.setY(0);
+
+            width = config.getDisplayWidth();
+            height = config.getDisplayHeight();
+        }
+
+        try {
+            copyBackgroundPixels(frame, width, height);
+        } catch (final RuntimeException e) {
+            backgroundUpdatePending.set(false);
+            throw e;
+        }
+
+        final byte[] pixels = backgroundPixels;
+
+        Platform.runLater(() -> {
+            try {
+                if (backgroundImage == null || (int) backgroundImage.getWidth() != width
+                        || (int) backgroundImage.getHeight() != height) {
+                    backgroundImage = new WritableImage(width, height);
+                }
+
+                // Every pixel is opaque, thus the premultiplied format is exact
+                // and is what JavaFX stores images as internally
+                backgroundImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getByteBgraPreInstance(),
+                        pixels, 0, width * 4);
+
+                if (background.getImage() != backgroundImage)
+                    background.setImage(backgroundImage);
+            } finally {
+                backgroundUpdatePending.set(false);
+            }
+        });
+    }
+
+    private void copyBackgroundPixels(Mat frame, int width, int height) {
+        if (resizedFrame == null) {
+            resizedFrame = new Mat();
+            bgraFrame = new Mat();
+        }
+
+        backgroundPixels = copyBGRAPixels(frame, resizedFrame, bgraFrame, backgroundPixels, width, height);
+    }
+
+    // Scale frame with OpenCV and copy it as BGRA into pixels, which is
+    // replaced if it is the wrong size, package visible for the benchmarks
+    static byte[] copyBGRAPixels(Mat frame, Mat resizedFrame, Mat bgraFrame, byte[] pixels, int width, int height) {
+        Mat scaledFrame = frame;
+
+        if (frame.cols() != width || frame.rows() != height) {
+            Imgproc.resize(frame, resizedFrame, new Size(width, height), 0, 0, Imgproc.INTER_LINEAR);
+            scaledFrame = resizedFrame;
+        }
+
+        Imgproc.cvtColor(scaledFrame, bgraFrame, Imgproc.COLOR_BGR2BGRA);
+
+        final int length = width * height * 4;
+        if (pixels == null || pixels.length != length)
+            pixels = new byte[length];
+
+        bgraFrame.get(0, 0, pixels);
+
+        return pixels;
+    }
+
     public void updateBackground(Image img) {
         updateCanvasGroup();
         background.setX(0);
@@ -355,17 +476,29 @@ public class CanvasManager implements CameraView {
         }
     }
 
+    // Only used by updateBackground, which converts the resized image to an
+    // FX image before returning, thus the same image can be drawn into for
+    // every frame
+    private BufferedImage resizeBuffer = null;
+
     private BufferedImage resize(BufferedImage source, int width, int height) {
         if (source.getWidth() == width && source.getHeight() == height)
             return source;
 
-        final BufferedImage tmp = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        final Graphics2D g2 = tmp.createGraphics();
+        if (resizeBuffer == null || resizeBuffer.getWidth() != width || resizeBuffer.getHeight() != height)
+            resizeBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        resize(source, resizeBuffer);
+
+        return resizeBuffer;
+    }
+
+    // Scale source to fill target, package visible for the benchmarks
+    static void resize(BufferedImage source, BufferedImage target) {
+        final Graphics2D g2 = target.createGraphics();
         g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2.drawImage(source, 0, 0, width, height, null);
+        g2.drawImage(source, 0, 0, target.getWidth(), target.getHeight(), null);
         g2.dispose();
-
-        return tmp;
     }
 
     public BufferedImage getBufferedImage() {
@@ -521,6 +654,13 @@ public class CanvasManager implements CameraView {
                 sb.append(r.getCameraName().replaceAll(":", "-"));
                 sb.append(":");
                 sb.append(r.getRelativeVideoFile().getPath());
+
+                // Shots fired in quick succession share a video
+                final Optional<Long> offset = r.getShotOffset(shot);
+                if (offset.isPresent()) {
+                    sb.append(":");
+                    sb.append(offset.get());
+                }
             }
 
             return Optional.of(sb.toString());
@@ -721,18 +861,24 @@ public class CanvasManager implements CameraView {
     }
 
     protected Optional<Hit> checkHit(DisplayShot shot, Optional<String> videoString, boolean isMirroredShot) {
+        final double x;
+        final double y;
+        if (shot instanceof ArenaShot) {
+            x = ((ArenaShot) shot).getX();
+            y = ((ArenaShot) shot).getY();
+        } else {
+            x = shot.getX();
+            y = shot.getY();
+        }
+
         // Targets are in order of when they were added, thus we must search in
         // reverse to ensure shots register for the top target when targets
         // overlap
-        for (final ListIterator<Target> li = targets.listIterator(targets.size()); li.hasPrevious();) {
-            final Target target = li.previous();
+        final List<Target> candidates = targetIndex.getCandidates(x, y);
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            final Target target = candidates.get(i);
 
-            final Optional<Hit> hit;
-            if (shot instanceof ArenaShot) {
-                hit = target.isHit(((ArenaShot) shot).getX(), ((ArenaShot) shot).getY());
-            } else {
-                hit = target.isHit(shot.getX(), shot.getY());
-            }
+            final Optional<Hit> hit = target.isHit(x, y);
 
             if (hit.isPresent()) {
                 hit.get().setShot(shot);
@@ -894,6 +1040,7 @@ public class CanvasManager implements CameraView {
         }
 
         targets.add(newTarget);
+        indexTarget(newTarget);
 
         // If this is a mirrored canvas, only alert exercises of target updates
         // from the arena window, not the tab. There is no arena tab if we are
@@ -925,6 +1072,7 @@ public class CanvasManager implements CameraView {
         }
 
         targets.remove(target);
+        unindexTarget(target);
 
         // If this is a mirrored canvas, only alert exercises of target updates
         // from the arena window, not the tab. There is no arena tab if we are
@@ -939,6 +1087,29 @@ public class CanvasManager implements CameraView {
         }
     }
 
+    // Keeps the target's place in the index as it is moved, resized, or
+    // animated
+    private void indexTarget(Target target) {
+        final Group targetGroup = ((TargetView) target).getTargetGroup();
+        final ChangeListener<Bounds> boundsListener = (observable, oldBounds, newBounds) -> targetIndex.put(target,
+                newBounds.getMinX(), newBounds.getMinY(), newBounds.getMaxX(), newBounds.getMaxY());
+
+        targetBoundsListeners.put(target, boundsListener);
+        targetGroup.boundsInParentProperty().addListener(boundsListener);
+
+        final Bounds bounds = targetGroup.getBoundsInParent();
+        targetIndex.put(target, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+    }
+
+    private void unindexTarget(Target target) {
+        final ChangeListener<Bounds> boundsListener = targetBoundsListeners.remove(target);
+
+        if (boundsListener != null)
+            ((TargetView) target).getTargetGroup().boundsInParentProperty().removeListener(boundsListener);
+
+        targetIndex.remove(target);
+    }
+
     public void clearTargets() {
         for (final Target t : new ArrayList<>(targets)) {
             removeTarget(t);
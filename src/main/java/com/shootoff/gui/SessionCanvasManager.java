@@ -110,7 +110,7 @@ public class SessionCanvasManager {
                     final Stage videoPlayerStage = new Stage();
 
                     final VideoPlayerController controller = (VideoPlayerController) loader.getController();
-                    controller.init(se.getVideos());
+                    controller.init(se.getVideos(), se.getVideoOffsets());
 
                     videoPlayerStage.setTitle("Video Player");
                     videoPlayerStage.setScene(new Scene(loader.getRoot()));
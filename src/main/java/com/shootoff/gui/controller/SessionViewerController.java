@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -43,6 +44,8 @@ import com.shootoff.session.Event;
 import com.shootoff.session.SessionRecorder;
 import com.shootoff.session.ShotEvent;
 import com.shootoff.session.io.SessionIO;
+import com.shootoff.session.io.SessionIndex;
+import com.shootoff.session.io.SessionSummary;
 import com.shootoff.util.NamedThreadFactory;
 
 import javafx.application.Platform;
@@ -68,13 +71,12 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
-import marytts.util.io.FileFilter;
 
 public class SessionViewerController {
     @FXML
     private HBox sessionViewerPane;
     @FXML
-    private ListView<File> sessionListView;
+    private ListView<SessionSummary> sessionListView;
     @FXML
     private TabPane cameraTabPane;
     @FXML
@@ -91,8 +93,8 @@ public class SessionViewerController {
 
     private final Logger logger = LoggerFactory.getLogger(SessionViewerController.class);
     private ScheduledExecutorService executorService;
-    private final ObservableList<File> sessionEntries = FXCollections.observableArrayList();
-    private final ObservableList<Event> eventEntries = FXCollections.observableArrayList();
+    private final ObservableList<SessionSummary> sessionEntries = FXCollections.observableArrayList();
+    private ObservableList<Event> eventEntries = FXCollections.observableArrayList();
     private final Map<String, SessionCanvasManager> cameraGroups = new HashMap<>();
     private final Map<Tab, Integer> eventSelectionsPerTab = new HashMap<>();
 
@@ -105,21 +107,25 @@ public class SessionViewerController {
 
     public void init(Configuration config) {
         this.config = config;
-        sessionEntries.addAll(findSessions());
         sessionListView.setItems(sessionEntries);
+        indexSessions();
 
         togglePlaybackButton.setGraphic(new ImageView(
                 new Image(VideoPlayerController.class.getResourceAsStream("/images/gnome_media_playback_start.png"))));
 
-        sessionListView.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<File>() {
+        sessionListView.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<SessionSummary>() {
             @Override
-            public void changed(ObservableValue<? extends File> ov, File oldFile, File newFile) {
+            public void changed(ObservableValue<? extends SessionSummary> ov, SessionSummary oldSession,
+                    SessionSummary newSession) {
+                if (newSession == null)
+                    return;
+
                 if (isPlaying)
                     togglePlaybackButton.fire();
 
-                final Optional<SessionRecorder> session = SessionIO
-                        .loadSession(new File(System.getProperty("shootoff.home") + File.separator + "sessions"
-                                + File.separator + newFile.getName()));
+                // Only the selected session is loaded, the list is built from
+                // the session index
+                final Optional<SessionRecorder> session = SessionIO.loadSession(newSession.getSessionFile());
 
                 if (session.isPresent()) {
                     refreshFromSlider = false;
@@ -135,7 +141,7 @@ public class SessionViewerController {
                         final String cameraName = selectedTab.getText();
                         listCameraEvents(cameraName);
                     } else {
-                        eventEntries.clear();
+                        setEventEntries(new ArrayList<>());
                     }
                 }
             }
@@ -168,12 +174,16 @@ public class SessionViewerController {
             }
         });
 
-        eventsListView.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Event>() {
+        // Works with indexes because events from a binary session are only
+        // decoded when they are first shown
+        eventsListView.getSelectionModel().selectedIndexProperty().addListener(new ChangeListener<Number>() {
             @Override
-            public void changed(ObservableValue<? extends Event> oe, Event oldEvent, Event newEvent) {
-                if (newEvent == null)
+            public void changed(ObservableValue<? extends Number> oi, Number oldValue, Number newValue) {
+                if (newValue == null || newValue.intValue() < 0)
                     return;
 
+                final Event newEvent = eventEntries.get(newValue.intValue());
+
                 refreshFromSlider = false;
                 if (!isPlaying)
                     timeSlider.setValue(newEvent.getTimestamp());
@@ -182,8 +192,8 @@ public class SessionViewerController {
                 if (!refreshFromSelection)
                     return;
 
-                final int oldIndex = eventEntries.indexOf(oldEvent);
-                final int newIndex = eventEntries.indexOf(newEvent);
+                final int oldIndex = oldValue == null ? -1 : oldValue.intValue();
+                final int newIndex = newValue.intValue();
 
                 if (oldIndex <= newIndex) {
                     updateEvents(oldIndex, newIndex, EventsUpdate.DO);
@@ -215,7 +225,7 @@ public class SessionViewerController {
                 final Stage videoPlayerStage = new Stage();
 
                 final VideoPlayerController controller = (VideoPlayerController) loader.getController();
-                controller.init(se.getVideos());
+                controller.init(se.getVideos(), se.getVideoOffsets());
 
                 videoPlayerStage.setTitle("Video Player");
                 videoPlayerStage.setScene(new Scene(loader.getRoot()));
@@ -248,15 +258,9 @@ public class SessionViewerController {
                 if (!refreshFromSlider)
                     return;
 
-                final List<Event> reversedEntries = new ArrayList<>(eventEntries);
-                Collections.reverse(reversedEntries);
-
-                for (final Event e : reversedEntries) {
-                    if (e.getTimestamp() <= newValue.longValue()) {
-                        eventsListView.getSelectionModel().select(e);
-                        break;
-                    }
-                }
+                final int eventIndex = SessionRecorder.findEvent(eventEntries, newValue.longValue());
+                if (eventIndex >= 0)
+                    eventsListView.getSelectionModel().select(eventIndex);
             }
         });
     }
@@ -267,27 +271,34 @@ public class SessionViewerController {
         timeLabel.setText(formatter.format(date));
     }
 
-    private List<File> findSessions() {
+    // Fills the session list from the session index in the background, a
+    // page at a time so that the first sessions show up straight away
+    private void indexSessions() {
         final File sessionsFolder = new File(System.getProperty("shootoff.sessions"));
-        final List<File> sessions = new ArrayList<>();
 
         if (!sessionsFolder.exists()) {
             logger.debug("No sessions folder available");
-            return sessions;
+            return;
         }
 
-        final File[] sessionFiles = sessionsFolder.listFiles(new FileFilter("xml"));
+        final SessionIndex sessionIndex = new SessionIndex(sessionsFolder);
+        final ExecutorService indexExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("SessionIndex"));
 
-        if (sessionFiles != null) {
-            for (final File file : sessionFiles) {
-                sessions.add(new File(file.getName()));
-            }
-        } else {
-            logger.error("Failed to find session files because a list of files could not be retrieved: "
-                    + "sessionsFolder = {}", sessionsFolder.getPath());
-        }
+        indexExecutor.execute(() -> {
+            sessionIndex.update((page) -> {
+                final List<SessionSummary> summaries = new ArrayList<>(page);
+                Platform.runLater(() -> addSessionEntries(summaries));
+            });
+        });
+
+        indexExecutor.shutdown();
+    }
 
-        return sessions;
+    private void addSessionEntries(List<SessionSummary> summaries) {
+        for (final SessionSummary summary : summaries) {
+            final int index = Collections.binarySearch(sessionEntries, summary, SessionSummary.NEWEST_FIRST);
+            sessionEntries.add(index < 0 ? -index - 1 : index, summary);
+        }
     }
 
     private void updateCameraTabs() {
@@ -310,8 +321,14 @@ public class SessionViewerController {
     }
 
     private void listCameraEvents(String cameraName) {
-        eventEntries.clear();
-        eventEntries.addAll(currentSession.getCameraEvents(cameraName));
+        setEventEntries(currentSession.getCameraEvents(cameraName));
+    }
+
+    // Shows the session's list instead of a copy so that only the events that
+    // are looked at are read from a binary session
+    private void setEventEntries(List<Event> cameraEvents) {
+        eventEntries = FXCollections.observableList(cameraEvents);
+        eventsListView.setItems(eventEntries);
     }
 
     private enum EventsUpdate {
@@ -22,6 +22,7 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -70,11 +71,24 @@ public class VideoPlayerController implements PlaybackListener {
     private PlaybackContext currentContext;
 
     public void init(Map<String, File> videos) {
+        init(videos, Collections.emptyMap());
+    }
+
+    /**
+     * @param videos
+     *            the video to show for each camera, by camera name
+     * @param offsets
+     *            how many milliseconds into each camera's video to start,
+     *            e.g. where a shot was fired in a video holding several shots.
+     *            Videos without an offset start at the beginning.
+     */
+    public void init(Map<String, File> videos, Map<String, Long> offsets) {
         togglePlaybackButton.setGraphic(new ImageView(
                 new Image(VideoPlayerController.class.getResourceAsStream("/images/gnome_media_playback_start.png"))));
-        createTabs(videos);
+        createTabs(videos, offsets);
         currentContext = contexts.get(videoTabPane.getSelectionModel().getSelectedItem().getText());
         timeSlider.setMax(currentContext.getDuration());
+        timeSlider.setValue(currentContext.getTimestamp());
 
         timeSlider.valueProperty().addListener(new ChangeListener<Number>() {
             @Override
@@ -120,6 +134,7 @@ public class VideoPlayerController implements PlaybackListener {
     }
 
     private static class PlaybackContext extends MediaListenerAdapter {
+        private final IContainer container;
         private final IMediaReader mediaReader;
         private final PlaybackListener listener;
         private final long duration;
@@ -127,17 +142,41 @@ public class VideoPlayerController implements PlaybackListener {
         private final ImageView imageView = new ImageView();
         private boolean doDelay = true;
         private long lastTimestamp = 0;
+        private long skipUntil = 0;
 
-        public PlaybackContext(File videoFile, PlaybackListener listener) {
+        public PlaybackContext(File videoFile, long offset, PlaybackListener listener) {
             this.listener = listener;
 
-            mediaReader = ToolFactory.makeReader(videoFile.getPath());
+            // The reader only opens a container it creates itself on the first
+            // read, so open it here to be able to seek before reading
+            container = IContainer.make();
+            if (container.open(videoFile.getPath(), IContainer.Type.READ, null) < 0)
+                logger.error("Failed to open video {}", videoFile.getPath());
+
+            mediaReader = ToolFactory.makeReader(container);
             mediaReader.setBufferedImageTypeToGenerate(BufferedImage.TYPE_3BYTE_BGR);
-            mediaReader.open();
-            duration = mediaReader.getContainer().getDuration() / 1000; // microseconds
-            // to
-            // milliseconds
+            duration = container.getDuration() / 1000; // microseconds to milliseconds
             mediaReader.addListener(this);
+
+            if (offset > 0)
+                seek(offset);
+        }
+
+        // Jump to the last key frame before the timestamp and decode, without
+        // showing, the frames between it and the timestamp
+        private void seek(long timestamp /* ms */) {
+            if (container.seekKeyFrame(-1, 0, timestamp * 1000, timestamp * 1000,
+                    IContainer.SEEK_FLAG_BACKWARDS) < 0) {
+                logger.warn("Failed to seek to {} ms in video", timestamp);
+                return;
+            }
+
+            skipUntil = timestamp;
+            doDelay = false;
+            while (lastTimestamp < timestamp && mediaReader.readPacket() == null)
+                ;
+            doDelay = true;
+            skipUntil = 0;
         }
 
         public long getDuration() {
@@ -152,6 +191,11 @@ public class VideoPlayerController implements PlaybackListener {
         public void onVideoPicture(IVideoPictureEvent event) {
             final long currentTimestamp = event.getTimeStamp(TimeUnit.MILLISECONDS);
 
+            if (currentTimestamp < skipUntil) {
+                lastTimestamp = currentTimestamp;
+                return;
+            }
+
             if (doDelay) {
                 try {
                     final long delay = currentTimestamp - lastTimestamp;
@@ -185,8 +229,7 @@ public class VideoPlayerController implements PlaybackListener {
 
         private void playFromBeginning() {
             lastTimestamp = 0;
-            mediaReader.open();
-            mediaReader.getContainer().seekKeyFrame(0, 0, 0, 0, IContainer.SEEK_FLAG_ANY);
+            container.seekKeyFrame(0, 0, 0, 0, IContainer.SEEK_FLAG_ANY);
             playVideo();
         }
 
@@ -221,12 +264,13 @@ public class VideoPlayerController implements PlaybackListener {
         }
     }
 
-    private void createTabs(Map<String, File> videos) {
+    private void createTabs(Map<String, File> videos, Map<String, Long> offsets) {
         for (final Entry<String, File> video : videos.entrySet()) {
             final Tab videoTab = new Tab(video.getKey());
             videoTabPane.getTabs().add(videoTab);
 
-            final PlaybackContext context = new PlaybackContext(video.getValue(), this);
+            final long offset = offsets.containsKey(video.getKey()) ? offsets.get(video.getKey()) : 0;
+            final PlaybackContext context = new PlaybackContext(video.getValue(), offset, this);
             videoTab.setContent(context.getImageView());
             contexts.put(video.getKey(), context);
         }
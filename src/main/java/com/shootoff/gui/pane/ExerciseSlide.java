@@ -37,7 +37,9 @@ import com.shootoff.plugins.ProjectorTrainingExerciseBase;
 import com.shootoff.plugins.TrainingExercise;
 import com.shootoff.plugins.engine.PluginListener;
 import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.io.BinarySessionReader;
 import com.shootoff.session.io.SessionIO;
+import com.shootoff.session.io.SessionJournal;
 import com.shootoff.targets.Hit;
 import com.shootoff.targets.Target;
 
@@ -226,7 +228,18 @@ public class ExerciseSlide extends Slide implements PluginListener, ItemSelectio
     }
 
     private void startRecordingSession() {
-        config.setSessionRecorder(new SessionRecorder());
+        final SessionRecorder sessionRecorder = new SessionRecorder();
+
+        // Keeps the session if ShootOFF crashes before it is saved
+        final File journalFile = new File(System.getProperty("shootoff.sessions"),
+                sessionRecorder.getSessionName() + SessionJournal.EXTENSION);
+        try {
+            sessionRecorder.setJournal(new SessionJournal(journalFile));
+        } catch (final IOException e) {
+            logger.error("Failed to open session journal, the session will be kept in memory until it is saved", e);
+        }
+
+        config.setSessionRecorder(sessionRecorder);
 
         for (final CameraManager cm : config.getRecordingManagers()) {
             cm.startRecordingShots();
@@ -238,8 +251,14 @@ public class ExerciseSlide extends Slide implements PluginListener, ItemSelectio
             cm.stopRecordingShots();
         }
 
-        SessionIO.saveSession(config.getSessionRecorder().get(), new File(System.getProperty("shootoff.home")
-                + File.separator + "sessions/" + config.getSessionRecorder().get().getSessionName() + ".xml"));
+        final SessionRecorder sessionRecorder = config.getSessionRecorder().get();
+        final File sessionFile = new File(System.getProperty("shootoff.home") + File.separator + "sessions/"
+                + sessionRecorder.getSessionName() + BinarySessionReader.EXTENSION);
+        final boolean saved = SessionIO.saveSession(sessionRecorder, sessionFile);
+
+        // The journal is only needed until the session is saved, thus it is
+        // kept to recover the session from if saving failed
+        sessionRecorder.closeJournal(saved);
 
         config.setSessionRecorder(null);
     }
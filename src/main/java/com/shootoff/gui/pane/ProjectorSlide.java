@@ -18,6 +18,7 @@
 
 package com.shootoff.gui.pane;
 
+import java.awt.image.BufferedImage;
 import java.util.Optional;
 
 import com.shootoff.camera.CameraManager;
@@ -184,7 +185,7 @@ public class ProjectorSlide extends Slide implements CalibrationConfigurator {
 
         projectorCanvasManager.setMirroredManager(tabCanvasManager);
         tabCanvasManager.setMirroredManager(projectorCanvasManager);
-        projectorCanvasManager.updateBackground(null, Optional.empty());
+        projectorCanvasManager.updateBackground((BufferedImage) null, Optional.empty());
         // This camera manager must be set to enable click-to-shoot for
         // the arena tab
         tabCanvasManager.setCameraManager(calibratingCameraManager);
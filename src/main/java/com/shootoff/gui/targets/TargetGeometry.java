@@ -0,0 +1,250 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.gui.targets;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import com.shootoff.targets.AlphaMask;
+import com.shootoff.targets.Hit;
+import com.shootoff.targets.ImageRegion;
+import com.shootoff.targets.RegionType;
+import com.shootoff.targets.Target;
+import com.shootoff.targets.TargetRegion;
+import com.shootoff.util.SpatialGrid;
+
+import javafx.collections.ObservableList;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Transform;
+
+/**
+ * An immutable copy of everything needed to decide whether a shot hit a
+ * target. A copy is captured on the thread that changes the target, which is
+ * normally the JavaFX thread, and shots are tested against the latest copy on
+ * any thread without touching the scene graph.
+ *
+ * Regions are kept in the target group's coordinates, thus moving or resizing
+ * the target only replaces the transform while the regions and their index
+ * are shared with the previous copy.
+ */
+final class TargetGeometry {
+    private static final double REGION_INDEX_CELL_SIZE = 32;
+
+    private final AffineTransform localToParent;
+    private final Optional<AffineTransform> parentToLocal;
+    private final Rectangle2D bounds;
+    private final List<RegionGeometry> regions;
+    private final SpatialGrid<RegionGeometry> regionIndex;
+
+    private TargetGeometry(AffineTransform localToParent, Rectangle2D bounds, List<RegionGeometry> regions,
+            SpatialGrid<RegionGeometry> regionIndex) {
+        this.localToParent = localToParent;
+        this.bounds = bounds;
+        this.regions = regions;
+        this.regionIndex = regionIndex;
+
+        Optional<AffineTransform> inverse;
+        try {
+            inverse = Optional.of(localToParent.createInverse());
+        } catch (final NoninvertibleTransformException e) {
+            // E.g. a target scaled to nothing, which cannot be hit
+            inverse = Optional.empty();
+        }
+        parentToLocal = inverse;
+    }
+
+    /**
+     * Copy a target's current geometry.
+     */
+    public static TargetGeometry capture(Group targetGroup) {
+        final ObservableList<Node> children = targetGroup.getChildren();
+        final List<RegionGeometry> regions = new ArrayList<>(children.size());
+        final SpatialGrid<RegionGeometry> regionIndex = new SpatialGrid<>(REGION_INDEX_CELL_SIZE);
+
+        for (final Node node : children) {
+            if (!(node instanceof TargetRegion))
+                continue;
+
+            final RegionGeometry region = new RegionGeometry((TargetRegion) node);
+            regions.add(region);
+            regionIndex.put(region, region.bounds.getMinX(), region.bounds.getMinY(), region.bounds.getMaxX(),
+                    region.bounds.getMaxY());
+        }
+
+        return new TargetGeometry(toAffineTransform(targetGroup.getLocalToParentTransform()),
+                toRectangle(targetGroup.getBoundsInParent()), Collections.unmodifiableList(regions), regionIndex);
+    }
+
+    /**
+     * Copy a target's current position and size, keeping the regions of this
+     * copy.
+     */
+    public TargetGeometry withTransform(Group targetGroup) {
+        return new TargetGeometry(toAffineTransform(targetGroup.getLocalToParentTransform()),
+                toRectangle(targetGroup.getBoundsInParent()), regions, regionIndex);
+    }
+
+    private static AffineTransform toAffineTransform(Transform t) {
+        return new AffineTransform(t.getMxx(), t.getMyx(), t.getMxy(), t.getMyy(), t.getTx(), t.getTy());
+    }
+
+    private static Rectangle2D toRectangle(Bounds b) {
+        return new Rectangle2D.Double(b.getMinX(), b.getMinY(), b.getWidth(), b.getHeight());
+    }
+
+    // Inclusive of the far edges like JavaFX's bounds
+    private static boolean contains(Rectangle2D r, double x, double y) {
+        return x >= r.getMinX() && x <= r.getMaxX() && y >= r.getMinY() && y <= r.getMaxY();
+    }
+
+    public List<RegionGeometry> getRegions() {
+        return regions;
+    }
+
+    /**
+     * Find the top region that a shot hit.
+     * 
+     * @param target
+     *            the target this geometry was captured from
+     * @param x
+     *            the shot's x coordinate in the target's parent
+     * @param y
+     *            the shot's y coordinate in the target's parent
+     */
+    public Optional<Hit> isHit(Target target, double x, double y) {
+        if (!contains(bounds, x, y) || !parentToLocal.isPresent())
+            return Optional.empty();
+
+        final double[] localShot = { x, y };
+        parentToLocal.get().transform(localShot, 0, localShot, 0, 1);
+
+        final List<RegionGeometry> candidates = regionIndex.getCandidates(localShot[0], localShot[1]);
+
+        // Top region first
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            final RegionGeometry region = candidates.get(i);
+
+            final Rectangle2D regionBounds = localToParent.createTransformedShape(region.bounds).getBounds2D();
+
+            if (!contains(regionBounds, x, y) || region.ignoreHit)
+                continue;
+
+            final int adjustedX = (int) (x - regionBounds.getMinX());
+            final int adjustedY = (int) (y - regionBounds.getMinY());
+
+            if (region.image.isPresent()) {
+                if (adjustedX < 0 || adjustedY < 0)
+                    return Optional.empty();
+
+                // The mask is the size of the original image, thus the shot
+                // is scaled to it if the region was resized
+                final AlphaMask alphaMask = ((ImageRegion) region.region).getAlphaMask(region.image.get());
+                if (!alphaMask.isOpaque(adjustedX, adjustedY, regionBounds.getWidth(), regionBounds.getHeight()))
+                    continue;
+            } else if (region.outline.isPresent() && !region.outline.get().contains(localShot[0], localShot[1])) {
+                // The shot is in the bounding box but make sure it is in
+                // the shape's fill otherwise we can get a shot detected
+                // where there isn't actually a region showing
+                continue;
+            }
+
+            return Optional.of(new Hit(target, region.region, adjustedX, adjustedY));
+        }
+
+        return Optional.empty();
+    }
+
+    static final class RegionGeometry {
+        private final TargetRegion region;
+        private final boolean ignoreHit;
+
+        // In the target group's coordinates
+        private final Rectangle2D bounds;
+        private final Optional<Shape> outline;
+
+        private final Optional<Image> image;
+
+        private RegionGeometry(TargetRegion region) {
+            this.region = region;
+            ignoreHit = region.tagExists(Target.TAG_IGNORE_HIT)
+                    && Boolean.parseBoolean(region.getTag(Target.TAG_IGNORE_HIT));
+
+            final Node node = (Node) region;
+            bounds = toRectangle(node.getBoundsInParent());
+
+            if (region.getType() == RegionType.IMAGE) {
+                outline = Optional.empty();
+                image = Optional.ofNullable(((ImageRegion) region).getImage());
+            } else {
+                outline = getOutline(node);
+                image = Optional.empty();
+            }
+        }
+
+        private static Optional<Shape> getOutline(Node node) {
+            final Shape shape;
+
+            if (node instanceof Rectangle) {
+                final Rectangle r = (Rectangle) node;
+                shape = new Rectangle2D.Double(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+            } else if (node instanceof Ellipse) {
+                final Ellipse e = (Ellipse) node;
+                shape = new Ellipse2D.Double(e.getCenterX() - e.getRadiusX(), e.getCenterY() - e.getRadiusY(),
+                        e.getRadiusX() * 2, e.getRadiusY() * 2);
+            } else if (node instanceof Polygon) {
+                final List<Double> points = ((Polygon) node).getPoints();
+                final Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO);
+
+                for (int i = 0; i + 1 < points.size(); i += 2) {
+                    if (i == 0) {
+                        path.moveTo(points.get(i), points.get(i + 1));
+                    } else {
+                        path.lineTo(points.get(i), points.get(i + 1));
+                    }
+                }
+
+                path.closePath();
+                shape = path;
+            } else {
+                // Only the bounds are tested
+                return Optional.empty();
+            }
+
+            return Optional.of(toAffineTransform(node.getLocalToParentTransform()).createTransformedShape(shape));
+        }
+
+        public TargetRegion getRegion() {
+            return region;
+        }
+    }
+}
@@ -18,8 +18,6 @@
 
 package com.shootoff.gui.targets;
 
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -43,14 +41,14 @@ import com.shootoff.targets.TargetRegion;
 import com.shootoff.targets.animation.SpriteAnimation;
 
 import javafx.animation.Animation.Status;
-import com.shootoff.util.SwingFXUtils;
+import javafx.beans.InvalidationListener;
+import javafx.collections.ListChangeListener;
 import javafx.geometry.Bounds;
 import javafx.geometry.Dimension2D;
 import javafx.geometry.Point2D;
 import javafx.scene.Cursor;
 import javafx.scene.Group;
 import javafx.scene.Node;
-import javafx.scene.image.Image;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
@@ -99,6 +97,11 @@ public class TargetView implements Target {
 
     private TargetSelectionListener selectionListener;
 
+    // Shots are tested against this copy of the target, which is replaced
+    // whenever the target changes
+    private volatile TargetGeometry geometry;
+    private final InvalidationListener regionListener = (observable) -> captureGeometry();
+
     public TargetView(File targetFile, Group target, Map<String, String> targetTags, CanvasManager parent,
             boolean userDeletable) {
         this.targetFile = targetFile;
@@ -127,6 +130,7 @@ public class TargetView implements Target {
         mouseMoved();
         mouseReleased();
         keyPressed();
+        initGeometry();
     }
 
     // Used by the session viewer, target pane, and for testing
@@ -147,7 +151,60 @@ public class TargetView implements Target {
         mouseMoved();
         mouseReleased();
         keyPressed();
+        initGeometry();
+    }
+
+    // Keeps the hit testing geometry up to date as the target is moved or
+    // resized and as its regions are added, removed, or animated
+    private void initGeometry() {
+        for (final Node node : targetGroup.getChildren())
+            addRegionListeners(node);
+
+        targetGroup.getChildren().addListener((ListChangeListener<Node>) change -> {
+            while (change.next()) {
+                for (final Node node : change.getRemoved())
+                    removeRegionListeners(node);
+
+                for (final Node node : change.getAddedSubList())
+                    addRegionListeners(node);
+            }
+
+            captureGeometry();
+        });
+
+        final InvalidationListener transformListener = (observable) -> updateGeometryTransform();
+        targetGroup.localToParentTransformProperty().addListener(transformListener);
+        targetGroup.boundsInParentProperty().addListener(transformListener);
+
+        captureGeometry();
+    }
+
+    private void addRegionListeners(Node node) {
+        if (!(node instanceof TargetRegion))
+            return;
+
+        node.boundsInParentProperty().addListener(regionListener);
+
+        if (node instanceof ImageRegion)
+            ((ImageRegion) node).imageProperty().addListener(regionListener);
+    }
+
+    private void removeRegionListeners(Node node) {
+        if (!(node instanceof TargetRegion))
+            return;
 
+        node.boundsInParentProperty().removeListener(regionListener);
+
+        if (node instanceof ImageRegion)
+            ((ImageRegion) node).imageProperty().removeListener(regionListener);
+    }
+
+    private synchronized void captureGeometry() {
+        geometry = TargetGeometry.capture(targetGroup);
+    }
+
+    private synchronized void updateGeometryTransform() {
+        geometry = geometry.withTransform(targetGroup);
     }
 
     public boolean isUserDeletable() {
@@ -538,98 +595,14 @@ public class TargetView implements Target {
         return anchor;
     }
 
+    /**
+     * Find the region a shot hit. Only a copy of the target's geometry is
+     * read, thus this is safe to call on any thread while the target is
+     * being changed on the JavaFX thread.
+     */
     @Override
     public Optional<Hit> isHit(double x, double y) {
-        if (targetGroup.getBoundsInParent().contains(x, y)) {
-            // Target was hit, see if a specific region was hit
-            for (int i = targetGroup.getChildren().size() - 1; i >= 0; i--) {
-                final Node node = targetGroup.getChildren().get(i);
-
-                if (!(node instanceof TargetRegion))
-                    continue;
-
-                final Bounds nodeBounds = targetGroup.getLocalToParentTransform().transform(node.getBoundsInParent());
-
-                final int adjustedX = (int) (x - nodeBounds.getMinX());
-                final int adjustedY = (int) (y - nodeBounds.getMinY());
-
-                if (nodeBounds.contains(x, y)) {
-                    // If we hit an image region on a transparent pixel,
-                    // ignore it
-                    final TargetRegion region = (TargetRegion) node;
-
-                    // Ignore regions where ignoreHit tag is true
-                    if (region.tagExists(TargetView.TAG_IGNORE_HIT)
-                            && Boolean.parseBoolean(region.getTag(TargetView.TAG_IGNORE_HIT)))
-                        continue;
-
-                    if (region.getType() == RegionType.IMAGE) {
-                        // The image you get from the image view is its
-                        // original size. We need to resize it if it has
-                        // changed size to accurately determine if a pixel
-                        // is transparent
-                        final Image currentImage = ((ImageRegion) region).getImage();
-
-                        if (adjustedX < 0 || adjustedY < 0) {
-                            logger.debug(
-                                    "An adjusted pixel is negative: Adjusted ({}, {}), Original ({}, {}), "
-                                            + " nodeBounds.getMin ({}, {})",
-                                    adjustedX, adjustedY, x, y, nodeBounds.getMaxX(), nodeBounds.getMinY());
-                            return Optional.empty();
-                        }
-
-                        if (Math.abs(currentImage.getWidth() - nodeBounds.getWidth()) > .0000001
-                                || Math.abs(currentImage.getHeight() - nodeBounds.getHeight()) > .0000001) {
-
-                            final BufferedImage bufferedOriginal = SwingFXUtils.fromFXImage(currentImage, null);
-
-                            final java.awt.Image tmp = bufferedOriginal.getScaledInstance((int) nodeBounds.getWidth(),
-                                    (int) nodeBounds.getHeight(), java.awt.Image.SCALE_SMOOTH);
-                            final BufferedImage bufferedResized = new BufferedImage((int) nodeBounds.getWidth(),
-                                    (int) nodeBounds.getHeight(), BufferedImage.TYPE_INT_ARGB);
-
-                            final Graphics2D g2d = bufferedResized.createGraphics();
-                            g2d.drawImage(tmp, 0, 0, null);
-                            g2d.dispose();
-
-                            try {
-                                if (adjustedX >= bufferedResized.getWidth() || adjustedY >= bufferedResized.getHeight()
-                                        || bufferedResized.getRGB(adjustedX, adjustedY) >> 24 == 0) {
-                                    continue;
-                                }
-                            } catch (final ArrayIndexOutOfBoundsException e) {
-                                final String message = String.format(
-                                        "Index out of bounds while trying to find adjusted coordinate (%d, %d) "
-                                                + "from original (%.2f, %.2f) in adjusted BufferedImage for target %s "
-                                                + "with width = %d, height = %d",
-                                        adjustedX, adjustedY, x, y, getTargetFile().getPath(),
-                                        bufferedResized.getWidth(), bufferedResized.getHeight());
-                                logger.error(message, e);
-                                return Optional.empty();
-                            }
-                        } else {
-                            if (adjustedX >= currentImage.getWidth() || adjustedY >= currentImage.getHeight()
-                                    || currentImage.getPixelReader().getArgb(adjustedX, adjustedY) >> 24 == 0) {
-                                continue;
-                            }
-                        }
-                    } else {
-                        // The shot is in the bounding box but make sure it
-                        // is in the shape's
-                        // fill otherwise we can get a shot detected where
-                        // there isn't actually
-                        // a region showing
-                        final Point2D localCoords = targetGroup.parentToLocal(x, y);
-                        if (!node.contains(localCoords))
-                            continue;
-                    }
-
-                    return Optional.of(new Hit(this, (TargetRegion) node, adjustedX, adjustedY));
-                }
-            }
-        }
-
-        return Optional.empty();
+        return geometry.isHit(this, x, y);
     }
 
     private void mousePressed() {
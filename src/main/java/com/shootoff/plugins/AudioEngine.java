@@ -0,0 +1,376 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plays sounds with as little delay as possible. Sounds are decoded into
+ * memory once and every sound that is playing is mixed by one thread into a
+ * single audio line that stays open, thus starting a sound does not read a
+ * file, open a line, or start a thread.
+ *
+ * While nothing is playing the mixer waits and the line runs dry, thus a new
+ * sound is written to an empty line buffer and starts playing within about one
+ * mixing chunk. While other sounds are playing it starts at most one line
+ * buffer later.
+ */
+public final class AudioEngine {
+    private static final Logger logger = LoggerFactory.getLogger(AudioEngine.class);
+
+    private static final AudioEngine defaultEngine = new AudioEngine();
+
+    private static final int CHANNELS = SoundClip.FORMAT.getChannels();
+
+    // Frames mixed and written at a time, about 3 ms
+    private static final int CHUNK_FRAMES = 128;
+
+    // Frames the line buffers ahead of what is playing, about 12 ms
+    private static final int LINE_BUFFER_FRAMES = 512;
+
+    private final Map<Path, SoundClip> clips = new ConcurrentHashMap<>();
+    private final BlockingQueue<Voice> queuedVoices = new LinkedBlockingQueue<>();
+
+    // Listeners may play the next sound, which could mean reading a file, thus
+    // they are not run on the mixer thread
+    private final ExecutorService listenerExecutor = Executors.newSingleThreadExecutor((r) -> {
+        final Thread listenerThread = new Thread(r, "Sound Listener");
+        listenerThread.setDaemon(true);
+        return listenerThread;
+    });
+
+    private Thread mixerThread = null;
+    private volatile boolean lineUnavailable = false;
+
+    /**
+     * @return the engine every exercise and target plays its sounds through
+     */
+    public static AudioEngine getDefault() {
+        return defaultEngine;
+    }
+
+    /**
+     * Decode every sound in a folder and its sub-folders so they are ready to
+     * play the first time they are needed.
+     */
+    public void preload(File soundFolder) {
+        final long startTime = System.currentTimeMillis();
+        final int loaded = preloadFolder(soundFolder);
+
+        if (logger.isDebugEnabled())
+            logger.debug("Decoded {} sounds from {} in {} ms", loaded, soundFolder.getPath(),
+                    System.currentTimeMillis() - startTime);
+    }
+
+    private int preloadFolder(File soundFolder) {
+        final File[] soundFiles = soundFolder.listFiles();
+
+        if (soundFiles == null)
+            return 0;
+
+        int loaded = 0;
+
+        for (final File soundFile : soundFiles) {
+            if (soundFile.isDirectory()) {
+                loaded += preloadFolder(soundFile);
+            } else if (soundFile.getName().toLowerCase().endsWith(".wav") && load(soundFile).isPresent()) {
+                loaded++;
+            }
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Get a decoded sound file, decoding it if it wasn't already.
+     *
+     * @return the sound, or <tt>Optional.empty()</tt> if the file could not be
+     *         decoded
+     */
+    public Optional<SoundClip> load(File soundFile) {
+        final Path soundPath = soundFile.toPath().toAbsolutePath().normalize();
+        final SoundClip cachedClip = clips.get(soundPath);
+
+        if (cachedClip != null)
+            return Optional.of(cachedClip);
+
+        try (AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(soundPath.toFile())) {
+            final SoundClip clip = SoundClip.decode(audioInputStream);
+            clips.put(soundPath, clip);
+            return Optional.of(clip);
+        } catch (UnsupportedAudioFileException | IOException e) {
+            logger.error(String.format("Error reading sound file to play: soundFile = %s", soundFile), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Decode a sound that is not a file, e.g. one packed in an exercise's JAR.
+     * These sounds are not cached.
+     *
+     * @return the sound, or <tt>Optional.empty()</tt> if the stream could not
+     *         be decoded
+     */
+    public Optional<SoundClip> load(InputStream is) {
+        try (AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(is)) {
+            return Optional.of(SoundClip.decode(audioInputStream));
+        } catch (UnsupportedAudioFileException | IOException e) {
+            logger.error("Error reading sound stream to play", e);
+            return Optional.empty();
+        }
+    }
+
+    public Line play(SoundClip clip) {
+        return play(clip, Optional.empty());
+    }
+
+    /**
+     * Start playing a sound on top of whatever is already playing.
+     *
+     * @param listener
+     *            notified with a {@link LineEvent.Type#STOP} event once the
+     *            sound has been played or stopped
+     * @return a line that represents the playing sound. Closing it stops the
+     *         sound.
+     */
+    public Line play(SoundClip clip, Optional<LineListener> listener) {
+        final Voice voice = new Voice(clip.getSamples());
+
+        if (listener.isPresent())
+            voice.addLineListener(listener.get());
+
+        if (lineUnavailable) {
+            finish(voice);
+        } else {
+            startMixer();
+            queuedVoices.add(voice);
+        }
+
+        return voice;
+    }
+
+    private synchronized void startMixer() {
+        if (mixerThread != null)
+            return;
+
+        mixerThread = new Thread(this::mix, "Audio Mixer");
+        mixerThread.setDaemon(true);
+        mixerThread.setPriority(Thread.MAX_PRIORITY);
+        mixerThread.start();
+    }
+
+    private void mix() {
+        final SourceDataLine line;
+
+        try {
+            line = AudioSystem.getSourceDataLine(SoundClip.FORMAT);
+            line.open(SoundClip.FORMAT, LINE_BUFFER_FRAMES * SoundClip.FORMAT.getFrameSize());
+            line.start();
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            logger.error("Could not open an audio line, sounds will not be played", e);
+
+            lineUnavailable = true;
+            final List<Voice> voices = new ArrayList<>();
+            queuedVoices.drainTo(voices);
+            voices.forEach(this::finish);
+
+            return;
+        }
+
+        if (logger.isDebugEnabled())
+            logger.debug("Opened audio line with a {} byte buffer", line.getBufferSize());
+
+        final List<Voice> voices = new ArrayList<>();
+        final List<Voice> finishedVoices = new ArrayList<>();
+        final int[] sums = new int[CHUNK_FRAMES * CHANNELS];
+        final byte[] chunk = new byte[sums.length * 2];
+
+        try {
+            while (true) {
+                if (voices.isEmpty())
+                    voices.add(queuedVoices.take());
+
+                queuedVoices.drainTo(voices);
+
+                mix(voices, sums, chunk, finishedVoices);
+                line.write(chunk, 0, chunk.length);
+
+                finishedVoices.forEach(this::finish);
+                finishedVoices.clear();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            line.close();
+        }
+    }
+
+    /**
+     * Mix the next chunk of every voice into one chunk of 16 bit little endian
+     * samples, clipping where the sum is too loud.
+     *
+     * @param voices
+     *            the voices that are playing. Voices that finish or were closed
+     *            are removed.
+     * @param sums
+     *            scratch space for one chunk of samples
+     * @param chunk
+     *            receives the mixed chunk, two bytes per sample
+     * @param finishedVoices
+     *            receives the voices that were removed
+     */
+    static void mix(List<Voice> voices, int[] sums, byte[] chunk, List<Voice> finishedVoices) {
+        Arrays.fill(sums, 0);
+
+        final Iterator<Voice> it = voices.iterator();
+        while (it.hasNext()) {
+            final Voice voice = it.next();
+
+            if (voice.mixInto(sums)) {
+                it.remove();
+                finishedVoices.add(voice);
+            }
+        }
+
+        for (int i = 0; i < sums.length; i++) {
+            final int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sums[i]));
+            chunk[i * 2] = (byte) sample;
+            chunk[i * 2 + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    private void finish(Voice voice) {
+        listenerExecutor.execute(voice::stopped);
+    }
+
+    /**
+     * One playing sound. It is exposed as a {@link Line} so listeners written
+     * for lines that each stream one sound still work.
+     */
+    static class Voice implements Line {
+        private static final Line.Info INFO = new Line.Info(Voice.class);
+
+        private final short[] samples;
+        private final List<LineListener> listeners = new CopyOnWriteArrayList<>();
+        private int position = 0;
+        private volatile boolean closed = false;
+
+        Voice(short[] samples) {
+            this.samples = samples;
+        }
+
+        /**
+         * Add this voice's next chunk to the sums.
+         *
+         * @return <tt>true</tt> if the voice has nothing left to play
+         */
+        boolean mixInto(int[] sums) {
+            if (closed)
+                return true;
+
+            final int count = Math.min(sums.length, samples.length - position);
+            for (int i = 0; i < count; i++)
+                sums[i] += samples[position + i];
+
+            position += count;
+
+            return position >= samples.length;
+        }
+
+        private void stopped() {
+            closed = true;
+
+            final LineEvent event = new LineEvent(this, LineEvent.Type.STOP, position / CHANNELS);
+            for (final LineListener listener : listeners)
+                listener.update(event);
+        }
+
+        @Override
+        public Line.Info getLineInfo() {
+            return INFO;
+        }
+
+        @Override
+        public void open() {}
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !closed;
+        }
+
+        @Override
+        public Control[] getControls() {
+            return new Control[0];
+        }
+
+        @Override
+        public boolean isControlSupported(Control.Type control) {
+            return false;
+        }
+
+        @Override
+        public Control getControl(Control.Type control) {
+            throw new IllegalArgumentException("Unsupported control type: " + control);
+        }
+
+        @Override
+        public void addLineListener(LineListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeLineListener(LineListener listener) {
+            listeners.remove(listener);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.plugins;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * A sound decoded into memory in the format {@link AudioEngine} plays, thus it
+ * can start playing without reading or converting anything.
+ */
+public final class SoundClip {
+    /**
+     * 44.1 kHz, 16 bit, signed, little endian stereo.
+     */
+    public static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+
+    private static final int CHANNELS = FORMAT.getChannels();
+
+    // Interleaved left and right samples
+    private final short[] samples;
+
+    SoundClip(short[] samples) {
+        this.samples = samples;
+    }
+
+    /**
+     * Decode a whole sound, converting it to {@link #FORMAT}.
+     *
+     * @throws IOException
+     *             if the sound could not be read or is in a format that can't
+     *             be converted to 16 bit PCM
+     */
+    public static SoundClip decode(AudioInputStream audioInputStream) throws IOException {
+        final AudioFormat sourceFormat = audioInputStream.getFormat();
+        final AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16, sourceFormat.getChannels(),
+                true, false);
+
+        final AudioInputStream pcmStream;
+        if (sourceFormat.matches(pcmFormat)) {
+            pcmStream = audioInputStream;
+        } else if (AudioSystem.isConversionSupported(pcmFormat, sourceFormat)) {
+            pcmStream = AudioSystem.getAudioInputStream(pcmFormat, audioInputStream);
+        } else {
+            throw new IOException("Can't convert sound to 16 bit PCM: " + sourceFormat);
+        }
+
+        final ByteArrayOutputStream pcm = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = pcmStream.read(buffer)) != -1)
+            pcm.write(buffer, 0, read);
+
+        final byte[] bytes = pcm.toByteArray();
+        final short[] sourceSamples = new short[bytes.length / 2];
+        for (int i = 0; i < sourceSamples.length; i++)
+            sourceSamples[i] = (short) ((bytes[i * 2] & 0xFF) | (bytes[i * 2 + 1] << 8));
+
+        return new SoundClip(convert(sourceSamples, pcmFormat.getChannels(), pcmFormat.getSampleRate()));
+    }
+
+    /**
+     * Turn interleaved 16 bit samples with any number of channels and any
+     * sample rate into stereo samples at {@link #FORMAT}'s rate. Java Sound
+     * does not convert between sample rates, thus this resamples by linear
+     * interpolation, which is good enough for beeps and voice prompts.
+     */
+    static short[] convert(short[] sourceSamples, int sourceChannels, float sourceRate) {
+        if (sourceChannels < 1)
+            throw new IllegalArgumentException("A sound needs at least one channel");
+
+        final int sourceFrames = sourceSamples.length / sourceChannels;
+        if (sourceFrames == 0)
+            return new short[0];
+
+        final double step = sourceRate / FORMAT.getSampleRate();
+        final int frames = (int) Math.max(1, Math.round(sourceFrames / step));
+        final short[] samples = new short[frames * CHANNELS];
+
+        for (int frame = 0; frame < frames; frame++) {
+            final double sourcePosition = frame * step;
+            final int first = Math.min((int) sourcePosition, sourceFrames - 1);
+            final int second = Math.min(first + 1, sourceFrames - 1);
+            final double weight = sourcePosition - first;
+
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                // Mono is played on both sides, anything past stereo is
+                // dropped
+                final int sourceChannel = Math.min(channel, sourceChannels - 1);
+                final short a = sourceSamples[first * sourceChannels + sourceChannel];
+                final short b = sourceSamples[second * sourceChannels + sourceChannel];
+
+                samples[frame * CHANNELS + channel] = (short) Math.round(a + (b - a) * weight);
+            }
+        }
+
+        return samples;
+    }
+
+    short[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return the number of stereo frames in the sound
+     */
+    public int getFrameCount() {
+        return samples.length / CHANNELS;
+    }
+
+    /**
+     * @return how long the sound plays in milliseconds
+     */
+    public long getDuration() {
+        return (long) (getFrameCount() * 1000 / FORMAT.getSampleRate());
+    }
+}
@@ -19,7 +19,6 @@
 package com.shootoff.plugins;
 
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -29,15 +28,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.DataLine;
 import javax.sound.sampled.LineEvent;
 import javax.sound.sampled.LineListener;
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.SourceDataLine;
-import javax.sound.sampled.UnsupportedAudioFileException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -496,12 +488,9 @@ public abstract class TrainingExerciseBase {
             return;
         }
 
-        try {
-            final AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(is);
-            playSound(audioInputStream, listener);
-        } catch (UnsupportedAudioFileException | IOException e) {
-            logger.error("Error reading sound stream to play", e);
-        }
+        final Optional<SoundClip> clip = AudioEngine.getDefault().load(is);
+        if (clip.isPresent())
+            AudioEngine.getDefault().play(clip.get(), listener);
     }
 
     private static void playSound(File soundFile, Optional<LineListener> listener) {
@@ -514,64 +503,9 @@ public abstract class TrainingExerciseBase {
             soundFile = new File(System.getProperty("shootoff.home") + File.separator + soundFile.getPath());
         }
 
-        try {
-            final AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(soundFile);
-            playSound(audioInputStream, listener);
-        } catch (UnsupportedAudioFileException | IOException e) {
-            logger.error(String.format("Error reading sound file to play: soundFile = %s", soundFile), e);
-        }
-    }
-
-    private static void playSound(AudioInputStream audioInputStream, Optional<LineListener> listener) {
-        final AudioFormat format = audioInputStream.getFormat();
-        final DataLine.Info info = new DataLine.Info(SourceDataLine.class, format);
-
-        SourceDataLine line = null;
-
-        try {
-            line = (SourceDataLine) AudioSystem.getLine(info);
-
-            line.open(format);
-            line.start();
-
-            if (listener.isPresent()) {
-                line.addLineListener(listener.get());
-            } else {
-                line.addLineListener((e) -> {
-                    if (LineEvent.Type.STOP.equals(e.getType())) {
-                        e.getLine().close();
-                        try {
-                            audioInputStream.close();
-                        } catch (final Exception e1) {
-                            logger.error("Error closing audio input stream", e1);
-                        }
-                    }
-                });
-            }
-
-            final SourceDataLine sourceLine = line;
-            new Thread(() -> {
-                int nBytesRead = 0;
-                final byte[] abData = new byte[1024];
-                while (nBytesRead != -1) {
-                    try {
-                        nBytesRead = audioInputStream.read(abData, 0, abData.length);
-                    } catch (final IOException e) {
-                        logger.error("Error playing sound clip", e);
-                    }
-                    if (nBytesRead >= 0) {
-                        sourceLine.write(abData, 0, nBytesRead);
-                    }
-                }
-
-                sourceLine.drain();
-                sourceLine.close();
-            }).start();
-        } catch (final LineUnavailableException e) {
-            if (line != null)
-                line.close();
-            logger.error("Error playing sound clip", e);
-        }
+        final Optional<SoundClip> clip = AudioEngine.getDefault().load(soundFile);
+        if (clip.isPresent())
+            AudioEngine.getDefault().play(clip.get(), listener);
     }
 
     public static void playSounds(final List<File> soundFiles) {
@@ -598,8 +532,6 @@ public abstract class TrainingExerciseBase {
         @Override
         public void update(final LineEvent event) {
             if (LineEvent.Type.STOP.equals(event.getType())) {
-                event.getLine().close();
-
                 queueIndex++;
 
                 if (queueIndex < soundFiles.size()) {
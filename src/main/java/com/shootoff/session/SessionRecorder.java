@@ -19,6 +19,7 @@
 package com.shootoff.session;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -32,13 +33,19 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.shootoff.camera.shot.DisplayShot;
+import com.shootoff.session.io.SessionJournal;
 import com.shootoff.targets.Target;
 
 import javafx.geometry.Dimension2D;
 import javafx.geometry.Point2D;
 
 public class SessionRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(SessionRecorder.class);
+
     private final long startTime;
     private final String sessionName;
     private final Map<String, List<Event>> events = new HashMap<>();
@@ -46,6 +53,9 @@ public class SessionRecorder {
 
     private final AtomicBoolean ignoreTargetCheck = new AtomicBoolean(false);
 
+    // When present events are only kept in the journal
+    private Optional<SessionJournal> journal = Optional.empty();
+
     public SessionRecorder() {
         final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH.mm.ss");
         sessionName = dateFormat.format(new Date());
@@ -56,15 +66,106 @@ public class SessionRecorder {
         this.events.putAll(events);
     }
 
+    /**
+     * Add events read from a journal. Unlike a saved session, a journal still
+     * has every move and resize of a target, thus they are collapsed the same
+     * way as when they were recorded.
+     */
+    public void addJournaledEvents(Map<String, List<Event>> journaledEvents) {
+        for (final List<Event> cameraEvents : journaledEvents.values()) {
+            for (final Event e : cameraEvents)
+                addEvent(events, e);
+        }
+    }
+
+    /**
+     * Record events to a journal from now on instead of keeping them in
+     * memory, thus the memory used by the session does not grow with its
+     * length. Events are read back from the journal when they are needed.
+     */
+    public void setJournal(SessionJournal journal) {
+        this.journal = Optional.of(journal);
+    }
+
+    /**
+     * Stop journaling events.
+     * 
+     * @param deleteJournal
+     *            whether to delete the journal, e.g. because the session was
+     *            saved. A deleted journal's events are dropped rather than
+     *            read back into memory, thus the recorder has no events
+     *            afterwards. A kept journal's events are read back.
+     */
+    public void closeJournal(boolean deleteJournal) {
+        if (!journal.isPresent())
+            return;
+
+        final SessionJournal sessionJournal = journal.get();
+        journal = Optional.empty();
+        sessionJournal.close();
+
+        events.clear();
+
+        if (!deleteJournal) {
+            addJournaledEvents(SessionJournal.load(sessionJournal.getJournalFile()));
+        } else if (!sessionJournal.getJournalFile().delete()) {
+            logger.warn("Failed to delete session journal: {}", sessionJournal.getJournalFile().getPath());
+        }
+    }
+
     public Map<String, List<Event>> getEvents() {
+        if (journal.isPresent()) {
+            final Map<String, List<Event>> journaledEvents = new HashMap<>();
+
+            for (final List<Event> cameraEvents : SessionJournal.load(journal.get().getJournalFile()).values()) {
+                for (final Event e : cameraEvents)
+                    addEvent(journaledEvents, e);
+            }
+
+            return journaledEvents;
+        }
+
         return events;
     }
 
+    /**
+     * Find the event that was current at a point in a session without looking
+     * at every event.
+     * 
+     * @param cameraEvents
+     *            one camera's events in timestamp order
+     * @param timestamp
+     *            milliseconds since the session started
+     * @return the index of the last event at or before <tt>timestamp</tt>, or
+     *         -1 if every event is after it
+     */
+    public static int findEvent(List<Event> cameraEvents, long timestamp) {
+        int low = 0;
+        int high = cameraEvents.size() - 1;
+
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+
+            if (cameraEvents.get(middle).getTimestamp() <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return high;
+    }
+
     public String getSessionName() {
         return sessionName;
     }
 
     public List<Event> getCameraEvents(String cameraName) {
+        if (journal.isPresent()) {
+            final List<Event> cameraEvents = getEvents().get(cameraName);
+            return cameraEvents != null ? cameraEvents : new ArrayList<>();
+        }
+
         if (events.containsKey(cameraName)) {
             return events.get(cameraName);
         } else {
@@ -109,8 +210,8 @@ public class SessionRecorder {
 
         final long timestamp = System.currentTimeMillis() - startTime;
 
-        getCameraEvents(cameraName).add(new ShotEvent(cameraName, timestamp, shot, isMalfunction, isReload, targetIndex,
-                hitRegionIndex, videoString));
+        recordEvent(new ShotEvent(cameraName, timestamp, shot, isMalfunction, isReload, targetIndex, hitRegionIndex,
+                videoString));
     }
 
     public void recordTargetAdded(String cameraName, Target target) {
@@ -129,20 +230,48 @@ public class SessionRecorder {
             targetName = target.getTargetFile().getPath().replace("targets" + File.separator, "");
         }
 
-        getCameraEvents(cameraName)
-                .add(new TargetAddedEvent(cameraName, System.currentTimeMillis() - startTime, targetName));
+        recordEvent(new TargetAddedEvent(cameraName, System.currentTimeMillis() - startTime, targetName));
     }
 
     public void recordTargetRemoved(String cameraName, Target target) {
         if (!ignoreTargetCheck.get())
             checkTarget(cameraName, target);
 
-        getCameraEvents(cameraName).add(
+        recordEvent(
                 new TargetRemovedEvent(cameraName, System.currentTimeMillis() - startTime, target.getTargetIndex()));
     }
 
-    private void collapseTargetEvents(String cameraName, EventType type, Target target) {
-        final ListIterator<Event> it = getCameraEvents(cameraName).listIterator(getCameraEvents(cameraName).size());
+    private void recordEvent(Event event) {
+        if (journal.isPresent()) {
+            try {
+                journal.get().append(event);
+            } catch (final IOException e) {
+                logger.error("Failed to journal session event", e);
+            }
+        } else {
+            addEvent(events, event);
+        }
+    }
+
+    private static void addEvent(Map<String, List<Event>> events, Event event) {
+        if (!events.containsKey(event.getCameraName()))
+            events.put(event.getCameraName(), new ArrayList<Event>());
+
+        final List<Event> cameraEvents = events.get(event.getCameraName());
+
+        // Remove all events of the same type for the same target immediately
+        // before this one
+        if (event.getType() == EventType.TARGET_RESIZED) {
+            collapseTargetEvents(cameraEvents, EventType.TARGET_RESIZED, ((TargetResizedEvent) event).getTargetIndex());
+        } else if (event.getType() == EventType.TARGET_MOVED) {
+            collapseTargetEvents(cameraEvents, EventType.TARGET_MOVED, ((TargetMovedEvent) event).getTargetIndex());
+        }
+
+        cameraEvents.add(event);
+    }
+
+    private static void collapseTargetEvents(List<Event> cameraEvents, EventType type, int targetIndex) {
+        final ListIterator<Event> it = cameraEvents.listIterator(cameraEvents.size());
 
         while (it.hasPrevious()) {
             final Event e = it.previous();
@@ -152,11 +281,9 @@ public class SessionRecorder {
             }
 
             if (e.getType() == type) {
-                if (type == EventType.TARGET_RESIZED
-                        && ((TargetResizedEvent) e).getTargetIndex() == target.getTargetIndex()) {
+                if (type == EventType.TARGET_RESIZED && ((TargetResizedEvent) e).getTargetIndex() == targetIndex) {
                     it.remove();
-                } else if (type == EventType.TARGET_MOVED
-                        && ((TargetMovedEvent) e).getTargetIndex() == target.getTargetIndex()) {
+                } else if (type == EventType.TARGET_MOVED && ((TargetMovedEvent) e).getTargetIndex() == targetIndex) {
                     it.remove();
                 }
             }
@@ -167,10 +294,7 @@ public class SessionRecorder {
         if (!ignoreTargetCheck.get())
             checkTarget(cameraName, target);
 
-        // Remove all resize events immediately before this one
-        collapseTargetEvents(cameraName, EventType.TARGET_RESIZED, target);
-
-        getCameraEvents(cameraName).add(new TargetResizedEvent(cameraName, System.currentTimeMillis() - startTime,
+        recordEvent(new TargetResizedEvent(cameraName, System.currentTimeMillis() - startTime,
                 target.getTargetIndex(), newWidth, newHeight));
     }
 
@@ -178,18 +302,14 @@ public class SessionRecorder {
         if (!ignoreTargetCheck.get())
             checkTarget(cameraName, target);
 
-        // Remove all move events immediately before this one
-        collapseTargetEvents(cameraName, EventType.TARGET_MOVED, target);
-
-        getCameraEvents(cameraName).add(new TargetMovedEvent(cameraName, System.currentTimeMillis() - startTime,
+        recordEvent(new TargetMovedEvent(cameraName, System.currentTimeMillis() - startTime,
                 target.getTargetIndex(), newX, newY));
     }
 
     public void recordExerciseFeedMessage(String message) {
         // Add an event for this message to each camera
         for (final String cameraName : seenTargets.keySet()) {
-            getCameraEvents(cameraName)
-                    .add(new ExerciseFeedMessageEvent(cameraName, System.currentTimeMillis() - startTime, message));
+            recordEvent(new ExerciseFeedMessageEvent(cameraName, System.currentTimeMillis() - startTime, message));
         }
     }
 }
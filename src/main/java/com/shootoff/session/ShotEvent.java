@@ -23,10 +23,15 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.shootoff.camera.shot.DisplayShot;
 import com.shootoff.camera.shot.ShotColor;
 
 public class ShotEvent implements Event {
+    private static final Logger logger = LoggerFactory.getLogger(ShotEvent.class);
+
     private final String cameraName;
     private final long timestamp;
     private final DisplayShot shot;
@@ -36,6 +41,7 @@ public class ShotEvent implements Event {
     private final Optional<Integer> hitRegionIndex;
     private final Optional<String> videoString;
     private final Map<String, File> videos = new HashMap<>();
+    private final Map<String, Long> videoOffsets = new HashMap<>();
 
     public ShotEvent(String cameraName, long timestamp, DisplayShot shot, boolean isMalfunction, boolean isReload,
             Optional<Integer> targetIndex, Optional<Integer> hitRegionIndex, Optional<String> videoString) {
@@ -48,16 +54,28 @@ public class ShotEvent implements Event {
         this.hitRegionIndex = hitRegionIndex;
         this.videoString = videoString;
 
+        // Each video is camera:path, optionally followed by :offset when the
+        // video holds more than one shot
         if (videoString.isPresent()) {
             final String[] videoSet = videoString.get().split(",");
 
             for (final String video : videoSet) {
                 final String[] v = video.split(":");
                 videos.put(v[0], new File("sessions" + File.separator + v[1]));
+                videoOffsets.put(v[0], v.length > 2 ? parseOffset(v[2]) : 0);
             }
         }
     }
 
+    private static long parseOffset(String offset) {
+        try {
+            return Long.parseLong(offset);
+        } catch (final NumberFormatException e) {
+            logger.warn("Ignoring malformed video offset {}, playing from the start", offset);
+            return 0;
+        }
+    }
+
     @Override
     public String getCameraName() {
         return cameraName;
@@ -91,6 +109,14 @@ public class ShotEvent implements Event {
         return videos;
     }
 
+    /**
+     * @return how many milliseconds into each camera's video the shot was
+     *         fired, by camera name
+     */
+    public Map<String, Long> getVideoOffsets() {
+        return videoOffsets;
+    }
+
     @Override
     public EventType getType() {
         return EventType.SHOT;
@@ -0,0 +1,72 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+/**
+ * Layout of binary session files. A file starts with a header, followed by
+ * every camera's events as fixed size records, the camera table and the string
+ * table:
+ *
+ * <pre>
+ * header        magic, version, camera count, string count,
+ *               camera table offset, string table offset
+ * records       RECORD_SIZE bytes per event, each camera's events together
+ *               and in timestamp order
+ * camera table  per camera: name string, event count, first record offset
+ * string table  per string: byte count, UTF-8 bytes
+ * </pre>
+ *
+ * Because records have a fixed size and are sorted by timestamp, a reader can
+ * find any camera's n-th event or binary search its events by timestamp
+ * without reading the rest of the file. Target names, messages and video
+ * strings are stored once in the string table and referenced by index.
+ */
+final class BinarySessionFormat {
+    static final int MAGIC = 0x534F4653; // "SOFS"
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+    static final int CAMERA_ENTRY_SIZE = 16;
+    static final int RECORD_SIZE = 56;
+
+    // Record fields, by offset into the record
+    static final int TYPE = 0; // byte
+    static final int FLAGS = 1; // byte
+    static final int COLOR = 2; // byte
+    static final int INDEX = 4; // int, target index or -1
+    static final int TIMESTAMP = 8; // long
+    static final int X = 16; // double, shot x or target width
+    static final int Y = 24; // double, shot y or target height
+    static final int SHOT_TIMESTAMP = 32; // long
+    static final int MARKER_RADIUS = 40; // int, or target x
+    static final int HIT_REGION_INDEX = 44; // int, or target y
+    static final int STRING = 48; // int, string table index or -1
+
+    static final byte TYPE_SHOT = 1;
+    static final byte TYPE_TARGET_ADDED = 2;
+    static final byte TYPE_TARGET_REMOVED = 3;
+    static final byte TYPE_TARGET_RESIZED = 4;
+    static final byte TYPE_TARGET_MOVED = 5;
+    static final byte TYPE_EXERCISE_FEED_MESSAGE = 6;
+
+    static final int FLAG_MALFUNCTION = 1;
+    static final int FLAG_RELOAD = 1 << 1;
+
+    private BinarySessionFormat() {}
+}
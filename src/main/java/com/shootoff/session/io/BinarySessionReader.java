@@ -0,0 +1,329 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+import static com.shootoff.session.io.BinarySessionFormat.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.shot.DisplayShot;
+import com.shootoff.camera.shot.ShotColor;
+import com.shootoff.session.Event;
+import com.shootoff.session.ExerciseFeedMessageEvent;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.session.TargetAddedEvent;
+import com.shootoff.session.TargetMovedEvent;
+import com.shootoff.session.TargetRemovedEvent;
+import com.shootoff.session.TargetResizedEvent;
+
+/**
+ * Opens sessions written by {@link BinarySessionWriter}. The file is memory
+ * mapped and each event is only decoded the first time it is read, thus even a
+ * session with hours of events opens immediately.
+ */
+public class BinarySessionReader {
+    private final Logger logger = LoggerFactory.getLogger(BinarySessionReader.class);
+
+    public static final String EXTENSION = ".session";
+
+    // Records read at a time when summarizing
+    private static final int RECORDS_PER_READ = 1024;
+
+    private final File sessionFile;
+
+    private ByteBuffer buffer;
+    private int[] stringOffsets;
+
+    public BinarySessionReader(File sessionFile) {
+        this.sessionFile = sessionFile;
+    }
+
+    /**
+     * The mapping that events are decoded from stays open until the returned
+     * events are garbage collected, which on Windows keeps the file locked
+     * until then. Use {@link #summarize(long, long)} when the events
+     * themselves are not needed.
+     * 
+     * @return each camera's events, which are decoded when they are first
+     *         read, or <tt>null</tt> if the file is not a binary session
+     */
+    public Map<String, List<Event>> load() {
+        try (FileChannel channel = FileChannel.open(sessionFile.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            final MappedByteBuffer mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer = mappedBuffer;
+
+            if (!isSupported(buffer))
+                return null;
+
+            final int cameraCount = buffer.getInt(8);
+            final int stringCount = buffer.getInt(12);
+            final int cameraTableOffset = (int) buffer.getLong(16);
+            final int stringTableOffset = (int) buffer.getLong(24);
+
+            stringOffsets = findStrings(buffer, stringTableOffset, stringCount);
+
+            final Map<String, List<Event>> events = new LinkedHashMap<>();
+
+            for (int i = 0; i < cameraCount; i++) {
+                final int entryOffset = cameraTableOffset + i * CAMERA_ENTRY_SIZE;
+                final String cameraName = getString(buffer.getInt(entryOffset));
+
+                events.put(cameraName, new CameraEvents(cameraName, buffer.getInt(entryOffset + 4),
+                        (int) buffer.getLong(entryOffset + 8)));
+            }
+
+            return events;
+        } catch (IOException | IndexOutOfBoundsException e) {
+            logger.error("Error reading binary session", e);
+            return null;
+        }
+    }
+
+    /**
+     * Read a session's camera names, shot count and duration without decoding
+     * any events. The file is read instead of mapped, thus it is closed again
+     * as soon as this returns.
+     * 
+     * @param lastModified
+     *            the time the file was modified, read before the file was
+     * @param length
+     *            the file's length, read before the file was
+     * @return the session's summary, or <tt>Optional.empty()</tt> if the file
+     *         is not a binary session
+     */
+    Optional<SessionSummary> summarize(long lastModified, long length) {
+        try (FileChannel channel = FileChannel.open(sessionFile.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer header = read(channel, 0, (int) Math.min(channel.size(), HEADER_SIZE));
+
+            if (!isSupported(header))
+                return Optional.empty();
+
+            final int cameraCount = header.getInt(8);
+            final int stringCount = header.getInt(12);
+            final long cameraTableOffset = header.getLong(16);
+            final long stringTableOffset = header.getLong(24);
+
+            // The camera and string tables are at the end of the file
+            final ByteBuffer tables = read(channel, cameraTableOffset, (int) (channel.size() - cameraTableOffset));
+            final int[] tableStringOffsets = findStrings(tables, (int) (stringTableOffset - cameraTableOffset),
+                    stringCount);
+
+            final List<String> cameraNames = new ArrayList<>();
+            int shotCount = 0;
+            long duration = 0;
+
+            for (int i = 0; i < cameraCount; i++) {
+                final int entryOffset = i * CAMERA_ENTRY_SIZE;
+                final int eventCount = tables.getInt(entryOffset + 4);
+                final long firstRecordOffset = tables.getLong(entryOffset + 8);
+
+                cameraNames.add(readString(tables, tableStringOffsets[tables.getInt(entryOffset)]));
+                shotCount += countShots(channel, firstRecordOffset, eventCount);
+
+                if (eventCount > 0) {
+                    final long lastRecordOffset = firstRecordOffset + (long) (eventCount - 1) * RECORD_SIZE;
+                    duration = Math.max(duration, read(channel, lastRecordOffset + TIMESTAMP, Long.BYTES).getLong(0));
+                }
+            }
+
+            Collections.sort(cameraNames);
+
+            return Optional.of(new SessionSummary(sessionFile, lastModified, length, cameraNames, shotCount, duration));
+        } catch (IOException | IndexOutOfBoundsException e) {
+            logger.error("Error reading binary session", e);
+            return Optional.empty();
+        }
+    }
+
+    // Only the type byte of each record is looked at, but records are read a
+    // block at a time
+    private static int countShots(FileChannel channel, long firstRecordOffset, int eventCount) throws IOException {
+        int shotCount = 0;
+
+        for (int first = 0; first < eventCount; first += RECORDS_PER_READ) {
+            final int records = Math.min(RECORDS_PER_READ, eventCount - first);
+            final ByteBuffer block = read(channel, firstRecordOffset + (long) first * RECORD_SIZE,
+                    records * RECORD_SIZE);
+
+            for (int i = 0; i < records; i++) {
+                if (block.get(i * RECORD_SIZE + TYPE) == TYPE_SHOT)
+                    shotCount++;
+            }
+        }
+
+        return shotCount;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        final ByteBuffer readBuffer = ByteBuffer.allocate(size);
+
+        while (readBuffer.hasRemaining()) {
+            if (channel.read(readBuffer, position + readBuffer.position()) < 0)
+                throw new IOException("Binary session is cut off");
+        }
+
+        return readBuffer;
+    }
+
+    private boolean isSupported(ByteBuffer header) {
+        if (header.limit() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            logger.error("Not a binary session: {}", sessionFile.getPath());
+            return false;
+        }
+
+        if (header.getInt(4) != VERSION) {
+            logger.error("Unsupported binary session version {}: {}", header.getInt(4), sessionFile.getPath());
+            return false;
+        }
+
+        return true;
+    }
+
+    private static int[] findStrings(ByteBuffer source, int stringTableOffset, int stringCount) {
+        final int[] offsets = new int[stringCount];
+        int stringOffset = stringTableOffset;
+
+        for (int i = 0; i < stringCount; i++) {
+            offsets[i] = stringOffset;
+            stringOffset += Integer.BYTES + source.getInt(stringOffset);
+        }
+
+        return offsets;
+    }
+
+    private String getString(int index) {
+        return readString(buffer, stringOffsets[index]);
+    }
+
+    private static String readString(ByteBuffer source, int offset) {
+        final byte[] bytes = new byte[source.getInt(offset)];
+
+        // Reading through a duplicate leaves the shared buffer's position
+        // alone
+        final ByteBuffer stringBuffer = source.duplicate();
+        stringBuffer.position(offset + Integer.BYTES);
+        stringBuffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Optional<String> getOptionalString(int index) {
+        return index < 0 ? Optional.empty() : Optional.of(getString(index));
+    }
+
+    private static Optional<Integer> getOptionalIndex(int index) {
+        return index < 0 ? Optional.empty() : Optional.of(index);
+    }
+
+    static ShotColor decodeColor(byte color) {
+        switch (color) {
+        case 0:
+            return ShotColor.RED;
+        case 2:
+            return ShotColor.INFRARED;
+        default:
+            return ShotColor.GREEN;
+        }
+    }
+
+    private Event decodeEvent(String cameraName, int offset) {
+        final long timestamp = buffer.getLong(offset + TIMESTAMP);
+        final int index = buffer.getInt(offset + INDEX);
+
+        switch (buffer.get(offset + TYPE)) {
+        case TYPE_SHOT:
+            final int flags = buffer.get(offset + FLAGS);
+            final DisplayShot shot = new DisplayShot(decodeColor(buffer.get(offset + COLOR)),
+                    buffer.getDouble(offset + X), buffer.getDouble(offset + Y), buffer.getLong(offset + SHOT_TIMESTAMP),
+                    buffer.getInt(offset + MARKER_RADIUS));
+
+            return new ShotEvent(cameraName, timestamp, shot, (flags & FLAG_MALFUNCTION) != 0,
+                    (flags & FLAG_RELOAD) != 0, getOptionalIndex(index),
+                    getOptionalIndex(buffer.getInt(offset + HIT_REGION_INDEX)),
+                    getOptionalString(buffer.getInt(offset + STRING)));
+
+        case TYPE_TARGET_ADDED:
+            return new TargetAddedEvent(cameraName, timestamp, getString(buffer.getInt(offset + STRING)));
+
+        case TYPE_TARGET_REMOVED:
+            return new TargetRemovedEvent(cameraName, timestamp, index);
+
+        case TYPE_TARGET_RESIZED:
+            return new TargetResizedEvent(cameraName, timestamp, index, buffer.getDouble(offset + X),
+                    buffer.getDouble(offset + Y));
+
+        case TYPE_TARGET_MOVED:
+            return new TargetMovedEvent(cameraName, timestamp, index, buffer.getInt(offset + MARKER_RADIUS),
+                    buffer.getInt(offset + HIT_REGION_INDEX));
+
+        case TYPE_EXERCISE_FEED_MESSAGE:
+            return new ExerciseFeedMessageEvent(cameraName, timestamp, getString(buffer.getInt(offset + STRING)));
+
+        default:
+            throw new IllegalStateException(String.format("Unknown event type %d at offset %d in %s",
+                    buffer.get(offset + TYPE), offset, sessionFile.getPath()));
+        }
+    }
+
+    // Decodes each event the first time it is read and returns the same
+    // instance after that, thus events can be compared by identity as with the
+    // other session formats
+    private class CameraEvents extends AbstractList<Event> implements RandomAccess {
+        private final String cameraName;
+        private final int firstRecordOffset;
+        private final Event[] events;
+
+        public CameraEvents(String cameraName, int eventCount, int firstRecordOffset) {
+            this.cameraName = cameraName;
+            this.firstRecordOffset = firstRecordOffset;
+            events = new Event[eventCount];
+        }
+
+        @Override
+        public synchronized Event get(int index) {
+            if (events[index] == null)
+                events[index] = decodeEvent(cameraName, firstRecordOffset + index * RECORD_SIZE);
+
+            return events[index];
+        }
+
+        @Override
+        public int size() {
+            return events.length;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+import static com.shootoff.session.io.BinarySessionFormat.*;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.shot.DisplayShot;
+import com.shootoff.camera.shot.ShotColor;
+
+/**
+ * Writes sessions in the binary format described by
+ * {@link BinarySessionFormat}, which {@link BinarySessionReader} can open
+ * without reading every event.
+ */
+public class BinarySessionWriter implements EventVisitor {
+    private final Logger logger = LoggerFactory.getLogger(BinarySessionWriter.class);
+
+    private final File sessionFile;
+    private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+    private final List<CameraEntry> cameras = new ArrayList<>();
+    private CameraEntry currentCamera;
+
+    public BinarySessionWriter(File sessionFile) {
+        this.sessionFile = sessionFile;
+    }
+
+    private int getStringIndex(String string) {
+        final Integer index = stringIndexes.get(string);
+        if (index != null)
+            return index;
+
+        strings.add(string);
+        stringIndexes.put(string, strings.size() - 1);
+        return strings.size() - 1;
+    }
+
+    // Starts a record with every optional field unset
+    private ByteBuffer startRecord(byte type, long timestamp) {
+        record.clear();
+        record.put(new byte[RECORD_SIZE]);
+        record.put(TYPE, type);
+        record.putInt(INDEX, -1);
+        record.putLong(TIMESTAMP, timestamp);
+        record.putInt(STRING, -1);
+        return record;
+    }
+
+    private void endRecord() {
+        records.write(record.array(), 0, RECORD_SIZE);
+        currentCamera.eventCount++;
+    }
+
+    @Override
+    public void visitCamera(String cameraName) {
+        currentCamera = new CameraEntry(getStringIndex(cameraName), records.size() / RECORD_SIZE);
+    }
+
+    @Override
+    public void visitCameraEnd() {
+        cameras.add(currentCamera);
+    }
+
+    @Override
+    public void visitShot(long timestamp, DisplayShot shot, boolean isMalfunction, boolean isReload,
+            Optional<Integer> targetIndex, Optional<Integer> hitRegionIndex, Optional<String> videoString) {
+        startRecord(TYPE_SHOT, timestamp);
+
+        int flags = 0;
+        if (isMalfunction)
+            flags |= FLAG_MALFUNCTION;
+        if (isReload)
+            flags |= FLAG_RELOAD;
+
+        record.put(FLAGS, (byte) flags);
+        record.put(COLOR, encodeColor(shot.getColor()));
+        record.putInt(INDEX, targetIndex.orElse(-1));
+        record.putDouble(X, shot.getX());
+        record.putDouble(Y, shot.getY());
+        record.putLong(SHOT_TIMESTAMP, shot.getTimestamp());
+        record.putInt(MARKER_RADIUS, (int) shot.getMarker().getRadiusX());
+        record.putInt(HIT_REGION_INDEX, hitRegionIndex.orElse(-1));
+
+        if (videoString.isPresent())
+            record.putInt(STRING, getStringIndex(videoString.get()));
+
+        endRecord();
+    }
+
+    static byte encodeColor(ShotColor color) {
+        switch (color) {
+        case RED:
+            return 0;
+        case INFRARED:
+            return 2;
+        default:
+            return 1;
+        }
+    }
+
+    @Override
+    public void visitTargetAdd(long timestamp, String targetName) {
+        startRecord(TYPE_TARGET_ADDED, timestamp);
+        record.putInt(STRING, getStringIndex(targetName));
+        endRecord();
+    }
+
+    @Override
+    public void visitTargetRemove(long timestamp, int targetIndex) {
+        startRecord(TYPE_TARGET_REMOVED, timestamp);
+        record.putInt(INDEX, targetIndex);
+        endRecord();
+    }
+
+    @Override
+    public void visitTargetResize(long timestamp, int targetIndex, double newWidth, double newHeight) {
+        startRecord(TYPE_TARGET_RESIZED, timestamp);
+        record.putInt(INDEX, targetIndex);
+        record.putDouble(X, newWidth);
+        record.putDouble(Y, newHeight);
+        endRecord();
+    }
+
+    @Override
+    public void visitTargetMove(long timestamp, int targetIndex, int newX, int newY) {
+        startRecord(TYPE_TARGET_MOVED, timestamp);
+        record.putInt(INDEX, targetIndex);
+        record.putInt(MARKER_RADIUS, newX);
+        record.putInt(HIT_REGION_INDEX, newY);
+        endRecord();
+    }
+
+    @Override
+    public void visitExerciseFeedMessage(long timestamp, String message) {
+        startRecord(TYPE_EXERCISE_FEED_MESSAGE, timestamp);
+        record.putInt(STRING, getStringIndex(message));
+        endRecord();
+    }
+
+    @Override
+    public void visitEnd() throws IOException {
+        final long cameraTableOffset = HEADER_SIZE + (long) records.size();
+        final long stringTableOffset = cameraTableOffset + (long) cameras.size() * CAMERA_ENTRY_SIZE;
+
+        final File sessionsFolder = sessionFile.getAbsoluteFile().getParentFile();
+        if (!sessionsFolder.exists() && !sessionsFolder.mkdirs())
+            logger.error("Failed to make directory to store sessions: {}", sessionsFolder.getPath());
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(sessionFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(cameras.size());
+            out.writeInt(strings.size());
+            out.writeLong(cameraTableOffset);
+            out.writeLong(stringTableOffset);
+
+            records.writeTo(out);
+
+            for (final CameraEntry camera : cameras) {
+                out.writeInt(camera.nameIndex);
+                out.writeInt(camera.eventCount);
+                out.writeLong(HEADER_SIZE + (long) camera.firstRecord * RECORD_SIZE);
+            }
+
+            for (final String string : strings) {
+                final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static class CameraEntry {
+        private final int nameIndex;
+        private final int firstRecord;
+        private int eventCount = 0;
+
+        public CameraEntry(int nameIndex, int firstRecord) {
+            this.nameIndex = nameIndex;
+            this.firstRecord = firstRecord;
+        }
+    }
+}
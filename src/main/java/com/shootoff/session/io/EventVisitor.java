@@ -18,6 +18,7 @@
 
 package com.shootoff.session.io;
 
+import java.io.IOException;
 import java.util.Optional;
 
 import com.shootoff.camera.shot.DisplayShot;
@@ -40,5 +41,5 @@ public interface EventVisitor {
 
     public void visitExerciseFeedMessage(long timestamp, String message);
 
-    public void visitEnd();
+    public void visitEnd() throws IOException;
 }
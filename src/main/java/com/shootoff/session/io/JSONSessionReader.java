@@ -77,80 +77,10 @@ public class JSONSessionReader {
                 final Iterator<JSONObject> itEvents = cameraEvents.iterator();
 
                 while (itEvents.hasNext()) {
-                    final JSONObject event = itEvents.next();
-
-                    final String eventType = (String) event.get("type");
-
-                    switch (eventType) {
-                    case "shot":
-                        ShotColor c;
-
-                        if (event.get("color").equals("0xff0000ff") || event.get("color").equals("RED")) {
-                            c = ShotColor.RED;
-                        } else if (event.get("color").equals("0xffa500ff") || event.get("color").equals("INFRARED")) {
-                            c = ShotColor.INFRARED;
-                        } else {
-                            c = ShotColor.GREEN;
-                        }
-
-                        final DisplayShot shot = new DisplayShot(c, (double) event.get("x"), (double) event.get("y"),
-                                (Long) event.get("shotTimestamp"), ((Long) event.get("markerRadius")).intValue());
-
-                        final boolean isMalfunction = (boolean) event.get("isMalfunction");
-
-                        final boolean isReload = (boolean) event.get("isReload");
-
-                        Optional<Integer> targetIndex;
-                        int index = ((Long) event.get("targetIndex")).intValue();
-                        if (index == -1) {
-                            targetIndex = Optional.empty();
-                        } else {
-                            targetIndex = Optional.of(index);
-                        }
-
-                        Optional<Integer> hitRegionIndex;
-                        index = ((Long) event.get("hitRegionIndex")).intValue();
-                        if (index == -1) {
-                            hitRegionIndex = Optional.empty();
-                        } else {
-                            hitRegionIndex = Optional.of(index);
-                        }
-
-                        final Optional<String> videoString = Optional.ofNullable((String) event.get("videos"));
-
-                        events.get(cameraName).add(new ShotEvent(cameraName, (Long) event.get("timestamp"), shot,
-                                isMalfunction, isReload, targetIndex, hitRegionIndex, videoString));
-                        break;
-
-                    case "targetAdded":
-                        events.get(cameraName).add(new TargetAddedEvent(cameraName, (Long) event.get("timestamp"),
-                                (String) event.get("name")));
-                        break;
-
-                    case "targetRemoved":
-                        events.get(cameraName).add(new TargetRemovedEvent(cameraName, (Long) event.get("timestamp"),
-                                ((Long) event.get("index")).intValue()));
-                        break;
-
-                    case "targetResized":
-                        events.get(cameraName)
-                                .add(new TargetResizedEvent(cameraName, (Long) event.get("timestamp"),
-                                        ((Long) event.get("index")).intValue(), (Double) event.get("newWidth"),
-                                        (Double) event.get("newHeight")));
-                        break;
-
-                    case "targetMoved":
-                        events.get(cameraName)
-                                .add(new TargetMovedEvent(cameraName, (Long) event.get("timestamp"),
-                                        ((Long) event.get("index")).intValue(), ((Long) event.get("newX")).intValue(),
-                                        ((Long) event.get("newY")).intValue()));
-                        break;
-
-                    case "exerciseFeedMessage":
-                        events.get(cameraName).add(new ExerciseFeedMessageEvent(cameraName,
-                                (Long) event.get("timestamp"), (String) event.get("message")));
-                        break;
-                    }
+                    final Optional<Event> event = readEvent(cameraName, itEvents.next());
+
+                    if (event.isPresent())
+                        events.get(cameraName).add(event.get());
                 }
             }
 
@@ -160,4 +90,78 @@ public class JSONSessionReader {
 
         return events;
     }
+
+    /**
+     * Read one event as written by {@link JSONSessionWriter}.
+     * 
+     * @return the event or empty if its type is unknown
+     */
+    static Optional<Event> readEvent(String cameraName, JSONObject event) {
+        final String eventType = (String) event.get("type");
+
+        switch (eventType) {
+        case "shot":
+            ShotColor c;
+
+            if (event.get("color").equals("0xff0000ff") || event.get("color").equals("RED")) {
+                c = ShotColor.RED;
+            } else if (event.get("color").equals("0xffa500ff") || event.get("color").equals("INFRARED")) {
+                c = ShotColor.INFRARED;
+            } else {
+                c = ShotColor.GREEN;
+            }
+
+            final DisplayShot shot = new DisplayShot(c, (double) event.get("x"), (double) event.get("y"),
+                    (Long) event.get("shotTimestamp"), ((Long) event.get("markerRadius")).intValue());
+
+            final boolean isMalfunction = (boolean) event.get("isMalfunction");
+
+            final boolean isReload = (boolean) event.get("isReload");
+
+            Optional<Integer> targetIndex;
+            int index = ((Long) event.get("targetIndex")).intValue();
+            if (index == -1) {
+                targetIndex = Optional.empty();
+            } else {
+                targetIndex = Optional.of(index);
+            }
+
+            Optional<Integer> hitRegionIndex;
+            index = ((Long) event.get("hitRegionIndex")).intValue();
+            if (index == -1) {
+                hitRegionIndex = Optional.empty();
+            } else {
+                hitRegionIndex = Optional.of(index);
+            }
+
+            final Optional<String> videoString = Optional.ofNullable((String) event.get("videos"));
+
+            return Optional.of(new ShotEvent(cameraName, (Long) event.get("timestamp"), shot, isMalfunction, isReload,
+                    targetIndex, hitRegionIndex, videoString));
+
+        case "targetAdded":
+            return Optional.of(
+                    new TargetAddedEvent(cameraName, (Long) event.get("timestamp"), (String) event.get("name")));
+
+        case "targetRemoved":
+            return Optional.of(new TargetRemovedEvent(cameraName, (Long) event.get("timestamp"),
+                    ((Long) event.get("index")).intValue()));
+
+        case "targetResized":
+            return Optional.of(new TargetResizedEvent(cameraName, (Long) event.get("timestamp"),
+                    ((Long) event.get("index")).intValue(), (Double) event.get("newWidth"),
+                    (Double) event.get("newHeight")));
+
+        case "targetMoved":
+            return Optional.of(new TargetMovedEvent(cameraName, (Long) event.get("timestamp"),
+                    ((Long) event.get("index")).intValue(), ((Long) event.get("newX")).intValue(),
+                    ((Long) event.get("newY")).intValue()));
+
+        case "exerciseFeedMessage":
+            return Optional.of(new ExerciseFeedMessageEvent(cameraName, (Long) event.get("timestamp"),
+                    (String) event.get("message")));
+        }
+
+        return Optional.empty();
+    }
 }
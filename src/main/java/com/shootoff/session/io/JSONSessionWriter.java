@@ -60,6 +60,12 @@ public class JSONSessionWriter implements EventVisitor {
         cameras.add(currentCamera);
     }
 
+    // Overridden by the session journal to write each event on its own
+    @SuppressWarnings("unchecked")
+    void addEvent(JSONObject event) {
+        currentCameraEvents.add(event);
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public void visitShot(long timestamp, DisplayShot shot, boolean isMalfunction, boolean isReload,
@@ -92,7 +98,7 @@ public class JSONSessionWriter implements EventVisitor {
             event.put("videos", videoString.get());
         }
 
-        currentCameraEvents.add(event);
+        addEvent(event);
     }
 
     @SuppressWarnings("unchecked")
@@ -103,7 +109,7 @@ public class JSONSessionWriter implements EventVisitor {
         event.put("timestamp", timestamp);
         event.put("name", targetName);
 
-        currentCameraEvents.add(event);
+        addEvent(event);
     }
 
     @SuppressWarnings("unchecked")
@@ -114,7 +120,7 @@ public class JSONSessionWriter implements EventVisitor {
         event.put("timestamp", timestamp);
         event.put("index", targetIndex);
 
-        currentCameraEvents.add(event);
+        addEvent(event);
     }
 
     @SuppressWarnings("unchecked")
@@ -127,7 +133,7 @@ public class JSONSessionWriter implements EventVisitor {
         event.put("newWidth", newWidth);
         event.put("newHeight", newHeight);
 
-        currentCameraEvents.add(event);
+        addEvent(event);
     }
 
     @SuppressWarnings("unchecked")
@@ -140,7 +146,7 @@ public class JSONSessionWriter implements EventVisitor {
         event.put("newX", newX);
         event.put("newY", newY);
 
-        currentCameraEvents.add(event);
+        addEvent(event);
     }
 
     @SuppressWarnings("unchecked")
@@ -151,12 +157,12 @@ public class JSONSessionWriter implements EventVisitor {
         event.put("timestamp", timestamp);
         event.put("message", message);
 
-        currentCameraEvents.add(event);
+        addEvent(event);
     }
 
     @SuppressWarnings("unchecked")
     @Override
-    public void visitEnd() {
+    public void visitEnd() throws IOException {
         final JSONObject session = new JSONObject();
         session.put("cameras", cameras);
 
@@ -166,8 +172,6 @@ public class JSONSessionWriter implements EventVisitor {
             file = new OutputStreamWriter(new FileOutputStream(sessionFile), "UTF-8");
             file.write(session.toJSONString());
             file.flush();
-        } catch (final IOException e) {
-            logger.error("Error writing JSON session", e);
         } finally {
             try {
                 if (file != null)
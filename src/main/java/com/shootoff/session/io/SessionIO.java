@@ -19,10 +19,16 @@
 package com.shootoff.session.io;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.shootoff.session.Event;
 import com.shootoff.session.ExerciseFeedMessageEvent;
 import com.shootoff.session.SessionRecorder;
@@ -33,61 +39,92 @@ import com.shootoff.session.TargetRemovedEvent;
 import com.shootoff.session.TargetResizedEvent;
 
 public class SessionIO {
-    public static void saveSession(SessionRecorder sessionRecorder, File sessionFile) {
+    private static final Logger logger = LoggerFactory.getLogger(SessionIO.class);
+
+    /**
+     * Save a session, which is written to a temporary file next to
+     * <tt>sessionFile</tt> and only moved into place once it is complete.
+     * 
+     * @return <tt>true</tt> if the session was saved, <tt>false</tt> if it was
+     *         not, in which case any session already at <tt>sessionFile</tt>
+     *         is left as it was
+     */
+    public static boolean saveSession(SessionRecorder sessionRecorder, File sessionFile) {
+        final File tempFile = new File(sessionFile.getAbsoluteFile().getParentFile(), sessionFile.getName() + ".tmp");
         EventVisitor visitor;
 
         if (sessionFile.getName().endsWith("xml")) {
-            visitor = new XMLSessionWriter(sessionFile);
+            visitor = new XMLSessionWriter(tempFile);
         } else if (sessionFile.getName().endsWith("json")) {
-            visitor = new JSONSessionWriter(sessionFile);
+            visitor = new JSONSessionWriter(tempFile);
+        } else if (sessionFile.getName().endsWith(BinarySessionReader.EXTENSION)) {
+            visitor = new BinarySessionWriter(tempFile);
         } else {
             System.err.println("Unknown session file type.");
-            return;
+            return false;
         }
 
-        for (final String cameraName : sessionRecorder.getEvents().keySet()) {
-            visitor.visitCamera(cameraName);
-
-            for (final Event e : sessionRecorder.getCameraEvents(cameraName)) {
-                switch (e.getType()) {
-                case SHOT:
-                    final ShotEvent se = (ShotEvent) e;
-                    visitor.visitShot(se.getTimestamp(), se.getShot(), se.isMalfunction(), se.isReload(),
-                            se.getTargetIndex(), se.getHitRegionIndex(), se.getVideoString());
-                    break;
-
-                case TARGET_ADDED:
-                    final TargetAddedEvent tae = (TargetAddedEvent) e;
-                    visitor.visitTargetAdd(tae.getTimestamp(), tae.getTargetName());
-                    break;
-
-                case TARGET_REMOVED:
-                    final TargetRemovedEvent tre = (TargetRemovedEvent) e;
-                    visitor.visitTargetRemove(tre.getTimestamp(), tre.getTargetIndex());
-                    break;
-
-                case TARGET_RESIZED:
-                    final TargetResizedEvent trre = (TargetResizedEvent) e;
-                    visitor.visitTargetResize(trre.getTimestamp(), trre.getTargetIndex(), trre.getNewWidth(),
-                            trre.getNewHeight());
-                    break;
-
-                case TARGET_MOVED:
-                    final TargetMovedEvent tme = (TargetMovedEvent) e;
-                    visitor.visitTargetMove(tme.getTimestamp(), tme.getTargetIndex(), tme.getNewX(), tme.getNewY());
-                    break;
-
-                case EXERCISE_FEED_MESSAGE:
-                    final ExerciseFeedMessageEvent pfme = (ExerciseFeedMessageEvent) e;
-                    visitor.visitExerciseFeedMessage(pfme.getTimestamp(), pfme.getMessage());
-                    break;
-                }
-            }
+        // A journaled session is read back from disk, thus only get the
+        // events once
+        final Map<String, List<Event>> events = sessionRecorder.getEvents();
+
+        for (final Map.Entry<String, List<Event>> cameraEvents : events.entrySet()) {
+            visitor.visitCamera(cameraEvents.getKey());
+
+            for (final Event e : cameraEvents.getValue())
+                visitEvent(visitor, e);
 
             visitor.visitCameraEnd();
         }
 
-        visitor.visitEnd();
+        try {
+            visitor.visitEnd();
+            Files.move(tempFile.toPath(), sessionFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (final IOException e) {
+            logger.error("Error saving session {}", sessionFile.getPath(), e);
+
+            if (tempFile.exists() && !tempFile.delete())
+                logger.warn("Failed to delete partially saved session {}", tempFile.getPath());
+
+            return false;
+        }
+    }
+
+    static void visitEvent(EventVisitor visitor, Event e) {
+        switch (e.getType()) {
+        case SHOT:
+            final ShotEvent se = (ShotEvent) e;
+            visitor.visitShot(se.getTimestamp(), se.getShot(), se.isMalfunction(), se.isReload(), se.getTargetIndex(),
+                    se.getHitRegionIndex(), se.getVideoString());
+            break;
+
+        case TARGET_ADDED:
+            final TargetAddedEvent tae = (TargetAddedEvent) e;
+            visitor.visitTargetAdd(tae.getTimestamp(), tae.getTargetName());
+            break;
+
+        case TARGET_REMOVED:
+            final TargetRemovedEvent tre = (TargetRemovedEvent) e;
+            visitor.visitTargetRemove(tre.getTimestamp(), tre.getTargetIndex());
+            break;
+
+        case TARGET_RESIZED:
+            final TargetResizedEvent trre = (TargetResizedEvent) e;
+            visitor.visitTargetResize(trre.getTimestamp(), trre.getTargetIndex(), trre.getNewWidth(),
+                    trre.getNewHeight());
+            break;
+
+        case TARGET_MOVED:
+            final TargetMovedEvent tme = (TargetMovedEvent) e;
+            visitor.visitTargetMove(tme.getTimestamp(), tme.getTargetIndex(), tme.getNewX(), tme.getNewY());
+            break;
+
+        case EXERCISE_FEED_MESSAGE:
+            final ExerciseFeedMessageEvent pfme = (ExerciseFeedMessageEvent) e;
+            visitor.visitExerciseFeedMessage(pfme.getTimestamp(), pfme.getMessage());
+            break;
+        }
     }
 
     public static Optional<SessionRecorder> loadSession(File sessionFile) {
@@ -97,6 +134,14 @@ public class SessionIO {
             events = new XMLSessionReader(sessionFile).load();
         } else if (sessionFile.getName().endsWith("json")) {
             events = new JSONSessionReader(sessionFile).load();
+        } else if (sessionFile.getName().endsWith(BinarySessionReader.EXTENSION)) {
+            events = new BinarySessionReader(sessionFile).load();
+        } else if (sessionFile.getName().endsWith(SessionJournal.EXTENSION)) {
+            // E.g. a session that was still being recorded when ShootOFF
+            // crashed
+            final SessionRecorder sessionRecorder = new SessionRecorder();
+            sessionRecorder.addJournaledEvents(SessionJournal.load(sessionFile));
+            return Optional.of(sessionRecorder);
         } else {
             System.err.println("Unknown session file type.");
             return Optional.empty();
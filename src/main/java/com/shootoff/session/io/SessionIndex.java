@@ -0,0 +1,283 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.session.Event;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.ShotEvent;
+
+/**
+ * Keeps a summary of every session in the sessions folder in a file next to
+ * the sessions, thus listing thousands of sessions does not require loading
+ * any of them. Updating the index only loads the sessions that were added or
+ * changed since the index was last saved.
+ *
+ * Instances are thread safe, but an update can take a long time when many
+ * sessions are new, thus it should not run on the JavaFX thread.
+ */
+public class SessionIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SessionIndex.class);
+
+    public static final String INDEX_FILE_NAME = "sessions.index";
+    public static final int PAGE_SIZE = 50;
+
+    private static final long INDEX_VERSION = 1;
+
+    private final File sessionsFolder;
+    private final File indexFile;
+
+    // Summaries by session file name
+    private Map<String, SessionSummary> summaries;
+
+    public SessionIndex(File sessionsFolder) {
+        this.sessionsFolder = sessionsFolder;
+        indexFile = new File(sessionsFolder, INDEX_FILE_NAME);
+    }
+
+    /**
+     * @return whether a file in the sessions folder is a session the viewer
+     *         can open. Sessions that were not saved, e.g. because ShootOFF
+     *         crashed, are only in a journal.
+     */
+    public static boolean isSession(String fileName) {
+        return fileName.endsWith(".xml") || fileName.endsWith(BinarySessionReader.EXTENSION)
+                || fileName.endsWith(SessionJournal.EXTENSION);
+    }
+
+    /**
+     * Bring the index up to date with the sessions folder and save it if
+     * anything changed.
+     * 
+     * @param pageListener
+     *            receives the summaries a page at a time as they become
+     *            available, first the ones that were already indexed and
+     *            then the ones for sessions that had to be loaded. It is
+     *            called on the thread doing the update.
+     * @return a summary of every session in the folder, newest first
+     */
+    public synchronized List<SessionSummary> update(Consumer<List<SessionSummary>> pageListener) {
+        if (summaries == null)
+            summaries = loadIndex();
+
+        final File[] sessionFiles = sessionsFolder.listFiles((dir, name) -> isSession(name));
+
+        if (sessionFiles == null) {
+            logger.debug("No sessions folder available: {}", sessionsFolder.getPath());
+            return new ArrayList<>();
+        }
+
+        final Map<String, SessionSummary> currentSummaries = new HashMap<>();
+        final List<File> changedFiles = new ArrayList<>();
+        final List<SessionSummary> unchangedSummaries = new ArrayList<>();
+
+        for (final File sessionFile : sessionFiles) {
+            final SessionSummary summary = summaries.get(sessionFile.getName());
+
+            if (summary != null && summary.isCurrent(sessionFile)) {
+                currentSummaries.put(sessionFile.getName(), summary);
+                unchangedSummaries.add(summary);
+            } else {
+                changedFiles.add(sessionFile);
+            }
+        }
+
+        Collections.sort(unchangedSummaries, SessionSummary.NEWEST_FIRST);
+        for (int i = 0; i < unchangedSummaries.size(); i += PAGE_SIZE)
+            pageListener.accept(unchangedSummaries.subList(i, Math.min(i + PAGE_SIZE, unchangedSummaries.size())));
+
+        changedFiles.sort((a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        List<SessionSummary> page = new ArrayList<>();
+
+        for (final File sessionFile : changedFiles) {
+            final Optional<SessionSummary> summary = summarize(sessionFile);
+
+            if (!summary.isPresent())
+                continue;
+
+            currentSummaries.put(sessionFile.getName(), summary.get());
+            page.add(summary.get());
+
+            if (page.size() == PAGE_SIZE) {
+                pageListener.accept(page);
+                page = new ArrayList<>();
+            }
+        }
+
+        if (!page.isEmpty())
+            pageListener.accept(page);
+
+        final boolean indexChanged = !currentSummaries.equals(summaries);
+        summaries = currentSummaries;
+
+        if (indexChanged)
+            saveIndex();
+
+        final List<SessionSummary> allSummaries = new ArrayList<>(summaries.values());
+        Collections.sort(allSummaries, SessionSummary.NEWEST_FIRST);
+        return allSummaries;
+    }
+
+    static Optional<SessionSummary> summarize(File sessionFile) {
+        // Read the file's state first so that a change made while the session
+        // is loading is noticed by the next update
+        final long lastModified = sessionFile.lastModified();
+        final long length = sessionFile.length();
+
+        if (sessionFile.getName().endsWith(BinarySessionReader.EXTENSION)) {
+            final Optional<SessionSummary> summary = new BinarySessionReader(sessionFile).summarize(lastModified,
+                    length);
+
+            if (!summary.isPresent())
+                logger.warn("Failed to index session: {}", sessionFile.getPath());
+
+            return summary;
+        }
+
+        final Optional<SessionRecorder> session = SessionIO.loadSession(sessionFile);
+
+        if (!session.isPresent()) {
+            logger.warn("Failed to index session: {}", sessionFile.getPath());
+            return Optional.empty();
+        }
+
+        final Map<String, List<Event>> events = session.get().getEvents();
+        final List<String> cameraNames = new ArrayList<>(events.keySet());
+        Collections.sort(cameraNames);
+
+        int shotCount = 0;
+        long duration = 0;
+
+        for (final List<Event> cameraEvents : events.values()) {
+            shotCount += countShots(cameraEvents);
+
+            if (!cameraEvents.isEmpty())
+                duration = Math.max(duration, cameraEvents.get(cameraEvents.size() - 1).getTimestamp());
+        }
+
+        return Optional.of(new SessionSummary(sessionFile, lastModified, length, cameraNames, shotCount, duration));
+    }
+
+    private static int countShots(List<Event> cameraEvents) {
+        int shotCount = 0;
+
+        for (final Event e : cameraEvents) {
+            if (e instanceof ShotEvent)
+                shotCount++;
+        }
+
+        return shotCount;
+    }
+
+    private Map<String, SessionSummary> loadIndex() {
+        final Map<String, SessionSummary> indexedSummaries = new HashMap<>();
+
+        if (!indexFile.exists())
+            return indexedSummaries;
+
+        try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            final JSONObject index = (JSONObject) new JSONParser().parse(reader);
+
+            if (!Long.valueOf(INDEX_VERSION).equals(index.get("version"))) {
+                logger.info("Rebuilding session index with an unknown version: {}", index.get("version"));
+                return indexedSummaries;
+            }
+
+            for (final Object s : (JSONArray) index.get("sessions")) {
+                final JSONObject summary = (JSONObject) s;
+                final String fileName = (String) summary.get("file");
+
+                final List<String> cameraNames = new ArrayList<>();
+                for (final Object cameraName : (JSONArray) summary.get("cameras"))
+                    cameraNames.add((String) cameraName);
+
+                indexedSummaries.put(fileName,
+                        new SessionSummary(new File(sessionsFolder, fileName), (Long) summary.get("lastModified"),
+                                (Long) summary.get("length"), cameraNames, ((Long) summary.get("shots")).intValue(),
+                                (Long) summary.get("duration")));
+            }
+        } catch (IOException | ParseException | ClassCastException | NullPointerException e) {
+            // The index only saves time, thus it is simply rebuilt
+            logger.warn("Rebuilding unreadable session index: " + indexFile.getPath(), e);
+            indexedSummaries.clear();
+        }
+
+        return indexedSummaries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void saveIndex() {
+        final JSONArray sessions = new JSONArray();
+
+        for (final SessionSummary summary : summaries.values()) {
+            final JSONObject s = new JSONObject();
+            s.put("file", summary.getSessionFile().getName());
+            s.put("lastModified", summary.getLastModified());
+            s.put("length", summary.getLength());
+
+            final JSONArray cameraNames = new JSONArray();
+            cameraNames.addAll(summary.getCameraNames());
+            s.put("cameras", cameraNames);
+
+            s.put("shots", summary.getShotCount());
+            s.put("duration", summary.getDuration());
+
+            sessions.add(s);
+        }
+
+        final JSONObject index = new JSONObject();
+        index.put("version", INDEX_VERSION);
+        index.put("sessions", sessions);
+
+        // Written to a temporary file first so that a crash cannot leave a
+        // partial index behind
+        final File tempFile = new File(sessionsFolder, INDEX_FILE_NAME + ".tmp");
+
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                index.writeJSONString(writer);
+            }
+
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            logger.error("Error saving session index", e);
+        }
+    }
+}
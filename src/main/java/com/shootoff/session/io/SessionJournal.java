@@ -0,0 +1,181 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.Closeable;
+import com.shootoff.session.Event;
+
+/**
+ * Appends session events to a file as they are recorded so that a session
+ * does not have to be kept in memory and survives ShootOFF crashing. Each line
+ * is one event in the same form {@link JSONSessionWriter} uses plus the name
+ * of the camera it belongs to.
+ *
+ * Every event is handed to the operating system as soon as it is appended,
+ * but the file is only forced to disk every {@link #SYNC_INTERVAL}
+ * milliseconds because doing so for every shot would slow recording down.
+ */
+public class SessionJournal implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SessionJournal.class);
+
+    public static final String EXTENSION = ".journal";
+
+    private static final long SYNC_INTERVAL = 1000; // ms
+
+    private final File journalFile;
+    private final FileOutputStream journalStream;
+    private final Writer journalWriter;
+    private long lastSyncTime = System.currentTimeMillis();
+
+    // Turns visited events into JSON objects, one at a time
+    private final JSONSessionWriter encoder = new JSONSessionWriter(null) {
+        @Override
+        void addEvent(JSONObject event) {
+            encodedEvent = event;
+        }
+    };
+    private JSONObject encodedEvent;
+
+    /**
+     * Open a journal, appending to it if it already exists.
+     */
+    public SessionJournal(File journalFile) throws IOException {
+        this.journalFile = journalFile;
+
+        final File journalFolder = journalFile.getAbsoluteFile().getParentFile();
+        if (!journalFolder.isDirectory() && !journalFolder.mkdirs())
+            throw new IOException("Could not create session journal folder: " + journalFolder.getPath());
+
+        journalStream = new FileOutputStream(journalFile, true);
+        journalWriter = new BufferedWriter(new OutputStreamWriter(journalStream, StandardCharsets.UTF_8));
+    }
+
+    public File getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * Append an event to the end of the journal.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void append(Event event) throws IOException {
+        encodedEvent = null;
+        SessionIO.visitEvent(encoder, event);
+
+        if (encodedEvent == null)
+            return;
+
+        encodedEvent.put("camera", event.getCameraName());
+
+        journalWriter.write(encodedEvent.toJSONString());
+        journalWriter.write('\n');
+        journalWriter.flush();
+
+        final long now = System.currentTimeMillis();
+        if (now - lastSyncTime >= SYNC_INTERVAL) {
+            journalStream.getFD().sync();
+            lastSyncTime = now;
+        }
+    }
+
+    /**
+     * Read every event in a journal, in the order they were appended.
+     * Reading stops at a line that is cut off, such as the last line written
+     * before a crash.
+     *
+     * @return the events for each camera
+     */
+    public static Map<String, List<Event>> load(File journalFile) {
+        final Map<String, List<Event>> events = new HashMap<>();
+        final JSONParser parser = new JSONParser();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+
+                if (line.isEmpty())
+                    continue;
+
+                final JSONObject encodedEvent;
+                try {
+                    encodedEvent = (JSONObject) parser.parse(line);
+                } catch (final ParseException e) {
+                    logger.warn("Session journal {} is cut off at line {}", journalFile.getPath(), lineNumber);
+                    break;
+                }
+
+                final String cameraName = (String) encodedEvent.get("camera");
+                final Optional<Event> event = JSONSessionReader.readEvent(cameraName, encodedEvent);
+
+                if (event.isPresent()) {
+                    if (!events.containsKey(cameraName))
+                        events.put(cameraName, new ArrayList<Event>());
+
+                    events.get(cameraName).add(event.get());
+                }
+            }
+        } catch (final IOException e) {
+            logger.error("Error reading session journal", e);
+        }
+
+        return events;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            journalWriter.flush();
+            journalStream.getFD().sync();
+        } catch (final IOException e) {
+            logger.error("Error syncing session journal", e);
+        }
+
+        try {
+            journalWriter.close();
+        } catch (final IOException e) {
+            logger.error("Error closing session journal", e);
+        }
+    }
+}
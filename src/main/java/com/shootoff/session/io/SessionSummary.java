@@ -0,0 +1,111 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * What the session viewer shows about a session before it is opened. Reading
+ * a summary from the {@link SessionIndex} is much cheaper than loading the
+ * session itself.
+ */
+public class SessionSummary {
+    public static final Comparator<SessionSummary> NEWEST_FIRST = (a, b) -> Long.compare(b.getLastModified(),
+            a.getLastModified());
+
+    private final File sessionFile;
+    private final long lastModified;
+    private final long length;
+    private final List<String> cameraNames;
+    private final int shotCount;
+    private final long duration;
+
+    public SessionSummary(File sessionFile, long lastModified, long length, List<String> cameraNames, int shotCount,
+            long duration) {
+        this.sessionFile = sessionFile;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.cameraNames = Collections.unmodifiableList(cameraNames);
+        this.shotCount = shotCount;
+        this.duration = duration;
+    }
+
+    public File getSessionFile() {
+        return sessionFile;
+    }
+
+    /**
+     * @return the session's name, which is the date and time it was started
+     *         for sessions recorded by ShootOFF
+     */
+    public String getSessionName() {
+        final String fileName = sessionFile.getName();
+        final int extensionStart = fileName.lastIndexOf('.');
+        return extensionStart > 0 ? fileName.substring(0, extensionStart) : fileName;
+    }
+
+    /**
+     * @return when the session file was last changed, in milliseconds since
+     *         the epoch
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return the size of the session file in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    public List<String> getCameraNames() {
+        return cameraNames;
+    }
+
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    /**
+     * @return the timestamp of the session's last event in milliseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return whether this summary still describes a session file, i.e. the
+     *         file has not changed since it was summarized
+     */
+    public boolean isCurrent(File file) {
+        return file.lastModified() == lastModified && file.length() == length;
+    }
+
+    @Override
+    public String toString() {
+        final long seconds = duration / 1000;
+
+        return String.format("%s (%d %s, %d:%02d)", getSessionName(), shotCount, shotCount == 1 ? "shot" : "shots",
+                seconds / 60, seconds % 60);
+    }
+}
@@ -115,26 +115,25 @@ public class XMLSessionWriter implements EventVisitor {
     }
 
     @Override
-    public void visitEnd() {
-        try {
-            final File sessionsFolder = new File(System.getProperty("shootoff.sessions"));
-            if (!sessionsFolder.exists()) {
-                if (!sessionsFolder.mkdir()) {
-                    logger.error("Failed to make directory to store sessions: {}", sessionsFolder.getPath());
-                }
+    public void visitEnd() throws IOException {
+        final File sessionsFolder = new File(System.getProperty("shootoff.sessions"));
+        if (!sessionsFolder.exists()) {
+            if (!sessionsFolder.mkdir()) {
+                logger.error("Failed to make directory to store sessions: {}", sessionsFolder.getPath());
             }
+        }
 
-            final PrintWriter out = new PrintWriter(sessionFile, "UTF-8");
+        final PrintWriter out = new PrintWriter(sessionFile, "UTF-8");
 
-            out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
-            out.println("<session>");
-            out.print(xmlBody.toString());
-            out.println("</session>");
+        out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        out.println("<session>");
+        out.print(xmlBody.toString());
+        out.println("</session>");
 
-            out.close();
+        out.close();
 
-        } catch (final IOException e) {
-            logger.error("Error writing XML session", e);
-        }
+        // PrintWriter swallows write errors
+        if (out.checkError())
+            throw new IOException("Error writing XML session " + sessionFile.getPath());
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.targets;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+
+/**
+ * Records which pixels of an image are not fully transparent using one bit
+ * per pixel. Testing a pixel against the mask is much cheaper than reading it
+ * from the image, let alone scaling the image first.
+ */
+public final class AlphaMask {
+    private final int width;
+    private final int height;
+    private final long[] bits;
+
+    /**
+     * @param argbPixels
+     *            the image's pixels in row-major order, one ARGB value each
+     */
+    public AlphaMask(int width, int height, int[] argbPixels) {
+        if (argbPixels.length < width * height)
+            throw new IllegalArgumentException("Expected at least " + width * height + " pixels");
+
+        this.width = width;
+        this.height = height;
+        bits = new long[(width * height + Long.SIZE - 1) / Long.SIZE];
+
+        for (int i = 0; i < width * height; i++) {
+            if (argbPixels[i] >>> 24 != 0)
+                bits[i / Long.SIZE] |= 1L << (i % Long.SIZE);
+        }
+    }
+
+    public static AlphaMask fromImage(Image image) {
+        final int width = (int) image.getWidth();
+        final int height = (int) image.getHeight();
+        final int[] argbPixels = new int[width * height];
+        final PixelReader pixelReader = image.getPixelReader();
+
+        if (pixelReader != null)
+            pixelReader.getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), argbPixels, 0, width);
+
+        return new AlphaMask(width, height, argbPixels);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return <tt>true</tt> if the pixel is at least partly opaque,
+     *         <tt>false</tt> if it is fully transparent or outside of the
+     *         image
+     */
+    public boolean isOpaque(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return false;
+
+        final int i = y * width + x;
+        return (bits[i / Long.SIZE] & (1L << (i % Long.SIZE))) != 0;
+    }
+
+    /**
+     * Test a pixel of the image as it is shown at a different size.
+     * 
+     * @param x
+     *            the pixel's x coordinate in the scaled image
+     * @param y
+     *            the pixel's y coordinate in the scaled image
+     * @param scaledWidth
+     *            the width the image is shown at
+     * @param scaledHeight
+     *            the height the image is shown at
+     */
+    public boolean isOpaque(double x, double y, double scaledWidth, double scaledHeight) {
+        if (scaledWidth <= 0 || scaledHeight <= 0)
+            return false;
+
+        return isOpaque((int) Math.floor(x * width / scaledWidth), (int) Math.floor(y * height / scaledHeight));
+    }
+}
@@ -25,6 +25,7 @@ import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.WeakHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +44,9 @@ public class ImageRegion extends ImageView implements TargetRegion {
 
     private Optional<SpriteAnimation> animation = Optional.empty();
 
+    // One mask per image that has been shown, e.g. per animation frame
+    private final Map<Image, AlphaMask> alphaMasks = new WeakHashMap<>();
+
     public ImageRegion(final double x, final double y, final File imageFile) throws FileNotFoundException {
         this(x, y, imageFile, new FileInputStream(imageFile));
     }
@@ -78,6 +82,30 @@ public class ImageRegion extends ImageView implements TargetRegion {
         return animation;
     }
 
+    /**
+     * @return which pixels of the current image are not transparent, built
+     *         the first time it is needed for each image
+     */
+    public AlphaMask getAlphaMask() {
+        return getAlphaMask(getImage());
+    }
+
+    /**
+     * @return which pixels of an image this region shows or has shown are not
+     *         transparent. Unlike {@link #getAlphaMask()} this does not read
+     *         the region itself, thus it can be used on any thread.
+     */
+    public synchronized AlphaMask getAlphaMask(Image image) {
+        AlphaMask alphaMask = alphaMasks.get(image);
+
+        if (alphaMask == null) {
+            alphaMask = AlphaMask.fromImage(image);
+            alphaMasks.put(image, alphaMask);
+        }
+
+        return alphaMask;
+    }
+
     public void reset() {
         if (animation.isPresent())
             animation.get().reset();
@@ -0,0 +1,213 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the items whose bounds may contain a point without looking at every
+ * item. The plane is divided into square cells and each item is listed in
+ * every cell its bounds overlap, thus a lookup only has to look at the items
+ * in one cell. Items that cover too many cells to list them all are kept
+ * aside and are always candidates.
+ *
+ * Candidates are returned in the order their items were first added so that
+ * callers can respect stacking order, e.g. by looking at the newest first.
+ *
+ * Instances are thread safe.
+ *
+ * @param <T>
+ *            the type of item that is indexed
+ */
+public final class SpatialGrid<T> {
+    private static final long MAXIMUM_ITEM_CELLS = 1024;
+
+    private final double cellSize;
+
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private final List<Entry<T>> oversizedEntries = new ArrayList<>();
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+    private long nextSequence = 0;
+
+    /**
+     * @param cellSize
+     *            the width and height of each cell, ideally close to the size
+     *            of a typical item
+     */
+    public SpatialGrid(double cellSize) {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("cellSize must be positive");
+
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Add an item or move it to new bounds. An item that is moved keeps its
+     * place in the order candidates are returned in.
+     */
+    public synchronized void put(T item, double minX, double minY, double maxX, double maxY) {
+        final Entry<T> oldEntry = entries.remove(item);
+
+        final long sequence;
+        if (oldEntry != null) {
+            removeEntry(oldEntry);
+            sequence = oldEntry.sequence;
+        } else {
+            sequence = nextSequence++;
+        }
+
+        // E.g. an empty group, which cannot contain anything
+        if (Double.isNaN(minX) || Double.isNaN(minY) || maxX < minX || maxY < minY)
+            return;
+
+        final Entry<T> entry = new Entry<>(item, sequence, getCell(minX), getCell(minY), getCell(maxX),
+                getCell(maxY));
+        entries.put(item, entry);
+
+        if (entry.getCellCount() > MAXIMUM_ITEM_CELLS) {
+            insert(oversizedEntries, entry);
+            return;
+        }
+
+        for (long cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+            for (long cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+                final Long key = getKey(cellX, cellY);
+                List<Entry<T>> cellEntries = cells.get(key);
+
+                if (cellEntries == null) {
+                    cellEntries = new ArrayList<>();
+                    cells.put(key, cellEntries);
+                }
+
+                insert(cellEntries, entry);
+            }
+        }
+    }
+
+    public synchronized void remove(T item) {
+        final Entry<T> entry = entries.remove(item);
+
+        if (entry != null)
+            removeEntry(entry);
+    }
+
+    public synchronized void clear() {
+        cells.clear();
+        oversizedEntries.clear();
+        entries.clear();
+    }
+
+    /**
+     * @return the number of items with bounds that can contain a point
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return every item whose bounds may contain the point, in the order
+     *         they were first added. Items whose bounds do not contain the
+     *         point can be returned as well, thus callers still have to test
+     *         the point against each candidate.
+     */
+    public synchronized List<T> getCandidates(double x, double y) {
+        final List<Entry<T>> cellEntries = cells.getOrDefault(getKey(getCell(x), getCell(y)),
+                Collections.emptyList());
+        final List<T> candidates = new ArrayList<>(cellEntries.size() + oversizedEntries.size());
+
+        // Merge the two lists, which are both in sequence order
+        int i = 0;
+        int j = 0;
+        while (i < cellEntries.size() || j < oversizedEntries.size()) {
+            if (j == oversizedEntries.size()
+                    || (i < cellEntries.size() && cellEntries.get(i).sequence < oversizedEntries.get(j).sequence)) {
+                candidates.add(cellEntries.get(i++).item);
+            } else {
+                candidates.add(oversizedEntries.get(j++).item);
+            }
+        }
+
+        return candidates;
+    }
+
+    private long getCell(double coordinate) {
+        return (long) Math.floor(coordinate / cellSize);
+    }
+
+    private static Long getKey(long cellX, long cellY) {
+        return (cellX << 32) ^ (cellY & 0xFFFFFFFFL);
+    }
+
+    private static <T> void insert(List<Entry<T>> sortedEntries, Entry<T> entry) {
+        int index = sortedEntries.size();
+        while (index > 0 && sortedEntries.get(index - 1).sequence > entry.sequence)
+            index--;
+
+        sortedEntries.add(index, entry);
+    }
+
+    private void removeEntry(Entry<T> entry) {
+        if (entry.getCellCount() > MAXIMUM_ITEM_CELLS) {
+            oversizedEntries.remove(entry);
+            return;
+        }
+
+        for (long cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+            for (long cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+                final Long key = getKey(cellX, cellY);
+                final List<Entry<T>> cellEntries = cells.get(key);
+
+                if (cellEntries == null)
+                    continue;
+
+                cellEntries.remove(entry);
+
+                if (cellEntries.isEmpty())
+                    cells.remove(key);
+            }
+        }
+    }
+
+    private static class Entry<T> {
+        private final T item;
+        private final long sequence;
+        private final long minCellX;
+        private final long minCellY;
+        private final long maxCellX;
+        private final long maxCellY;
+
+        public Entry(T item, long sequence, long minCellX, long minCellY, long maxCellX, long maxCellY) {
+            this.item = item;
+            this.sequence = sequence;
+            this.minCellX = minCellX;
+            this.minCellY = minCellY;
+            this.maxCellX = maxCellX;
+            this.maxCellY = maxCellY;
+        }
+
+        // In floating point so that infinite bounds cannot overflow
+        public double getCellCount() {
+            return ((double) maxCellX - minCellX + 1) * ((double) maxCellY - minCellY + 1);
+        }
+    }
+}
@@ -145,7 +145,7 @@ public class MockCamera extends MediaListenerAdapter implements Camera {
 
     @Override
     public void setCameraEventListener(CameraEventListener cameraEventListener) {
-        this.cameraEventListener = Optional.of(cameraEventListener);
+        this.cameraEventListener = Optional.ofNullable(cameraEventListener);
     }
 
     @Override
@@ -38,6 +38,13 @@ public class MockCameraManager extends CameraManager implements CameraEventListe
     }
 
     public void cameraClosed() {
+        // Let detection finish with the frames that are still queued
+        try {
+            awaitPipelineIdle();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
         videoFinishedListener.videoFinished();
     }
 
@@ -42,7 +42,7 @@ public class ShotDetectionTestor implements VideoFinishedListener {
         rootLogger.detachAndStopAllAppenders();
     }
 
-    public void checkShots(ErrorCollector collector, final List<DisplayShot> actualShots, List<Shot> requiredShots,
+    public void checkShots(ErrorCollector collector, final List<? extends Shot> actualShots, List<Shot> requiredShots,
             List<Shot> optionalShots, boolean isColorWarning) {
 
         List<Shot> mutableActualShots = new ArrayList<Shot>(actualShots);
@@ -0,0 +1,77 @@
+package com.shootoff.camera;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.shootoff.camera.shot.ShotColor;
+import com.shootoff.config.Configuration;
+import com.shootoff.config.ConfigurationException;
+
+public class TestBatchRedetector {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        nu.pattern.OpenCV.loadShared();
+
+        final Configuration config = new Configuration(new String[0]);
+        config.setDebugMode(false);
+    }
+
+    @Test
+    public void testFindVideos() throws IOException {
+        folder.newFolder("session1");
+        folder.newFolder("session2");
+        final File video1 = folder.newFile("session1/rolling1.mp4");
+        final File video2 = folder.newFile("session1/rolling2.MP4");
+        final File video3 = folder.newFile("session2/rolling1.mp4");
+        folder.newFile("session2/session.xml");
+
+        assertEquals(Arrays.asList(video1, video2, video3), BatchRedetector.findVideos(folder.getRoot()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testFindVideosMissingFolder() throws IOException {
+        BatchRedetector.findVideos(new File(folder.getRoot(), "missing"));
+    }
+
+    @Test
+    public void testRedetectSkipsFailedVideos() throws InterruptedException {
+        final List<File> videoFiles = Arrays.asList(new File(folder.getRoot(), "missing1.mp4"),
+                new File(folder.getRoot(), "missing2.mp4"));
+
+        final Map<File, ReplayResult> results = new BatchRedetector(new ReplayEngine(), 2).redetect(videoFiles);
+
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void testWriteSummary() {
+        final List<Shot> shots = new ArrayList<>();
+        shots.add(new Shot(ShotColor.RED, 10, 20, 0, 5));
+        shots.add(new Shot(ShotColor.RED, 30, 40, 100, 8));
+
+        final ReplayResult result = new ReplayResult(new File("rolling1.mp4"), shots, 300, 10000, 2500);
+
+        final StringWriter summary = new StringWriter();
+        BatchRedetector.writeSummary(Arrays.asList(result), new PrintWriter(summary));
+
+        final String[] lines = summary.toString().split("\\R");
+        assertEquals(2, lines.length);
+        assertEquals("rolling1.mp4,300,10000,2500,4.00,2", lines[1]);
+    }
+}
@@ -0,0 +1,128 @@
+package com.shootoff.camera;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencv.core.Mat;
+
+import com.shootoff.camera.shot.DisplayShot;
+import com.shootoff.camera.shot.ShotColor;
+import com.shootoff.config.Configuration;
+import com.shootoff.config.ConfigurationException;
+import com.shootoff.targets.Target;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.paint.Color;
+
+public class TestCameraManagerShotDispatch {
+    private ShotCollectingView cameraView;
+    private CameraManager cameraManager;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        nu.pattern.OpenCV.loadShared();
+
+        final Configuration config = new Configuration(new String[0]);
+        config.setDebugMode(false);
+
+        cameraView = new ShotCollectingView();
+        // The mock camera has no video, thus it never delivers a frame
+        cameraManager = new CameraManager(new MockCamera(), null, cameraView);
+    }
+
+    @Test
+    public void testShotInjectedBeforeFirstFrame() throws InterruptedException {
+        cameraManager.injectShot(ShotColor.RED, 320, 240, false);
+        cameraManager.awaitPipelineIdle();
+
+        assertEquals(1, cameraView.getShots().size());
+        assertEquals(320, cameraView.getShots().get(0).getX(), 1.0);
+        assertEquals(240, cameraView.getShots().get(0).getY(), 1.0);
+    }
+
+    @Test
+    public void testShotInjectedAfterCloseIsDropped() throws InterruptedException {
+        cameraManager.close();
+        cameraManager.injectShot(ShotColor.RED, 320, 240, false);
+
+        assertTrue(cameraView.getShots().isEmpty());
+    }
+
+    private static class ShotCollectingView implements CameraView {
+        private final List<DisplayShot> shots = Collections.synchronizedList(new ArrayList<>());
+
+        public List<DisplayShot> getShots() {
+            synchronized (shots) {
+                return new ArrayList<>(shots);
+            }
+        }
+
+        @Override
+        public boolean addChild(Node c) {
+            return false;
+        }
+
+        @Override
+        public void addShot(DisplayShot shot, boolean isMirroredShot) {
+            shots.add(shot);
+        }
+
+        @Override
+        public Optional<Target> addTarget(File targetFile) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<Target> restoreTarget(File targetFile, double x, double y, double w, double h) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Target addTarget(Target newTarget) {
+            return newTarget;
+        }
+
+        @Override
+        public Label addDiagnosticMessage(String message, Color backgroundColor) {
+            return null;
+        }
+
+        @Override
+        public void clearShots() {
+            shots.clear();
+        }
+
+        @Override
+        public void close() {}
+
+        @Override
+        public boolean removeChild(Node c) {
+            return false;
+        }
+
+        @Override
+        public void removeDiagnosticMessage(Label diagnosticLabel) {}
+
+        @Override
+        public void reset() {}
+
+        @Override
+        public void setCameraManager(CameraManager cameraManager) {}
+
+        @Override
+        public void updateBackground(BufferedImage frame, Optional<Bounds> projectionBounds) {}
+
+        @Override
+        public void updateBackground(Mat frame, Optional<Bounds> projectionBounds) {}
+    }
+}
@@ -0,0 +1,112 @@
+package com.shootoff.camera;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+public class TestFramePool {
+    private FramePool pool;
+
+    @Before
+    public void setUp() {
+        nu.pattern.OpenCV.loadShared();
+
+        pool = new FramePool();
+    }
+
+    @Test
+    public void testMatsAreReusedBySizeAndType() {
+        final Mat first = pool.acquireMat(480, 640, CvType.CV_8UC3);
+        pool.recycleMat(first);
+
+        assertSame(first, pool.acquireMat(480, 640, CvType.CV_8UC3));
+
+        // A different size or type must not get the recycled Mat
+        pool.recycleMat(first);
+        assertNotSame(first, pool.acquireMat(240, 320, CvType.CV_8UC3));
+        assertNotSame(first, pool.acquireMat(480, 640, CvType.CV_8UC1));
+        assertSame(first, pool.acquireMat(480, 640, CvType.CV_8UC3));
+
+        assertEquals(3, pool.getAllocatedCount());
+        assertEquals(2, pool.getReusedCount());
+    }
+
+    @Test
+    public void testSubmatsAreNotRecycled() {
+        final Mat mat = pool.acquireMat(480, 640, CvType.CV_8UC3);
+        final Mat submat = mat.submat(0, 240, 0, 320);
+
+        pool.recycleMat(submat);
+
+        assertNotSame(submat, pool.acquireMat(240, 320, CvType.CV_8UC3));
+    }
+
+    @Test
+    public void testFrameRecycledOnLastRelease() {
+        final Frame frame = pool.acquireFrame(480, 640, CvType.CV_8UC3, 1000);
+        final Mat mat = frame.getOriginalMat();
+
+        assertTrue(frame.getPool().isPresent());
+        assertEquals(1000, frame.getTimestamp());
+
+        frame.retain();
+        frame.release();
+        assertFalse(frame.isReleased());
+
+        frame.release();
+        assertTrue(frame.isReleased());
+
+        assertSame(mat, pool.acquireMat(480, 640, CvType.CV_8UC3));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFrameReleasedTwice() {
+        final Frame frame = pool.acquireFrame(480, 640, CvType.CV_8UC3, 0);
+
+        frame.release();
+        frame.release();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReleasedFrameCannotBeRetained() {
+        final Frame frame = pool.acquireFrame(480, 640, CvType.CV_8UC3, 0);
+
+        frame.release();
+        frame.retain();
+    }
+
+    @Test
+    public void testUnpooledFrameKeepsMat() {
+        final Frame frame = new Frame(new Mat(480, 640, CvType.CV_8UC3), 0);
+
+        assertFalse(frame.getPool().isPresent());
+
+        frame.release();
+
+        assertTrue(frame.isReleased());
+        assertEquals(0, pool.getReusedCount());
+    }
+
+    @Test
+    public void testPooledBufferedImage() {
+        final Frame frame = pool.acquireFrame(2, 3, CvType.CV_8UC3, 0);
+        frame.getOriginalMat().setTo(new Scalar(1, 2, 3));
+
+        final BufferedImage image = frame.getPooledBufferedImage(pool);
+
+        assertEquals(3, image.getWidth());
+        assertEquals(2, image.getHeight());
+        assertEquals(BufferedImage.TYPE_3BYTE_BGR, image.getType());
+        assertEquals(0x030201, image.getRGB(1, 1) & 0xFFFFFF);
+
+        pool.recycleImage(image);
+
+        assertSame(image, frame.getPooledBufferedImage(pool));
+    }
+}
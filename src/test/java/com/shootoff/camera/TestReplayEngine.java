@@ -0,0 +1,86 @@
+package com.shootoff.camera;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ErrorCollector;
+import org.junit.rules.TemporaryFolder;
+
+import com.shootoff.camera.shot.ShotColor;
+import com.shootoff.config.Configuration;
+import com.shootoff.config.ConfigurationException;
+
+public class TestReplayEngine extends ShotDetectionTestor {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public ErrorCollector collector = new ErrorCollector();
+
+    private ReplayEngine replayEngine;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        nu.pattern.OpenCV.loadShared();
+
+        final Configuration config = new Configuration(new String[0]);
+        config.setDebugMode(false);
+
+        replayEngine = new ReplayEngine();
+    }
+
+    @Test
+    public void testReplayFindsShots() throws IOException, InterruptedException {
+        // The same video, and thus the same shots, as
+        // TestCameraManagerDark.testPS3EyeHardwareDefaultsDarkRoom
+        final File videoFile = new File(TestReplayEngine.class
+                .getResource("/shotsearcher/ps3eye_hardware_defaults_projector_dark_room.mp4").getFile());
+
+        final ReplayResult result = replayEngine.replay(videoFile);
+
+        assertEquals(videoFile, result.getVideoFile());
+        assertTrue(result.getFrameCount() > 0);
+
+        List<Shot> requiredShots = new ArrayList<Shot>();
+        requiredShots.add(new Shot(ShotColor.RED, 118.8, 143.3, 0, 2));
+        requiredShots.add(new Shot(ShotColor.RED, 279.6, 123.6, 0, 2));
+        requiredShots.add(new Shot(ShotColor.RED, 302.5, 238.8, 0, 2));
+        requiredShots.add(new Shot(ShotColor.RED, 218.0, 244.1, 0, 2));
+        requiredShots.add(new Shot(ShotColor.RED, 122.0, 243.7, 0, 2));
+        requiredShots.add(new Shot(ShotColor.RED, 288.2, 375.4, 0, 2));
+        requiredShots.add(new Shot(ShotColor.RED, 436.6, 377.5, 0, 2));
+
+        List<Shot> optionalShots = new ArrayList<Shot>();
+        optionalShots.add(new Shot(ShotColor.RED, 438, 145, 0, 2));
+        optionalShots.add(new Shot(ShotColor.RED, 443.5, 230, 0, 2));
+
+        checkShots(collector, result.getShots(), requiredShots, optionalShots, false);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReplayMissingVideo() throws IOException, InterruptedException {
+        replayEngine.replay(new File(folder.getRoot(), "missing.mp4"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReplayMissingSession() throws IOException, InterruptedException {
+        replayEngine.replaySession(new File(folder.getRoot(), "missing"));
+    }
+
+    @Test
+    public void testReplaySessionWithoutVideos() throws IOException, InterruptedException {
+        folder.newFile("notes.txt");
+
+        final Map<File, ReplayResult> results = replayEngine.replaySession(folder.getRoot());
+
+        assertTrue(results.isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package com.shootoff.camera.cameratypes;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class TestFrameArrivalSignal {
+    @Test
+    public void testFrameArrivedBeforeWait() throws InterruptedException {
+        final FrameArrivalSignal signal = new FrameArrivalSignal(1000);
+
+        signal.frameArrived();
+
+        final long start = System.nanoTime();
+        assertTrue(signal.awaitFrame());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    public void testWaitEndsAtMaximumLatency() throws InterruptedException {
+        final FrameArrivalSignal signal = new FrameArrivalSignal(20);
+
+        assertFalse(signal.awaitFrame());
+        assertFalse(signal.awaitFrame());
+
+        final CaptureThreadStats stats = signal.getStats();
+        assertEquals(2, stats.getEmptyWaitCount());
+        assertTrue(stats.getIdleTime() >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertTrue(stats.getIdleRatio() > 0);
+    }
+
+    @Test
+    public void testFrameArrivalWakesWaiter() throws InterruptedException {
+        final FrameArrivalSignal signal = new FrameArrivalSignal(10000);
+        final AtomicBoolean arrived = new AtomicBoolean(false);
+        final CountDownLatch waitDone = new CountDownLatch(1);
+
+        final Thread captureThread = new Thread(() -> {
+            try {
+                arrived.set(signal.awaitFrame());
+                waitDone.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        captureThread.start();
+
+        Thread.sleep(50);
+        signal.frameArrived();
+
+        assertTrue(waitDone.await(1, TimeUnit.SECONDS));
+        assertTrue(arrived.get());
+        assertEquals(0, signal.getStats().getEmptyWaitCount());
+    }
+
+    @Test
+    public void testWakeUpWithoutFrame() throws InterruptedException {
+        final FrameArrivalSignal signal = new FrameArrivalSignal(10000);
+        final AtomicBoolean arrived = new AtomicBoolean(true);
+        final CountDownLatch waitDone = new CountDownLatch(1);
+
+        final Thread captureThread = new Thread(() -> {
+            try {
+                arrived.set(signal.awaitFrame());
+                waitDone.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        captureThread.start();
+
+        Thread.sleep(50);
+        signal.wakeUp();
+
+        assertTrue(waitDone.await(1, TimeUnit.SECONDS));
+        assertFalse(arrived.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLatency() {
+        new FrameArrivalSignal(0);
+    }
+}
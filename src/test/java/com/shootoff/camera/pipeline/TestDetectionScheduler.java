@@ -0,0 +1,129 @@
+package com.shootoff.camera.pipeline;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestDetectionScheduler {
+    private DetectionScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new DetectionScheduler(2);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testEveryIndexRuns() {
+        final AtomicInteger[] runs = new AtomicInteger[9];
+        for (int i = 0; i < runs.length; i++)
+            runs[i] = new AtomicInteger();
+
+        scheduler.forIndex(runs.length, (i) -> runs[i].incrementAndGet(), System.nanoTime());
+
+        for (final AtomicInteger run : runs)
+            assertEquals(1, run.get());
+    }
+
+    @Test
+    public void testOldestFrameRunsFirst() throws InterruptedException {
+        final DetectionScheduler singleWorker = new DetectionScheduler(1);
+        final CountDownLatch blockerStarted = new CountDownLatch(1);
+        final CountDownLatch releaseBlocker = new CountDownLatch(1);
+        final List<Long> order = Collections.synchronizedList(new ArrayList<>());
+
+        // Occupy the only worker so that the next batches queue up
+        final Thread blocker = new Thread(() -> singleWorker.forIndex(1, (i) -> {
+            blockerStarted.countDown();
+            try {
+                releaseBlocker.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 0));
+        blocker.start();
+        assertTrue(blockerStarted.await(5, TimeUnit.SECONDS));
+
+        final Thread newer = new Thread(() -> singleWorker.forIndex(2, (i) -> order.add(200L), 200));
+        newer.start();
+        waitForQueuedBatches(singleWorker, 1);
+
+        final Thread older = new Thread(() -> singleWorker.forIndex(2, (i) -> order.add(100L), 100));
+        older.start();
+        waitForQueuedBatches(singleWorker, 2);
+
+        releaseBlocker.countDown();
+        blocker.join(5000);
+        newer.join(5000);
+        older.join(5000);
+
+        assertEquals(4, order.size());
+        assertEquals(Long.valueOf(100), order.get(0));
+        assertEquals(Long.valueOf(100), order.get(1));
+        assertEquals(Long.valueOf(200), order.get(2));
+        assertEquals(Long.valueOf(200), order.get(3));
+
+        singleWorker.shutdown();
+    }
+
+    private void waitForQueuedBatches(DetectionScheduler scheduler, int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+
+        while (scheduler.getQueuedBatchCount() < count && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+
+        assertEquals(count, scheduler.getQueuedBatchCount());
+    }
+
+    @Test
+    public void testTaskExceptionIsRethrownAfterBatch() {
+        final AtomicInteger runs = new AtomicInteger();
+
+        try {
+            scheduler.forIndex(4, (i) -> {
+                runs.incrementAndGet();
+                if (i == 2)
+                    throw new IllegalArgumentException("sector " + i);
+            }, System.nanoTime());
+
+            fail("Task exception was not rethrown");
+        } catch (final IllegalArgumentException e) {
+            assertEquals("sector 2", e.getMessage());
+        }
+
+        assertEquals(4, runs.get());
+
+        // The workers must survive a failed task
+        scheduler.forIndex(2, (i) -> runs.incrementAndGet(), System.nanoTime());
+        assertEquals(6, runs.get());
+    }
+
+    @Test
+    public void testRunsInlineAfterShutdown() {
+        scheduler.shutdown();
+        assertTrue(scheduler.isShutdown());
+
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger inlineRuns = new AtomicInteger();
+
+        scheduler.forIndex(3, (i) -> {
+            if (Thread.currentThread() == caller)
+                inlineRuns.incrementAndGet();
+        }, System.nanoTime());
+
+        assertEquals(3, inlineRuns.get());
+    }
+}
@@ -0,0 +1,163 @@
+package com.shootoff.camera.pipeline;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.shootoff.camera.pipeline.FrameRingBuffer.DropPolicy;
+
+public class TestPipelineStage {
+    @Test
+    public void testRingBufferIsFifo() throws InterruptedException {
+        final FrameRingBuffer<Integer> buffer = new FrameRingBuffer<>(3, DropPolicy.BLOCK);
+
+        // Wrap around the end of the backing array
+        for (int i = 0; i < 7; i++) {
+            assertNull(buffer.put(i));
+            assertEquals(Integer.valueOf(i), buffer.take());
+        }
+
+        buffer.put(7);
+        buffer.put(8);
+        assertEquals(2, buffer.size());
+        assertEquals(Integer.valueOf(7), buffer.take());
+        assertEquals(Integer.valueOf(8), buffer.take());
+        assertEquals(0, buffer.getDroppedCount());
+        assertEquals(9, buffer.getTakenCount());
+    }
+
+    @Test
+    public void testRingBufferDropsOldest() throws InterruptedException {
+        final FrameRingBuffer<Integer> buffer = new FrameRingBuffer<>(2, DropPolicy.DROP_OLDEST);
+
+        assertNull(buffer.put(1));
+        assertNull(buffer.put(2));
+        assertEquals(Integer.valueOf(1), buffer.put(3));
+        assertEquals(Integer.valueOf(2), buffer.put(4));
+
+        assertEquals(2, buffer.size());
+        assertEquals(2, buffer.getDroppedCount());
+        assertEquals(Integer.valueOf(3), buffer.take());
+        assertEquals(Integer.valueOf(4), buffer.take());
+    }
+
+    @Test
+    public void testRingBufferBlocksWhenFull() throws InterruptedException {
+        final FrameRingBuffer<Integer> buffer = new FrameRingBuffer<>(1, DropPolicy.BLOCK);
+        buffer.put(1);
+
+        final CountDownLatch putDone = new CountDownLatch(1);
+        final Thread producer = new Thread(() -> {
+            try {
+                buffer.put(2);
+                putDone.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        assertFalse(putDone.await(100, TimeUnit.MILLISECONDS));
+
+        assertEquals(Integer.valueOf(1), buffer.take());
+        assertTrue(putDone.await(1, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(2), buffer.take());
+        assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void testClosedRingBuffer() throws InterruptedException {
+        final FrameRingBuffer<Integer> buffer = new FrameRingBuffer<>(2, DropPolicy.BLOCK);
+        buffer.put(1);
+        assertEquals(Collections.singletonList(1), buffer.close());
+
+        assertTrue(buffer.isClosed());
+        assertNull(buffer.take());
+
+        try {
+            buffer.put(2);
+            fail("Closed buffer accepted an item");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void testRingBufferOfferNeverWaits() throws InterruptedException {
+        final FrameRingBuffer<Integer> buffer = new FrameRingBuffer<>(1, DropPolicy.BLOCK);
+
+        assertTrue(buffer.offer(1));
+        assertFalse(buffer.offer(2));
+
+        assertEquals(1, buffer.size());
+        assertEquals(0, buffer.getDroppedCount());
+        assertEquals(Integer.valueOf(1), buffer.take());
+        assertTrue(buffer.offer(3));
+    }
+
+    @Test
+    public void testStageHandlesItemsInOrder() throws InterruptedException {
+        final List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        final PipelineStage<Integer> stage = new PipelineStage<>("test", 2, DropPolicy.BLOCK, handled::add);
+        stage.start("Test Stage");
+
+        for (int i = 0; i < 50; i++)
+            stage.submit(i);
+
+        stage.awaitIdle();
+
+        assertEquals(50, handled.size());
+        for (int i = 0; i < 50; i++)
+            assertEquals(Integer.valueOf(i), handled.get(i));
+
+        final PipelineStageStats stats = stage.getStats();
+        assertEquals("test", stats.getStageName());
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(2, stats.getQueueCapacity());
+        assertEquals(0, stats.getDroppedCount());
+        assertEquals(50, stats.getProcessedCount());
+
+        stage.close();
+    }
+
+    @Test
+    public void testStageDropsOldestWhileBusy() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+
+        final PipelineStage<Integer> stage = new PipelineStage<>("test", 1, DropPolicy.DROP_OLDEST, (i) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.add(i);
+        });
+        stage.start("Test Stage");
+
+        stage.submit(0);
+
+        // Wait for the handler to pick up the first item
+        while (stage.getStats().getQueueDepth() > 0)
+            Thread.sleep(1);
+
+        stage.submit(1);
+        assertEquals(Integer.valueOf(1), stage.submit(2));
+        assertEquals(Integer.valueOf(2), stage.submit(3));
+
+        release.countDown();
+        stage.awaitIdle();
+
+        assertEquals(2, handled.size());
+        assertEquals(Integer.valueOf(0), handled.get(0));
+        assertEquals(Integer.valueOf(3), handled.get(1));
+        assertEquals(2, stage.getStats().getDroppedCount());
+
+        stage.close();
+    }
+}
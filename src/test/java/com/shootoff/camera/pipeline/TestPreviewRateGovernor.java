@@ -0,0 +1,88 @@
+package com.shootoff.camera.pipeline;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestPreviewRateGovernor {
+    private static final double CAMERA_FPS = 30;
+    private static final long FRAME_INTERVAL = (long) (1e9 / CAMERA_FPS);
+    private static final long SECOND = 1_000_000_000L;
+
+    private PreviewRateGovernor governor;
+    private long now;
+
+    @Before
+    public void setUp() {
+        governor = new PreviewRateGovernor();
+        now = 0;
+    }
+
+    // Report a second's worth of frames with the same latency
+    private void recordSecond(Object camera, long latency) {
+        for (int i = 0; i < CAMERA_FPS; i++) {
+            now += FRAME_INTERVAL;
+            governor.recordDetection(camera, latency, CAMERA_FPS, now);
+        }
+    }
+
+    @Test
+    public void testStartsAtMaximum() {
+        assertEquals(PreviewRateGovernor.MAXIMUM_FPS, governor.getFPS());
+        assertEquals(1000 / PreviewRateGovernor.MAXIMUM_FPS, governor.getMinimumFrameDelta());
+    }
+
+    @Test
+    public void testLowersToMinimumWhenOverloaded() {
+        for (int i = 0; i < 10; i++)
+            recordSecond("camera", FRAME_INTERVAL * 3);
+
+        assertEquals(PreviewRateGovernor.MINIMUM_FPS, governor.getFPS());
+    }
+
+    @Test
+    public void testRaisesToMaximumWhenIdle() {
+        governor.setFPS(PreviewRateGovernor.MINIMUM_FPS);
+
+        for (int i = 0; i < 20; i++)
+            recordSecond("camera", FRAME_INTERVAL / 10);
+
+        assertEquals(PreviewRateGovernor.MAXIMUM_FPS, governor.getFPS());
+    }
+
+    @Test
+    public void testHoldsWithModerateLoad() {
+        for (int i = 0; i < 5; i++)
+            recordSecond("camera", FRAME_INTERVAL * 3 / 4);
+
+        assertEquals(PreviewRateGovernor.MAXIMUM_FPS, governor.getFPS());
+    }
+
+    @Test
+    public void testSlowestCameraGoverns() {
+        for (int i = 0; i < 3; i++) {
+            recordSecond("fast", FRAME_INTERVAL / 10);
+            recordSecond("slow", FRAME_INTERVAL * 3);
+        }
+
+        assertTrue(governor.getFPS() < PreviewRateGovernor.MAXIMUM_FPS);
+
+        final int fps = governor.getFPS();
+        governor.removeCamera("slow");
+
+        for (int i = 0; i < 3; i++)
+            recordSecond("fast", FRAME_INTERVAL / 10);
+
+        assertTrue(governor.getFPS() > fps);
+    }
+
+    @Test
+    public void testSetFPSIsClamped() {
+        governor.setFPS(1);
+        assertEquals(PreviewRateGovernor.MINIMUM_FPS, governor.getFPS());
+
+        governor.setFPS(100);
+        assertEquals(PreviewRateGovernor.MAXIMUM_FPS, governor.getFPS());
+    }
+}
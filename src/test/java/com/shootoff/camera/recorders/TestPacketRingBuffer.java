@@ -0,0 +1,87 @@
+package com.shootoff.camera.recorders;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestPacketRingBuffer {
+    private static final long FRAME_INTERVAL = 100; // ms
+    private static final int PACKET_SIZE = 10;
+
+    private List<Long> evicted;
+
+    @Before
+    public void setUp() {
+        evicted = new ArrayList<>();
+    }
+
+    // Packets are identified by their timestamps, every tenth is a key frame
+    private void addFrames(PacketRingBuffer<Long> buffer, long from, long to) {
+        for (long timestamp = from; timestamp < to; timestamp += FRAME_INTERVAL)
+            buffer.add(timestamp, timestamp, timestamp % 1000 == 0, PACKET_SIZE);
+    }
+
+    @Test
+    public void testDropsPacketsBeforeFirstKeyFrame() {
+        final PacketRingBuffer<Long> buffer = new PacketRingBuffer<>(5000, Long.MAX_VALUE, evicted::add);
+
+        addFrames(buffer, 800, 1200);
+
+        assertEquals(Arrays.asList(1000L, 1100L), buffer.getPackets());
+        assertEquals(Arrays.asList(800L, 900L), evicted);
+        assertEquals(2 * PACKET_SIZE, buffer.getSize());
+    }
+
+    @Test
+    public void testKeepsMinimumDurationFromKeyFrame() {
+        final PacketRingBuffer<Long> buffer = new PacketRingBuffer<>(3000, Long.MAX_VALUE, evicted::add);
+
+        addFrames(buffer, 0, 6000);
+
+        // Starting at 3000 would leave only 2900 ms, thus the group starting
+        // at 2000 is kept
+        assertEquals(2000, buffer.getStartTimestamp());
+        assertEquals(5900, buffer.getEndTimestamp());
+        assertEquals(20, evicted.size());
+        assertEquals(0L, (long) evicted.get(0));
+        assertEquals(1900L, (long) evicted.get(evicted.size() - 1));
+    }
+
+    @Test
+    public void testMaximumSizeDropsWholeGroups() {
+        final PacketRingBuffer<Long> buffer = new PacketRingBuffer<>(5000, 15 * PACKET_SIZE, evicted::add);
+
+        addFrames(buffer, 0, 2500);
+
+        assertEquals(1000, buffer.getStartTimestamp());
+        assertEquals(15 * PACKET_SIZE, buffer.getSize());
+    }
+
+    @Test
+    public void testKeepsSingleGroupLargerThanMaximumSize() {
+        final PacketRingBuffer<Long> buffer = new PacketRingBuffer<>(5000, PACKET_SIZE, evicted::add);
+
+        addFrames(buffer, 0, 1000);
+
+        assertEquals(10, buffer.getPackets().size());
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        final PacketRingBuffer<Long> buffer = new PacketRingBuffer<>(5000, Long.MAX_VALUE, evicted::add);
+
+        addFrames(buffer, 0, 500);
+        buffer.clear();
+
+        assertTrue(buffer.getPackets().isEmpty());
+        assertEquals(-1, buffer.getStartTimestamp());
+        assertEquals(0, buffer.getSize());
+        assertEquals(5, evicted.size());
+    }
+}
@@ -0,0 +1,123 @@
+package com.shootoff.camera.shotdetection;
+
+import static org.junit.Assert.*;
+
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestPixelClusterManager {
+    private static final int MINIMUM_SHOT_DIMENSION = 7;
+
+    private PixelClusterManager pixelClusterManager;
+    private ThresholdPixelBuffer[] sectorPixels;
+
+    @Before
+    public void setUp() {
+        pixelClusterManager = new PixelClusterManager(640, 480);
+        sectorPixels = new ThresholdPixelBuffer[] { new ThresholdPixelBuffer(), new ThresholdPixelBuffer() };
+    }
+
+    private void addDisc(ThresholdPixelBuffer buffer, int centerX, int centerY, int radius) {
+        for (int y = centerY - radius; y <= centerY + radius; y++) {
+            for (int x = centerX - radius; x <= centerX + radius; x++) {
+                if ((x - centerX) * (x - centerX) + (y - centerY) * (y - centerY) <= radius * radius)
+                    buffer.add(x, y);
+            }
+        }
+    }
+
+    @Test
+    public void testSingleShot() {
+        addDisc(sectorPixels[0], 100, 200, 4);
+
+        Set<PixelCluster> clusters = pixelClusterManager.clusterPixels(sectorPixels, MINIMUM_SHOT_DIMENSION);
+
+        assertEquals(1, clusters.size());
+
+        PixelCluster cluster = clusters.iterator().next();
+        assertEquals(100, cluster.centerPixelX, 0.5);
+        assertEquals(200, cluster.centerPixelY, 0.5);
+        assertEquals(sectorPixels[0].size(), cluster.size());
+
+        for (Pixel pixel : cluster) {
+            if (pixel.x == 100 && pixel.y == 200)
+                assertEquals(8, pixel.getConnectedness());
+        }
+    }
+
+    @Test
+    public void testShotSpanningSectors() {
+        // Split one disc across two sector buffers
+        ThresholdPixelBuffer disc = new ThresholdPixelBuffer();
+        addDisc(disc, 300, 300, 4);
+
+        for (int i = 0; i < disc.size(); i++) {
+            if (disc.getX(i) < 300)
+                sectorPixels[0].add(disc.getX(i), disc.getY(i));
+            else
+                sectorPixels[1].add(disc.getX(i), disc.getY(i));
+        }
+
+        Set<PixelCluster> clusters = pixelClusterManager.clusterPixels(sectorPixels, MINIMUM_SHOT_DIMENSION);
+
+        assertEquals(1, clusters.size());
+        assertEquals(disc.size(), clusters.iterator().next().size());
+    }
+
+    @Test
+    public void testTwoShots() {
+        addDisc(sectorPixels[0], 50, 50, 4);
+        addDisc(sectorPixels[1], 400, 300, 4);
+
+        Set<PixelCluster> clusters = pixelClusterManager.clusterPixels(sectorPixels, MINIMUM_SHOT_DIMENSION);
+
+        assertEquals(2, clusters.size());
+    }
+
+    @Test
+    public void testLineRejected() {
+        for (int x = 10; x < 60; x++) {
+            sectorPixels[0].add(x, 10);
+            sectorPixels[0].add(x, 11);
+        }
+
+        assertTrue(pixelClusterManager.clusterPixels(sectorPixels, MINIMUM_SHOT_DIMENSION).isEmpty());
+    }
+
+    @Test
+    public void testSmallClusterRejected() {
+        sectorPixels[0].add(10, 10);
+        sectorPixels[0].add(11, 10);
+        sectorPixels[0].add(10, 11);
+
+        assertTrue(pixelClusterManager.clusterPixels(sectorPixels, MINIMUM_SHOT_DIMENSION).isEmpty());
+    }
+
+    @Test
+    public void testReusedAcrossFrames() {
+        addDisc(sectorPixels[0], 100, 100, 4);
+        assertEquals(1, pixelClusterManager.clusterPixels(sectorPixels, MINIMUM_SHOT_DIMENSION).size());
+
+        // The bitmap must be cleared so pixels from the last frame don't
+        // connect to the pixels in this frame
+        sectorPixels[0].clear();
+        addDisc(sectorPixels[0], 108, 100, 4);
+        Set<PixelCluster> clusters = pixelClusterManager.clusterPixels(sectorPixels, MINIMUM_SHOT_DIMENSION);
+
+        assertEquals(1, clusters.size());
+        assertEquals(108, clusters.iterator().next().centerPixelX, 0.5);
+    }
+
+    @Test
+    public void testExcessivePixelsOnlyExamineFirstRegions() {
+        addDisc(sectorPixels[0], 30, 30, 6);
+        addDisc(sectorPixels[0], 100, 30, 6);
+        addDisc(sectorPixels[0], 170, 30, 6);
+
+        assertTrue(sectorPixels[0].size() > 300);
+
+        assertEquals(2, pixelClusterManager.clusterPixels(sectorPixels, MINIMUM_SHOT_DIMENSION).size());
+    }
+}
@@ -0,0 +1,52 @@
+package com.shootoff.camera.shotdetection;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TestThresholdPixelBuffer {
+    @Test
+    public void testPackedCoordinates() {
+        ThresholdPixelBuffer buffer = new ThresholdPixelBuffer();
+
+        buffer.add(1919, 1079, 10, 20, 30, 40);
+        buffer.add(0, 0);
+
+        assertEquals(2, buffer.size());
+        assertEquals(1919, buffer.getX(0));
+        assertEquals(1079, buffer.getY(0));
+        assertEquals(10, buffer.getColor(0));
+        assertEquals(20, buffer.getCurrentLum(0));
+        assertEquals(30, buffer.getLumAverage(0));
+        assertEquals(40, buffer.getColorAverage(0));
+        assertEquals(0, buffer.getX(1));
+        assertEquals(0, buffer.getY(1));
+    }
+
+    @Test
+    public void testGrowAndClear() {
+        ThresholdPixelBuffer buffer = new ThresholdPixelBuffer(2);
+
+        for (int i = 0; i < 100; i++)
+            buffer.add(i, i * 2);
+
+        assertEquals(100, buffer.size());
+        assertEquals(99, buffer.getX(99));
+        assertEquals(198, buffer.getY(99));
+
+        buffer.clear();
+
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testTotalSize() {
+        ThresholdPixelBuffer[] buffers = { new ThresholdPixelBuffer(), new ThresholdPixelBuffer() };
+
+        buffers[0].add(5, 6, 1, 2, 3, 4);
+        buffers[1].add(7, 8);
+        buffers[1].add(9, 10);
+
+        assertEquals(3, ThresholdPixelBuffer.totalSize(buffers));
+    }
+}
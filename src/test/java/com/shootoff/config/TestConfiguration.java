@@ -31,6 +31,7 @@ public class TestConfiguration {
         assertTrue(defaultConfig.useErrorReporting());
         assertEquals(0, defaultConfig.getWebcams().size());
         assertEquals(4, defaultConfig.getMarkerRadius());
+        assertEquals(10, defaultConfig.getMaximumFrameLatency());
         assertEquals(false, defaultConfig.ignoreLaserColor());
         assertEquals("None", defaultConfig.getIgnoreLaserColorName());
         assertEquals(false, defaultConfig.useRedLaserSound());
@@ -74,6 +75,18 @@ public class TestConfiguration {
         }
     }
 
+    @Test(expected = ConfigurationException.class)
+    public void testMaximumFrameLatencyBelowRange() throws ConfigurationException {
+        defaultConfig.setMaximumFrameLatency(0);
+        defaultConfig.validateConfiguration();
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testMaximumFrameLatencyAboveRange() throws ConfigurationException {
+        defaultConfig.setMaximumFrameLatency(1001);
+        defaultConfig.validateConfiguration();
+    }
+
     @Test(expected = ConfigurationException.class)
     public void testIgnoreLaserColorInvalid() throws ConfigurationException {
         defaultConfig.setIgnoreLaserColor(true);
@@ -8,6 +8,9 @@ import java.util.Optional;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
 
 import com.shootoff.camera.CameraManager;
 import com.shootoff.camera.CamerasSupervisor;
@@ -248,4 +251,21 @@ public class TestCanvasManager {
 
     }
 
+    @Test
+    public void testCopyBGRAPixels() {
+        final Mat frame = new Mat(2, 2, CvType.CV_8UC3, new Scalar(10, 20, 30));
+        final Mat resizedFrame = new Mat();
+        final Mat bgraFrame = new Mat();
+
+        final byte[] pixels = CanvasManager.copyBGRAPixels(frame, resizedFrame, bgraFrame, null, 4, 3);
+
+        assertEquals(4 * 3 * 4, pixels.length);
+        assertEquals(10, pixels[0]);
+        assertEquals(20, pixels[1]);
+        assertEquals(30, pixels[2]);
+        assertEquals(255, pixels[3] & 0xFF);
+
+        // A buffer of the right size is reused
+        assertSame(pixels, CanvasManager.copyBGRAPixels(frame, resizedFrame, bgraFrame, pixels, 4, 3));
+    }
 }
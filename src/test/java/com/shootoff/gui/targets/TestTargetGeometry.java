@@ -0,0 +1,93 @@
+package com.shootoff.gui.targets;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.shootoff.targets.EllipseRegion;
+import com.shootoff.targets.Hit;
+import com.shootoff.targets.PolygonRegion;
+import com.shootoff.targets.RectangleRegion;
+import com.shootoff.targets.Target;
+
+import javafx.scene.Group;
+
+public class TestTargetGeometry {
+    private Group targetGroup;
+    private RectangleRegion background;
+    private EllipseRegion ellipse;
+    private PolygonRegion triangle;
+
+    @Before
+    public void setUp() {
+        background = new RectangleRegion(0, 0, 100, 100);
+        ellipse = new EllipseRegion(50, 50, 10, 10);
+        triangle = new PolygonRegion(new double[] { 0, 0, 40, 0, 0, 40 });
+
+        targetGroup = new Group(background, ellipse, triangle);
+    }
+
+    private Optional<Hit> isHit(TargetGeometry geometry, double x, double y) {
+        return geometry.isHit(null, x, y);
+    }
+
+    @Test
+    public void testTopRegionIsHit() {
+        final TargetGeometry geometry = TargetGeometry.capture(targetGroup);
+        assertEquals(3, geometry.getRegions().size());
+
+        assertEquals(ellipse, isHit(geometry, 52, 52).get().getHitRegion());
+        assertEquals(triangle, isHit(geometry, 5, 5).get().getHitRegion());
+
+        // In the bounds of the ellipse and triangle but not their shapes
+        assertEquals(background, isHit(geometry, 59, 59).get().getHitRegion());
+        assertEquals(background, isHit(geometry, 35, 35).get().getHitRegion());
+
+        assertFalse(isHit(geometry, 150, 50).isPresent());
+    }
+
+    @Test
+    public void testImpactIsRelativeToRegion() {
+        final Hit hit = isHit(TargetGeometry.capture(targetGroup), 55, 45).get();
+
+        assertEquals(ellipse, hit.getHitRegion());
+        assertEquals(15, hit.getImpactX());
+        assertEquals(5, hit.getImpactY());
+    }
+
+    @Test
+    public void testMovedAndResizedTarget() {
+        final TargetGeometry geometry = TargetGeometry.capture(targetGroup);
+
+        targetGroup.setLayoutX(200);
+        targetGroup.setLayoutY(100);
+        targetGroup.setScaleX(2);
+        targetGroup.setScaleY(2);
+
+        final TargetGeometry moved = geometry.withTransform(targetGroup);
+        assertSame(geometry.getRegions(), moved.getRegions());
+
+        // The old copy still describes the target where it used to be
+        assertEquals(ellipse, isHit(geometry, 52, 52).get().getHitRegion());
+        assertFalse(isHit(moved, 52, 52).isPresent());
+
+        // Scaled around the group's center, which is (50, 50) locally
+        assertEquals(ellipse, isHit(moved, 250, 150).get().getHitRegion());
+        assertEquals(triangle, isHit(moved, 160, 60).get().getHitRegion());
+        assertEquals(background, isHit(moved, 340, 240).get().getHitRegion());
+    }
+
+    @Test
+    public void testIgnoredRegion() {
+        final Map<String, String> tags = new HashMap<>();
+        tags.put(Target.TAG_IGNORE_HIT, "true");
+        ellipse.setTags(tags);
+
+        assertEquals(background, isHit(TargetGeometry.capture(targetGroup), 52, 52).get().getHitRegion());
+    }
+}
@@ -0,0 +1,94 @@
+package com.shootoff.plugins;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+import org.junit.Test;
+
+import com.shootoff.plugins.AudioEngine.Voice;
+
+public class TestAudioEngine {
+    private static short sampleAt(byte[] chunk, int index) {
+        return (short) ((chunk[index * 2] & 0xFF) | (chunk[index * 2 + 1] << 8));
+    }
+
+    @Test
+    public void testMixOverlappingVoices() {
+        final List<Voice> voices = new ArrayList<>();
+        final Voice shortVoice = new Voice(new short[] { 100, 200 });
+        final Voice longVoice = new Voice(new short[] { 1000, 1000, 1000, 1000, 1000, 1000 });
+        voices.add(shortVoice);
+        voices.add(longVoice);
+
+        final List<Voice> finishedVoices = new ArrayList<>();
+        final int[] sums = new int[4];
+        final byte[] chunk = new byte[8];
+
+        AudioEngine.mix(voices, sums, chunk, finishedVoices);
+
+        assertEquals(1100, sampleAt(chunk, 0));
+        assertEquals(1200, sampleAt(chunk, 1));
+        assertEquals(1000, sampleAt(chunk, 2));
+        assertEquals(1000, sampleAt(chunk, 3));
+        assertEquals(1, finishedVoices.size());
+        assertSame(shortVoice, finishedVoices.get(0));
+        assertEquals(1, voices.size());
+
+        finishedVoices.clear();
+        AudioEngine.mix(voices, sums, chunk, finishedVoices);
+
+        assertEquals(1000, sampleAt(chunk, 1));
+        assertEquals(0, sampleAt(chunk, 2));
+        assertTrue(voices.isEmpty());
+        assertSame(longVoice, finishedVoices.get(0));
+    }
+
+    @Test
+    public void testMixClips() {
+        final List<Voice> voices = new ArrayList<>();
+        voices.add(new Voice(new short[] { Short.MAX_VALUE, Short.MIN_VALUE }));
+        voices.add(new Voice(new short[] { Short.MAX_VALUE, Short.MIN_VALUE }));
+
+        final byte[] chunk = new byte[4];
+        AudioEngine.mix(voices, new int[2], chunk, new ArrayList<>());
+
+        assertEquals(Short.MAX_VALUE, sampleAt(chunk, 0));
+        assertEquals(Short.MIN_VALUE, sampleAt(chunk, 1));
+    }
+
+    @Test
+    public void testClosedVoiceStops() {
+        final List<Voice> voices = new ArrayList<>();
+        final Voice voice = new Voice(new short[] { 500, 500, 500, 500 });
+        voices.add(voice);
+        voice.close();
+
+        final List<Voice> finishedVoices = new ArrayList<>();
+        final byte[] chunk = new byte[4];
+        AudioEngine.mix(voices, new int[2], chunk, finishedVoices);
+
+        assertFalse(voice.isOpen());
+        assertEquals(0, sampleAt(chunk, 0));
+        assertSame(voice, finishedVoices.get(0));
+    }
+
+    @Test
+    public void testDecodeMonoAtHalfRate() throws IOException {
+        final AudioFormat format = new AudioFormat(22050f, 16, 1, true, true);
+        final byte[] pcm = { 0, 0, 0x03, (byte) 0xE8, 0x07, (byte) 0xD0 }; // 0, 1000, 2000
+        final AudioInputStream audioInputStream = new AudioInputStream(new ByteArrayInputStream(pcm), format, 3);
+
+        final SoundClip clip = SoundClip.decode(audioInputStream);
+
+        assertEquals(6, clip.getFrameCount());
+        assertArrayEquals(new short[] { 0, 0, 500, 500, 1000, 1000, 1500, 1500, 2000, 2000, 2000, 2000 },
+                clip.getSamples());
+    }
+}
@@ -0,0 +1,160 @@
+package com.shootoff.session.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.shootoff.camera.shot.DisplayShot;
+import com.shootoff.camera.shot.ShotColor;
+import com.shootoff.session.Event;
+import com.shootoff.session.ExerciseFeedMessageEvent;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.session.TargetAddedEvent;
+import com.shootoff.session.TargetMovedEvent;
+import com.shootoff.session.TargetRemovedEvent;
+import com.shootoff.session.TargetResizedEvent;
+
+public class TestBinarySession {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File sessionFile;
+
+    @Before
+    public void setUp() throws IOException {
+        sessionFile = new File(folder.getRoot(), "test" + BinarySessionReader.EXTENSION);
+    }
+
+    private Map<String, List<Event>> saveAndLoad(Map<String, List<Event>> events) {
+        final SessionRecorder sessionRecorder = new SessionRecorder();
+        sessionRecorder.addEvents(events);
+        assertTrue(SessionIO.saveSession(sessionRecorder, sessionFile));
+        assertFalse(new File(folder.getRoot(), sessionFile.getName() + ".tmp").exists());
+
+        final Optional<SessionRecorder> loaded = SessionIO.loadSession(sessionFile);
+        assertTrue(loaded.isPresent());
+        return loaded.get().getEvents();
+    }
+
+    @Test
+    public void testEveryEventType() {
+        final List<Event> cameraEvents = new ArrayList<>();
+        cameraEvents.add(new TargetAddedEvent("camera", 10, "bullseye.target"));
+        cameraEvents.add(new TargetMovedEvent("camera", 20, 0, 30, 40));
+        cameraEvents.add(new TargetResizedEvent("camera", 30, 0, 100.5, 200.25));
+        cameraEvents.add(new ShotEvent("camera", 40, new DisplayShot(ShotColor.INFRARED, 12.5, 15.5, 1234, 3), true,
+                false, Optional.of(0), Optional.of(2), Optional.of("camera:session/1.mp4:2500")));
+        cameraEvents.add(new ShotEvent("camera", 50, new DisplayShot(ShotColor.RED, 1, 2, 1300, 4), false, true,
+                Optional.empty(), Optional.empty(), Optional.empty()));
+        cameraEvents.add(new ExerciseFeedMessageEvent("camera", 60, "Well done"));
+        cameraEvents.add(new TargetRemovedEvent("camera", 70, 0));
+
+        final Map<String, List<Event>> events = new HashMap<>();
+        events.put("camera", cameraEvents);
+
+        final List<Event> loaded = saveAndLoad(events).get("camera");
+        assertEquals(7, loaded.size());
+
+        assertEquals("bullseye.target", ((TargetAddedEvent) loaded.get(0)).getTargetName());
+
+        final TargetMovedEvent moved = (TargetMovedEvent) loaded.get(1);
+        assertEquals(20, moved.getTimestamp());
+        assertEquals(30, moved.getNewX());
+        assertEquals(40, moved.getNewY());
+
+        final TargetResizedEvent resized = (TargetResizedEvent) loaded.get(2);
+        assertEquals(100.5, resized.getNewWidth(), 0);
+        assertEquals(200.25, resized.getNewHeight(), 0);
+
+        final ShotEvent shot = (ShotEvent) loaded.get(3);
+        assertEquals(40, shot.getTimestamp());
+        assertEquals(ShotColor.INFRARED, shot.getShot().getColor());
+        assertEquals(12.5, shot.getShot().getX(), 0);
+        assertEquals(15.5, shot.getShot().getY(), 0);
+        assertEquals(1234, shot.getShot().getTimestamp());
+        assertEquals(3, (int) shot.getShot().getMarker().getRadiusX());
+        assertTrue(shot.isMalfunction());
+        assertFalse(shot.isReload());
+        assertEquals(0, shot.getTargetIndex().get().intValue());
+        assertEquals(2, shot.getHitRegionIndex().get().intValue());
+        assertEquals("camera:session/1.mp4:2500", shot.getVideoString().get());
+
+        final ShotEvent reload = (ShotEvent) loaded.get(4);
+        assertEquals(ShotColor.RED, reload.getShot().getColor());
+        assertTrue(reload.isReload());
+        assertFalse(reload.getTargetIndex().isPresent());
+        assertFalse(reload.getHitRegionIndex().isPresent());
+        assertFalse(reload.getVideoString().isPresent());
+
+        assertEquals("Well done", ((ExerciseFeedMessageEvent) loaded.get(5)).getMessage());
+        assertEquals(0, ((TargetRemovedEvent) loaded.get(6)).getTargetIndex());
+
+        // Decoded once, thus the same event is returned every time
+        assertSame(loaded.get(3), loaded.get(3));
+    }
+
+    @Test
+    public void testSeveralCamerasAndFindEvent() {
+        final Map<String, List<Event>> events = new HashMap<>();
+
+        for (int camera = 0; camera < 3; camera++) {
+            final List<Event> cameraEvents = new ArrayList<>();
+            for (int i = 0; i < 1000; i++)
+                cameraEvents.add(new TargetRemovedEvent("camera" + camera, i * 10 + camera, i));
+            events.put("camera" + camera, cameraEvents);
+        }
+
+        final Map<String, List<Event>> loaded = saveAndLoad(events);
+        assertEquals(3, loaded.size());
+
+        final List<Event> cameraEvents = loaded.get("camera2");
+        assertEquals(1000, cameraEvents.size());
+        assertEquals(500, ((TargetRemovedEvent) cameraEvents.get(500)).getTargetIndex());
+
+        assertEquals(-1, SessionRecorder.findEvent(cameraEvents, 1));
+        assertEquals(0, SessionRecorder.findEvent(cameraEvents, 2));
+        assertEquals(499, SessionRecorder.findEvent(cameraEvents, 4999));
+        assertEquals(500, SessionRecorder.findEvent(cameraEvents, 5002));
+        assertEquals(999, SessionRecorder.findEvent(cameraEvents, 100000));
+    }
+
+    @Test
+    public void testFailedSaveKeepsPreviousSession() throws IOException {
+        final Map<String, List<Event>> events = new HashMap<>();
+        events.put("camera", new ArrayList<>());
+        events.get("camera").add(new TargetAddedEvent("camera", 10, "bullseye.target"));
+        saveAndLoad(events);
+
+        // A folder in the way of the temporary file makes writing it fail
+        final File blocker = new File(folder.getRoot(), sessionFile.getName() + ".tmp");
+        assertTrue(blocker.mkdir());
+        assertTrue(new File(blocker, "file").createNewFile());
+
+        events.get("camera").add(new TargetRemovedEvent("camera", 20, 0));
+        final SessionRecorder sessionRecorder = new SessionRecorder();
+        sessionRecorder.addEvents(events);
+        assertFalse(SessionIO.saveSession(sessionRecorder, sessionFile));
+
+        final Optional<SessionRecorder> loaded = SessionIO.loadSession(sessionFile);
+        assertTrue(loaded.isPresent());
+        assertEquals(1, loaded.get().getEvents().get("camera").size());
+    }
+
+    @Test
+    public void testNotABinarySession() throws IOException {
+        assertTrue(sessionFile.createNewFile());
+        assertFalse(SessionIO.loadSession(sessionFile).isPresent());
+    }
+}
@@ -47,7 +47,7 @@ public class TestSessionIO {
         sessionRecorder = new SessionRecorder();
         cameraName1 = "Default";
         cameraName2 = "Another Camera";
-        videoString = "camera1:test/file.mp4,camera2:what/ax.vid";
+        videoString = "camera1:test/file.mp4:2500,camera2:what/ax.vid";
         redShot = new DisplayShot(new Shot(ShotColor.RED, 10, 11, 3), 2);
         greenShot = new DisplayShot(new Shot(ShotColor.GREEN, 12, 15, 3), 5);
         targetName = "bullseye.target";
@@ -113,6 +113,8 @@ public class TestSessionIO {
                 ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getVideos().get("camera1"));
         assertEquals(new File("sessions/what/ax.vid"),
                 ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getVideos().get("camera2"));
+        assertEquals(2500L, ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getVideoOffsets().get("camera1").longValue());
+        assertEquals(0L, ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getVideoOffsets().get("camera2").longValue());
 
         final int CAM1_SHOT_GREEN_ONE_INDEX = 4;
         assertEquals(ShotColor.GREEN, ((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).getShot().getColor());
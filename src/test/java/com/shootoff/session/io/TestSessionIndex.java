@@ -0,0 +1,127 @@
+package com.shootoff.session.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.shootoff.camera.shot.DisplayShot;
+import com.shootoff.camera.shot.ShotColor;
+import com.shootoff.session.Event;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.session.TargetAddedEvent;
+
+public class TestSessionIndex {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File sessionsFolder;
+
+    @Before
+    public void setUp() throws IOException {
+        sessionsFolder = folder.newFolder("sessions");
+    }
+
+    private File saveSession(String name, int shotCount, long lastModified) {
+        final Map<String, List<Event>> events = new HashMap<>();
+
+        for (final String cameraName : new String[] { "camera1", "camera2" }) {
+            final List<Event> cameraEvents = new ArrayList<>();
+            cameraEvents.add(new TargetAddedEvent(cameraName, 0, "bullseye.target"));
+
+            for (int i = 1; i <= shotCount; i++) {
+                cameraEvents.add(new ShotEvent(cameraName, i * 1000, new DisplayShot(ShotColor.RED, 1, 1, i * 1000, 2),
+                        false, false, Optional.empty(), Optional.empty(), Optional.empty()));
+            }
+
+            events.put(cameraName, cameraEvents);
+        }
+
+        final SessionRecorder sessionRecorder = new SessionRecorder();
+        sessionRecorder.addEvents(events);
+
+        final File sessionFile = new File(sessionsFolder, name + BinarySessionReader.EXTENSION);
+        SessionIO.saveSession(sessionRecorder, sessionFile);
+        assertTrue(sessionFile.setLastModified(lastModified));
+
+        return sessionFile;
+    }
+
+    @Test
+    public void testSummaries() {
+        saveSession("older", 3, 1_000_000);
+        saveSession("newer", 5, 2_000_000);
+
+        final List<SessionSummary> pages = new ArrayList<>();
+        final List<SessionSummary> summaries = new SessionIndex(sessionsFolder).update(pages::addAll);
+
+        assertEquals(2, summaries.size());
+        assertEquals(summaries, pages);
+
+        final SessionSummary newer = summaries.get(0);
+        assertEquals("newer", newer.getSessionName());
+        assertEquals(2, newer.getCameraNames().size());
+        assertEquals("camera1", newer.getCameraNames().get(0));
+        assertEquals(10, newer.getShotCount());
+        assertEquals(5000, newer.getDuration());
+
+        assertEquals("older", summaries.get(1).getSessionName());
+        assertEquals(6, summaries.get(1).getShotCount());
+
+        assertTrue(new File(sessionsFolder, SessionIndex.INDEX_FILE_NAME).exists());
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        saveSession("kept", 1, 1_000_000);
+        final File changed = saveSession("changed", 1, 2_000_000);
+        final File removed = saveSession("removed", 1, 3_000_000);
+
+        new SessionIndex(sessionsFolder).update((page) -> {});
+
+        saveSession("changed", 4, 4_000_000);
+        saveSession("added", 2, 5_000_000);
+        assertTrue(removed.delete());
+
+        // A new index reads the saved one, thus the pages of sessions that
+        // did not change come before the sessions that had to be loaded
+        final List<SessionSummary> pages = new ArrayList<>();
+        final List<SessionSummary> summaries = new SessionIndex(sessionsFolder).update(pages::addAll);
+
+        assertEquals(3, summaries.size());
+        assertEquals("added", summaries.get(0).getSessionName());
+        assertEquals("changed", summaries.get(1).getSessionName());
+        assertEquals(8, summaries.get(1).getShotCount());
+        assertEquals(changed, summaries.get(1).getSessionFile());
+        assertEquals("kept", summaries.get(2).getSessionName());
+
+        assertEquals(3, pages.size());
+        assertEquals("kept", pages.get(0).getSessionName());
+        assertEquals("added", pages.get(1).getSessionName());
+        assertEquals("changed", pages.get(2).getSessionName());
+    }
+
+    @Test
+    public void testUnreadableIndexIsRebuilt() throws IOException {
+        saveSession("session", 2, 1_000_000);
+
+        final File indexFile = new File(sessionsFolder, SessionIndex.INDEX_FILE_NAME);
+        assertTrue(indexFile.createNewFile());
+
+        final List<SessionSummary> summaries = new SessionIndex(sessionsFolder).update((page) -> {});
+        assertEquals(1, summaries.size());
+        assertEquals(4, summaries.get(0).getShotCount());
+        assertTrue(indexFile.length() > 0);
+    }
+}
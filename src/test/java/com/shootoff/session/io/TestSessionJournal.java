@@ -0,0 +1,126 @@
+package com.shootoff.session.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.shootoff.session.Event;
+import com.shootoff.session.EventType;
+import com.shootoff.session.ExerciseFeedMessageEvent;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.TargetAddedEvent;
+import com.shootoff.session.TargetMovedEvent;
+import com.shootoff.session.TargetRemovedEvent;
+
+public class TestSessionJournal {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File journalFile;
+
+    @Before
+    public void setUp() throws IOException {
+        journalFile = new File(folder.getRoot(), "sessions" + File.separator + "test" + SessionJournal.EXTENSION);
+    }
+
+    @Test
+    public void testAppendAndLoad() throws IOException {
+        final SessionJournal journal = new SessionJournal(journalFile);
+        journal.append(new TargetAddedEvent("camera1", 10, "bullseye.target"));
+        journal.append(new TargetAddedEvent("camera2", 20, "silhouette.target"));
+        journal.append(new TargetMovedEvent("camera1", 30, 0, 5, 6));
+        journal.append(new ExerciseFeedMessageEvent("camera1", 40, "Shoot"));
+        journal.close();
+
+        final Map<String, List<Event>> events = SessionJournal.load(journalFile);
+
+        assertEquals(2, events.size());
+        assertEquals(3, events.get("camera1").size());
+        assertEquals(1, events.get("camera2").size());
+
+        final TargetMovedEvent moved = (TargetMovedEvent) events.get("camera1").get(1);
+        assertEquals(30, moved.getTimestamp());
+        assertEquals(5, moved.getNewX());
+        assertEquals(6, moved.getNewY());
+
+        assertEquals("Shoot", ((ExerciseFeedMessageEvent) events.get("camera1").get(2)).getMessage());
+        assertEquals("silhouette.target", ((TargetAddedEvent) events.get("camera2").get(0)).getTargetName());
+    }
+
+    @Test
+    public void testReopenAppends() throws IOException {
+        SessionJournal journal = new SessionJournal(journalFile);
+        journal.append(new TargetAddedEvent("camera1", 10, "bullseye.target"));
+        journal.close();
+
+        journal = new SessionJournal(journalFile);
+        journal.append(new TargetRemovedEvent("camera1", 20, 0));
+        journal.close();
+
+        final List<Event> events = SessionJournal.load(journalFile).get("camera1");
+        assertEquals(2, events.size());
+        assertEquals(EventType.TARGET_REMOVED, events.get(1).getType());
+    }
+
+    @Test
+    public void testLoadStopsAtCutOffLine() throws IOException {
+        final SessionJournal journal = new SessionJournal(journalFile);
+        journal.append(new TargetAddedEvent("camera1", 10, "bullseye.target"));
+        journal.close();
+
+        try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+            out.write("{\"type\":\"targetRemoved\",\"timesta".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final List<Event> events = SessionJournal.load(journalFile).get("camera1");
+        assertEquals(1, events.size());
+        assertEquals(EventType.TARGET_ADDED, events.get(0).getType());
+    }
+
+    @Test
+    public void testJournaledMovesAreCollapsed() throws IOException {
+        final SessionJournal journal = new SessionJournal(journalFile);
+        journal.append(new TargetAddedEvent("camera1", 10, "bullseye.target"));
+        journal.append(new TargetMovedEvent("camera1", 20, 0, 1, 1));
+        journal.append(new TargetMovedEvent("camera1", 30, 0, 2, 2));
+        journal.append(new TargetMovedEvent("camera1", 40, 0, 3, 3));
+        journal.close();
+
+        final SessionRecorder sessionRecorder = new SessionRecorder();
+        sessionRecorder.addJournaledEvents(SessionJournal.load(journalFile));
+
+        final List<Event> events = sessionRecorder.getCameraEvents("camera1");
+        assertEquals(2, events.size());
+        assertEquals(3, ((TargetMovedEvent) events.get(1)).getNewX());
+    }
+
+    @Test
+    public void testCloseJournal() throws IOException {
+        final SessionJournal keptJournal = new SessionJournal(journalFile);
+        keptJournal.append(new TargetAddedEvent("camera1", 10, "bullseye.target"));
+
+        final SessionRecorder keepingRecorder = new SessionRecorder();
+        keepingRecorder.setJournal(keptJournal);
+        keepingRecorder.closeJournal(false);
+
+        assertTrue(journalFile.exists());
+        assertEquals(1, keepingRecorder.getCameraEvents("camera1").size());
+
+        final SessionRecorder deletingRecorder = new SessionRecorder();
+        deletingRecorder.setJournal(new SessionJournal(journalFile));
+        deletingRecorder.closeJournal(true);
+
+        assertFalse(journalFile.exists());
+        assertTrue(deletingRecorder.getEvents().isEmpty());
+    }
+}
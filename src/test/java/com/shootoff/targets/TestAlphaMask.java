@@ -0,0 +1,75 @@
+package com.shootoff.targets;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestAlphaMask {
+    private static final int OPAQUE = 0xFF102030;
+    private static final int TRANSLUCENT = 0x01FFFFFF;
+    private static final int TRANSPARENT = 0x00FFFFFF;
+
+    private AlphaMask alphaMask;
+
+    @Before
+    public void setUp() {
+        // 3x2 image with a transparent middle column
+        alphaMask = new AlphaMask(3, 2,
+                new int[] { OPAQUE, TRANSPARENT, TRANSLUCENT, TRANSLUCENT, TRANSPARENT, OPAQUE });
+    }
+
+    @Test
+    public void testPixels() {
+        assertEquals(3, alphaMask.getWidth());
+        assertEquals(2, alphaMask.getHeight());
+
+        assertTrue(alphaMask.isOpaque(0, 0));
+        assertFalse(alphaMask.isOpaque(1, 0));
+        assertTrue(alphaMask.isOpaque(2, 0));
+        assertTrue(alphaMask.isOpaque(0, 1));
+        assertFalse(alphaMask.isOpaque(1, 1));
+        assertTrue(alphaMask.isOpaque(2, 1));
+    }
+
+    @Test
+    public void testOutsideImage() {
+        assertFalse(alphaMask.isOpaque(-1, 0));
+        assertFalse(alphaMask.isOpaque(0, -1));
+        assertFalse(alphaMask.isOpaque(3, 0));
+        assertFalse(alphaMask.isOpaque(0, 2));
+    }
+
+    @Test
+    public void testScaled() {
+        // Shown at 300x200, thus each pixel covers 100x100
+        assertTrue(alphaMask.isOpaque(99.5, 199.5, 300, 200));
+        assertFalse(alphaMask.isOpaque(100, 0, 300, 200));
+        assertFalse(alphaMask.isOpaque(199.9, 150, 300, 200));
+        assertTrue(alphaMask.isOpaque(200, 150, 300, 200));
+        assertFalse(alphaMask.isOpaque(300, 150, 300, 200));
+
+        // Shown smaller than its original size
+        assertTrue(alphaMask.isOpaque(0, 0, 1.5, 1));
+        assertFalse(alphaMask.isOpaque(0.5, 0, 1.5, 1));
+
+        assertFalse(alphaMask.isOpaque(0, 0, 0, 0));
+    }
+
+    @Test
+    public void testManyWords() {
+        final int width = 130;
+        final int height = 7;
+        final int[] pixels = new int[width * height];
+
+        for (int i = 0; i < pixels.length; i++)
+            pixels[i] = i % 3 == 0 ? OPAQUE : TRANSPARENT;
+
+        final AlphaMask largeMask = new AlphaMask(width, height, pixels);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++)
+                assertEquals((y * width + x) % 3 == 0, largeMask.isOpaque(x, y));
+        }
+    }
+}
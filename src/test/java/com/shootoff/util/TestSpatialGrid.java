@@ -0,0 +1,69 @@
+package com.shootoff.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSpatialGrid {
+    private SpatialGrid<String> grid;
+
+    @Before
+    public void setUp() {
+        grid = new SpatialGrid<>(10);
+    }
+
+    @Test
+    public void testCandidatesNearPoint() {
+        grid.put("left", 0, 0, 15, 15);
+        grid.put("right", 100, 0, 115, 15);
+        grid.put("both", 0, 0, 115, 15);
+
+        assertEquals(Arrays.asList("left", "both"), grid.getCandidates(5, 5));
+        assertEquals(Arrays.asList("right", "both"), grid.getCandidates(110, 12));
+        assertEquals(Collections.singletonList("both"), grid.getCandidates(50, 5));
+        assertTrue(grid.getCandidates(50, 50).isEmpty());
+        assertTrue(grid.getCandidates(-5, -5).isEmpty());
+    }
+
+    @Test
+    public void testMovedItemKeepsItsOrder() {
+        grid.put("first", 0, 0, 5, 5);
+        grid.put("second", 50, 50, 55, 55);
+        grid.put("third", 0, 0, 5, 5);
+
+        grid.put("second", 0, 0, 5, 5);
+
+        assertEquals(Arrays.asList("first", "second", "third"), grid.getCandidates(2, 2));
+        assertTrue(grid.getCandidates(52, 52).isEmpty());
+        assertEquals(3, grid.size());
+    }
+
+    @Test
+    public void testRemove() {
+        grid.put("item", -20, -20, 20, 20);
+        assertEquals(Collections.singletonList("item"), grid.getCandidates(-15, 15));
+
+        grid.remove("item");
+        assertTrue(grid.getCandidates(-15, 15).isEmpty());
+        assertEquals(0, grid.size());
+    }
+
+    @Test
+    public void testHugeAndEmptyBounds() {
+        grid.put("small", 0, 0, 5, 5);
+        grid.put("huge", Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.POSITIVE_INFINITY);
+        grid.put("empty", 0, 0, -1, -1);
+
+        assertEquals(Arrays.asList("small", "huge"), grid.getCandidates(1, 1));
+        assertEquals(Collections.singletonList("huge"), grid.getCandidates(1e9, -1e9));
+        assertEquals(2, grid.size());
+
+        grid.remove("huge");
+        assertTrue(grid.getCandidates(1e9, -1e9).isEmpty());
+    }
+}